@@ -508,6 +508,7 @@ public class CoxPH extends ModelBuilder<CoxPHModel,CoxPHModel.CoxPHParameters,Co
                 .disableIntercept();
         Scope.track_generic(dinfo);
         DKV.put(dinfo);
+        ReplicatedKeys.enable(dinfo._key); // Read by every node in each CPHBaseTask
 
         // The model to be built
         CoxPHModel.CoxPHOutput output = new CoxPHModel.CoxPHOutput(CoxPH.this, dinfo._adaptedFrame, train(), strataMap);
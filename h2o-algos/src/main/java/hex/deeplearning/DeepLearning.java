@@ -308,6 +308,7 @@ public class DeepLearning extends ModelBuilder<DeepLearningModel,DeepLearningMod
           if (cp != null) cp.unlock(_job);
         }
       }
+      ReplicatedKeys.enable(cp.model_info().data_info()._key); // Read by every node in each FrameTask
       trainModel(cp);
       for (Key k : removeMe) DKV.remove(k);
 
@@ -383,6 +383,7 @@ public class Word2VecModel extends Model<Word2VecModel, Word2VecParameters, Word
     private static <T extends Keyed> Key<T> publish(Keyed<T> keyed) {
       Scope.track_generic(keyed);
       DKV.put(keyed);
+      ReplicatedKeys.enable(keyed._key); // Read by every node, every iteration
       return keyed._key;
     }
 
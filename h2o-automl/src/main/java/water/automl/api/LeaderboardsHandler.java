@@ -15,12 +15,7 @@ public class LeaderboardsHandler extends Handler {
     public Leaderboard[] leaderboards;
 
     public static Leaderboard[] fetchAll() {
-      final Key<Leaderboard>[] leaderboardKeys = KeySnapshot.globalSnapshot().filter(new KeySnapshot.KVFilter() {
-          @Override
-          public boolean filter(KeySnapshot.KeyInfo k) {
-            return Value.isSubclassOf(k._type, Leaderboard.class);
-          }
-        }).keys();
+      final Key<Leaderboard>[] leaderboardKeys = KeySnapshot.globalKeysOfClass(Leaderboard.class);
 
       Leaderboard[] leaderboards = new Leaderboard[leaderboardKeys.length];
       for (int i = 0; i < leaderboardKeys.length; i++) {
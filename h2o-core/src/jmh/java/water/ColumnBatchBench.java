@@ -0,0 +1,132 @@
+package water;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import water.fvec.Chunk;
+import water.fvec.ColumnBatch;
+import water.fvec.NewChunk;
+import water.rapids.ast.prims.operators.AstBinOp;
+import water.rapids.ast.prims.operators.AstLt;
+import water.rapids.ast.prims.operators.AstMul;
+import water.rapids.ast.prims.operators.AstPlus;
+
+/**
+ * Per-element Chunk reads vs bulk-decoded batches, for a reduction and for the
+ * Rapids binary operators
+ */
+@State(Scope.Thread)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ColumnBatchBench {
+
+  @Param({"100000", "1000000"})
+  private int rows;
+  private Chunk[] chunks;
+  private AstBinOp[] ops;
+  private double[] out;
+
+  @Benchmark
+  public double sumAtd() {
+    double sum = 0;
+    for (Chunk c : chunks)
+      for (int row = 0; row < c._len; ++row)
+        sum += c.atd(row);
+    return sum;
+  }
+
+  @Benchmark
+  public double sumBatches() {
+    double sum = 0;
+    ColumnBatch cb = new ColumnBatch(chunks);
+    while (cb.next())
+      for (int col = 0; col < chunks.length; ++col) {
+        double[] xs = cb.doubles(col);
+        for (int i = 0; i < cb.len(); ++i)
+          sum += xs[i];
+      }
+    return sum;
+  }
+
+  @Benchmark
+  public double binOpAtd() {
+    for (AstBinOp op : ops)
+      for (Chunk c : chunks)
+        for (int row = 0; row < c._len; ++row)
+          out[row] = op.op(c.atd(row), 1.5);
+    return out[rows - 1];
+  }
+
+  @Benchmark
+  public double binOpBatches() {
+    double[] scalar = new double[ColumnBatch.BATCH_ROWS];
+    Arrays.fill(scalar, 1.5);
+    double[] res = new double[ColumnBatch.BATCH_ROWS];
+    for (AstBinOp op : ops) {
+      ColumnBatch cb = new ColumnBatch(chunks);
+      while (cb.next())
+        for (int col = 0; col < chunks.length; ++col) {
+          op.op(cb.doubles(col), scalar, res, cb.len());
+          System.arraycopy(res, 0, out, cb.start(), cb.len());
+        }
+    }
+    return out[rows - 1];
+  }
+
+  @Setup
+  public void setup() {
+    Random r = new Random(0xBA7C4);
+    chunks = new Chunk[4];
+    for (int col = 0; col < chunks.length; ++col) {
+      double[] raw = new double[rows];
+      for (int row = 0; row < rows; ++row)
+        raw[row] = get(r, col);
+      chunks[col] = new NewChunk(raw).compress();
+    }
+    ops = new AstBinOp[]{new AstPlus(), new AstMul(), new AstLt()};
+    out = new double[rows];
+  }
+
+  private static double get(Random r, int j) {
+    switch (j) { // do 4 chunk types
+      case 0:
+        return r.nextInt(200); //C1NChunk - 1 byte integer
+      case 1:
+        return r.nextInt(30000); //C2Chunk - 2 byte integer
+      case 2:
+        return r.nextGaussian(); //C8DChunk - doubles
+      case 3:
+        return r.nextInt(100000) / 100.0; //C4SChunk - scaled decimals
+      default:
+        throw H2O.unimpl();
+    }
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+        .include(ColumnBatchBench.class.getSimpleName())
+        .build();
+
+    new Runner(opt).run();
+  }
+}
@@ -53,12 +53,7 @@ public abstract class Model<M extends Model<M,P,O>, P extends Model.Parameters,
   public IcedHashMap<Key, String> _toDelete = new IcedHashMap<>();
 
   public static Model[] fetchAll() {
-    final Key[] modelKeys = KeySnapshot.globalSnapshot().filter(new KeySnapshot.KVFilter() {
-      @Override
-      public boolean filter(KeySnapshot.KeyInfo k) {
-        return Value.isSubclassOf(k._type, Model.class);
-      }
-    }).keys();
+    final Key[] modelKeys = KeySnapshot.globalKeysOfClass(Model.class);
 
     Model[] models = new Model[modelKeys.length];
     for (int i = 0; i < modelKeys.length; i++) {
@@ -248,6 +243,12 @@ public abstract class Model<M extends Model<M,P,O>, P extends Model.Parameters,
      */
     public double _max_runtime_secs = 0;
 
+    /**
+     * CPU share of the training Job relative to other Jobs and to interactive work,
+     * while the Cloud is busy; see {@link water.JobScheduler}.  Use 0 for the default.
+     */
+    public int _cpu_share = 0;
+
     /**
      * Early stopping based on convergence of stopping_metric.
      * Stop if simple moving average of the stopping_metric does not improve by stopping_tolerance for
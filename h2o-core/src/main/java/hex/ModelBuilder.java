@@ -212,12 +212,17 @@ abstract public class ModelBuilder<M extends Model<M,P,O>, P extends Model.Param
     // 2) Train/Valid frame locking and unlocking
     // 3) calling tryComplete()
     public void compute2() {
+      // Keep the training data in memory while iterating over it; with the
+      // Cleaner off nothing is ever swapped, so no need to pin.
+      Key pins = H2O.ARGS.cleaner ? Key.make() : null;
       try {
         Scope.enter();
         _parms.read_lock_frames(_job); // Fetch & read-lock input frames
+        if( pins != null ) EvictionPolicy.pin(pins, train(), valid());
         computeImpl();
         saveModelCheckpointIfConfigured();
       } finally {
+        if( pins != null ) EvictionPolicy.unpin(pins);
         setFinalState();
         _parms.read_unlock_frames(_job);
         if (!_parms._is_cv_model) cleanUp(); //cv calls cleanUp on its own terms
@@ -300,6 +305,7 @@ abstract public class ModelBuilder<M extends Model<M,P,O>, P extends Model.Param
     if (error_count() > 0)
       throw H2OModelBuilderIllegalArgumentException.makeFromBuilder(this);
     _start_time = System.currentTimeMillis();
+    if( _parms._cpu_share > 0 ) _job._cpu_share = _parms._cpu_share;
     if( !nFoldCV() )
       return _job.start(trainModelImpl(), _parms.progressUnits(), _parms._max_runtime_secs);
 
@@ -1048,6 +1054,9 @@ abstract public class ModelBuilder<M extends Model<M,P,O>, P extends Model.Param
     // NOTE: allow re-init:
     clearInitState();
     assert _parms != null;      // Parms must already be set in
+    if (_parms._cpu_share < 0) {
+      error("_cpu_share", "CPU share must be greater than 0 (or 0 for the default).");
+    }
 
     if( _parms._train == null ) {
       if (expensive)
@@ -6,6 +6,7 @@ import java.net.*;
 import java.nio.*;
 import java.nio.channels.*;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Random;
 
 import water.network.SocketChannelUtils;
@@ -71,6 +72,7 @@ public final class AutoBuffer {
   // differ, then again the behavior is probably silent crash.
   private  InputStream _is;
   private short[] _typeMap; // Mapping from input stream map to current map, or null
+  private boolean[] _typesOut; // Type ids named in the stream so far, when writing a persisted stream
 
   // If we need a SocketChannel, raise the priority so we get the I/O over
   // with.  Do not want to have some TCP socket open, blocking the TCP channel
@@ -244,9 +246,10 @@ public final class AutoBuffer {
     _persist = 0;
 
     if( persist ) {
-      String[] typeMap = (H2O.CLOUD.leader() == H2O.SELF) ?
-              TypeMap.CLAZZES : FetchClazzes.fetchClazzes();
+      String[] typeMap = TypeMap.persistClazzes();
       put1(0x1C).put1(0xED).putStr(H2O.ABV.projectVersion()).putAStr(typeMap);
+      _typesOut = new boolean[typeMap.length];
+      for( int i=0; i<typeMap.length; i++ ) _typesOut[i] = typeMap[i] != null;
     }
     else put1(0);
   }
@@ -274,6 +277,28 @@ public final class AutoBuffer {
       _typeMap[i] = (short)(typeMap[i]==null ? 0 : TypeMap.onIce(typeMap[i]));
   }
 
+  // A persisted stream names in its header only the types in use when it was
+  // opened.  A type first seen later is named where it first appears: the
+  // INLINE_TYPE marker, its id in the stream, then its class name.
+  private static final int INLINE_TYPE = -2;
+  private void putType( int id ) {
+    if( _typesOut != null && (id >= _typesOut.length || !_typesOut[id]) ) {
+      if( id >= _typesOut.length ) _typesOut = Arrays.copyOf(_typesOut,Math.max(_typesOut.length<<1,id+1));
+      _typesOut[id] = true;
+      putInt(INLINE_TYPE).putInt(id).putStr(TypeMap.className(id));
+    } else putInt(id);
+  }
+  private int getType( ) {
+    int id = getInt();
+    if( _is==null || id == TypeMap.NULL ) return id;
+    if( id == INLINE_TYPE ) {
+      id = getInt();
+      if( id >= _typeMap.length ) _typeMap = Arrays.copyOf(_typeMap,Math.max(_typeMap.length<<1,id+1));
+      _typeMap[id] = (short)TypeMap.onIce(getStr());
+    }
+    return _typeMap[id];
+  }
+
   private void checkVersion(String version) {
     final boolean ignoreVersion = Boolean.getBoolean(H2O_SYSTEM_SERIALIZATION_IGNORE_VERSION);
     if (! version.equals(H2O.ABV.projectVersion())) {
@@ -384,6 +409,13 @@ public final class AutoBuffer {
   static BBPool BBP_BIG = new BBPool(64*1024); // Bytebuffer "common  big  size", for TCP
   public static int TCP_BUF_SIZ = BBP_BIG._size;
 
+  // Bulk transfers: direct buffers (off-heap Values, the mapped spill file)
+  // and file regions of at least BULK_MIN bytes written to a channel (TCP or
+  // file) skip the staging ByteBuffer, so are sent without any copy in the
+  // JVM.  Heap arrays stay on the staging path: NIO copies them to a direct
+  // buffer anyways, and larger copies measured no faster (NetworkBench).
+  static final int BULK_MIN = 2*BBP_BIG._size;
+
   private int bbFree() {
     if(_bb != null && _bb.isDirect())
       BBPool.FREE(_bb);
@@ -759,20 +791,18 @@ public final class AutoBuffer {
   public AutoBuffer put(Freezable f) {
     if( f == null ) return putInt(TypeMap.NULL);
     assert f.frozenType() > 0 : "No TypeMap for "+f.getClass().getName();
-    putInt(f.frozenType());
+    putType(f.frozenType());
     return f.write(this);
   }
 
   public <T extends Freezable> T get() {
-    int id = getInt();
+    int id = getType();
     if( id == TypeMap.NULL ) return null;
-    if( _is!=null ) id = _typeMap[id];
     return (T)TypeMap.newFreezable(id).read(this);
   }
   public <T extends Freezable> T get(Class<T> tc) {
-    int id = getInt();
+    int id = getType();
     if( id == TypeMap.NULL ) return null;
-    if( _is!=null ) id = _typeMap[id];
     assert tc.isInstance(TypeMap.theFreezable(id)):tc.getName() + " != " + TypeMap.theFreezable(id).getClass().getName() + ", id = " + id;
     return (T)TypeMap.newFreezable(id).read(this);
   }
@@ -1293,6 +1323,70 @@ public final class AutoBuffer {
     }
     return this;
   }
+  /** Put the remaining bytes of a ByteBuffer, in the format of {@link
+   *  #putA1(byte[])}; the buffer's position is left unchanged. */
+  public AutoBuffer putA1Buf( ByteBuffer bb ) {
+    ByteBuffer src = bb.duplicate();
+    putInt(src.remaining());
+    if( src.isDirect() && src.remaining() >= BULK_MIN && isBulkWriter() ) return putBulk(src);
+    if( src.remaining() > _bb.remaining() ) expandByteBuffer(src.remaining());
+    while( src.hasRemaining() ) {
+      int lim = src.limit();
+      src.limit(src.position() + Math.min(src.remaining(), _bb.remaining()));
+      _bb.put(src);
+      src.limit(lim);
+      if( src.hasRemaining() ) sendPartial();
+    }
+    return this;
+  }
+  /** Put len bytes of a file starting at pos, in the format of {@link
+   *  #putA1(byte[])}.  Bulk writes to a socket use {@link
+   *  FileChannel#transferTo}, so the bytes never enter the JVM. */
+  public AutoBuffer putA1( FileChannel fc, long pos, int len ) {
+    putInt(len);
+    try {
+      if( len < BULK_MIN || !isBulkWriter() ) {
+        byte[] buf = MemoryManager.malloc1(len);
+        ByteBuffer dst = ByteBuffer.wrap(buf);
+        while( dst.hasRemaining() )
+          if( fc.read(dst, pos + dst.position()) < 0 ) throw new EOFException("Reading " + len + " bytes of " + fc);
+        return putA1(buf, len);
+      }
+      sendPartial();            // Flush the staged bytes; opens the TCP channel as needed
+      long ns = System.nanoTime();
+      for( long done = 0; done < len; ) {
+        long res = fc.transferTo(pos + done, len - done, (WritableByteChannel) _chan);
+        if( res <= 0 ) throw new EOFException("Reading " + len + " bytes of " + fc);
+        done += res;
+      }
+      _time_io_ns += System.nanoTime() - ns;
+      _size += len;
+      return this;
+    } catch( IOException e ) {
+      throw new AutoBufferException(e);
+    }
+  }
+
+  /** True if large byte payloads put here go out through a channel (TCP or
+   *  file), rather than accumulating in memory. */
+  boolean isBulkWriter() { return !_read && (_h2o != null || _chan != null); }
+
+  // Write a direct buffer's bytes straight to the channel, after the staged ones
+  private AutoBuffer putBulk( ByteBuffer src ) {
+    assert src.isDirect();
+    sendPartial();              // Flush the staged bytes; opens the TCP channel as needed
+    int len = src.remaining();
+    long ns = System.nanoTime();
+    try {
+      while( src.hasRemaining() ) ((WritableByteChannel) _chan).write(src);
+    } catch( IOException e ) {  // Some kind of TCP fail, as in sendPartial
+      throw new AutoBufferException(e);
+    }
+    _time_io_ns += System.nanoTime() - ns;
+    _size += len;
+    return this;
+  }
+
   AutoBuffer putA2( short[] ary ) {
     //_arys++;
     if( ary == null ) return putInt(-1);
@@ -1612,6 +1706,226 @@ public final class AutoBuffer {
     return ts;
   }
 
+  // ==========================================================================
+  // Compact encodings, used by the serializers of {@link CompactWire} classes.
+  //
+  // Scalars are zig-zag varints: 7 bits per byte, small magnitudes of either
+  // sign take a single byte.  Arrays are a varint of length+1 (0 for null),
+  // then a format byte:
+  //  DENSE : a stream of element codes, where a 0 code is followed by the
+  //          length-1 of a run of zeros
+  //  SPARSE: the count of non-zeros, then (index gap, element code) pairs;
+  //          picked when the non-zeros are mostly isolated.
+  // Element codes are never 0: the zig-zag of a non-zero integer, or for
+  // doubles either an integral value (zig-zag << 1), or 1 followed by the raw
+  // 8 bytes.
+  private static final int DENSE = 0, SPARSE = 1;
+
+  public AutoBuffer putV4( int x ) { return putVar(zigzag(x)); }
+  public int getV4( ) { return (int)unzigzag(getVar()); }
+  public AutoBuffer putV8( long x ) { return putVar(zigzag(x)); }
+  public long getV8( ) { return unzigzag(getVar()); }
+
+  // Unsigned varint
+  AutoBuffer putVar( long x ) {
+    while( (x & ~0x7FL) != 0 ) { put1((int)((x & 0x7F) | 0x80)); x >>>= 7; }
+    return put1((int)x);
+  }
+  long getVar( ) {
+    long x = 0;
+    for( int shift = 0; ; shift += 7 ) {
+      int b = get1U();
+      x |= (long)(b & 0x7F) << shift;
+      if( (b & 0x80) == 0 ) return x;
+    }
+  }
+  private static long zigzag  ( long x ) { return (x << 1) ^ (x >> 63); }
+  private static long unzigzag( long x ) { return (x >>> 1) ^ -(x & 1); }
+
+  // Doubles holding small integers, like counts, get the integer code
+  private AutoBuffer putVd( double d ) {
+    long l = (long)d;
+    if( l == d && l != 0 && Math.abs(l) < (1L<<53) ) return putVar(zigzag(l) << 1);
+    return putVar(1).put8d(d);  // Fractional, huge, -0.0 or NaN
+  }
+  private double getVd( long code ) {
+    return code == 1 ? get8d() : (double)unzigzag(code >>> 1);
+  }
+  private static boolean isZero( double d ) { return Double.doubleToRawLongBits(d) == 0; }
+
+  // Sparse wins when the non-zeros are spread out: a gap per non-zero is
+  // cheaper than a code plus a run length per run of zeros.
+  private static boolean sparse( int nnz, int runs ) { return nnz < 2*runs; }
+
+  public AutoBuffer putAV4( int[] ary ) {
+    if( ary == null ) return putVar(0);
+    putVar(ary.length+1L);
+    if( ary.length == 0 ) return this;
+    int nnz = 0, runs = 0;
+    for( int i=0; i<ary.length; i++ )
+      if( ary[i] != 0 ) nnz++; else if( i==0 || ary[i-1] != 0 ) runs++;
+    if( sparse(nnz,runs) ) {
+      put1(SPARSE).putVar(nnz);
+      for( int i=0, last=-1; i<ary.length; i++ )
+        if( ary[i] != 0 ) { putVar(i-last-1).putVar(zigzag(ary[i])); last = i; }
+      return this;
+    }
+    put1(DENSE);
+    for( int i=0; i<ary.length; ) {
+      if( ary[i] != 0 ) { putVar(zigzag(ary[i++])); continue; }
+      int j=i; while( j<ary.length && ary[j]==0 ) j++;
+      putVar(0).putVar(j-i-1);
+      i = j;
+    }
+    return this;
+  }
+  public int[] getAV4( ) {
+    int len = (int)getVar()-1; if( len == -1 ) return null;
+    int[] ary = MemoryManager.malloc4(len);
+    if( len == 0 ) return ary;
+    if( get1U() == SPARSE ) {
+      for( int n=(int)getVar(), i=-1; n>0; n-- ) { i += (int)getVar()+1; ary[i] = (int)unzigzag(getVar()); }
+      return ary;
+    }
+    for( int i=0; i<len; ) {
+      long c = getVar();
+      if( c == 0 ) i += (int)getVar()+1; // Run of zeros
+      else ary[i++] = (int)unzigzag(c);
+    }
+    return ary;
+  }
+
+  public AutoBuffer putAV8( long[] ary ) {
+    if( ary == null ) return putVar(0);
+    putVar(ary.length+1L);
+    if( ary.length == 0 ) return this;
+    int nnz = 0, runs = 0;
+    for( int i=0; i<ary.length; i++ )
+      if( ary[i] != 0 ) nnz++; else if( i==0 || ary[i-1] != 0 ) runs++;
+    if( sparse(nnz,runs) ) {
+      put1(SPARSE).putVar(nnz);
+      for( int i=0, last=-1; i<ary.length; i++ )
+        if( ary[i] != 0 ) { putVar(i-last-1).putVar(zigzag(ary[i])); last = i; }
+      return this;
+    }
+    put1(DENSE);
+    for( int i=0; i<ary.length; ) {
+      if( ary[i] != 0 ) { putVar(zigzag(ary[i++])); continue; }
+      int j=i; while( j<ary.length && ary[j]==0 ) j++;
+      putVar(0).putVar(j-i-1);
+      i = j;
+    }
+    return this;
+  }
+  public long[] getAV8( ) {
+    int len = (int)getVar()-1; if( len == -1 ) return null;
+    long[] ary = MemoryManager.malloc8(len);
+    if( len == 0 ) return ary;
+    if( get1U() == SPARSE ) {
+      for( int n=(int)getVar(), i=-1; n>0; n-- ) { i += (int)getVar()+1; ary[i] = unzigzag(getVar()); }
+      return ary;
+    }
+    for( int i=0; i<len; ) {
+      long c = getVar();
+      if( c == 0 ) i += (int)getVar()+1; // Run of zeros
+      else ary[i++] = unzigzag(c);
+    }
+    return ary;
+  }
+
+  public AutoBuffer putAV8d( double[] ary ) {
+    if( ary == null ) return putVar(0);
+    putVar(ary.length+1L);
+    if( ary.length == 0 ) return this;
+    int nnz = 0, runs = 0;
+    for( int i=0; i<ary.length; i++ )
+      if( !isZero(ary[i]) ) nnz++; else if( i==0 || !isZero(ary[i-1]) ) runs++;
+    if( sparse(nnz,runs) ) {
+      put1(SPARSE).putVar(nnz);
+      for( int i=0, last=-1; i<ary.length; i++ )
+        if( !isZero(ary[i]) ) { putVar(i-last-1).putVd(ary[i]); last = i; }
+      return this;
+    }
+    put1(DENSE);
+    for( int i=0; i<ary.length; ) {
+      if( !isZero(ary[i]) ) { putVd(ary[i++]); continue; }
+      int j=i; while( j<ary.length && isZero(ary[j]) ) j++;
+      putVar(0).putVar(j-i-1);
+      i = j;
+    }
+    return this;
+  }
+  public double[] getAV8d( ) {
+    int len = (int)getVar()-1; if( len == -1 ) return null;
+    double[] ary = MemoryManager.malloc8d(len);
+    if( len == 0 ) return ary;
+    if( get1U() == SPARSE ) {
+      for( int n=(int)getVar(), i=-1; n>0; n-- ) { i += (int)getVar()+1; ary[i] = getVd(getVar()); }
+      return ary;
+    }
+    for( int i=0; i<len; ) {
+      long c = getVar();
+      if( c == 0 ) i += (int)getVar()+1; // Run of zeros
+      else ary[i++] = getVd(c);
+    }
+    return ary;
+  }
+
+  public AutoBuffer putAAV4( int[][] ary ) {
+    long xy = putZA(ary);
+    if( xy == -1 ) return this;
+    int x=(int)(xy>>32);
+    int y=(int)xy;
+    for( int i=x; i<x+y; i++ ) putAV4(ary[i]);
+    return this;
+  }
+  public int[][] getAAV4( ) {
+    long xy = getZA();
+    if( xy == -1 ) return null;
+    int x=(int)(xy>>32);         // Leading nulls
+    int y=(int)xy;               // Middle non-zeros
+    int z = y==0 ? 0 : getInt(); // Trailing nulls
+    int[][] ary  = new int[x+y+z][];
+    for( int i=x; i<x+y; i++ ) ary[i] = getAV4();
+    return ary;
+  }
+  public AutoBuffer putAAV8( long[][] ary ) {
+    long xy = putZA(ary);
+    if( xy == -1 ) return this;
+    int x=(int)(xy>>32);
+    int y=(int)xy;
+    for( int i=x; i<x+y; i++ ) putAV8(ary[i]);
+    return this;
+  }
+  public long[][] getAAV8( ) {
+    long xy = getZA();
+    if( xy == -1 ) return null;
+    int x=(int)(xy>>32);         // Leading nulls
+    int y=(int)xy;               // Middle non-zeros
+    int z = y==0 ? 0 : getInt(); // Trailing nulls
+    long[][] ary  = new long[x+y+z][];
+    for( int i=x; i<x+y; i++ ) ary[i] = getAV8();
+    return ary;
+  }
+  public AutoBuffer putAAV8d( double[][] ary ) {
+    long xy = putZA(ary);
+    if( xy == -1 ) return this;
+    int x=(int)(xy>>32);
+    int y=(int)xy;
+    for( int i=x; i<x+y; i++ ) putAV8d(ary[i]);
+    return this;
+  }
+  public double[][] getAAV8d( ) {
+    long xy = getZA();
+    if( xy == -1 ) return null;
+    int x=(int)(xy>>32);         // Leading nulls
+    int y=(int)xy;               // Middle non-zeros
+    int z = y==0 ? 0 : getInt(); // Trailing nulls
+    double[][] ary  = new double[x+y+z][];
+    for( int i=x; i<x+y; i++ ) ary[i] = getAV8d();
+    return ary;
+  }
+
   // ==========================================================================
   // JSON AutoBuffer printers
 
@@ -4,6 +4,8 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.Arrays;
 import water.fvec.Chunk;
+import water.persist.PersistManager;
+import water.util.FlightRecorder;
 import water.util.Log;
 import water.util.PrettyPrint;
 
@@ -66,6 +68,11 @@ class Cleaner extends Thread {
   // lest we hold the lock during a (very long) clean process - and various
   // async callbacks attempt to "kick" the Cleaner awake - which will require
   // taking the lock... blocking the kicking thread for the duration.
+  private static final Metrics.Histogram PASS_TIME = Metrics.histogram("h2o_cleaner_pass_seconds", "Time of Cleaner passes which spill or free memory");
+  private static final Metrics.Counter SPILLED = Metrics.counter("h2o_cleaner_spilled_bytes_total", "Bytes of Chunks the Cleaner wrote to disk");
+  private static final Metrics.Counter OFFHEAPED = Metrics.counter("h2o_cleaner_offheaped_bytes_total", "Bytes of Chunks the Cleaner moved to the off-heap store");
+  private static final Metrics.Counter FREED = Metrics.counter("h2o_cleaner_freed_bytes_total", "Bytes of heap the Cleaner freed");
+
   @Override /*synchronized*/ public void run() {
     boolean diskFull = false;
     while( true ) {
@@ -113,6 +120,7 @@ class Cleaner extends Thread {
       long cleaned = 0;         // Disk i/o bytes
       long freed = 0;           // memory freed bytes
       long io_ns = 0;           // i/o ns writing
+      long offheaped = 0;       // bytes moved to the off-heap store
 
       // For faster K/V store walking get the NBHM raw backing array,
       // and walk it directly.
@@ -132,7 +140,8 @@ class Cleaner extends Thread {
         boolean isChunk = p instanceof Chunk && !((Chunk)p).isVolatile();
         // Ignore things younger than the required age.  In particular, do
         // not spill-to-disk all dirty things we find.
-        long touched = val._lastAccessedTime;
+        long touched = EvictionPolicy.evictionTime(val); // Recency, boosted by access frequency
+        val._hits >>= 1;        // Decay access frequency every sweep
         if( touched > clean_to_age ) { // Too recently touched?
           // But can toss out a byte-array if already deserialized & on disk
           // (no need for both forms).  Note no savings for Chunks, for which m==p._mem
@@ -145,15 +154,28 @@ class Cleaner extends Thread {
         }
         // Spiller turned off?
         if( !H2O.ARGS.cleaner ) continue;
+        // Pinned by a running computation?  Honored until allocations block.
+        if( isChunk && MemoryManager.CAN_ALLOC && EvictionPolicy.isPinned((Key)ok) ) continue;
 
         // CNC - Memory cleaning turned off, except for Chunks
         // Too many POJOs are written to dynamically; cannot spill & reload
         // them without losing changes.
 
+        // Under pressure, first try to move home Chunks into the off-heap
+        // store: no disk i/o, and the heap copy can then be freed below.
+        // Cached copies of remote Chunks are just freed.
+        if( isChunk && force && MemoryManager.OFF_HEAP_MAX > 0 && !val.isPersisted() && !val.isOffHeap() && ((Key)ok).home() ) {
+          if( val.storeOffHeap() ) {
+            offheaped += val._max;
+            if( FlightRecorder.isEnabled() ) FlightRecorder.instant(FlightRecorder.Type.CLEANER_SWAP, ok.toString(), "offheap", val._max, 0);
+          }
+        }
+
         // Should I write this value out to disk?
         // Should I further force it from memory?
-        if( isChunk && !val.isPersisted() && !diskFull && ((Key)ok).home() ) { // && (force || (lazyPersist() && lazy_clean(key)))) {
+        if( isChunk && !val.isPersisted() && !val.isOffHeap() && !diskFull && ((Key)ok).home() ) { // && (force || (lazyPersist() && lazy_clean(key)))) {
           long now_ns = System.nanoTime();
+          Object ev = FlightRecorder.begin(FlightRecorder.Type.CLEANER_SWAP);
           try { val.storePersist(); } // Write to disk
           catch( FileNotFoundException fnfe ) { continue; } // Can happen due to racing key delete/remove
           catch( IOException e ) {
@@ -167,9 +189,11 @@ class Cleaner extends Thread {
           if( m == null ) m = val.rawMem();
           if( m != null ) cleaned += m.length; // Accumulate i/o bytes
           io_ns += System.nanoTime() - now_ns; // Accumulate i/o time
+          if( ev != null ) FlightRecorder.commit(ev, FlightRecorder.Type.CLEANER_SWAP, ok.toString(), "spill", val._max, 0);
         }
         // And, under pressure, free all
-        if( isChunk && force && (val.isPersisted() || !((Key)ok).home()) ) {
+        if( isChunk && force && (val.isPersisted() || val.isOffHeap() || !((Key)ok).home()) ) {
+          if( FlightRecorder.isEnabled() ) FlightRecorder.instant(FlightRecorder.Type.CLEANER_SWAP, ok.toString(), "free", val._max, 0);
           val.freeMem ();  if( m != null ) freed += val._max;  m = null;
           val.freePOJO();  if( p != null ) freed += val._max;  p = null;
           if( isChunk ) freed -= val._max; // Double-counted freed mem for Chunks since val._pojo._mem & val._mem are the same.
@@ -186,12 +210,16 @@ class Cleaner extends Thread {
         force = (h._cached >= DESIRED || !MemoryManager.CAN_ALLOC); // Forced to clean
       }
 
+      PASS_TIME.observeNanos((System.currentTimeMillis()-now)*1000000);
+      SPILLED.add(cleaned);
+      OFFHEAPED.add(offheaped);
+      FREED.add(freed);
       String s1 = "Cleaner pass took: "+PrettyPrint.msecs(System.currentTimeMillis()-now,true)+
                   ", spilled "+PrettyPrint.bytes(cleaned)+" in "+PrettyPrint.usecs(io_ns>>10);
       h = Histo.current(true); // Force a new histogram
       MemoryManager.set_goals("postclean",false);
       // No logging if under memory pressure: can deadlock the cleaner thread
-      String s2 = h+" diski_o="+PrettyPrint.bytes(cleaned)+", freed="+(freed>>20)+"M, DESIRED="+(DESIRED>>20)+"M";
+      String s2 = h+" diski_o="+PrettyPrint.bytes(cleaned)+", offheaped="+PrettyPrint.bytes(offheaped)+", freed="+(freed>>20)+"M, DESIRED="+(DESIRED>>20)+"M";
       if( MemoryManager.canAlloc() ) Log.debug(s1,s2);
       else                           System.err.println(s1+"\n"+s2);
       // For testing thread
@@ -226,6 +254,7 @@ class Cleaner extends Thread {
     // built nor blocking for one being in-progress.
     static long cached() { return H._cached; }
     static long swapped(){ return H._swapped;}
+    static long offheap(){ return H._offheap;}
 
     final long[] _hs = new long[128];
     long _oldest; // Time of the oldest K/V discovered this pass
@@ -235,6 +264,8 @@ class Cleaner extends Thread {
     long _total;  // Total data in local K/V
     long _when;   // When was this histogram computed
     long _swapped;// On-disk stuff
+    long _offheap;// Off-heap stuff; not part of _cached, which is heap-only
+    PersistManager.PersistStatsEntry _spill; // Spill i/o & codec counters, if any
     Value _vold;  // For assertions: record the oldest Value
     boolean _clean; // Was "clean" K/V when built?
 
@@ -250,6 +281,7 @@ class Cleaner extends Thread {
       long cached = 0; // Total K/V cached in ram
       long total = 0;  // Total K/V in local node
       long swapped=0;  // Total K/V persisted
+      long offheap=0;  // Total K/V in the off-heap store
       long oldest = Long.MAX_VALUE; // K/V with the longest time since being touched
       Value vold = null;
       // Start the walk at slot 2, because slots 0,1 hold meta-data
@@ -262,6 +294,7 @@ class Cleaner extends Thread {
         if( val.isNull() ) { Value.STORE_get(val._key); continue; } // Another flavor of NULL
         total += val._max;
         if( val.isPersisted() ) swapped += val._max;
+        if( val.isOffHeap() ) offheap += val._max;
         int len = 0;
         byte[] m = val.rawMem();
         Object p = val.rawPOJO();
@@ -271,12 +304,16 @@ class Cleaner extends Thread {
         if( len == 0 ) continue;
         cached += len; // Accumulate total amount of cached keys
 
-        if( val._lastAccessedTime < oldest ) { // Found an older Value?
+        // Pinned Chunks are not eviction candidates; keep them out of the
+        // age buckets so clean_to() picks enough other victims.
+        if( EvictionPolicy.isPinned((Key)ok) ) continue;
+        long touched = EvictionPolicy.evictionTime(val);
+        if( touched < oldest ) { // Found an older Value?
           vold = val; // Record oldest Value seen
-          oldest = val._lastAccessedTime;
+          oldest = touched;
         }
         // Compute histogram bucket
-        int idx = (int)((val._lastAccessedTime - eldest)/_hStep);
+        int idx = (int)((touched - eldest)/_hStep);
         if( idx < 0 ) idx = 0;
         else if( idx >= _hs.length ) idx = _hs.length-1;
         _hs[idx] += len;      // Bump histogram bucket
@@ -284,6 +321,8 @@ class Cleaner extends Thread {
       _cached = cached; // Total cached; NOTE: larger than sum of histogram buckets
       _total = total;   // Total used data
       _swapped = swapped;
+      _offheap = offheap;
+      _spill = H2O.getPM() == null ? null : H2O.getPM().getStats()[Value.ICE];
       _oldest = oldest; // Oldest seen in this pass
       _vold = vold;
       _clean = clean && _dirty==Long.MAX_VALUE; // Looks like a clean K/V the whole time?
@@ -307,7 +346,13 @@ class Cleaner extends Thread {
     @Override public String toString() {
       long x = _eldest;
       long now = System.currentTimeMillis();
-      return "H(cached:"+(_cached>>20)+"M, eldest:"+x+"L < +"+(_oldest-x)+"ms <...{"+_hStep+"ms}...< +"+(_hStep*_hs.length)+"ms < +"+(now-x)+")";
+      return "H(cached:"+(_cached>>20)+"M, offheap:"+(_offheap>>20)+"M, eldest:"+x+"L < +"+(_oldest-x)+"ms <...{"+_hStep+"ms}...< +"+(_hStep*_hs.length)+"ms < +"+(now-x)+")"+codecString();
+    }
+    private String codecString() {
+      PersistManager.PersistStatsEntry s = _spill;
+      if( s == null || s.codec_raw_bytes.get() == 0 ) return "";
+      return String.format(" spill-codec(%s: ratio %.2f, encode %.0fMB/s, decode %.0fMB/s)",
+                           s.codec, s.compressionRatio(), s.encodeMBPerSec(), s.decodeMBPerSec());
     }
   }
 }
@@ -0,0 +1,23 @@
+package water;
+
+import java.lang.annotation.*;
+
+/** Serialize the fields of an {@link Iced} class with compact encodings.
+ *
+ *  The {@link Weaver}-generated serializer of an annotated class writes its
+ *  {@code int} and {@code long} fields as variable-length (zig-zag) integers,
+ *  and its {@code int[]}, {@code long[]} and {@code double[]} fields (and the
+ *  2-D variants) with zero-run or sparse encodings - see {@link
+ *  AutoBuffer#putAV8}.  Meant for tasks reducing large count arrays, such as
+ *  histograms and tables, which are mostly small numbers and zeros; it costs
+ *  CPU on arrays of large or fractional values.
+ *
+ *  Applies to the fields declared in the annotated class only, not to fields
+ *  inherited from a super class or added by subclasses.  Classes with custom
+ *  {@code write_impl}/{@code read_impl} serializers are not affected.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE})
+@Documented
+public @interface CompactWire {
+}
@@ -1,5 +1,11 @@
 package water;
 
+import water.util.FlightRecorder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+
 /** A Distributed Key/Value Store.
  *  <p>
  *  Functions to Get and Put Values into the K/V store by Key.
@@ -92,6 +98,76 @@ public abstract class DKV {
   /** Remove any mapping for <em>key</em>.  */
   static public Value remove( Key key, Futures fs ) { return put(key,null,fs); }
 
+  /** Make the mappings <em>keys[i] -&gt; vals[i]</em>, where a null Value
+   *  removes the mapping.  Blocking, caching.  */
+  static public void put( Key[] keys, Value[] vals ) {
+    Futures fs = new Futures();
+    put(keys,vals,fs);
+    fs.blockForPending();
+  }
+  /** Make the mappings <em>keys[i] -&gt; vals[i]</em>, where a null Value
+   *  removes the mapping.  Caching.  */
+  static public void put( Key[] keys, Value[] vals, Futures fs ) { put(keys,vals,fs,false); }
+  /** Make the mappings <em>keys[i] -&gt; vals[i]</em>, where a null Value
+   *  removes the mapping.  Same as a {@link #put(Key,Value,Futures,boolean)}
+   *  per Key, except that remote PUTs are sent as one RPC per home node, and
+   *  the invalidates of cached copies as one RPC per caching node.  A Key
+   *  given more than once gets its last Value. */
+  static public void put( Key[] keys, Value[] vals, Futures fs, boolean dontCache ) {
+    assert keys.length == vals.length;
+    H2O cloud = H2O.CLOUD;
+    int[] homes = new int[keys.length]; // Home node of each remote PUT, or -1
+    int[] cnts = new int[cloud.size()];
+    TaskInvalidateKeys.Batch batch = new TaskInvalidateKeys.Batch();
+    // Last occurrence of each Key.  An earlier remote PUT of the same Key is
+    // not sent until after this loop, so putting over it would block forever
+    // in startRemotePut.
+    HashMap<Key,Integer> last = new HashMap<>();
+    for( int i=0; i<keys.length; i++ ) last.put(keys[i],i);
+    for( int i=0; i<keys.length; i++ ) {
+      Key key = keys[i];
+      Value val = vals[i];
+      assert val==null || val._key == key:"non-matching keys " + key + " != " + val._key;
+      homes[i] = -1;
+      if( last.size() < keys.length && last.get(key) != i ) continue; // Overwritten later in the batch
+      while( true ) {
+        // Same steps as DputIfMatch, minus the network
+        Value old = Value.STORE_get(key); // Raw-get: do not lazy-manifest if overwriting
+        if( old != null && !key.home() ) old.startRemotePut();
+        Value nv = val == null && key.home() ? Value.makeNull(key) : val;
+        if( H2O.putIfMatch(key,nv,old) != old ) continue; // Lost a race, retry
+        if( old != null && (old == nv || (nv != null && nv.equals(old))) ) break; // Trivial success
+        Paxos.lockCloud(key);
+        if( key.home() ) {
+          batch.flushIfPending(key,fs);
+          if( ReplicatedKeys.isReplicated(key) ) ReplicatedKeys.put(H2O.SELF,key,nv,old,fs);
+          else if( old != null ) old.lockAndInvalidate(H2O.SELF,nv,fs,batch);
+          else nv.lowerActiveGetCount(null);  // Remove initial read-lock
+        } else {
+          cnts[homes[i] = key.home(cloud)]++;
+        }
+        break;
+      }
+    }
+    batch.send(fs);
+    // One PUT RPC per home node
+    for( int n=0; n<cnts.length; n++ ) {
+      if( cnts[n] == 0 ) continue;
+      Key[] ks = new Key[cnts[n]];
+      Value[] vs = new Value[cnts[n]];
+      int j=0;
+      for( int i=0; i<keys.length; i++ )
+        if( homes[i] == n ) { ks[j] = keys[i]; vs[j++] = vals[i]; }
+      if( j == 1 ) TaskPutKey.put(cloud._memary[n],ks[0],vs[0],fs,dontCache);
+      else TaskPutKeys.put(cloud._memary[n],ks,vs,fs,dontCache);
+    }
+  }
+
+  /** Remove any mappings for <em>keys</em>.  Blocking.  */
+  static public void remove( Key[] keys ) { put(keys,new Value[keys.length]); }
+  /** Remove any mappings for <em>keys</em>, with one RPC per home node.  */
+  static public void remove( Key[] keys, Futures fs ) { put(keys,new Value[keys.length],fs); }
+
   /** Default caching call to {@link #DputIfMatch(Key,Value,Value,Futures,boolean)}  */
   static public Value DputIfMatch( Key key, Value val, Value old, Futures fs) { return DputIfMatch(key, val, old, fs, false);  }
 
@@ -144,10 +220,13 @@ public abstract class DKV {
     // If PUT is on     HOME, invalidate remote caches
     // If PUT is on non-HOME, replicate/push to HOME
     if( key.home() ) {          // On     HOME?
-      if( old != null ) old.lockAndInvalidate(H2O.SELF,val,fs);
+      LOCAL_PUTS.inc();
+      if( ReplicatedKeys.isReplicated(key) ) ReplicatedKeys.put(H2O.SELF,key,val,old,fs);
+      else if( old != null ) old.lockAndInvalidate(H2O.SELF,val,fs);
       else val.lowerActiveGetCount(null);  // Remove initial read-lock, accounting for pending inv counts
     } else {                    // On non-HOME?
       // Start a write, but do not block for it
+      REMOTE_PUTS.inc();
       TaskPutKey.put(key.home_node(),key,val,fs, dontCache);
     }
     return old;
@@ -186,14 +265,57 @@ public abstract class DKV {
    *  Non-blocking. */
   static public void prefetch( String key_name ) {        get(Key.make(key_name),false); }
 
+  /** Return the {@link Value}s mapped to the <em>keys</em>, with null for no
+   *  mapping.  Blocks till data available, always caches.  Same as a {@link
+   *  #get(Key)} per Key, except that misses are fetched with one RPC per home
+   *  node.  */
+  static public Value[] get( Key[] keys ) {
+    H2O cloud = H2O.CLOUD;
+    int[] homes = new int[keys.length]; // Home node of each Key to fetch, or -1
+    int[] cnts = new int[cloud.size()];
+    HashSet<Key> fetch = new HashSet<>();
+    for( int i=0; i<keys.length; i++ ) {
+      Key key = keys[i];
+      homes[i] = -1;
+      if( key.home() || fetch.contains(key) ) continue;
+      Value val = Value.STORE_get(key);
+      if( val != null && (val.rawMem() != null || val.rawPOJO() != null || val.isPersisted() || val.isOffHeap()) )
+        continue;               // Cached
+      H2ONode home = cloud._memary[key.home(cloud)];
+      if( home.pendingPutKey(key) != null ) continue;
+      fetch.add(key);
+      cnts[homes[i] = key.home(cloud)]++;
+    }
+    // One GET RPC per home node; the results land in the local cache
+    ArrayList<RPC> rpcs = new ArrayList<>();
+    for( int n=0; n<cnts.length; n++ ) {
+      if( cnts[n] == 0 ) continue;
+      Key[] ks = new Key[cnts[n]];
+      int j=0;
+      for( int i=0; i<keys.length; i++ )
+        if( homes[i] == n ) ks[j++] = keys[i];
+      rpcs.add(j == 1 ? TaskGetKey.start(cloud._memary[n],ks[0]) : RPC.call(cloud._memary[n],new TaskGetKeys(ks)));
+    }
+    for( RPC rpc : rpcs ) rpc.get();
+    // Now mostly local hits; anything evicted or invalidated meanwhile is
+    // simply fetched again
+    Value[] res = new Value[keys.length];
+    for( int i=0; i<keys.length; i++ )
+      res[i] = get(keys[i]);
+    return res;
+  }
+
   static private Value get( Key key, boolean blocking ) {
     // Read the Cloud once per put-attempt, to keep a consistent snapshot.
     H2O cloud = H2O.CLOUD;
     Value val = Value.STORE_get(key);
     // Hit in local cache?
     if( val != null ) {
-      if( val.rawMem() != null || val.rawPOJO() != null || val.isPersisted() )
+      if( val.rawMem() != null || val.rawPOJO() != null || val.isPersisted() || val.isOffHeap() ) {
+        if( !key.home() && ReplicatedKeys.isReplicated(key) ) ReplicatedKeys.recordHit();
+        LOCAL_GETS.inc();
         return val;
+      }
       assert !key.home(); // Master must have *something*; we got nothing & need to fetch
     }
 
@@ -213,10 +335,27 @@ public abstract class DKV {
     // send to the remote, so the local get has missed above, but a remote
     // get still might 'win' because the remote 'remove' is still in-progress.
     TaskPutKey tpk = home.pendingPutKey(key);
-    if( tpk != null ) return tpk._xval == null || tpk._xval.isNull() ? null : tpk._xval;
+    if( tpk != null ) {
+      Value pv = tpk.pendingValue(key);
+      return pv == null || pv.isNull() ? null : pv;
+    }
 
     // Get data "the hard way"
+    if( ReplicatedKeys.isReplicated(key) ) ReplicatedKeys.recordMiss();
+    REMOTE_GETS.inc();
+    long start = System.nanoTime();
     RPC<TaskGetKey> tgk = TaskGetKey.start(home,key);
-    return blocking ? TaskGetKey.get(tgk) : null;
+    if( !blocking ) return null;
+    Object ev = FlightRecorder.begin(FlightRecorder.Type.DKV_FETCH);
+    Value res = TaskGetKey.get(tgk);
+    REMOTE_GET_TIME.observeSince(start);
+    if( ev != null ) FlightRecorder.commit(ev, FlightRecorder.Type.DKV_FETCH, key.toString(), home.toString(), 0, 0);
+    return res;
   }
+
+  private static final Metrics.Counter LOCAL_GETS = Metrics.counter("h2o_dkv_gets_total", "DKV gets, by where the Value was found", "source", "local");
+  private static final Metrics.Counter REMOTE_GETS = Metrics.counter("h2o_dkv_gets_total", "DKV gets, by where the Value was found", "source", "remote");
+  private static final Metrics.Histogram REMOTE_GET_TIME = Metrics.histogram("h2o_dkv_remote_get_seconds", "Time of blocking DKV gets from the home node");
+  private static final Metrics.Counter LOCAL_PUTS = Metrics.counter("h2o_dkv_puts_total", "DKV puts, by where the Key's home is", "home", "local");
+  private static final Metrics.Counter REMOTE_PUTS = Metrics.counter("h2o_dkv_puts_total", "DKV puts, by where the Key's home is", "home", "remote");
 }
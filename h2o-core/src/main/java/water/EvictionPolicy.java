@@ -0,0 +1,109 @@
+package water;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import water.fvec.Frame;
+import water.fvec.Vec;
+
+/**
+ * Decides which Values the {@link Cleaner} may swap out first.
+ * <p>
+ * Values are ranked by an <em>eviction time</em>: the time of the last access
+ * plus a bonus for every recent access, so a Value read on every iteration of
+ * an algorithm looks younger than one touched once by a throw-away
+ * computation, even if the latter was touched last.  The hit count is
+ * saturating and decays by half every Cleaner sweep.
+ * <p>
+ * On top of that, the Chunks of whole Frames can be pinned for the duration
+ * of a computation (e.g. the training frame of a model build).  Pinned Chunks
+ * are skipped by the Cleaner as long as allocations are not blocked; once the
+ * heap is critically low, pins are ignored rather than risking an OOM.
+ * Pins are cluster-wide and keyed by an owner Key, typically the Job.
+ */
+public final class EvictionPolicy {
+  private EvictionPolicy() {}
+
+  /** Saturation point of the per-Value hit counter */
+  static final int MAX_HITS = 30;
+  /** How much younger each recent hit makes a Value look, in msec */
+  static final long HIT_BONUS_MS = 1000;
+
+  /** Time used to order Values for eviction; older goes first. */
+  static long evictionTime(Value val) {
+    return val._lastAccessedTime + val._hits * HIT_BONUS_MS;
+  }
+
+  // ---
+  // Node-local pin table: owner Key -> pinned Vec fingerprints.  Pins change
+  // rarely, so the Cleaner reads a sorted copy-on-write array of all pinned
+  // fingerprints.
+  private static final Map<Key,long[]> OWNERS = new HashMap<>();
+  private static volatile long[] PINNED = new long[0];
+
+  /** True if the Key is a Chunk of a currently pinned Vec */
+  static boolean isPinned(Key k) {
+    long[] pinned = PINNED;
+    return pinned.length > 0 && k.isChunkKey() && Arrays.binarySearch(pinned, fingerprint(k._kb)) >= 0;
+  }
+
+  /** Number of Vecs pinned on this node */
+  public static int pinnedCount() { return PINNED.length; }
+
+  /** Pin the Chunks of all Vecs of the given Frames on all nodes, until
+   *  {@link #unpin} is called with the same owner.  Pinning again with the
+   *  same owner adds to its pins. */
+  public static void pin(Key owner, Frame... frames) {
+    int n = 0;
+    for( Frame fr : frames ) if( fr != null ) n += fr.numCols();
+    long[] fps = new long[n];
+    int i = 0;
+    for( Frame fr : frames )
+      if( fr != null )
+        for( Key<Vec> k : fr.keys() ) fps[i++] = fingerprint(k._kb);
+    new PinTask(owner, fps).doAllNodes();
+  }
+
+  /** Release all pins held by the owner, on all nodes */
+  public static void unpin(Key owner) { new PinTask(owner, null).doAllNodes(); }
+
+  private static class PinTask extends MRTask<PinTask> {
+    final Key _owner;
+    final long[] _fps;          // null to unpin
+    PinTask(Key owner, long[] fps) { _owner = owner; _fps = fps; }
+    @Override public void setupLocal() { update(_owner, _fps); }
+  }
+
+  private static synchronized void update(Key owner, long[] fps) {
+    if( fps == null ) OWNERS.remove(owner);
+    else {
+      long[] old = OWNERS.get(owner);
+      if( old != null ) {
+        long[] merged = Arrays.copyOf(old, old.length + fps.length);
+        System.arraycopy(fps, 0, merged, old.length, fps.length);
+        fps = merged;
+      }
+      OWNERS.put(owner, fps);
+    }
+    int n = 0;
+    for( long[] f : OWNERS.values() ) n += f.length;
+    long[] pinned = new long[n];
+    n = 0;
+    for( long[] f : OWNERS.values() ) { System.arraycopy(f, 0, pinned, n, f.length); n += f.length; }
+    Arrays.sort(pinned);
+    PINNED = pinned;
+  }
+
+  // Hash of a Vec or Chunk Key's bytes, skipping the type byte and the chunk
+  // number - so all Chunks of a Vec share the fingerprint of the Vec Key.
+  // Collisions only pin something extra, which is harmless.
+  static long fingerprint(byte[] kb) {
+    long h = 0xcbf29ce484222325L;
+    for( int i = 1; i < kb.length; i++ ) {
+      if( i >= 6 && i < 10 ) continue; // chunk#
+      h = (h ^ kb[i]) * 0x100000001b3L;
+    }
+    return h;
+  }
+}
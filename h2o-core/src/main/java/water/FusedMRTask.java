@@ -0,0 +1,147 @@
+package water;
+
+import water.fvec.Chunk;
+import water.fvec.Frame;
+import water.fvec.NewChunk;
+import water.fvec.Vec;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Several MRTasks run in a single pass over Vecs of the same row layout.
+ * <p>
+ * Each doAll pays a walk of the whole Cloud, a fetch and decompression of
+ * every Chunk, and a reduce tree.  Preprocessing typically runs several small
+ * tasks back to back over the same Frame - NA counts, means, a scaling, a
+ * filter - and spends more time in those fixed costs than in the maps.  Added
+ * tasks here share one of each: every Chunk is fetched once, then handed to
+ * the map calls of every task, in the order the tasks were added; reduces,
+ * {@link MRTask#setupLocal}, {@link MRTask#closeLocal} and
+ * {@link MRTask#postGlobal} are called for each task as usual.
+ * <pre>
+ *   FusedMRTask fused = new FusedMRTask();
+ *   NACnt nas = fused.add(new NACnt(), fr);
+ *   Scale scale = fused.add(new Scale(mean, sigma), fr.types(), fr);
+ *   fused.doAll();
+ *   ... nas._nas ..., scale.outputFrame(fr.names(), null) ...
+ * </pre>
+ * After doAll the added task objects hold their results, and their
+ * outputFrame calls return their own output Vecs.
+ * <p>
+ * A task only sees the Chunks of a row range while they are mapped, so tasks
+ * are fused as long as map() reads and writes only the Chunks it is given:
+ * writes to a Chunk by one task are seen by tasks added after it, in the same
+ * pass.  Tasks reading other Chunks (e.g. through {@link Vec#at}) of a Vec
+ * another task writes must run on their own.
+ */
+public class FusedMRTask extends MRTask<FusedMRTask> {
+  private MRTask[] _tasks = new MRTask[0];
+  private int[][] _cols = new int[0][]; // Columns of the fused Frame each task maps
+  private int[] _outs = {0};            // First output of each task, then all outputs
+  private transient byte[] _types = new byte[0];
+  private transient ArrayList<Vec> _vecs = new ArrayList<>();
+  private transient HashMap<Key,Integer> _vecIdx = new HashMap<>();
+  private transient MRTask[] _orig;     // Added tasks, to return results into
+
+  /** Add a task without output Vecs over (some of) the fused Vecs */
+  public <T extends MRTask> T add( T task, Frame fr ) { return add(task, null, fr); }
+
+  /** Add a task making output Vecs of the given types */
+  public <T extends MRTask> T add( T task, byte[] types, Frame fr ) {
+    if( fr.numCols() == 0 ) throw new IllegalArgumentException("Fused tasks need at least one column");
+    int[] cols = new int[fr.numCols()];
+    for( int i = 0; i < cols.length; i++ ) {
+      Vec v = fr.vec(i);
+      if( !_vecs.isEmpty() && !_vecs.get(0).isCompatibleWith(v) )
+        throw new IllegalArgumentException("Fused tasks need Vecs of the same row layout, found " + _vecs.get(0)._key + " and " + v._key);
+      Integer idx = _vecIdx.get(v._key);
+      if( idx == null ) {       // Each Vec is fetched once, whatever the tasks reading it
+        _vecIdx.put(v._key, idx = _vecs.size());
+        _vecs.add(v);
+      }
+      cols[i] = idx;
+    }
+    task._fr = fr;              // As in doAll, for setupLocal and the like
+    int n = _tasks.length;
+    _tasks = Arrays.copyOf(_tasks, n+1);
+    _tasks[n] = task;
+    _cols = Arrays.copyOf(_cols, n+1);
+    _cols[n] = cols;
+    _outs = Arrays.copyOf(_outs, n+2);
+    _outs[n+1] = _outs[n] + (types == null ? 0 : types.length);
+    if( types != null ) {
+      _types = Arrays.copyOf(_types, _outs[n+1]);
+      System.arraycopy(types, 0, _types, _outs[n], types.length);
+    }
+    return task;
+  }
+
+  /** Number of tasks added */
+  public int numTasks() { return _tasks.length; }
+
+  /** Run all added tasks in one pass, blocking */
+  public FusedMRTask doAll() {
+    if( _tasks.length == 0 ) throw new IllegalArgumentException("No tasks to fuse");
+    _orig = _tasks.clone();
+    return doAll(_types.length == 0 ? null : _types, new Frame(_vecs.toArray(new Vec[_vecs.size()])), false);
+  }
+
+  @Override protected boolean mayRunSpeculatively() {
+    for( MRTask t : _tasks ) if( !t.mayRunSpeculatively() ) return false;
+    return true;
+  }
+  @Override protected boolean modifiesVolatileVecs() {
+    for( MRTask t : _tasks ) if( t.modifiesVolatileVecs() ) return true;
+    return false;
+  }
+
+  @Override protected void setupLocal() {
+    for( MRTask t : _tasks ) { t._fs = _fs; t.setupLocal(); }
+  }
+
+  @Override public void map( Chunk[] cs, NewChunk[] ncs ) {
+    for( int i = 0; i < _tasks.length; i++ ) {
+      Chunk[] tcs = new Chunk[_cols[i].length];
+      for( int j = 0; j < tcs.length; j++ ) tcs[j] = cs[_cols[i][j]];
+      NewChunk[] tncs = _outs[i] == _outs[i+1] ? null : Arrays.copyOfRange(ncs, _outs[i], _outs[i+1]);
+      _tasks[i]._fs = _fs;
+      _tasks[i].mapAll(tcs, tncs);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override public void reduce( FusedMRTask mrt ) {
+    for( int i = 0; i < _tasks.length; i++ )
+      _tasks[i].reduce4(mrt._tasks[i]);
+  }
+
+  @Override protected void closeLocal() {
+    for( MRTask t : _tasks ) t.closeLocal();
+  }
+
+  // Hand results and output Vecs back to the added tasks, then let them finish
+  @SuppressWarnings("unchecked")
+  @Override protected void postGlobal() {
+    assert _orig != null : "Fused tasks are run by doAll()";
+    for( int i = 0; i < _tasks.length; i++ ) {
+      MRTask t = _orig[i];
+      if( t != _tasks[i] ) t.copyOver(_tasks[i]);
+      if( _outs[i] < _outs[i+1] ) {
+        t._output_types = Arrays.copyOfRange(_types, _outs[i], _outs[i+1]);
+        t._appendables = _appendables == null ? null : Arrays.copyOfRange(_appendables, _outs[i], _outs[i+1]);
+      }
+      t.postGlobal();
+    }
+    _tasks = _orig;
+  }
+
+  // Each copy maps into, and reduces, its own copies of the tasks
+  @Override FusedMRTask copyAndInit() {
+    FusedMRTask x = super.copyAndInit();
+    x._tasks = new MRTask[_tasks.length];
+    for( int i = 0; i < _tasks.length; i++ ) x._tasks[i] = (MRTask)_tasks[i].clone();
+    return x;
+  }
+}
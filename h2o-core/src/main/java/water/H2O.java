@@ -16,6 +16,7 @@ import water.init.JarHash;
 import water.init.NetworkInit;
 import water.init.NodePersistentStorage;
 import water.nbhm.NonBlockingHashMap;
+import water.network.CompressedSocketChannel;
 import water.parser.DecryptionTool;
 import water.parser.ParserService;
 import water.persist.PersistManager;
@@ -1320,8 +1321,12 @@ final public class H2O {
     protected H2OCountedCompleter(H2OCountedCompleter completer, byte prior) {
       super(completer);
       _priority = prior;
+      if( JobScheduler.ACTIVE ) _tenant = JobScheduler.inherit(completer);
     }
 
+    // The Job this task works for, if any; see JobScheduler
+    transient JobScheduler.Tenant _tenant;
+
     /** Used by the F/J framework internally to do work.  Once per F/J task,
      *  drain the high priority queue before doing any low priority work.
      *  Calls {@link #compute2} which contains actual work. */
@@ -1355,9 +1360,14 @@ final public class H2O {
         t._priority = pp;
         if( pp == MIN_PRIORITY && set_t_prior ) t.setPriority(Thread.NORM_PRIORITY-1);
       }
-      // Now run the task as planned
-      if( this instanceof DTask ) icer().compute1(this);
-      else compute2();
+      // Now run the task as planned, on behalf of its Job
+      JobScheduler.Tenant prev = JobScheduler.ACTIVE ? JobScheduler.enter(_tenant) : null;
+      try {
+        if( this instanceof DTask ) icer().compute1(this);
+        else compute2();
+      } finally {
+        if( JobScheduler.ACTIVE ) JobScheduler.exit(prev);
+      }
     }
 
     public void compute1() { compute2(); }
@@ -1592,6 +1602,8 @@ final public class H2O {
 
     // Create the starter Cloud with 1 member
     SELF._heartbeat._jar_md5 = JarHash.JARHASH;
+    SELF._heartbeat._type_table_hash = TypeMap.TYPE_TABLE_HASH;
+    SELF._heartbeat._wire_compression = CompressedSocketChannel.ENABLED;
     SELF._heartbeat._client = ARGS.client;
     SELF._heartbeat._cloud_name_hash = ARGS.name.hashCode();
   }
@@ -1831,11 +1843,13 @@ final public class H2O {
     // Insert into the K/V store
     Value res = STORE.putIfMatchUnlocked(key,val,old);
     if( res != old ) return res; // Return the failure cause
+    UserKeyIndex.update(key);
     // Persistence-tickle.
     // If the K/V mapping is going away, remove the old guy.
     // If the K/V mapping is changing, let the store cleaner just overwrite.
     // If the K/V mapping is new, let the store cleaner just create
     if( old != null && val == null ) old.removePersist(); // Remove the old guy
+    else if( old != null ) old.freeOffHeap(); // Overwritten; off-heap copy is stale
     if( val != null ) {
       Cleaner.dirty_store(); // Start storing the new guy
       if( old==null ) Scope.track_internal(key); // New Key - start tracking
@@ -1846,9 +1860,9 @@ final public class H2O {
   // Get the value from the store
   public static void raw_remove(Key key) {
     Value v = STORE.remove(key);
-    if( v != null ) v.removePersist();
+    if( v != null ) { v.removePersist(); UserKeyIndex.update(key); }
   }
-  public static void raw_clear() { STORE.clear(); }
+  public static void raw_clear() { STORE.clear(); UserKeyIndex.clear(); }
   public static boolean containsKey( Key key ) { return STORE.get(key) != null; }
   static Key getk( Key key ) { return STORE.getk(key); }
   public static Set<Key> localKeySet( ) { return STORE.keySet(); }
@@ -2118,6 +2132,7 @@ final public class H2O {
     Log.debug("    Start network services: " + (time10 - time9) + "ms");
     Log.debug("    Cloud up: " + (time11 - time10) + "ms");
     Log.debug("    Start GA: " + (time12 - time11) + "ms");
+    Log.info("Type registration: " + Weaver.registrationStats() + ", " + TypeMap.staticTypes() + " static type IDs");
   }
 
   /** Find PID of the current process, use -1 if we can't find the value. */
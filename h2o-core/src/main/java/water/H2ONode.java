@@ -2,6 +2,7 @@ package water;
 
 import water.nbhm.NonBlockingHashMap;
 import water.nbhm.NonBlockingHashMapLong;
+import water.network.CompressedSocketChannel;
 import water.network.SocketChannelFactory;
 import water.util.ArrayUtils;
 import water.util.Log;
@@ -361,8 +362,10 @@ public final class H2ONode extends Iced<H2ONode> implements Comparable {
     sock2.socket().setSendBufferSize(AutoBuffer.BBP_BIG._size);
     boolean res = sock2.connect( _key );
     assert res && !sock2.isConnectionPending() && sock2.isBlocking() && sock2.isConnected() && sock2.isOpen();
+    // Compress only if the other side asks for it too
+    boolean compress = CompressedSocketChannel.ENABLED && _heartbeat != null && _heartbeat._wire_compression;
     ByteBuffer bb = ByteBuffer.allocate(6).order(ByteOrder.nativeOrder());
-    bb.put((byte)2);
+    bb.put(compress ? TCPReceiverThread.TCP_BIG_LZ4 : TCPReceiverThread.TCP_BIG);
     bb.putShort(H2O.SELF._timestamp);
     bb.putChar((char)H2O.H2O_PORT);
     bb.put((byte)0xef);
@@ -372,7 +375,7 @@ public final class H2ONode extends Iced<H2ONode> implements Comparable {
       wrappedSocket.write(bb);
     }
     TCPS.incrementAndGet();     // Cluster-wide counting
-    return wrappedSocket;
+    return compress ? new CompressedSocketChannel(wrappedSocket) : wrappedSocket;
   }
   synchronized void freeTCPSocket( ByteChannel sock ) {
     assert 0 <= _socksAvail && _socksAvail < _socks.length;
@@ -547,6 +550,20 @@ public final class H2ONode extends Iced<H2ONode> implements Comparable {
   Collection<RPC> tasks() { return _tasks.values(); }
   int taskSize() { return _tasks.size(); }
 
+  // Send credits and latencies of the RPCs to this Node
+  private final transient RPCFlow _flow = new RPCFlow();
+  RPCFlow flow() { return _flow; }
+  /** RPCs from this JVM to the Node, sent and not yet answered */
+  public int rpcsInflight() { return _flow.inflight(); }
+  /** RPCs from this JVM to the Node, waiting for a send credit */
+  public int rpcsQueued() { return _flow.queued(); }
+  /** Counts of answered RPCs from this JVM to the Node, by log2 msec latency
+   *  bucket: bucket 0 is under 1 msec, bucket i under 2^i msec */
+  public long[] rpcLatencyHistogram() { return _flow.latencyHistogram(); }
+  /** Upper bound in msec of a latency quantile of the RPCs from this JVM to
+   *  the Node, -1 if none were answered yet */
+  public long rpcLatencyQuantile(double q) { return _flow.latencyQuantile(q); }
+
   // True if there is a pending PutKey against this Key.  Totally a speed
   // optimization in the case of a large number of pending Gets are flooding
   // the tasks() queue, each needing to scan the tasks queue for pending
@@ -554,7 +571,7 @@ public final class H2ONode extends Iced<H2ONode> implements Comparable {
   private final NonBlockingHashMapLong<TaskPutKey> _tasksPutKey = new NonBlockingHashMapLong<>();
   TaskPutKey pendingPutKey( Key k ) {
     for( TaskPutKey tpk : _tasksPutKey.values() )
-      if( k.equals(tpk._key) )
+      if( tpk.puts(k) )
         return tpk;
     return null;
   }
@@ -16,6 +16,8 @@ public class HeartBeat extends Iced<HeartBeat> {
   long _jvm_boot_msec;          // Boot time of JVM
   public long jvmBootTimeMsec(){return _jvm_boot_msec;}
   byte[] _jar_md5;              // JAR file digest
+  long _type_table_hash;        // Hash of the static type ID table, see TypeMap
+  boolean _wire_compression;    // Asks for compressed bulk TCP channels
 
   public boolean _client;       // This is a client node: no keys homed here
   public boolean _watchdog_client = false; // Special client mode - kill cluster when client disappears
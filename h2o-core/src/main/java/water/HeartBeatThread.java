@@ -128,8 +128,9 @@ public class HeartBeatThread extends Thread {
       catch (Exception ignore) {}
 
       // Announce what Cloud we think we are in.
-      // Publish our health as well.
-      UDPHeartbeat.build_and_multicast(cloud, hb);
+      // Publish our health as well.  Large Clouds mostly gossip.
+      if( UDPGossip.gossipRound(cloud, counter) ) UDPGossip.build_and_gossip(cloud, hb);
+      else UDPHeartbeat.build_and_multicast(cloud, hb);
 
       // If we have no internet connection, then the multicast goes
       // nowhere and we never receive a heartbeat from ourselves!
@@ -20,6 +20,8 @@ import java.io.*;
  * During startup time the Weaver creates a parallel set of classes called
  * (classname)$Icer.  These provide bytestream and JSON serializers
  * and deserializers which get called by AutoBuffer.write* and AutoBuffer.read*.
+ * Icers of the classes in the H2O jars are generated at build time instead
+ * (see {@link Weaver#main}) and only loaded at runtime.
  * <p>
  * To debug the automagic serialization code create a transient field in your Iced
  * class called DEBUG_WEAVER.  The generated source code will get written to STDOUT:
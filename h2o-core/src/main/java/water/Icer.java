@@ -9,6 +9,7 @@ import water.nbhm.UtilUnsafe;
 public abstract class Icer<T extends Freezable> {
   protected static final Unsafe _unsafe = UtilUnsafe.getUnsafe();
   private final T _new;
+  int _frozenType;              // Set once the type id is known; Icers are id-independent
   public Icer(T iced) {
     assert iced != null:"null freezable";
     _new=iced;
@@ -19,12 +20,19 @@ public abstract class Icer<T extends Freezable> {
   protected T read    (AutoBuffer ab, T ice) { /*base of the read call chain; no fields to read*/return ice; }
   protected T readJSON(AutoBuffer ab, T ice) { /*base of the read call chain; no fields to read*/return ice; }
   protected void copyOver( T dst, T src ) { /*base of the call chain; no fields to copy*/ }
-  public int frozenType() { throw fail(); }
+  public int frozenType() { return _frozenType; }
   protected String className() { throw fail(); }
   private RuntimeException fail() {
     return new RuntimeException(getClass().toString()+" should be automatically overridden by the auto-serialization code");
   }
-  // That end in the TypeMap ID for "H2OCountedCompleter" class - which is "3".
+  // Field offset for the Unsafe accesses of generated Icers
+  protected static long fieldOffset( Class c, String name ) {
+    try { return _unsafe.objectFieldOffset(c.getDeclaredField(name)); }
+    catch( NoSuchFieldException e ) { throw new RuntimeException(e); }
+  }
+  // DTasks are run through their Icer (see H2OCountedCompleter.compute), and
+  // every generated Icer overrides this, so stack traces and profiles show a
+  // frame named after the task's class
 
   protected void compute1(water.H2O.H2OCountedCompleter h2cc ) { h2cc.compute1(); }
 }
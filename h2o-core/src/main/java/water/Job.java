@@ -3,7 +3,9 @@ package water;
 import jsr166y.CountedCompleter;
 import water.H2O.H2OCountedCompleter;
 import water.api.schemas3.KeyV3;
+import water.nbhm.NonBlockingHashMap;
 import water.util.ArrayUtils;
+import water.util.FlightRecorder;
 import water.util.Log;
 
 import java.util.Arrays;
@@ -28,6 +30,13 @@ public final class Job<T extends Keyed> extends Keyed<Job> {
   /** User description */
   public final String _description;
 
+  /** User who started this Job */
+  public final String _owner;
+
+  /** CPU share of this Job relative to other Jobs and to interactive work,
+   *  while the Cloud is busy; see {@link JobScheduler}.  Set before starting. */
+  public int _cpu_share = JobScheduler.JOB_SHARE;
+
   // whether the _result key is ready for view
   private boolean _ready_for_view = true;
 
@@ -54,6 +63,7 @@ public final class Job<T extends Keyed> extends Keyed<Job> {
     _result = key;              // Result (destination?) key
     _typeid = clz_of_T==null ? 0 : TypeMap.getIcedId(clz_of_T);
     _description = desc; 
+    _owner = JobScheduler.currentUser();
   }
 
   /** Create a Job when a warning already exists due to bad model_id
@@ -118,7 +128,7 @@ public final class Job<T extends Keyed> extends Keyed<Job> {
   private volatile boolean _stop_requested; // monotonic change from false to true
   public boolean stop_requested() { update_from_remote(); return _stop_requested; }
   public void stop() { 
-    if( !_stop_requested )      // fast path cutout
+    if( !_stop_requested ) {    // fast path cutout
       new JAtomic() {
         @Override boolean abort(Job job) { return job._stop_requested; }
         @Override void update(Job job) {
@@ -126,6 +136,8 @@ public final class Job<T extends Keyed> extends Keyed<Job> {
           Log.debug("Job "+job._description+" requested to stop");
         }
       }.apply(this);
+      JobScheduler.stopRequested(this); // Never started, if still queued
+    }
   }
 
   /** Any exception thrown by this Job, or null if none.  Note that while
@@ -156,6 +168,7 @@ public final class Job<T extends Keyed> extends Keyed<Job> {
 
   /** Report new work done for this job */
   public final void update( final long newworked, final String msg) {
+    if( newworked > 0 && FlightRecorder.isEnabled() ) recordIteration(newworked);
     if( newworked > 0 || (msg != null && !msg.equals(_msg)) ) {
       new JAtomic() {
         @Override boolean abort(Job job) { return newworked==0 && ((msg==null && _msg==null) || (msg != null && msg.equals(job._msg))); }
@@ -164,6 +177,20 @@ public final class Job<T extends Keyed> extends Keyed<Job> {
     }
   }
   public final  void update(final long newworked) { update(newworked,(String)null); }
+
+  // Model builders report a unit of work per iteration (tree, epoch, ...):
+  // time the work between updates of the builder's Job.  Updates mostly come
+  // on fresh copies of the Job from the DKV, so the event of the iteration
+  // under way is kept here, per node and Job.
+  private static final NonBlockingHashMap<Key,Object> ITERATIONS = new NonBlockingHashMap<>();
+  private boolean isModelJob() { return _typeid != 0 && TypeMap.theFreezable(_typeid) instanceof hex.Model; }
+  private void recordIteration( long newworked ) {
+    if( !isModelJob() ) return;
+    Object ev = FlightRecorder.begin(FlightRecorder.Type.MODEL_ITERATION);
+    Object last = ev == null ? ITERATIONS.remove(_key) : ITERATIONS.put(_key, ev);
+    if( last != null )
+      FlightRecorder.commit(last, FlightRecorder.Type.MODEL_ITERATION, String.valueOf(_result), TypeMap.className(_typeid), newworked, _worked + newworked);
+  }
   public static void update(final long newworked, Key<Job> jobkey) { update(newworked, null, jobkey); }
   public static void update(final long newworked, String msg, Key<Job> jobkey) { jobkey.get().update(newworked, msg); }
 
@@ -259,6 +286,10 @@ public final class Job<T extends Keyed> extends Keyed<Job> {
     _start_time = System.currentTimeMillis();
     assert !created() && running() && !stopped();
     _work = work;
+    if( FlightRecorder.isEnabled() && isModelJob() ) {
+      Object ev = FlightRecorder.begin(FlightRecorder.Type.MODEL_ITERATION);
+      if( ev != null ) ITERATIONS.put(_key, ev);
+    }
 
     // 2 - Save the full state of the job, first time ever making it public
     DKV.put(this);              // Announce in DKV
@@ -274,8 +305,8 @@ public final class Job<T extends Keyed> extends Keyed<Job> {
         return old;
       }
     }.invoke(LIST);
-    // 4 - Fire off the FJTASK
-    H2O.submitTask(fjtask);
+    // 4 - Fire off the FJTASK, or queue it behind other Jobs of the same user
+    JobScheduler.local().startJob(this, fjtask);
     return this;
   }
   transient private Barrier2 _barrier; // Top-level task to block on
@@ -298,10 +329,14 @@ public final class Job<T extends Keyed> extends Keyed<Job> {
     Barrier1(CountedCompleter cc) { super(cc,0); }
     @Override public void compute() { }
     @Override public void onCompletion(CountedCompleter caller) {
+      JobScheduler.local().jobDone(Job.this);
+      ITERATIONS.remove(_key);
       new Barrier1OnCom().apply(Job.this);
       _barrier = null;          // Free for GC
     }
     @Override public boolean onExceptionalCompletion(Throwable ex, CountedCompleter caller) {
+      JobScheduler.local().jobDone(Job.this);
+      ITERATIONS.remove(_key);
       if(Job.isCancelledException(ex)) {
         new Barrier1OnCom().apply(Job.this);
       } else {
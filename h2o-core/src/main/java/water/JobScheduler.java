@@ -0,0 +1,283 @@
+package water;
+
+import water.H2O.H2OCountedCompleter;
+import water.server.ServletUtils;
+import water.util.Log;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+
+import static water.H2O.OptArgs.SYSTEM_PROP_PREFIX;
+
+/**
+ * Fair sharing of a Cloud between concurrent Jobs and users.
+ * <p>
+ * F/J priorities order work by how deeply it nests, not by who asked for it:
+ * one large grid search fills every low-priority pool with map calls, and a
+ * short interactive Rapids query waits behind all of them.  So work started
+ * on behalf of a Job carries a {@link Tenant} tag - the Job and its CPU share.
+ * The Job's driver task, every task and MRTask it starts, and the Jobs it
+ * starts itself (e.g. the models of a grid search) all inherit the tag.
+ * Untagged work is interactive, which competes as a tenant of its own.
+ * <p>
+ * On every node, an MRTask takes a slot from here before mapping a chunk.
+ * While fewer slots than F/J threads are taken, any tenant gets one.  Once
+ * the node is full, a tenant only gets a slot while it holds less than its
+ * share: the slots split by weight between the tenants with work on the node.
+ * A chunk of a tenant over its share is set aside, so its F/J thread moves on,
+ * and resubmitted once a slot frees up for it.  A newly arrived query so
+ * preempts running Jobs at the next chunk boundary.  Map calls nested in a
+ * map call are not held back, as the outer call holds a slot meanwhile.
+ * <p>
+ * Also, each user may be limited to some number of concurrently running
+ * top-level Jobs; later Jobs queue up and start as earlier ones finish.
+ */
+public class JobScheduler {
+  /** Hold back chunks of tenants over their CPU share */
+  public static final boolean FAIR_SHARE = Boolean.getBoolean(SYSTEM_PROP_PREFIX + "sched.fair_share");
+  /** Top-level Jobs a user may run at once on the node starting them; 0 for no limit */
+  public static final int MAX_JOBS_PER_USER = Integer.getInteger(SYSTEM_PROP_PREFIX + "sched.max_jobs_per_user", 0);
+  /** Default CPU share of a Job, see {@link Job#_cpu_share} */
+  public static final int JOB_SHARE = Math.max(1, Integer.getInteger(SYSTEM_PROP_PREFIX + "sched.job_share", 1));
+  /** CPU share of all work not started by a Job */
+  public static final int INTERACTIVE_SHARE = Math.max(1, Integer.getInteger(SYSTEM_PROP_PREFIX + "sched.interactive_share", 1));
+  /** Chunks mapped at once before tenants are held to their share; 0 for one per F/J thread */
+  static final int SLOTS = Integer.getInteger(SYSTEM_PROP_PREFIX + "sched.slots", 0);
+
+  /** True if tasks track the Job they work for */
+  static final boolean ACTIVE = FAIR_SHARE || MAX_JOBS_PER_USER > 0;
+
+  /** Who work is done for: a Job (and the Jobs it started), or interactive
+   *  work.  Travels with MRTasks to the other nodes. */
+  public static final class Tenant extends Iced<Tenant> {
+    final Key<Job> _job;        // null for interactive work
+    final int _share;           // Weight; 0 for work which is never held back
+    Tenant( Key<Job> job, int share ) { _job = job; _share = share; }
+    @Override public String toString() { return (_job == null ? "interactive" : _job.toString())+"/"+_share; }
+  }
+  static final Tenant INTERACTIVE = new Tenant(null, INTERACTIVE_SHARE);
+  static final Tenant UNSCHEDULED = new Tenant(null, 0);
+
+  // Tenant of the task running in this thread; null for none
+  private static final ThreadLocal<Tenant> CURRENT = new ThreadLocal<>();
+
+  static Tenant current() { return CURRENT.get(); }
+  static Tenant enter( Tenant t ) { Tenant prev = CURRENT.get(); CURRENT.set(t); return prev; }
+  static void exit( Tenant prev ) { CURRENT.set(prev); }
+
+  /** Tenant of work nested in a map call of the given tenant: never held back */
+  static Tenant nested( Tenant t ) { return t == null ? UNSCHEDULED : t._share == 0 ? t : new Tenant(t._job, 0); }
+
+  /** Tenant of a task being created: its completer's, else the running task's */
+  static Tenant inherit( H2OCountedCompleter completer ) {
+    return completer != null && completer._tenant != null ? completer._tenant : CURRENT.get();
+  }
+
+  /** User on whose behalf the current thread works */
+  static String currentUser() {
+    String user = ServletUtils.getUserName();
+    return user != null ? user : H2O.ARGS.user_name;
+  }
+
+  private static class Local {
+    static final JobScheduler INSTANCE = new JobScheduler(SLOTS > 0 ? SLOTS : H2O.ARGS.nthreads, MAX_JOBS_PER_USER, ACTIVE);
+  }
+  /** The scheduler of this node */
+  static JobScheduler local() { return Local.INSTANCE; }
+
+  // Chunk slots held and wanted by one tenant on this node
+  private static final class Account {
+    final int _weight;
+    int _running;
+    final ArrayDeque<MRTask> _deferred = new ArrayDeque<>();
+    Account( int weight ) { _weight = weight; }
+  }
+
+  private final int _slots;
+  private final HashMap<Key,Account> _accounts = new HashMap<>(); // Tenants with work here
+  private int _running;         // Slots taken
+  private int _weights;         // Total weight of the accounts
+  private long _deferrals;      // Chunks ever set aside
+
+  private final int _maxJobsPerUser;
+  private final boolean _tagJobs; // Tag driver tasks of starting Jobs with their tenant
+  private final HashMap<String,Integer> _userJobs = new HashMap<>();
+  private final HashMap<String,ArrayDeque<QueuedJob>> _userQueues = new HashMap<>();
+  private final HashSet<Key> _counted = new HashSet<>(); // Running Jobs counted against their user
+
+  private static final class QueuedJob {
+    final Job _job;
+    final H2OCountedCompleter _task;
+    QueuedJob( Job job, H2OCountedCompleter task ) { _job = job; _task = task; }
+  }
+
+  JobScheduler( int slots, int maxJobsPerUser, boolean tagJobs ) {
+    _slots = Math.max(1, slots);
+    _maxJobsPerUser = maxJobsPerUser;
+    _tagJobs = tagJobs;
+  }
+
+  // Slots a tenant is entitled to while the node is full
+  private int share( Account a ) { return Math.max(1, (int)((long)_slots*a._weight/_weights)); }
+
+  private boolean mayRun( Account a ) { return _running < _slots || a._running < share(a); }
+
+  /** Take a slot to map one chunk of the given task.  False if the task was
+   *  set aside instead; it is then resubmitted holding a slot.  A task holding
+   *  a slot must {@link #release} it. */
+  boolean admit( MRTask task ) {
+    Tenant t = task._tenant == null ? INTERACTIVE : task._tenant;
+    if( t._share == 0 || task.priority() >= H2O.MIN_HI_PRIORITY ) return true;
+    synchronized( this ) {
+      Account a = _accounts.get(t._job);
+      if( a == null ) {
+        _accounts.put(t._job, a = new Account(t._share));
+        _weights += a._weight;
+      }
+      if( a._deferred.isEmpty() && mayRun(a) ) {
+        a._running++;
+        _running++;
+        task._sched_slot = true;
+        return true;
+      }
+      a._deferred.add(task);
+      _deferrals++;
+      return false;
+    }
+  }
+
+  /** Return the slot of a task which mapped its chunk, failed or was
+   *  cancelled, and hand out freed slots to the tenants most behind their
+   *  share.  Releasing a task not holding a slot does nothing. */
+  void release( MRTask task ) {
+    ArrayList<MRTask> resume = null;
+    synchronized( this ) {
+      if( !task._sched_slot ) return;
+      task._sched_slot = false;
+      Account a = _accounts.get(task._tenant == null ? null : task._tenant._job);
+      a._running--;
+      _running--;
+      Account next;
+      while( (next = neediest()) != null && mayRun(next) ) {
+        MRTask t = next._deferred.poll();
+        if( t.isDone() ) continue; // Cancelled while set aside
+        next._running++;
+        _running++;
+        t._sched_slot = true;
+        if( resume == null ) resume = new ArrayList<>();
+        resume.add(t);
+      }
+      for( Iterator<Account> it = _accounts.values().iterator(); it.hasNext(); ) {
+        Account b = it.next();  // Drop accounts without work
+        if( b._running == 0 && b._deferred.isEmpty() ) { it.remove(); _weights -= b._weight; }
+      }
+    }
+    if( resume != null )
+      for( MRTask t : resume ) resubmit(t);
+  }
+
+  // The account with set-aside chunks holding the fewest slots for its weight
+  private Account neediest() {
+    Account best = null;
+    for( Account a : _accounts.values() )
+      if( !a._deferred.isEmpty() && (best == null || (long)a._running*best._weight < (long)best._running*a._weight) )
+        best = a;
+    return best;
+  }
+
+  void resubmit( H2OCountedCompleter task ) { H2O.submitTask(task); }
+
+  /** Chunk slots taken on this node */
+  synchronized int running() { return _running; }
+  /** Chunks set aside and not yet resumed on this node */
+  synchronized int deferred() {
+    int n = 0;
+    for( Account a : _accounts.values() ) n += a._deferred.size();
+    return n;
+  }
+  /** Chunks ever set aside on this node */
+  synchronized long deferrals() { return _deferrals; }
+
+  /** Tag the driver task of a starting Job, and submit it - or queue it, if
+   *  its user already runs as many top-level Jobs as allowed.  Jobs started
+   *  from within a running Job belong to that Job and are never queued, as
+   *  the outer Job typically waits for them. */
+  void startJob( Job job, H2OCountedCompleter task ) {
+    Tenant outer = current();
+    boolean nested = outer != null && outer._job != null;
+    if( _tagJobs ) task._tenant = nested ? outer : new Tenant(job._key, Math.max(1, job._cpu_share));
+    if( nested || _maxJobsPerUser <= 0 ) { resubmit(task); return; }
+    int running;
+    synchronized( this ) {
+      Integer n = _userJobs.get(job._owner);
+      running = n == null ? 0 : n;
+      if( running < _maxJobsPerUser ) {
+        _userJobs.put(job._owner, running+1);
+        _counted.add(job._key);
+        running = -1;
+      } else {
+        ArrayDeque<QueuedJob> q = _userQueues.get(job._owner);
+        if( q == null ) _userQueues.put(job._owner, q = new ArrayDeque<>());
+        q.add(new QueuedJob(job, task));
+      }
+    }
+    if( running == -1 ) { resubmit(task); return; }
+    Log.info("Job "+job._description+" of user "+job._owner+" queued behind "+running+" running Jobs");
+    job.update(0, "Queued.");
+  }
+
+  /** A Job was asked to stop.  If it is still queued, drop it from its
+   *  user's queue and complete its driver task as cancelled, so the Job stops
+   *  (and its waiters wake up) without ever being started.  Jobs queue on the
+   *  node which created them, the home of their Key. */
+  static void stopRequested( Job job ) {
+    if( MAX_JOBS_PER_USER <= 0 ) return;
+    if( job._key.home() ) local().cancelQueued(job._key);
+    else new RPC<>(job._key.home_node(), new CancelQueued(job._key)).call();
+  }
+
+  private static class CancelQueued extends DTask<CancelQueued> {
+    final Key<Job> _job;
+    CancelQueued( Key<Job> job ) { _job = job; }
+    @Override public void compute2() { local().cancelQueued(_job); tryComplete(); }
+  }
+
+  /** Drop a queued Job, and complete its driver task as cancelled; false if
+   *  the Job is not queued here */
+  boolean cancelQueued( Key<Job> key ) {
+    QueuedJob found = null;
+    synchronized( this ) {
+      for( Iterator<ArrayDeque<QueuedJob>> qs = _userQueues.values().iterator(); qs.hasNext() && found == null; ) {
+        ArrayDeque<QueuedJob> q = qs.next();
+        for( Iterator<QueuedJob> it = q.iterator(); it.hasNext(); ) {
+          QueuedJob qj = it.next();
+          if( qj._job._key.equals(key) ) { it.remove(); found = qj; break; }
+        }
+        if( q.isEmpty() ) qs.remove();
+      }
+    }
+    if( found == null ) return false;
+    Log.info("Job "+found._job._description+" of user "+found._job._owner+" cancelled while queued");
+    found._task.completeExceptionally(new Job.JobCancelledException());
+    return true;
+  }
+
+  /** A Job stopped: start the next queued Job of the same user, if any */
+  void jobDone( Job job ) {
+    QueuedJob next = null;
+    synchronized( this ) {
+      if( !_counted.remove(job._key) ) return;
+      ArrayDeque<QueuedJob> q = _userQueues.get(job._owner);
+      if( q != null && (next = q.poll()) != null ) _counted.add(next._job._key);
+      else _userJobs.put(job._owner, _userJobs.get(job._owner)-1);
+      if( q != null && q.isEmpty() ) _userQueues.remove(job._owner);
+    }
+    if( next != null ) {
+      next._job.update(0, "Started.");
+      resubmit(next._task);
+    }
+  }
+}
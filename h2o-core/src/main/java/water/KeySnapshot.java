@@ -84,9 +84,7 @@ public class KeySnapshot {
    *  @param clz Class
    *  @return array of keys in this snapshot with the given class */
   public static Key[] globalKeysOfClass(final Class clz) {
-    return KeySnapshot.globalSnapshot().filter(new KeySnapshot.KVFilter() {
-      @Override public boolean filter(KeySnapshot.KeyInfo k) { return Value.isSubclassOf(k._type, clz); }
-    }).keys();
+    return new KeySnapshot(new GlobalUKeySetTask(clz.getName()).doAllNodes()._res).keys();
   }
 
   /** @param c Class objects of which should be instantiated
@@ -138,21 +136,17 @@ public class KeySnapshot {
    * @return KeySnapshot containing keys from the local K/V.
    */
   public static KeySnapshot localSnapshot(boolean homeOnly){
-    Object [] kvs = H2O.STORE.raw_array();
+    return localSnapshot(UserKeyIndex.keys(), homeOnly);
+  }
+
+  // Snapshot of the given local user keys; walks the type index rather than
+  // the whole store, so costs O(user keys) however many Chunks are around.
+  private static KeySnapshot localSnapshot(Iterable<Key> keys, boolean homeOnly){
     ArrayList<KeyInfo> res = new ArrayList<>();
-    for(int i = 2; i < kvs.length; i+= 2){
-      Object ok = kvs[i];
-      if( !(ok instanceof Key  ) ) continue; // Ignore tombstones and Primes and null's
-      Key key = (Key )ok;
-      if(!key.user_allowed())continue;
+    for( Key key : keys ) {
       if(homeOnly && !key.home())continue;
-      // Raw array can contain regular and also wrapped values into Prime marker class:
-      //  - if we see Value object, create instance of KeyInfo
-      //  - if we do not see Value object directly (it can be wrapped in Prime marker class),
-      //    try to unwrap it via calling STORE.get (~H2O.get) and then
-      //    look at wrapped value again.
       Value val = Value.STORE_get(key);
-      if( val == null ) continue;
+      if( val == null ) continue; // Removed since
       res.add(new KeyInfo(key,val));
     }
     final KeyInfo [] arr = res.toArray(new KeyInfo[res.size()]);
@@ -188,9 +182,27 @@ public class KeySnapshot {
   // task to grab all user keys (+ info) form all around the cloud
   // updates the cache when done
   private static class GlobalUKeySetTask extends MRTask<GlobalUKeySetTask> {
+    final String _clz;          // Only keys of this class and subclasses; all if null
     KeyInfo [] _res;
-    GlobalUKeySetTask() { super(H2O.MIN_HI_PRIORITY); }
-    @Override public void setupLocal(){ _res = localSnapshot(true)._keyInfos;}
+    GlobalUKeySetTask() { this(null); }
+    GlobalUKeySetTask(String clz) { super(H2O.MIN_HI_PRIORITY); _clz = clz; }
+    @Override public void setupLocal(){
+      if( _clz == null ) { _res = localSnapshot(true)._keyInfos; return; }
+      Class c = clazz(_clz);
+      // A class this node cannot load (e.g. from a jar only the caller has)
+      // has no instances here either
+      _res = c == null ? new KeyInfo[0] : localSnapshot(UserKeyIndex.keysOfClass(c), true)._keyInfos;
+    }
+    // Resolve as deserialization does, so classes loaded at runtime through
+    // the Weaver are found, then through the context class loader; null if
+    // neither knows it
+    private static Class clazz(String name) {
+      try { return Weaver.classForName(name); } catch( ClassNotFoundException ignore ) { }
+      ClassLoader cl = Thread.currentThread().getContextClassLoader();
+      if( cl != null )
+        try { return Class.forName(name, false, cl); } catch( ClassNotFoundException ignore ) { }
+      return null;
+    }
     @Override public void reduce(GlobalUKeySetTask gbt){
       if(_res == null)_res = gbt._res;
       else if(gbt._res != null){ // merge sort keys together
@@ -202,7 +214,7 @@ public class KeySnapshot {
       }
     }
     @Override public void postGlobal(){
-      _cache = new KeySnapshot(_res);
+      if( _clz == null ) _cache = new KeySnapshot(_res);
     }
   }
 }
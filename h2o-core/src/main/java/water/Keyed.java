@@ -36,6 +36,16 @@ public abstract class Keyed<T extends Keyed> extends Iced<T> {
     if( val==null ) return;
     ((Keyed)val.get()).remove(fs);
   }
+  /** Remove these Keyed objects, and all subparts.  The objects themselves
+   *  are fetched and removed in batches, one RPC per home node, after their
+   *  subparts. */
+  public static Futures remove( Key[] ks, Futures fs ) {
+    Value[] vals = DKV.get(ks);
+    for( Value val : vals )
+      if( val != null ) ((Keyed)val.get()).remove_impl(fs);
+    DKV.remove(ks,fs);
+    return fs;
+  }
 
   // ---
   /** Write this Keyed object, and all nested Keys. */
@@ -0,0 +1,226 @@
+package water;
+
+import jsr166y.CountedCompleter;
+import water.H2O.H2OCountedCompleter;
+import water.fvec.Frame;
+import water.fvec.Vec;
+import water.util.Log;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Timer;
+import java.util.TimerTask;
+
+import static water.H2O.OptArgs.SYSTEM_PROP_PREFIX;
+
+/**
+ * Straggler detection and speculative re-execution for read-only MRTasks.
+ * <p>
+ * The reduce tree of an MRTask waits for every node, so one slow node - in a
+ * long GC, on a busy host, behind a slow disk - holds up the whole doAll.  For
+ * tasks which {@link MRTask#mayRunSpeculatively}, over a Frame whose chunks
+ * are all in {@link ReplicatedKeys replicated-read mode}, on small enough
+ * Clouds, the top-level node instead sends the task to every other node
+ * directly, and notes when each answers.  Once half the nodes have answered,
+ * a node taking more than {@link #FACTOR} times their median time (and at
+ * least {@link #MIN_MSEC}) is a straggler: its chunks are mapped again on a
+ * node which already finished, and whichever answer arrives first is
+ * reduced; the other one is cancelled.
+ * <p>
+ * Chunks have no replicas but the ones {@link ReplicatedKeys} pushes to every
+ * node, and even chunks of files load through their home node, so other
+ * Frames keep the reduce tree: a backup would have to fetch the chunks from
+ * the straggler, loading it further.  A backup also fails at once, and the
+ * straggler's own answer is waited for, if any of its chunks went missing
+ * here meanwhile (e.g. evicted, or invalidated by a write).
+ * <p>
+ * Turn off with {@code -Dsys.ai.h2o.mrtask.speculation=false}.
+ */
+final class MRSpeculation {
+  /** Speculate for tasks allowing it */
+  static final boolean ENABLED = Boolean.parseBoolean(System.getProperty(SYSTEM_PROP_PREFIX + "mrtask.speculation", "true"));
+  /** A node is a straggler once this many times slower than the median node */
+  static final double FACTOR = Double.parseDouble(System.getProperty(SYSTEM_PROP_PREFIX + "mrtask.speculation.factor", "3"));
+  /** ... and slower than this */
+  static final int MIN_MSEC = Integer.getInteger(SYSTEM_PROP_PREFIX + "mrtask.speculation.min_ms", 2000);
+  /** Largest Cloud to send tasks to all nodes directly, instead of down the reduce tree */
+  static final int MAX_NODES = Integer.getInteger(SYSTEM_PROP_PREFIX + "mrtask.speculation.max_nodes", 64);
+
+  private static class Checks { static final Timer TIMER = new Timer("MRTask-Stragglers", true); }
+
+  private final MRTask _mrt;    // Top-level task
+  private final long _start;
+  // Per node, indexed like MRTask node ranges (relative to the top-level
+  // node, which is 0 and not used)
+  private final RPC[] _primary, _backup, _winner;
+  private final long[] _took;   // msec until the node's own answer; 0 if none yet
+  private final boolean[] _backedUp, _busy; // Backup launched for, running on node
+  private int _answered;        // Nodes answered by themselves or a backup
+  private boolean _checkScheduled;
+  private final ArrayList<String> _stragglers = new ArrayList<>();
+
+  MRSpeculation( MRTask mrt, int nodes ) {
+    _mrt = mrt;
+    _start = System.currentTimeMillis();
+    _primary = new RPC[nodes];
+    _backup = new RPC[nodes];
+    _winner = new RPC[nodes];
+    _took = new long[nodes];
+    _backedUp = new boolean[nodes];
+    _busy = new boolean[nodes];
+  }
+
+  /** Send the task to all other nodes; the top-level task completes once all answered */
+  void start() {
+    _mrt.addToPendingCount(_primary.length-1);
+    for( int i = 1; i < _primary.length; i++ ) send(i, i);
+  }
+
+  // Map the chunks of node 'range' on node 'on'
+  private RPC send( int range, int on ) {
+    MRTask mrt = _mrt.copyAndInit();
+    mrt.setCompleter(null);     // The Answer completes the top-level task, once per node
+    mrt._nhi = (short)(on+1);   // Nothing further to fork on the node
+    mrt._backup_for = range == on ? 0 : (short)(_mrt.addShift(range)+1);
+    Answer a = new Answer(range, range != on);
+    RPC rpc = new RPC<>(H2O.CLOUD._memary[_mrt.addShift(on)], mrt).addCompleter(a);
+    synchronized( this ) { (range == on ? _primary : _backup)[range] = rpc; } // Before any answer
+    return rpc.call();
+  }
+
+  private final class Answer extends H2OCountedCompleter<Answer> {
+    final int _range;
+    final boolean _isBackup;
+    Answer( int range, boolean isBackup ) { super(_mrt.priority()); _range = range; _isBackup = isBackup; }
+    @Override public void onCompletion( CountedCompleter caller ) { answered(_range, _isBackup); }
+    @Override public boolean onExceptionalCompletion( Throwable ex, CountedCompleter caller ) {
+      failed(_range, _isBackup, ex);
+      return true;
+    }
+  }
+
+  private void answered( int range, boolean isBackup ) {
+    RPC loser;
+    synchronized( this ) {
+      if( _winner[range] != null ) return; // Lost the race
+      _winner[range] = isBackup ? _backup[range] : _primary[range];
+      loser = isBackup ? _primary[range] : _backup[range];
+      long took = Math.max(1, System.currentTimeMillis() - _start);
+      if( !isBackup ) _took[range] = took;
+      if( _backedUp[range] )
+        _stragglers.add(H2O.CLOUD._memary[_mrt.addShift(range)]+": "+(isBackup ? "backup" : "node itself")+" answered after "+took+"ms");
+      _answered++;
+    }
+    if( loser != null ) loser.cancel(true);
+    checkStragglers();
+    _mrt.tryComplete();         // One node fewer to wait for
+  }
+
+  private void failed( int range, boolean isBackup, Throwable ex ) {
+    RPC backup;
+    synchronized( this ) {
+      if( _winner[range] != null ) return;
+      if( isBackup ) {          // The node itself may still answer
+        Log.info("Speculative copy of "+_mrt.getClass().getSimpleName()+" failed: "+ex);
+        return;
+      }
+      _winner[range] = _primary[range];
+      backup = _backup[range];
+    }
+    if( backup != null ) backup.cancel(true);
+    _mrt.completeExceptionally(ex);
+  }
+
+  /** Back up nodes slower than the median by too much; called as nodes answer,
+   *  and by a timer once the first straggler is due */
+  void checkStragglers() {
+    int[] launch = null;
+    synchronized( this ) {
+      if( _mrt.isDone() || _answered == _primary.length-1 ) return;
+      long[] took = new long[_answered];
+      int n = 0;
+      for( long t : _took ) if( t > 0 ) took[n++] = t;
+      if( 2*n < _primary.length-1 ) return; // Too early to tell
+      Arrays.sort(took, 0, n);
+      long median = took[n>>1], limit = Math.max((long)(FACTOR*median), MIN_MSEC);
+      long now = System.currentTimeMillis() - _start;
+      if( now < limit ) {
+        if( !_checkScheduled ) {
+          _checkScheduled = true;
+          Checks.TIMER.schedule(new TimerTask() {
+            @Override public void run() {
+              synchronized( MRSpeculation.this ) { _checkScheduled = false; }
+              H2O.submitTask(new H2OCountedCompleter(_mrt.priority()) {
+                @Override public void compute2() { checkStragglers(); tryComplete(); }
+              });
+            }
+          }, limit - now);
+        }
+        return;
+      }
+      for( int i = 1; i < _primary.length && launch == null; i++ ) {
+        if( _winner[i] != null || _backedUp[i] ) continue;
+        int on = idlest();
+        if( on == 0 ) break;  // Everybody busy
+        _backedUp[i] = _busy[on] = true;
+        launch = new int[]{i, on};
+        Log.info(_mrt.getClass().getSimpleName()+": "+H2O.CLOUD._memary[_mrt.addShift(i)]+" is straggling ("+now+
+                 "ms, median "+median+"ms), mapping its chunks again on "+H2O.CLOUD._memary[_mrt.addShift(on)]);
+      }
+    }
+    if( launch == null ) return;
+    RPC rpc = send(launch[0], launch[1]);
+    boolean lost;               // The node may have answered meanwhile
+    synchronized( this ) { lost = _winner[launch[0]] != null && _winner[launch[0]] != rpc; }
+    if( lost ) rpc.cancel(true);
+    checkStragglers();          // More stragglers?
+  }
+
+  // The node done first with its own chunks, and not backing up another one
+  private int idlest() {
+    int best = 0;
+    for( int i = 1; i < _took.length; i++ )
+      if( _took[i] > 0 && !_busy[i] && (best == 0 || _took[i] < _took[best]) )
+        best = i;
+    return best;
+  }
+
+  /** True if every chunk of the Frame is in replicated-read mode, so any node
+   *  may map any of them off its own copy */
+  static boolean replicated( Frame fr ) {
+    if( ReplicatedKeys.size() == 0 ) return false;
+    for( Vec v : fr.vecs() )
+      for( int cidx = 0; cidx < v.nChunks(); cidx++ )
+        if( !ReplicatedKeys.isReplicated(v.chunkKey(cidx)) ) return false;
+    return true;
+  }
+
+  /** On a backup node, before mapping anything: fail unless every chunk of
+   *  the straggler is cached here */
+  static void checkCopies( Frame fr, H2ONode straggler ) {
+    Vec[] vecs = fr.vecs();
+    if( vecs.length == 0 ) return;
+    for( int cidx = 0; cidx < vecs[0].nChunks(); cidx++ ) {
+      if( vecs[0].chunkKey(cidx).home_node() != straggler ) continue;
+      for( Vec v : vecs ) {
+        Value val = H2O.STORE.get(v.chunkKey(cidx));
+        if( val == null || val.isEmpty() )
+          throw new IllegalStateException("no copy of "+v.chunkKey(cidx)+" of straggler "+straggler+" on "+H2O.SELF);
+      }
+    }
+  }
+
+  /** The answers to reduce, one per node */
+  synchronized RPC[] winners() { return Arrays.copyOfRange(_winner, 1, _winner.length); }
+
+  /** Nodes backed up, and who answered for them */
+  synchronized String[] stragglers() { return _stragglers.isEmpty() ? null : _stragglers.toArray(new String[0]); }
+
+  /** On failure: cancel backups, and wait for the nodes to finish */
+  void blockForAll() {
+    RPC[] primary, backup;
+    synchronized( this ) { primary = _primary.clone(); backup = _backup.clone(); }
+    for( RPC b : backup ) if( b != null ) b.cancel(true);
+    for( RPC p : primary ) if( p != null ) try { p.get(); } catch( Throwable ignore ) { }
+  }
+}
@@ -4,6 +4,7 @@ import jsr166y.CountedCompleter;
 import jsr166y.ForkJoinPool;
 import water.fvec.*;
 import water.util.DistributedException;
+import water.util.FlightRecorder;
 import water.util.PrettyPrint;
 import water.fvec.Vec.VectorGroup;
 
@@ -136,7 +137,7 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
   /** The number and type of output Vec instances produced by an MRTask.  If
    *  null then there are no outputs, _appendables will be null, and calls to
    *  <code>outputFrame</code> will return null. */
-  private byte _output_types[];
+  byte _output_types[];
 
   /** First reserved VectorGroup key index for all output Vecs */
   private int _vid;
@@ -179,6 +180,42 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
   /** If true, run entirely local - which will pull all the data locally. */
   protected boolean _run_local;
 
+  /** The Job this task works for, sent along to the other nodes */
+  private JobScheduler.Tenant _wire_tenant;
+  /** True while holding a chunk slot of the local {@link JobScheduler} */
+  transient volatile boolean _sched_slot;
+
+  /** For a speculative copy: 1 + index of the straggling node whose chunks to
+   *  map; see {@link MRSpeculation} */
+  short _backup_for;
+  /** Top-level straggler tracking, if speculating */
+  transient MRSpeculation _spec;
+
+  /** Start of the work on this node, for {@link Metrics} and the {@link TimeLine} */
+  transient private long _startNs;
+  private static final Metrics.ByClass TASK_TIME = Metrics.byClass("h2o_mrtask_seconds", "Time of whole MRTasks, from their start to the end of postGlobal", "task");
+  private static final Metrics.ByClass MAP_TIME = Metrics.byClass("h2o_mrtask_map_seconds", "Time of MRTask map calls, per chunk", "task");
+  private static final Metrics.ByClass REDUCE_TIME = Metrics.byClass("h2o_mrtask_reduce_seconds", "Time of MRTask reduce calls", "task");
+
+  /** Override to return true if this task may map some chunks twice, on
+   *  different nodes, and keep one of the results: if map() only reads the
+   *  Frame, and node-local state (see {@link #setupLocal}) is not needed to
+   *  reduce or finish the results.  Such tasks are sped up past slow nodes;
+   *  see {@link MRSpeculation}.  Tasks with output Vecs never speculate. */
+  protected boolean mayRunSpeculatively() { return false; }
+
+  // Send the top-level task to all nodes directly, watching for stragglers?
+  private boolean speculate() {
+    return MRSpeculation.ENABLED && _topGlobal && _fr != null && _output_types == null && !_run_local &&
+      !H2O.ARGS.client && H2O.CLOUD.size() >= 3 && H2O.CLOUD.size() <= MRSpeculation.MAX_NODES && mayRunSpeculatively() &&
+      MRSpeculation.replicated(_fr);
+  }
+
+  // True if this node maps the given chunk
+  private boolean mapsHere( Key chunk ) {
+    return _backup_for == 0 ? chunk.home() : chunk.home_node() == H2O.CLOUD._memary[_backup_for-1];
+  }
+
   public String profString() { return _profile != null ? _profile.toString() : "Profiling turned off"; }
   MRProfile _profile;
 
@@ -280,6 +317,13 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
   public void map( Chunk cs[], NewChunk nc1, NewChunk nc2 ) { }
   public void map( Chunk cs[], NewChunk [] ncs ) { }
 
+  /** Override with your map implementation.  This overload walks the input
+   *  Chunks in batches of rows decoded in bulk into primitive arrays, for tight
+   *  loops the JIT can unroll and vectorize; see {@link ColumnBatch}.  All map
+   *  variants are called, but only one is expected to be overridden. */
+  public void map( ColumnBatch cb ) { }
+  public void map( ColumnBatch cb, NewChunk [] ncs ) { }
+
   /** Override with your map implementation.  Used when doAll is called with
    *  an array of Keys, and called once-per-Key on the Key's Home node */
   public void map( Key key ) { }
@@ -298,7 +342,7 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
   protected void closeLocal() { }
 
   /** Compute a permissible node index on which to launch remote work. */
-  private int addShift( int x ) { x += _nlo; int sz = H2O.CLOUD.size(); return x < sz ? x : x-sz; }
+  int addShift( int x ) { x += _nlo; int sz = H2O.CLOUD.size(); return x < sz ? x : x-sz; }
   private int subShift( int x ) { x -= _nlo; int sz = H2O.CLOUD.size(); return x <  0 ? x+sz : x; }
   private short selfidx() { int idx = H2O.SELF.index(); if( idx>= 0 ) return (short)idx; assert H2O.SELF._client; return 0; }
 
@@ -306,6 +350,7 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
   // nested MRTasks.  All numbers are CTM stamps or millisecond times.
   private static class MRProfile extends Iced {
     String _clz;
+    String[] _stragglers;       // Nodes backed up, at the top level
     public MRProfile(MRTask mrt) {
       _clz = mrt.getClass().toString();
       _localdone = System.currentTimeMillis();
@@ -340,6 +385,8 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
     @Override public String toString() { return print(new StringBuilder(),0).toString(); }
     private StringBuilder print(StringBuilder sb, int d) {
       if( d==0 ) sb.append(_clz).append("\n");
+      if( _stragglers != null )
+        for( String s : _stragglers ) sb.append("Straggler ").append(s).append("\n");
       for( int i=0; i<d; i++ ) sb.append("  ");
       if( _localstart != 0 ) sb.append("Node local ").append(_localdone - _localstart).append("ms, ");
       if( _last != null ) {   // Forked job?
@@ -509,6 +556,11 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
    * chunks; call user's init.
    */
   private void setupLocal0() {
+    _startNs = System.nanoTime();
+    if( JobScheduler.ACTIVE ) { // Pass on the Job worked for, or pick it up remotely
+      if( _tenant == null ) _tenant = _wire_tenant;
+      else _wire_tenant = _tenant;
+    }
     if(_profile != null)
       (_profile = new MRProfile(this))._localstart = System.currentTimeMillis();
     // Make a blockable Futures for both internal and user work to block on.
@@ -529,9 +581,14 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
     // - - There's remote work, or Client mode (always remote work)
     if( (!_run_local) && ((nlo+1 < _nhi) || H2O.ARGS.client) ) {
       if(_profile!=null) _profile._rpcLstart = System.currentTimeMillis();
-      _nleft = remote_compute(H2O.ARGS.client ? nlo : nlo+1,nmid);
-      if(_profile!=null) _profile._rpcRstart = System.currentTimeMillis();
-      _nrite = remote_compute( nmid,_nhi);
+      if( speculate() ) {
+        (_spec = new MRSpeculation(this,_nhi)).start();
+        if(_profile!=null) _profile._rpcRstart = System.currentTimeMillis();
+      } else {
+        _nleft = remote_compute(H2O.ARGS.client ? nlo : nlo+1,nmid);
+        if(_profile!=null) _profile._rpcRstart = System.currentTimeMillis();
+        _nrite = remote_compute( nmid,_nhi);
+      }
       if(_profile!=null) _profile._rpcRdone  = System.currentTimeMillis();
     } else {
       if(_profile!=null)
@@ -542,12 +599,15 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
       _lo = 0;  _hi = _fr.numCols()==0 ? 0 : _fr.anyVec().nChunks(); // Do All Chunks
       // get the Vecs from the K/V store, to avoid racing fetches from the map calls
       _fr.vecs();
+      if( _backup_for != 0 ) MRSpeculation.checkCopies(_fr, H2O.CLOUD._memary[_backup_for-1]);
     } else if( _keys != null ) {    // Else doing a set of Keys
       _lo = 0;  _hi = _keys.length; // Do All Keys
     }
     // Setup any user's shared local structures for both normal cluster nodes
     // and any client; want this for possible reduction ONTO client
+    Object ev = FlightRecorder.begin(FlightRecorder.Type.MRTASK_SETUP_LOCAL);
     setupLocal();
+    if( ev != null ) FlightRecorder.commit(ev, FlightRecorder.Type.MRTASK_SETUP_LOCAL, getClass().getName(), null, 0, 0);
     if(_profile!=null) _profile._localdone = System.currentTimeMillis();
   }
 
@@ -604,8 +664,14 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
       }
     } else if( _hi > _lo ) {    // Frame, Single chunk?
       Vec v0 = _fr.anyVec();
-      if( _run_local || v0.chunkKey(_lo).home() ) { // And chunk is homed here?
+      if( _run_local || mapsHere(v0.chunkKey(_lo)) ) { // And chunk is homed here?
         assert(_run_local || !H2O.ARGS.client) : "Client node should not process any keys in MRTask!";
+        // Take a chunk slot; if other Jobs are owed one, this task is set
+        // aside and resubmitted later, freeing the F/J thread meanwhile
+        if( JobScheduler.FAIR_SHARE ) {
+          if( !_sched_slot && !JobScheduler.local().admit(this) ) return;
+          JobScheduler.enter(JobScheduler.nested(_tenant)); // Restored by compute()
+        }
 
         // Make decompression chunk headers for these chunks
         Vec vecs[] = _fr.vecs();
@@ -613,7 +679,7 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
         NewChunk [] appendableChunks = null;
         for( int i=0; i<vecs.length; i++ )
           if( vecs[i] != null ) {
-            assert _run_local || vecs[i].chunkKey(_lo).home()
+            assert _run_local || mapsHere(vecs[i].chunkKey(_lo))
               : "Chunk="+_lo+" v0="+v0+", k="+v0.chunkKey(_lo)+"   v["+i+"]="+vecs[i]+", k="+vecs[i].chunkKey(_lo);
             bvs[i] = vecs[i].chunkForChunkIdx(_lo);
           }
@@ -630,32 +696,11 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
         // Call all the various map() calls that apply
         if(_profile!=null)
           _profile._userstart = System.currentTimeMillis();
-
-        int num_fr_vecs = _fr.vecs().length;
-        int num_outputs = _output_types == null? 0 : _output_types.length;
-        if (num_outputs == 0) {
-          if (num_fr_vecs == 1) map(bvs[0]);
-          else if (num_fr_vecs == 2) map(bvs[0], bvs[1]);
-          else if (num_fr_vecs == 3) map(bvs[0], bvs[1], bvs[2]);
-          map(bvs);
-        }
-        else if (num_outputs == 1) {  // convenience versions for cases with single output.
-          assert appendableChunks != null;
-          if (num_fr_vecs == 1) map(bvs[0], appendableChunks[0]);
-          else if (num_fr_vecs == 2) map(bvs[0], bvs[1], appendableChunks[0]);
-          // else if (fr_vecs_length == 3) map(bvs[0], bvs[1], bvs[2], appendableChunks[0]);
-          map(bvs, appendableChunks[0]);
-        }
-        else if (num_outputs == 2) {  // convenience versions for cases with 2 outputs (e.g split).
-          assert appendableChunks != null;
-          if (num_fr_vecs == 1) map(bvs[0], appendableChunks[0], appendableChunks[1]);
-          // else if (fr_vecs_length == 2) map(bvs[0], bvs[1], appendableChunks[0], appendableChunks[1]);
-          // else if (fr_vecs_length == 3) map(bvs[0], bvs[1], bvs[2], appendableChunks[0], appendableChunks[1]);
-          map(bvs, appendableChunks[0], appendableChunks[1]);
-        }
-        if (num_outputs >= 0)
-          map(bvs, appendableChunks);
-
+        long start = System.nanoTime();
+        Object ev = FlightRecorder.begin(FlightRecorder.Type.MRTASK_MAP);
+        mapAll(bvs, appendableChunks);
+        MAP_TIME.get(getClass()).observeSince(start);
+        if( ev != null ) FlightRecorder.commit(ev, FlightRecorder.Type.MRTASK_MAP, getClass().getName(), null, _lo, bvs.length == 0 ? 0 : bvs[0]._len);
         _res = self();          // Save results since called map() at least once!
         // Further D/K/V put any new vec results.
         if(_profile!=null)
@@ -666,9 +711,43 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
     }
     if(_profile!=null)
       _profile._mapdone = System.currentTimeMillis();
+    if( _sched_slot ) JobScheduler.local().release(this);
     tryComplete();
   }
 
+  // Call all the various map() calls that apply
+  void mapAll( Chunk[] bvs, NewChunk[] appendableChunks ) {
+    int num_fr_vecs = bvs.length;
+    int num_outputs = appendableChunks == null ? 0 : appendableChunks.length;
+    ColumnBatch cb = new ColumnBatch(bvs); // Decodes nothing until asked
+    if (num_outputs == 0) {
+      if (num_fr_vecs == 1) map(bvs[0]);
+      else if (num_fr_vecs == 2) map(bvs[0], bvs[1]);
+      else if (num_fr_vecs == 3) map(bvs[0], bvs[1], bvs[2]);
+      map(bvs);
+      map(cb);
+      cb.rewind();
+    }
+    else if (num_outputs == 1) {  // convenience versions for cases with single output.
+      assert appendableChunks != null;
+      if (num_fr_vecs == 1) map(bvs[0], appendableChunks[0]);
+      else if (num_fr_vecs == 2) map(bvs[0], bvs[1], appendableChunks[0]);
+      // else if (fr_vecs_length == 3) map(bvs[0], bvs[1], bvs[2], appendableChunks[0]);
+      map(bvs, appendableChunks[0]);
+    }
+    else if (num_outputs == 2) {  // convenience versions for cases with 2 outputs (e.g split).
+      assert appendableChunks != null;
+      if (num_fr_vecs == 1) map(bvs[0], appendableChunks[0], appendableChunks[1]);
+      // else if (fr_vecs_length == 2) map(bvs[0], bvs[1], appendableChunks[0], appendableChunks[1]);
+      // else if (fr_vecs_length == 3) map(bvs[0], bvs[1], bvs[2], appendableChunks[0], appendableChunks[1]);
+      map(bvs, appendableChunks[0], appendableChunks[1]);
+    }
+    if (num_outputs >= 0) {
+      map(bvs, appendableChunks);
+      map(cb, appendableChunks);
+    }
+  }
+
   /** OnCompletion - reduce the left and right into self.  Called internal by
    *  F/J.  Not expected to be user-called. */
   @Override public final void onCompletion( CountedCompleter caller ) {
@@ -709,6 +788,10 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
     if(_profile!=null) _profile._closeLocalDone = System.currentTimeMillis();
     reduce3(_nleft);            // Reduce global results from neighbors.
     reduce3(_nrite);
+    if( _spec != null ) {       // Or from all nodes, or their backups
+      for( RPC<T> rpc : _spec.winners() ) reduce3(rpc);
+      if( _profile!=null ) _profile._stragglers = _spec.stragglers();
+    }
     if(_profile!=null) _profile._remoteBlkDone = System.currentTimeMillis();
     _fs.blockForPending();      // Block any pending user tasks
     if(_profile!=null) _profile._localBlkDone = System.currentTimeMillis();
@@ -722,9 +805,12 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
     if( _topGlobal ) {
       if (_fr != null)     // Do any post-writing work (zap rollup fields, etc)
         _fr.postWrite(_fs).blockForPending();
+      Object ev = FlightRecorder.begin(FlightRecorder.Type.MRTASK_POST_GLOBAL);
       postGlobal();             // User's continuation work
+      if( ev != null ) FlightRecorder.commit(ev, FlightRecorder.Type.MRTASK_POST_GLOBAL, getClass().getName(), null, 0, 0);
+      TASK_TIME.get(getClass()).observeSince(_startNs);
     }
-
+    TimeLine.record_task(TimeLine.MRTASK, H2O.SELF, frozenType(), _startNs);
   }
 
   // Block for RPCs to complete, then reduce global results into self results
@@ -753,11 +839,21 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
         _appendables[i].reduce(mrt._appendables[i]);
     if( _ex == null ) _ex = mrt._ex;
     // User's reduction
+    long start = System.nanoTime();
+    Object ev = FlightRecorder.begin(FlightRecorder.Type.MRTASK_REDUCE);
     reduce(mrt);
+    REDUCE_TIME.get(getClass()).observeSince(start);
+    if( ev != null ) FlightRecorder.commit(ev, FlightRecorder.Type.MRTASK_REDUCE, getClass().getName(), null, 0, 0);
   }
 
   // Full local work-tree cancellation
-  void self_cancel2() { if( !isDone() ) { cancel(true); self_cancel1(); } }
+  void self_cancel2() {
+    if( !isDone() ) {
+      cancel(true);
+      if( _sched_slot ) JobScheduler.local().release(this);
+      self_cancel1();
+    }
+  }
   private void self_cancel1() {
     T l = _left; if( l != null ) { l.self_cancel2(); }
     T r = _rite; if( r != null ) { r.self_cancel2(); }
@@ -767,6 +863,7 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
    *  exceptions (which is the F/J default).  Called internal by F/J.  Not
    *  expected to be user-called.  */
   @Override public final boolean onExceptionalCompletion( Throwable ex, CountedCompleter caller ) {
+    if( _sched_slot ) JobScheduler.local().release(this);
     self_cancel1();
     // Block for completion - we don't want the work, but we want all the
     // workers stopped before we complete this task.  Otherwise this task quits
@@ -778,16 +875,18 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
     // catch & ignore, keeping only the first one we already got.
     RPC<T> nl = _nleft; if( nl != null ) try { nl.get(); } catch( Throwable ignore ) { } _nleft = null;
     RPC<T> nr = _nrite; if( nr != null ) try { nr.get(); } catch( Throwable ignore ) { } _nrite = null;
+    MRSpeculation spec = _spec; if( spec != null ) spec.blockForAll();
     return true;
   }
 
   // Make copy, setting final-field completer and clearing out a bunch of fields
-  private T copyAndInit() {
+  T copyAndInit() {
     T x = clone();
     x._topGlobal = false;
     x.setCompleter(this); // Set completer, what used to be a final field
     x._topLocal = false;  // Not a top job
     x._nleft = x._nrite = null;
+    x._spec = null;
     x. _left = x. _rite = null;
     x._fs = _fs;
     if( _profile!=null )  x._profile = new MRProfile(this);
@@ -1,6 +1,7 @@
 package water;
 
 import java.lang.management.*;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicLong;
 import javax.management.Notification;
@@ -81,6 +82,35 @@ abstract public class MemoryManager {
   }
   static boolean canAlloc() { return CAN_ALLOC; }
 
+  // Optional off-heap backing store for Chunk payloads.  Under memory pressure
+  // the Cleaner copies Chunk bytes into direct buffers (outside the Java heap)
+  // and drops the heap copy; reloads copy back from the direct buffer instead
+  // of going to disk.  Off-heap bytes are accounted separately from the K/V
+  // cache, so they never count against the heap goals.  Zero disables it.
+  static long OFF_HEAP_MAX = Long.getLong(H2O.OptArgs.SYSTEM_PROP_PREFIX + "offheap.max", 0);
+  private static final AtomicLong _offHeapUsed = new AtomicLong();
+  /** @return Bytes of Chunk payloads currently held off-heap */
+  public static long offHeapUsed() { return _offHeapUsed.get(); }
+  /** @return Maximal bytes allowed off-heap, or zero if off-heap storage is disabled */
+  public static long offHeapMax() { return OFF_HEAP_MAX; }
+
+  // Reserve and allocate a direct buffer; null if the off-heap budget (or the
+  // JVM direct memory limit) is exhausted - caller falls back to disk.
+  static ByteBuffer mallocOffHeap(int bytes) {
+    if( _offHeapUsed.addAndGet(bytes) > OFF_HEAP_MAX ) {
+      _offHeapUsed.addAndGet(-bytes);
+      return null;
+    }
+    try { return ByteBuffer.allocateDirect(bytes); }
+    catch( OutOfMemoryError e ) { // Direct memory limit; do not log, just fail over to disk
+      _offHeapUsed.addAndGet(-bytes);
+      return null;
+    }
+  }
+  // Return the buffer's budget.  The native memory itself is released when the
+  // buffer is collected, so racing readers holding the buffer stay safe.
+  static void freeOffHeap(ByteBuffer bb) { _offHeapUsed.addAndGet(-bb.capacity()); }
+
   static void set_goals( String msg, boolean oom){
     set_goals(msg, oom, 0);
   }
@@ -152,7 +182,8 @@ abstract public class MemoryManager {
     }
 
     // No logging if under memory pressure: can deadlock the cleaner thread
-    String s = m+msg+", (K/V:"+PrettyPrint.bytes(cacheUsageGC)+" + POJO:"+PrettyPrint.bytes(pojoUsedGC)+" + FREE:"+PrettyPrint.bytes(freeHeap)+" == MEM_MAX:"+PrettyPrint.bytes(MEM_MAX)+"), desiredKV="+PrettyPrint.bytes(Cleaner.DESIRED)+(oom?" OOM!":" NO-OOM");
+    String s = m+msg+", (K/V:"+PrettyPrint.bytes(cacheUsageGC)+" + POJO:"+PrettyPrint.bytes(pojoUsedGC)+" + FREE:"+PrettyPrint.bytes(freeHeap)+" == MEM_MAX:"+PrettyPrint.bytes(MEM_MAX)+"), desiredKV="+PrettyPrint.bytes(Cleaner.DESIRED)+
+      (OFF_HEAP_MAX > 0 ? ", OFFHEAP:"+PrettyPrint.bytes(offHeapUsed())+"/"+PrettyPrint.bytes(OFF_HEAP_MAX) : "")+(oom?" OOM!":" NO-OOM");
     if( CAN_ALLOC ) { if( oom ) Log.warn(s); else Log.debug(s); }
     else            System.err.println(s);
   }
@@ -0,0 +1,298 @@
+package water;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static water.H2O.OptArgs.SYSTEM_PROP_PREFIX;
+
+/**
+ * Always-on counters, latency histograms and gauges, cheap enough to leave
+ * in the hot paths of a production Cloud, and readable as Prometheus text
+ * (see {@link water.api.MetricsServlet}).
+ * <p>
+ * Counters are striped over cache lines, so that threads counting the same
+ * event rarely touch the same line.  Histograms count observations in log2
+ * buckets from 1 usec, like the RPC latency histograms, so an observation is
+ * one increment plus one add.  Gauges are read only when metrics are
+ * collected.  Series are identified by a name and a fixed set of labels, e.g.
+ * the class of an MRTask; histograms labeled by class are looked up through a
+ * {@link ClassValue} ({@link ByClass}), without allocating.
+ * <p>
+ * Each node keeps its own metrics; {@link #cluster()} sums counters and
+ * histograms over all nodes, and labels each gauge with its node.
+ */
+public final class Metrics {
+  /** Collect metrics; turned off only to measure their own cost */
+  public static final boolean ENABLED = !Boolean.getBoolean(SYSTEM_PROP_PREFIX + "metrics.disabled");
+
+  /** Histogram buckets: bucket i counts observations up to 2^i usec, the
+   *  last one all slower observations */
+  static final int BUCKETS = 32;
+
+  static final byte COUNTER = 0, GAUGE = 1, HISTOGRAM = 2;
+  private static final String[] TYPES = {"counter", "gauge", "histogram"};
+
+  // Counter stripes, each on its own cache line
+  private static final int STRIPES = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 2 - 1) * 2;
+  private static final int PAD = 8;
+
+  private static final ConcurrentHashMap<String, Metric> SERIES = new ConcurrentHashMap<>();
+  private static final ConcurrentHashMap<String, String> HELP = new ConcurrentHashMap<>();
+  private static final ConcurrentHashMap<String, Byte> TYPE = new ConcurrentHashMap<>();
+
+  private Metrics() {}
+
+  /** A series: a metric name and its labels */
+  public static abstract class Metric {
+    final String _name;
+    final String _labels;       // Formatted, as in name{labels}; "" for none
+    Metric(String name, String labels) { _name = name; _labels = labels; }
+    abstract long[] values();
+  }
+
+  /** A monotonic count */
+  public static final class Counter extends Metric {
+    private final AtomicLongArray _cells = new AtomicLongArray(STRIPES * PAD);
+    Counter(String name, String labels) { super(name, labels); }
+    public void inc() { add(1); }
+    public void add(long n) {
+      if( ENABLED ) _cells.getAndAdd((int)(Thread.currentThread().getId() & (STRIPES - 1)) * PAD, n);
+    }
+    public long get() {
+      long sum = 0;
+      for( int i = 0; i < STRIPES; i++ ) sum += _cells.get(i * PAD);
+      return sum;
+    }
+    @Override long[] values() { return new long[]{get()}; }
+  }
+
+  /** A distribution of durations */
+  public static final class Histogram extends Metric {
+    private final AtomicLongArray _counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong _sumNanos = new AtomicLong();
+    Histogram(String name, String labels) { super(name, labels); }
+    public void observeNanos(long ns) {
+      if( !ENABLED ) return;
+      if( ns < 0 ) ns = 0;
+      long us = ns / 1000;
+      int b = us <= 1 ? 0 : 64 - Long.numberOfLeadingZeros(us - 1);
+      _counts.incrementAndGet(Math.min(b, BUCKETS - 1));
+      _sumNanos.addAndGet(ns);
+    }
+    /** Observe the time since a System.nanoTime() stamp */
+    public void observeSince(long startNs) { observeNanos(System.nanoTime() - startNs); }
+    public long count() {
+      long n = 0;
+      for( int i = 0; i < BUCKETS; i++ ) n += _counts.get(i);
+      return n;
+    }
+    // Bucket counts, then the sum of nanoseconds
+    @Override long[] values() {
+      long[] vs = new long[BUCKETS + 1];
+      for( int i = 0; i < BUCKETS; i++ ) vs[i] = _counts.get(i);
+      vs[BUCKETS] = _sumNanos.get();
+      return vs;
+    }
+  }
+
+  /** A value sampled when metrics are collected; -1 for none */
+  public interface Gauge { long value(); }
+
+  private static final class Sampled extends Metric {
+    private final Gauge _gauge;
+    Sampled(String name, String labels, Gauge g) { super(name, labels); _gauge = g; }
+    @Override long[] values() { return new long[]{_gauge.value()}; }
+  }
+
+  /** Histograms of one name, labeled by class */
+  public static final class ByClass extends ClassValue<Histogram> {
+    private final String _name, _help, _label;
+    ByClass(String name, String help, String label) { _name = name; _help = help; _label = label; }
+    @Override protected Histogram computeValue(Class<?> c) { return histogram(_name, _help, _label, c.getName()); }
+  }
+
+  /** The counter of a name and labels (pairs of label name and value) */
+  public static Counter counter(String name, String help, String... labels) {
+    return register(new Counter(name, labels(labels)), help, COUNTER);
+  }
+  /** The histogram of a name and labels (pairs of label name and value) */
+  public static Histogram histogram(String name, String help, String... labels) {
+    return register(new Histogram(name, labels(labels)), help, HISTOGRAM);
+  }
+  /** Histograms of a name, labeled by class under the given label name */
+  public static ByClass byClass(String name, String help, String label) {
+    return new ByClass(name, help, label);
+  }
+  /** Sample a gauge under a name and labels (pairs of label name and value)
+   *  whenever metrics are collected */
+  public static void gauge(String name, String help, Gauge g, String... labels) {
+    register(new Sampled(name, labels(labels), g), help, GAUGE);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <M extends Metric> M register(M m, String help, byte type) {
+    Byte t = TYPE.putIfAbsent(m._name, type);
+    if( t != null && t != type )
+      throw new IllegalArgumentException("Metric " + m._name + " is a " + TYPES[t] + ", not a " + TYPES[type]);
+    HELP.putIfAbsent(m._name, help);
+    Metric old = SERIES.putIfAbsent(m._name + "{" + m._labels + "}", m);
+    return old == null ? m : (M)old;
+  }
+
+  private static String labels(String... kvs) {
+    if( (kvs.length & 1) != 0 ) throw new IllegalArgumentException("Labels come in name, value pairs");
+    StringBuilder sb = new StringBuilder();
+    for( int i = 0; i < kvs.length; i += 2 ) {
+      if( i > 0 ) sb.append(',');
+      sb.append(kvs[i]).append("=\"");
+      String v = kvs[i + 1];
+      for( int j = 0; j < v.length(); j++ ) {
+        char c = v.charAt(j);
+        if( c == '\\' || c == '"' ) sb.append('\\').append(c);
+        else if( c == '\n' ) sb.append("\\n");
+        else sb.append(c);
+      }
+      sb.append('"');
+    }
+    return sb.toString();
+  }
+
+  // Queue depth and size of the F/J pools, per priority
+  static {
+    for( int p = 0; p <= H2O.MAX_PRIORITY; p++ ) {
+      final int prior = p;
+      String pr = Integer.toString(p);
+      gauge("h2o_fj_queue_depth", "Tasks waiting in the F/J pool of a priority", new Gauge() {
+        @Override public long value() { return H2O.getWrkQueueSize(prior); }
+      }, "priority", pr);
+      gauge("h2o_fj_threads", "Threads of the F/J pool of a priority", new Gauge() {
+        @Override public long value() { return H2O.getWrkThrPoolSize(prior); }
+      }, "priority", pr);
+    }
+  }
+
+  /** Metrics of one node, or summed over nodes */
+  public static final class Snapshot extends Iced<Snapshot> {
+    String[] _names = new String[0];
+    String[] _labels = new String[0];
+    String[] _help = new String[0];
+    byte[] _types = new byte[0];
+    long[][] _values = new long[0][];
+
+    /** Add the other snapshot's counters and histograms to the same series
+     *  of this one, and its other series alongside */
+    public Snapshot merge(Snapshot that) {
+      if( that == null ) return this;
+      Map<String, Integer> idx = new TreeMap<>();
+      for( int i = 0; i < _names.length; i++ ) idx.put(_names[i] + "{" + _labels[i] + "}", i);
+      ArrayList<Integer> extra = new ArrayList<>();
+      for( int i = 0; i < that._names.length; i++ ) {
+        Integer j = idx.get(that._names[i] + "{" + that._labels[i] + "}");
+        if( j == null || _types[j] == GAUGE || _values[j].length != that._values[i].length ) extra.add(i);
+        else for( int k = 0; k < _values[j].length; k++ ) _values[j][k] += that._values[i][k];
+      }
+      int n = _names.length;
+      grow(n + extra.size());
+      for( int i : extra ) {
+        _names[n] = that._names[i];
+        _labels[n] = that._labels[i];
+        _help[n] = that._help[i];
+        _types[n] = that._types[i];
+        _values[n++] = that._values[i];
+      }
+      return this;
+    }
+
+    private void grow(int n) {
+      _names = java.util.Arrays.copyOf(_names, n);
+      _labels = java.util.Arrays.copyOf(_labels, n);
+      _help = java.util.Arrays.copyOf(_help, n);
+      _types = java.util.Arrays.copyOf(_types, n);
+      _values = java.util.Arrays.copyOf(_values, n);
+    }
+
+    /** Value of a counter or gauge, the count of a histogram, or -1 if no
+     *  such series; labels formatted as in the text output */
+    public long get(String name, String labels) {
+      for( int i = 0; i < _names.length; i++ )
+        if( _names[i].equals(name) && _labels[i].equals(labels) ) {
+          if( _types[i] != HISTOGRAM ) return _values[i][0];
+          long n = 0;
+          for( int b = 0; b < BUCKETS; b++ ) n += _values[i][b];
+          return n;
+        }
+      return -1;
+    }
+
+    /** The Prometheus text exposition format, version 0.0.4 */
+    public String toPrometheus() {
+      TreeMap<String, ArrayList<Integer>> byName = new TreeMap<>();
+      for( int i = 0; i < _names.length; i++ ) {
+        ArrayList<Integer> is = byName.get(_names[i]);
+        if( is == null ) byName.put(_names[i], is = new ArrayList<>());
+        is.add(i);
+      }
+      StringBuilder sb = new StringBuilder();
+      for( Map.Entry<String, ArrayList<Integer>> e : byName.entrySet() ) {
+        String name = e.getKey();
+        int first = e.getValue().get(0);
+        sb.append("# HELP ").append(name).append(' ').append(_help[first].replace("\\", "\\\\").replace("\n", "\\n")).append('\n');
+        sb.append("# TYPE ").append(name).append(' ').append(TYPES[_types[first]]).append('\n');
+        for( int i : e.getValue() ) {
+          String ls = _labels[i];
+          long[] vs = _values[i];
+          if( _types[i] != HISTOGRAM ) {
+            sb.append(name).append(ls.isEmpty() ? "" : "{" + ls + "}").append(' ').append(vs[0]).append('\n');
+            continue;
+          }
+          String sep = ls.isEmpty() ? "" : ls + ",";
+          long cum = 0;
+          for( int b = 0; b < BUCKETS - 1; b++ ) {
+            cum += vs[b];
+            sb.append(name).append("_bucket{").append(sep).append("le=\"").append((1L << b) / 1e6).append("\"} ").append(cum).append('\n');
+          }
+          cum += vs[BUCKETS - 1];
+          sb.append(name).append("_bucket{").append(sep).append("le=\"+Inf\"} ").append(cum).append('\n');
+          sb.append(name).append("_sum").append(ls.isEmpty() ? "" : "{" + ls + "}").append(' ').append(vs[BUCKETS] / 1e9).append('\n');
+          sb.append(name).append("_count").append(ls.isEmpty() ? "" : "{" + ls + "}").append(' ').append(cum).append('\n');
+        }
+      }
+      return sb.toString();
+    }
+  }
+
+  /** This node's metrics; gauges labeled by node if asked for */
+  public static Snapshot local(boolean nodeLabel) {
+    Snapshot s = new Snapshot();
+    ArrayList<Metric> ms = new ArrayList<>(SERIES.values());
+    s.grow(ms.size());
+    String node = nodeLabel ? labels("node", H2O.getIpPortString()) : null;
+    int n = 0;
+    for( Metric m : ms ) {
+      byte type = TYPE.get(m._name);
+      long[] vs = m.values();
+      if( type == GAUGE && vs[0] == -1 ) continue;
+      s._names[n] = m._name;
+      s._labels[n] = node == null || type != GAUGE ? m._labels : (m._labels.isEmpty() ? node : m._labels + "," + node);
+      s._help[n] = HELP.get(m._name);
+      s._types[n] = type;
+      s._values[n++] = vs;
+    }
+    s.grow(n);
+    return s;
+  }
+
+  /** Metrics of all nodes: counters and histograms summed, gauges per node */
+  public static Snapshot cluster() { return new Collect().doAllNodes()._snap; }
+
+  private static class Collect extends MRTask<Collect> {
+    Snapshot _snap;
+    Collect() { super(H2O.GUI_PRIORITY); }
+    @Override protected void setupLocal() { _snap = local(true); }
+    @Override public void reduce(Collect that) { _snap = _snap == null ? that._snap : _snap.merge(that._snap); }
+  }
+}
@@ -6,6 +6,7 @@ import water.H2O.FJWThr;
 import water.H2O.H2OCountedCompleter;
 import water.UDP.udp;
 import water.util.DistributedException;
+import water.util.FlightRecorder;
 import water.util.Log;
 
 import java.io.IOException;
@@ -71,6 +72,11 @@ public class RPC<V extends DTask> implements Future<V>, Delayed, ForkJoinPool.Ma
 
   int _resendsCnt;
 
+  // True while holding a send credit of the target, see RPCFlow
+  boolean _credited;
+  long _sent;                   // Time of the first send; 0 until then
+  long _sentNs;                 // ... and in nanos, for the TimeLine
+
   // A list of CountedCompleters we will call tryComplete on when the RPC
   // finally completes.  Frequently null/zero.
   ArrayList<H2OCountedCompleter> _fjtasks;
@@ -182,6 +188,10 @@ public class RPC<V extends DTask> implements Future<V>, Delayed, ForkJoinPool.Ma
         if( _target != null ) _target.taskRemove(_tasknum);
         return this;
       }
+      // Wait for a credit before the first send; the target's RPCFlow calls
+      // back once one is free
+      if( !_credited && !_target.flow().acquire(this) ) return this;
+      if( _sent == 0 ) { _sent = System.currentTimeMillis(); _sentNs = System.nanoTime(); }
       // Default strategy: (re)fire the packet and (re)start the timeout.  We
       // "count" exactly 1 failure: just whether or not we shipped via TCP ever
       // once.  After that we fearlessly (re)send UDP-sized packets until the
@@ -193,6 +203,7 @@ public class RPC<V extends DTask> implements Future<V>, Delayed, ForkJoinPool.Ma
       // make a new UDP-sized packet.  On a re-send of a TCP-sized hunk, just
       // send the basic UDP control packet.
       if( !_sentTcp ) {
+        Object ev = FlightRecorder.begin(FlightRecorder.Type.RPC_SEND);
         while( true ) {         // Retry loop for broken TCP sends
           AutoBuffer ab = new AutoBuffer(_target,_dt.priority());
           try {
@@ -210,6 +221,7 @@ public class RPC<V extends DTask> implements Future<V>, Delayed, ForkJoinPool.Ma
             try { Thread.sleep(500); } catch (InterruptedException ignore) {}
           }
         } // end of while(true)
+        if( ev != null ) FlightRecorder.commit(ev, FlightRecorder.Type.RPC_SEND, _dt.getClass().getName(), _target.toString(), _tasknum, 0);
       } else {
         // Else it was sent via TCP in a prior attempt, and we've timed out.
         // This means the caller's ACK/answer probably got dropped and we need
@@ -251,6 +263,10 @@ public class RPC<V extends DTask> implements Future<V>, Delayed, ForkJoinPool.Ma
     assert _dt.priority() > priority || (_dt.priority() == priority && _dt instanceof MRTask)
       : "*** Attempting to block on task (" + _dt.getClass() + ") with equal or lower priority. Can lead to deadlock! " + _dt.priority() + " <=  " + priority;
     if( _done ) return result(); // Fast-path shortcut, or throw if exception
+    // Never block on an RPC still waiting for a credit: this thread may itself
+    // be running a remote task, holding a credit the RPC waits for
+    H2ONode target = _target;
+    if( target != null && !_credited && target.flow().promote(this) ) call();
     // Use FJP ManagedBlock for this blocking-wait - so the FJP can spawn
     // another thread if needed.
     try { ForkJoinPool.managedBlock(this); } catch( InterruptedException ignore ) { }
@@ -284,6 +300,7 @@ public class RPC<V extends DTask> implements Future<V>, Delayed, ForkJoinPool.Ma
       if( !isCancelled() ) {
         did = true;             // Did cancel (was not cancelled already)
         _target.taskRemove(_tasknum);
+        _target.flow().release(this,false);
         _target = null;         // Flag as canceled
 //        UDPTimeOutThread.PENDING.remove(this);
       }
@@ -319,6 +336,8 @@ public class RPC<V extends DTask> implements Future<V>, Delayed, ForkJoinPool.Ma
     // To help with asserts, record the size of the sent DTask - if we resend
     // if should remain the same size.  Also used for profiling.
     int _size;
+    Object _jfr;                // Flight recorder event, while computing
+    long _startNs;              // Start of computing, for the TimeLine
     RPCCall(DTask dt, H2ONode client, int tsknum) {
       super(dt.priority());
       _dt = dt;
@@ -335,6 +354,8 @@ public class RPC<V extends DTask> implements Future<V>, Delayed, ForkJoinPool.Ma
       // First set self to be completed when this subtask completer
       assert _dt.getCompleter() == null;
       _dt.setCompleter(this);
+      _jfr = FlightRecorder.begin(FlightRecorder.Type.RPC_RECEIVE);
+      _startNs = System.nanoTime();
       // Run the remote task on this server...
       _dt.dinvoke(_client);
     }
@@ -347,6 +368,8 @@ public class RPC<V extends DTask> implements Future<V>, Delayed, ForkJoinPool.Ma
         assert !_computed;
         _computed = true;
       }
+      if( _jfr != null ) FlightRecorder.commit(_jfr, FlightRecorder.Type.RPC_RECEIVE, _dt.getClass().getName(), _client.toString(), _tsknum, 0);
+      TimeLine.record_task(TimeLine.RPC_EXEC, _client, _dt.frozenType(), _startNs);
       sendAck();
     }
     // Exception occurred when processing this task locally, set exception and
@@ -600,6 +623,8 @@ public class RPC<V extends DTask> implements Future<V>, Delayed, ForkJoinPool.Ma
             _dt.onAck();            // One time only execute (before sending ACKACK)
           _done = true;             // Only read one (of many) response packets
           ab._h2o.taskRemove(_tasknum); // Flag as task-completed, even if the result is null
+          ab._h2o.flow().release(this,true);
+          TimeLine.record_task(TimeLine.RPC_CALL, ab._h2o, _dt.frozenType(), _sentNs);
           notifyAll();              // And notify in any case
         }
         if (!isCancelled())  // Can be canceled already
@@ -0,0 +1,162 @@
+package water;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static water.H2O.OptArgs.SYSTEM_PROP_PREFIX;
+
+/**
+ * Flow control and latency tracking for the RPCs this node sends to one
+ * other node.
+ * <p>
+ * RPCs to a node already share persistent channels: small requests are
+ * batched onto one TCP connection per node pair, large ones go over pooled
+ * sockets, and many RPCs are in flight at once.  What is missing is a bound:
+ * a burst of remote calls floods the target's queues and the sockets behind
+ * them.  So each target hands out a number of credits per F/J priority level;
+ * an RPC takes one before its first send and returns it when the answer
+ * arrives (or it is cancelled).  RPCs beyond the credits wait here, FIFO per
+ * priority level, and are sent as credits come back.
+ * <p>
+ * Credits are per priority, like the F/J pools, so RPCs at one level never
+ * wait behind those of another.  Three kinds of RPC are never held back:
+ * <ul>
+ *   <li>System priorities (at or above {@link H2O#MIN_HI_PRIORITY}: DKV,
+ *   ACKs and type id fetches), which running tasks block on;</li>
+ *   <li>{@link MRTask} fan-outs.  A node running its part of an MRTask
+ *   forwards clones to other nodes at the <em>same</em> priority and waits
+ *   for them, so with enough concurrent MRTasks two nodes could each hold
+ *   all credits to the other while their forwarded RPCs wait for credits:
+ *   a cycle.  MRTasks are bounded instead by the F/J pools running them.</li>
+ *   <li>RPCs a thread blocks on, see {@link RPC#get}.  Any other task may
+ *   call out and wait from within a remote call, while the caller holds a
+ *   credit to this node; if its own RPC waited for a credit held the same
+ *   way, neither would move.  Such an RPC leaves the queue and is sent at
+ *   once, over the limit, as soon as it is waited on.</li>
+ * </ul>
+ * Only send credits are implemented here; RPCs keep the existing channels
+ * rather than getting multiplexed or pipelined streams of their own.
+ */
+final class RPCFlow {
+  /** Credits per priority level and target node; 0 for no limit */
+  static final int CREDITS = Integer.getInteger(SYSTEM_PROP_PREFIX + "rpc.credits", 256);
+
+  /** Latency histogram buckets: bucket 0 counts answers under 1 msec, bucket
+   *  i those under 2^i msec, and the last one all slower answers. */
+  static final int LATENCY_BUCKETS = 20;
+
+  private final int _credits;
+  private final int[] _inflight = new int[H2O.MAX_PRIORITY+1];
+  private final ArrayDeque[] _waiting = new ArrayDeque[H2O.MIN_HI_PRIORITY];
+  private int _queued;          // Total waiting RPCs
+  private long _queuedTotal;    // RPCs which ever had to wait
+  private final AtomicLongArray _latency = new AtomicLongArray(LATENCY_BUCKETS);
+
+  RPCFlow() { this(CREDITS); }
+  RPCFlow( int credits ) { _credits = credits; }
+
+  private boolean limited( RPC rpc ) {
+    return _credits > 0 && rpc._dt.priority() < H2O.MIN_HI_PRIORITY && !(rpc._dt instanceof MRTask);
+  }
+
+  /** Admit an RPC for its first send; false if it has to wait for a credit,
+   *  in which case it is sent once one is released. */
+  @SuppressWarnings("unchecked")
+  synchronized boolean acquire( RPC rpc ) {
+    int p = rpc._dt.priority();
+    if( !limited(rpc) || _inflight[p] < _credits ) {
+      _inflight[p]++;
+      rpc._credited = true;
+      return true;
+    }
+    if( _waiting[p] == null ) _waiting[p] = new ArrayDeque<RPC>();
+    _waiting[p].add(rpc);
+    _queued++;
+    _queuedTotal++;
+    return false;
+  }
+
+  /** Take a credit for a waiting RPC which its caller now blocks on, past the
+   *  limit; false if it is not waiting (it already has a credit, or was sent
+   *  or cancelled meanwhile). */
+  synchronized boolean promote( RPC rpc ) {
+    int p = rpc._dt.priority();
+    if( rpc._credited || p >= _waiting.length || _waiting[p] == null || !_waiting[p].remove(rpc) ) return false;
+    _queued--;
+    _inflight[p]++;
+    rpc._credited = true;
+    return true;
+  }
+
+  /** Return the credit of a completed or cancelled RPC, passing it on to the
+   *  next waiting RPC of the same priority, if any.  Waiting RPCs which are
+   *  cancelled simply leave the queue. */
+  void release( RPC rpc, boolean answered ) {
+    RPC next = null;
+    byte p = rpc._dt.priority();
+    synchronized( this ) {
+      if( !rpc._credited ) {
+        if( _waiting[p] != null && _waiting[p].remove(rpc) ) _queued--;
+        return;
+      }
+      rpc._credited = false;
+      // Pass the credit on, unless over the limit after a promote
+      if( limited(rpc) && _inflight[p] <= _credits && _waiting[p] != null && (next = (RPC)_waiting[p].poll()) != null ) {
+        _queued--;
+        next._credited = true;  // Credit moves on; in-flight count unchanged
+      } else _inflight[p]--;
+    }
+    if( answered && rpc._sent != 0 ) {
+      long msec = System.currentTimeMillis() - rpc._sent;
+      recordLatency(msec);
+      RPC_TIME.get(rpc._dt.getClass()).observeNanos(msec * 1000000);
+    }
+    // Send from a F/J thread: the caller is typically a network reader thread,
+    // and sending may serialize a large task
+    if( next != null ) {
+      final RPC send = next;
+      H2O.submitTask(new H2O.H2OCountedCompleter(p) {
+        @Override public void compute2() { send.call(); tryComplete(); }
+      });
+    }
+  }
+
+  private static final Metrics.ByClass RPC_TIME = Metrics.byClass("h2o_rpc_seconds", "Time from sending RPCs to their answers, msec resolution", "task");
+
+  void recordLatency( long msec ) {
+    int b = msec < 1 ? 0 : 64 - Long.numberOfLeadingZeros(msec);
+    _latency.incrementAndGet(Math.min(b, LATENCY_BUCKETS-1));
+  }
+
+  /** RPCs sent and not yet answered */
+  synchronized int inflight() {
+    int n = 0;
+    for( int i : _inflight ) n += i;
+    return n;
+  }
+  /** RPCs waiting for a credit */
+  synchronized int queued() { return _queued; }
+  /** RPCs which ever had to wait for a credit */
+  synchronized long queuedTotal() { return _queuedTotal; }
+
+  /** Counts of answered RPCs by latency bucket, see {@link #LATENCY_BUCKETS} */
+  long[] latencyHistogram() {
+    long[] h = new long[LATENCY_BUCKETS];
+    for( int i = 0; i < h.length; i++ ) h[i] = _latency.get(i);
+    return h;
+  }
+
+  /** Upper bound in msec of the given quantile of answered RPC latencies
+   *  (the lower bound, for the slowest bucket), or -1 if none were answered
+   *  yet */
+  long latencyQuantile( double q ) {
+    long[] h = latencyHistogram();
+    long total = 0;
+    for( long c : h ) total += c;
+    if( total == 0 ) return -1;
+    long rank = (long)Math.ceil(q*total), sum = 0;
+    for( int i = 0; i < h.length; i++ )
+      if( (sum += h[i]) >= rank ) return 1L<<i;
+    return 1L<<(h.length-1);
+  }
+}
@@ -0,0 +1,209 @@
+package water;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import water.nbhm.NonBlockingHashMap;
+
+/**
+ * Replicated-read mode for hot Keys.
+ * <p>
+ * Normally a Value is cached on a remote node only after that node misses
+ * and fetches it from the home node, so a Key read by every node at once
+ * (e.g. a model or a lookup table broadcast to an MRTask) has every node
+ * queue up on its home.  For Keys in replicated-read mode the home node
+ * instead pushes every new Value to all other nodes as soon as the
+ * invalidates for the previous Value have completed, and reads are served
+ * from the local copy.
+ * <p>
+ * Pushed copies are ordinary cached replicas: the home node records them in
+ * the Value's replica list and holds a read-lock until each copy is
+ * installed, so a later PUT invalidates them exactly like copies fetched by
+ * a GET.  Each push also carries a per-Key version, bumped by the home node
+ * on every PUT; a node drops a push older than one it has already seen, so
+ * a delayed push can never reinstall a superseded Value.  Removing the Key
+ * from the DKV takes it out of replicated-read mode on all nodes.
+ * <p>
+ * Hits, misses, pushes and invalidates are exported through {@link Metrics}.
+ */
+public final class ReplicatedKeys {
+  private ReplicatedKeys() {}
+
+  // Node-local map of Keys in replicated-read mode, same on all nodes, to the
+  // latest version pushed (on the home node) or installed (elsewhere)
+  private static final NonBlockingHashMap<Key,AtomicLong> KEYS = new NonBlockingHashMap<>();
+
+  private static final Metrics.Counter HITS = Metrics.counter("h2o_replicated_reads_total", "Reads of replicated Keys on non-home nodes, by where the Value was found", "source", "local");
+  private static final Metrics.Counter MISSES = Metrics.counter("h2o_replicated_reads_total", "Reads of replicated Keys on non-home nodes, by where the Value was found", "source", "home");
+  private static final Metrics.Counter PUSHES = Metrics.counter("h2o_replicated_pushes_total", "Copies of replicated Keys pushed by their home node");
+  private static final Metrics.Counter STALE = Metrics.counter("h2o_replicated_stale_pushes_total", "Pushed copies dropped for an older version than already seen");
+  private static final Metrics.Counter PUTS = Metrics.counter("h2o_replicated_puts_total", "PUTs replacing a replicated Value, on its home node");
+  private static final Metrics.Counter INVALIDATES = Metrics.counter("h2o_replicated_invalidates_total", "Invalidates sent by PUTs of replicated Keys");
+  static {
+    Metrics.gauge("h2o_replicated_keys", "Keys in replicated-read mode", new Metrics.Gauge() {
+      @Override public long value() { return KEYS.size(); }
+    });
+  }
+
+  static boolean isReplicated(Key k) { return !KEYS.isEmpty() && KEYS.containsKey(k); }
+
+  /** Put the Keys in replicated-read mode on all nodes, and push their
+   *  current Values out.  Blocking. */
+  public static void enable(Key... keys) {
+    new ModeTask(keys, true).doAllNodes(); // Every node takes pushes...
+    new PushCurrent(keys).doAllNodes();    // ...before any are sent
+  }
+
+  /** Leave replicated-read mode on all nodes.  Already pushed copies stay
+   *  cached until invalidated or evicted. */
+  public static void disable(Key... keys) { new ModeTask(keys, false).doAllNodes(); }
+
+  private static class ModeTask extends MRTask<ModeTask> {
+    final Key[] _keys;
+    final boolean _on;
+    ModeTask(Key[] keys, boolean on) { _keys = keys; _on = on; }
+    @Override public void setupLocal() {
+      for( Key k : _keys )
+        if( _on ) KEYS.putIfAbsent(k, new AtomicLong());
+        else KEYS.remove(k);
+    }
+  }
+
+  private static class PushCurrent extends MRTask<PushCurrent> {
+    final Key[] _keys;
+    PushCurrent(Key[] keys) { _keys = keys; }
+    @Override public void setupLocal() {
+      Futures fs = new Futures();
+      for( Key k : _keys ) {
+        Value val = k.home() ? Value.STORE_get(k) : null;
+        if( val != null && !val.isNull() ) pushAll(H2O.SELF, k, val, nextVersion(k), fs);
+      }
+      fs.blockForPending();
+    }
+  }
+
+  // Home node: version of a new Value of the Key, 0 if no longer replicated
+  private static long nextVersion(Key k) {
+    AtomicLong v = KEYS.get(k);
+    return v == null ? 0 : v.incrementAndGet();
+  }
+
+  /** Home-node half of a PUT of a replicated Key which replaced {@code old}
+   *  with {@code val}: invalidate the old copies as usual, then push the new
+   *  Value to every node but the sender; both are added to {@code fs}.  A
+   *  remove instead ends replicated-read mode for the Key on all nodes. */
+  static void put(H2ONode sender, Key key, Value val, Value old, Futures fs) {
+    assert key.home();
+    Futures inv = new Futures();
+    if( old != null ) {
+      PUTS.inc();
+      INVALIDATES.add(old.replicaCount(sender));
+      old.lockAndInvalidate(sender, val, inv);
+    } else val.lowerActiveGetCount(null); // Remove initial read-lock
+    if( val.isNull() ) {
+      fs.add(inv);
+      KEYS.remove(key);
+      for( H2ONode h2o : H2O.CLOUD._memary )
+        if( h2o != H2O.SELF ) fs.add(RPC.call(h2o, new TaskDropKey(key)));
+    } else fs.add(H2O.submitTask(new PushTask(sender, key, val, nextVersion(key), inv)));
+  }
+
+  // Wait out the invalidates of the prior Value, then push.  Pushing earlier
+  // would let a late invalidate wipe out the freshly pushed copy.  Runs above
+  // PUT_KEY_PRIORITY, so a TaskPutKey may wait on it, and blocks only on the
+  // invalidates and pushes, which run higher still.
+  private static class PushTask extends H2O.H2OCountedCompleter<PushTask> {
+    final transient Key _key;
+    final transient Value _val;
+    final transient Futures _inv;
+    final transient H2ONode _sender;
+    final transient long _version;
+    PushTask(H2ONode sender, Key key, Value val, long version, Futures inv) { super(H2O.GET_KEY_PRIORITY); _sender = sender; _key = key; _val = val; _version = version; _inv = inv; }
+    @Override public void compute2() {
+      _inv.blockForPending();
+      pushAll(_sender, _key, _val, _version, new Futures()).blockForPending();
+      tryComplete();
+    }
+  }
+
+  private static Futures pushAll(H2ONode sender, Key key, Value val, long version, Futures fs) {
+    if( version == 0 ) return fs; // Left replicated-read mode meanwhile
+    for( H2ONode h2o : H2O.CLOUD._memary )
+      if( h2o != H2O.SELF && h2o != sender && val.setReplica(h2o) ) { // False if already being overwritten
+        PUSHES.inc();
+        fs.add(RPC.call(h2o, new TaskReplicateKey(key, val, version, h2o)));
+      }
+    return fs;
+  }
+
+  static void recordHit() { HITS.inc(); }
+  static void recordMiss() { MISSES.inc(); }
+
+  /** Reads of replicated Keys on this node served by a local copy */
+  public static long hits() { return HITS.get(); }
+  /** Reads of replicated Keys on this node fetched from the home node */
+  public static long misses() { return MISSES.get(); }
+  /** Fraction of reads of replicated Keys served locally, or NaN if none */
+  public static double hitRate() { long h = hits(), t = h + misses(); return t == 0 ? Double.NaN : (double) h / t; }
+  /** Copies pushed by this node as home */
+  public static long pushes() { return PUSHES.get(); }
+  /** Pushes dropped by this node as older than a version already seen */
+  public static long stalePushes() { return STALE.get(); }
+  /** Invalidates sent by this node for PUTs of replicated Keys */
+  public static long invalidates() { return INVALIDATES.get(); }
+  /** Average number of invalidates per PUT of a replicated Key homed here */
+  public static double invalidationFanOut() { long p = PUTS.get(); return p == 0 ? 0 : (double) INVALIDATES.get() / p; }
+  /** Number of Keys in replicated-read mode */
+  public static int size() { return KEYS.size(); }
+
+  /** Install a pushed copy of a Value on a non-home node */
+  static class TaskReplicateKey extends DTask<TaskReplicateKey> {
+    Key _key;
+    Value _val;
+    long _version;
+    transient Value _xval;      // Set by home, read by home on ACK
+    transient H2ONode _h2o;     // Set by home, read by home on ACK
+    TaskReplicateKey(Key key, Value val, long version, H2ONode h2o) { super(H2O.INVALIDATE_PRIORITY); _key = key; _val = _xval = val; _version = version; _h2o = h2o; }
+
+    @Override public void dinvoke(H2ONode sender) {
+      assert !_key.home() && _val._key == null;
+      _val._key = _key;
+      if( advance(KEYS.get(_key), _version) ) {
+        // Same as caching a TaskGetKey result: only fill in a missing or empty
+        // Value.  Anything else is a racing local PUT, more recent than ours.
+        Value old = H2O.STORE.get(_key);
+        if( old != null && !old.isEmpty() ) old = null;
+        H2O.putIfMatch(_key, _val, old);
+      } else STALE.inc();
+      _key = null;              // No return result
+      _val = null;
+      tryComplete();
+    }
+    @Override public void compute2() { throw H2O.fail(); }
+
+    // Received an ACK on the home node: the copy is installed, release the
+    // read-lock taken by setReplica so later PUTs may invalidate it.
+    @Override public void onAck() { _xval.lowerActiveGetCount(_h2o); }
+  }
+
+  // Raise the seen version to v; false if v is not newer, or the Key is no
+  // longer replicated here
+  private static boolean advance(AtomicLong seen, long v) {
+    if( seen == null ) return false;
+    while( true ) {
+      long cur = seen.get();
+      if( v <= cur ) return false;
+      if( seen.compareAndSet(cur, v) ) return true;
+    }
+  }
+
+  /** Take a removed Key out of replicated-read mode on a non-home node */
+  static class TaskDropKey extends DTask<TaskDropKey> {
+    Key _key;
+    TaskDropKey(Key key) { super(H2O.INVALIDATE_PRIORITY); _key = key; }
+    @Override public void compute2() {
+      KEYS.remove(_key);
+      _key = null;              // No return result
+      tryComplete();
+    }
+  }
+}
@@ -40,12 +40,12 @@ public class Scope {
     Arrays.sort(arrkeep);
     Stack<HashSet<Key>> keys = _scope.get()._keys;
     if (keys.size() > 0) {
-      Futures fs = new Futures();
+      List<Key> dead = new ArrayList<>();
       for (Key key : keys.pop()) {
         int found = Arrays.binarySearch(arrkeep, key);
-        if ((arrkeep.length == 0 || found < 0) && key != null) Keyed.remove(key, fs);
+        if ((arrkeep.length == 0 || found < 0) && key != null) dead.add(key);
       }
-      fs.blockForPending();
+      Keyed.remove(dead.toArray(new Key[dead.size()]), new Futures()).blockForPending();
     }
     return keep;
   }
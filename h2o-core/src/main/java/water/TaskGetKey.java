@@ -62,8 +62,13 @@ public class TaskGetKey extends DTask<TaskGetKey> {
       assert !_xkey.home() && _val._key == null;
       _val._key = _xkey;
     }
-    // Now update the local store, caching the result.
+    _val = cache(_xkey,_val);
+    TGKS.remove(_xkey); // Clear from dup cache
+  }
 
+  // Update the local store, caching a Value fetched from home.  Returns the
+  // Value now cached, which may be a racing one.
+  static Value cache( Key key, Value val ) {
     // We only started down the TGK path because we missed locally, so we only
     // expect to find a NULL in the local store.  If somebody else installed
     // another value (e.g. a racing TGK, or racing local Put) this value must
@@ -73,11 +78,10 @@ public class TaskGetKey extends DTask<TaskGetKey> {
 
     // Hence we can do a blind putIfMatch here over a null or empty Value
     // If it fails, what is there is also the TGK result.
-    Value old = H2O.STORE.get(_xkey);
+    Value old = H2O.STORE.get(key);
     if( old != null && !old.isEmpty() ) old=null;
-    Value res = H2O.putIfMatch(_xkey,_val,old);
-    if( res != old ) _val = res;
-    TGKS.remove(_xkey); // Clear from dup cache
+    Value res = H2O.putIfMatch(key,val,old);
+    return res != old ? res : val;
   }
 
   // Received an ACKACK; executes on the node sending the Value
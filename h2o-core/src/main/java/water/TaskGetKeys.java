@@ -0,0 +1,47 @@
+package water;
+
+/** Get a batch of Keys, all homed on the same remote node, in one RPC.
+ *  Behaves like one {@link TaskGetKey} per Key. */
+class TaskGetKeys extends DTask<TaskGetKeys> {
+  Key[] _keys;               // Set by client/sender JVM, cleared by server JVM
+  Value[] _vals;             // Set by server JVM, read by client JVM
+  transient Key[] _xkeys;    // Set by client, read by client
+  transient H2ONode _h2o;    // Set by server JVM, read by server JVM on ACKACK
+
+  TaskGetKeys( Key[] keys ) { super(H2O.GET_KEY_PRIORITY); _keys = _xkeys = keys; }
+
+  @Override public void dinvoke( H2ONode sender ) {
+    _h2o = sender;
+    Key[] ks = _keys;
+    _keys = null;         // Not part of the return result
+    _vals = new Value[ks.length];
+    for( int i=0; i<ks.length; i++ ) {
+      assert ks[i].home();
+      // Track replicas so we can invalidate; retry on a racing delete
+      Value val;
+      do  val = Value.STORE_get(ks[i]);
+      while( val != null && !val.setReplica(sender) );
+      _vals[i] = val;
+    }
+    tryComplete();
+  }
+  @Override public void compute2() { throw H2O.fail(); }
+
+  // Received an ACK; executes on the node asking&receiving the Values
+  @Override public void onAck() {
+    for( int i=0; i<_xkeys.length; i++ ) {
+      Value val = _vals[i];
+      if( val != null ) {       // Set transient fields after deserializing
+        assert !_xkeys[i].home() && val._key == null;
+        val._key = _xkeys[i];
+      }
+      _vals[i] = TaskGetKey.cache(_xkeys[i],val);
+    }
+  }
+
+  // Received an ACKACK; executes on the node sending the Values
+  @Override public void onAckAck() {
+    for( Value val : _vals )
+      if( val != null ) val.lowerActiveGetCount(_h2o);
+  }
+}
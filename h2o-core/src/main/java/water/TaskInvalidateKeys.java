@@ -0,0 +1,57 @@
+package water;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+/** Invalidate a batch of cached values on one remote node. */
+class TaskInvalidateKeys extends TaskPutKeys {
+  private final transient Value[] _newvals;
+  private TaskInvalidateKeys( Key[] keys, Value[] newvals ) { super(keys,null,false,H2O.INVALIDATE_PRIORITY); _newvals = newvals; }
+  // Lower read-locks, possibly enabling pending writes to start
+  @Override public void onAck() { for( Value newval : _newvals ) newval.lowerActiveGetCount(null); }
+
+  /** Invalidates collected on the home node while installing several PUTs,
+   *  sent as one RPC per caching node. */
+  static class Batch {
+    private final HashMap<H2ONode,ArrayList<Key>> _keys = new HashMap<>();
+    private final HashMap<H2ONode,ArrayList<Value>> _newvals = new HashMap<>();
+    private final HashSet<Key> _pending = new HashSet<>();
+
+    synchronized void add( H2ONode h2o, Key key, Value newval ) {
+      assert newval._key != null && key.home();
+      // Read-lock the new Value until the invalidate completes, as
+      // TaskInvalidateKey.invalidate does
+      newval.read_lock();
+      ArrayList<Key> ks = _keys.get(h2o);
+      if( ks == null ) {
+        _keys.put(h2o, ks = new ArrayList<>());
+        _newvals.put(h2o, new ArrayList<Value>());
+      }
+      ks.add(key);
+      _newvals.get(h2o).add(newval);
+      _pending.add(key);
+    }
+
+    /** Send the batch if it holds an invalidate for the Key.  A 2nd PUT of
+     *  the same Key waits for the read-locks the invalidates of the 1st one
+     *  hold, which would never drop while they sit here unsent.  Sending is
+     *  enough: nothing else in fs is waited for. */
+    synchronized void flushIfPending( Key key, Futures fs ) {
+      if( _pending.contains(key) ) send(fs);
+    }
+
+    synchronized Futures send( Futures fs ) {
+      for( Map.Entry<H2ONode,ArrayList<Key>> e : _keys.entrySet() ) {
+        ArrayList<Key> ks = e.getValue();
+        ArrayList<Value> vs = _newvals.get(e.getKey());
+        fs.add(RPC.call(e.getKey(), new TaskInvalidateKeys(ks.toArray(new Key[ks.size()]), vs.toArray(new Value[vs.size()]))));
+      }
+      _keys.clear();
+      _newvals.clear();
+      _pending.clear();
+      return fs;
+    }
+  }
+}
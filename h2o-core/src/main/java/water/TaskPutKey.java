@@ -18,32 +18,50 @@ public class TaskPutKey extends DTask<TaskPutKey> {
   protected TaskPutKey( Key key, Value val ) { this(key,val,false);}
   protected TaskPutKey( Key key, Value val, boolean removeCache ) { super(H2O.PUT_KEY_PRIORITY); _xkey = _key = key; _xval = _val = val; _dontCache = removeCache;}
   protected TaskPutKey( Key key ) { super(H2O.INVALIDATE_PRIORITY); _xkey = _key = key; _xval = _val = null; _dontCache = false;}
+  protected TaskPutKey( byte prior, boolean dontCache ) { super(prior); _dontCache = dontCache; } // Batches
+
+  /** True if this task is putting Key k; valid on the sending node */
+  boolean puts( Key k ) { return k.equals(_key); }
+  /** The Value being put for Key k; valid on the sending node */
+  Value pendingValue( Key k ) { return _xval; }
 
   @Override public void dinvoke( H2ONode sender ) {
-    assert _key.home() || _val==null; // Only PUT to home for keys, or remote invalidation from home
-    Paxos.lockCloud(_key);
-    // Initialize Value for having a single known replica (the sender)
-    if( _val != null ) _val.initReplicaHome(sender,_key);
-    else if( _key.home() ) _val = Value.makeNull(_key);
-    // Spin, until we update something.
-    Value old = H2O.STORE.get(_key); // Raw-get: do not lazy-manifest if overwriting
-    while( H2O.putIfMatch(_key,_val,old) != old )
-      old = H2O.STORE.get(_key);  // Repeat until we update something.
     // Invalidate remote caches.  Block, so that all invalidates are done
     // before we return to the remote caller.  This is conservative, but
     // otherwise we have to send the invalidate-completion message to the
     // remote caller; i.e. the caller would have to handle a 2-step Put
     // completion ("I started your Put request" and "I completed your Put
     // request").
-    if( _key.home() ) {
-      if( old != null ) old.lockAndInvalidate(sender,_val,new Futures()).blockForPending();
-      else _val.lowerActiveGetCount(null);  // Remove initial read-lock, accounting for pending inv counts
-    }
+    Futures fs = new Futures();
+    install(sender,_key,_val,fs,null);
+    fs.blockForPending();
     // No return result
     _key = null;
     _val = null;
     tryComplete();
   }
+
+  // Install a PUT from the sender (or a remote invalidate from home) in the
+  // local store.  On home, invalidates of other cached copies go to the batch
+  // if given, else are sent right away; either way they end up in fs.
+  static void install( H2ONode sender, Key key, Value val, Futures fs, TaskInvalidateKeys.Batch batch ) {
+    assert key.home() || val==null; // Only PUT to home for keys, or remote invalidation from home
+    Paxos.lockCloud(key);
+    // Initialize Value for having a single known replica (the sender)
+    if( val != null ) val.initReplicaHome(sender,key);
+    else if( key.home() ) val = Value.makeNull(key);
+    // Spin, until we update something.
+    Value old = H2O.STORE.get(key); // Raw-get: do not lazy-manifest if overwriting
+    while( H2O.putIfMatch(key,val,old) != old )
+      old = H2O.STORE.get(key);  // Repeat until we update something.
+    if( key.home() ) {
+      if( batch != null ) batch.flushIfPending(key,fs);
+      if( ReplicatedKeys.isReplicated(key) ) ReplicatedKeys.put(sender,key,val,old,fs);
+      else if( old != null ) old.lockAndInvalidate(sender,val,fs,batch);
+      else val.lowerActiveGetCount(null);  // Remove initial read-lock, accounting for pending inv counts
+    }
+  }
+
   @Override public void compute2() { throw H2O.fail(); }
 
   // Received an ACK
@@ -0,0 +1,52 @@
+package water;
+
+/** Push a batch of Keys, all homed on the same remote node, in one RPC.
+ *  Behaves like one {@link TaskPutKey} per Key, but the home node sends the
+ *  resulting invalidates batched per caching node as well. */
+class TaskPutKeys extends TaskPutKey {
+  Key[] _keys;
+  Value[] _vals;                // null for a batch of removes or invalidates
+  transient Key[] _xkeys;
+  transient Value[] _xvals;
+
+  static void put( H2ONode h2o, Key[] keys, Value[] vals, Futures fs, boolean dontCache ) {
+    fs.add(RPC.call(h2o,new TaskPutKeys(keys,vals,dontCache,H2O.PUT_KEY_PRIORITY)));
+  }
+
+  protected TaskPutKeys( Key[] keys, Value[] vals, boolean dontCache, byte prior ) {
+    super(prior,dontCache);
+    _xkeys = _keys = keys;
+    _xvals = _vals = vals;
+  }
+
+  @Override boolean puts( Key k ) {
+    for( Key key : _xkeys ) if( k.equals(key) ) return true;
+    return false;
+  }
+  @Override Value pendingValue( Key k ) {
+    if( _xvals == null ) return null;
+    for( int i=0; i<_xkeys.length; i++ ) if( k.equals(_xkeys[i]) ) return _xvals[i];
+    return null;
+  }
+
+  @Override public void dinvoke( H2ONode sender ) {
+    Futures fs = new Futures();
+    TaskInvalidateKeys.Batch batch = new TaskInvalidateKeys.Batch();
+    for( int i=0; i<_keys.length; i++ )
+      install(sender,_keys[i],_vals==null ? null : _vals[i],fs,batch);
+    batch.send(fs).blockForPending(); // Block for all invalidates, as TaskPutKey does
+    _keys = null;
+    _vals = null;
+    tryComplete();
+  }
+
+  @Override public void onAck() {
+    if( _xvals == null ) return;
+    for( int i=0; i<_xkeys.length; i++ ) {
+      Value xval = _xvals[i];
+      if( xval == null ) continue;
+      if( _dontCache && !xval.isPersisted() ) H2O.putIfMatch(_xkeys[i], null, xval);
+      xval.completeRemotePut();
+    }
+  }
+}
@@ -7,6 +7,8 @@ import sun.misc.Unsafe;
 import water.nbhm.UtilUnsafe;
 import water.util.Log;
 
+import static water.H2O.OptArgs.SYSTEM_PROP_PREFIX;
+
 /**
 
  * Maintain a VERY efficient list of events in the system.  This must be VERY
@@ -35,11 +37,25 @@ public class TimeLine extends UDP {
   // - IP4 of send/recv
   // - Sys.Nano, 8 bytes-3 bits
   // - Nano low bit is 1 id packet was droped, next bit is 0 for send, 1 for recv, next bit is 0 for udp, 1 for tcp
-  // - 16 bytes of payload; 1st byte is a udp_type opcode, next 4 bytes are typically task#
-  public static final int MAX_EVENTS=2048; // Power-of-2, please
+  // - 16 bytes of payload; 1st byte is a udp_type opcode, next 2 bytes the sender's
+  //   timestamp, next 2 bytes the sender's port, next 4 bytes are typically task#
+  //
+  // Besides packets, the TimeLine records spans of local work (see
+  // record_task): udp type 'task', the other node (if any) as the packet
+  // node, the kind of span in byte 1, the type id of the task in bytes 5-7,
+  // and the span length in ns as the 2nd payload word.  The nanos are those
+  // of the end of the span.
+  //
+  // The buffer holds sys.ai.h2o.timeline.events events, rounded up to a
+  // power of 2; snapshots from other nodes may hold a different number.
+  public static final int MAX_EVENTS = Integer.highestOneBit(Math.max(256, Integer.getInteger(SYSTEM_PROP_PREFIX + "timeline.events", 2048)) * 2 - 1);
   static final int WORDS_PER_EVENT=4;
   static final long[] TIMELINE = new long[MAX_EVENTS*WORDS_PER_EVENT+1];
 
+  /** Kinds of spans of local work: the local part of an MRTask; an RPC, from
+   *  first send to answer; a received RPC, from start of work to answer */
+  public static final int MRTASK=0, RPC_CALL=1, RPC_EXEC=2;
+
   static long JVM_BOOT_MSEC = System.currentTimeMillis();
 
 
@@ -61,7 +77,7 @@ public class TimeLine extends UDP {
     // Spin until we can CAS-acquire a fresh index
     while( true ) {
       int oldidx = (int)tl[0];
-      int newidx = (oldidx+1)&(MAX_EVENTS-1);
+      int newidx = (oldidx+1)&(length(tl)-1);
       if( CAS( tl, 0, oldidx, newidx ) )
         return oldidx;
     }
@@ -87,7 +103,7 @@ public class TimeLine extends UDP {
     // not record who he sent to!  With this hack the Timeline record always
     // contains the info about "the other guy": inet+port for the receiver in
     // the sender's Timeline, and vice-versa for the receiver's Timeline.
-    if( sr==0 ) b0 = (b0 & ~0xFFFF00) | (h2o._key.udp_port()<<8);
+    if( sr==0 ) b0 = (b0 & ~0xFFFF000000L) | ((long)h2o._key.udp_port()<<24);
     tl[idx*WORDS_PER_EVENT+2+1] = b0;
     tl[idx*WORDS_PER_EVENT+3+1] = b8;
   }
@@ -114,6 +130,15 @@ public class TimeLine extends UDP {
     record1(b,tcp,1,drop);
   }
 
+  /** Record a span of local work, ending now: one of MRTASK, RPC_CALL or
+   *  RPC_EXEC, done with the other node h2o (or self), for a task of the
+   *  given type id */
+  static void record_task( int kind, H2ONode h2o, int typeid, long start_ns ) {
+    final long ns = System.nanoTime();
+    long b0 = UDP.udp.task.ordinal() | (kind<<8) | ((long)typeid<<40);
+    record2(h2o, ns, false, 0, 0, b0, ns-start_ns);
+  }
+
   // Record a completed I/O event.  The nanosecond time slot is actually nano's-blocked-on-io
 //  static void record_IOclose( AutoBuffer b, int flavor ) {
 //    H2ONode h2o = b._h2o==null ? H2O.SELF : b._h2o;
@@ -150,8 +175,10 @@ public class TimeLine extends UDP {
 
   // Accessors, for TimeLines that come from all over the system
   public static int length( ) { return MAX_EVENTS; }
+  /** Number of events of a snapshot */
+  public static int length( long[] tl ) { return (tl.length-1)/WORDS_PER_EVENT; }
   // Internal array math so we can keep layout private
-  private static int idx(long[] tl, int i ) { return (((int)tl[0]+i)&(MAX_EVENTS-1))*WORDS_PER_EVENT+1; }
+  private static int idx(long[] tl, int i ) { return (((int)tl[0]+i)&(length(tl)-1))*WORDS_PER_EVENT+1; }
   // That first long is complex: compressed CTM and IP4
   private static long x0( long[] tl, int idx ) { return tl[idx(tl,idx)]; }
   // ms since boot of JVM
@@ -249,6 +276,18 @@ public class TimeLine extends UDP {
 
   String print16( AutoBuffer ab ) { return ""; } // no extra info in a timeline packet
 
+  // Spans of local work are recorded as packets of this type, never sent
+  static class TaskRecord extends UDP {
+    static final String[] KINDS = {"mrtask", "rpc", "rpc_exec"};
+    AutoBuffer call(AutoBuffer ab) { throw H2O.fail(); }
+    String print16( AutoBuffer ab ) {
+      int kind = ab.get1U(1);
+      int typeid = (int)(ab.get8(0)>>>40);
+      long ns = ab.get8(8);
+      return (kind < KINDS.length ? KINDS[kind] : "?") + " " + TypeMap.className(typeid) + " " + (ns/1000) + "us";
+    }
+  }
+
   /**
    * Only for debugging.
    * Prints local timeline to stdout.
@@ -260,7 +299,7 @@ public class TimeLine extends UDP {
     System.err.println("===================================<TIMELINE>==============================================");
     for(int i = 0; i < TimeLine.length(); ++i) {
       long lo = TimeLine.l0(s, i),hi = TimeLine.l8(s, i);
-      int port = (int)((lo >> 8) & 0xFFFF);
+      int port = (int)((lo >> 24) & 0xFFFF);
       String op = TimeLine.send_recv(s,i) == 0?"SEND":"RECV";
       if(!TimeLine.isEmpty(s, i) && (lo & 0xFF) == UDP.udp.exec.ordinal())
         System.err.println(TimeLine.ms(s, i) + ": " + op + " " + (((TimeLine.ns(s, i) & 4) != 0)?"TCP":"UDP")  +  TimeLine.inet(s, i) + ":" + port + " | " + UDP.printx16(lo, hi));
@@ -4,7 +4,15 @@ import water.api.schemas3.*;
 import water.nbhm.NonBlockingHashMap;
 import water.util.Log;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
 import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
 
 import static water.Weaver.classForName;
 
@@ -74,6 +82,13 @@ public class TypeMap {
   static private Icer[] GOLD;
   // Unique IDs
   static private int IDS;
+  // Build-generated table of the Freezable classes in the H2O jars, see
+  // Weaver#main; the class at index i has ID BOOTSTRAP_CLASSES.length+i.
+  // Used without asking the leader as long as the leader's table is the same.
+  static final String TYPE_TABLE = "META-INF/h2o-types.txt";
+  static final String[] STATIC_CLAZZES;
+  static private final Map<String,Integer> STATIC_IDS = new HashMap<>();
+  static final long TYPE_TABLE_HASH;
   // JUnit helper flag
   static public volatile boolean _check_no_locking; // ONLY TOUCH IN AAA_PreCloudLock!
   static {
@@ -81,7 +96,15 @@ public class TypeMap {
     GOLD = new Icer[BOOTSTRAP_CLASSES.length];
     int id=0;                   // The initial set of Type IDs to boot with
     for( String s : CLAZZES ) MAP.put(s,id++);
-    IDS = id;
+    STATIC_CLAZZES = loadTypeTable();
+    long hash = 0;
+    for( String s : STATIC_CLAZZES ) {
+      STATIC_IDS.put(s,id++);
+      for( int i=0; i<s.length(); i++ ) hash = hash*31+s.charAt(i);
+      hash = hash*31+'\n';
+    }
+    TYPE_TABLE_HASH = hash;
+    IDS = id;                   // Dynamic IDs go past the static ones
     // Some statically known names, to make life easier during e.g. bootup & parse
     NULL         = (short) -1;
     PRIM_B       = (short)onIce("[B");
@@ -93,6 +116,46 @@ public class TypeMap {
     ESPCGROUP    = (short)onIce("water.fvec.Vec$ESPC"); // Used in TestUtil
   }
 
+  // Union of the type tables of all jars (or class dirs) on the classpath, in
+  // a fixed order, so nodes and clients with the same H2O modules get the same
+  // table whatever the classpath order.
+  private static String[] loadTypeTable() {
+    TreeSet<String> names = new TreeSet<>();
+    try {
+      ClassLoader cl = TypeMap.class.getClassLoader();
+      Enumeration<URL> urls = cl == null ? ClassLoader.getSystemResources(TYPE_TABLE) : cl.getResources(TYPE_TABLE);
+      while( urls.hasMoreElements() ) {
+        try( BufferedReader br = new BufferedReader(new InputStreamReader(urls.nextElement().openStream(),"UTF-8")) ) {
+          String line;
+          while( (line = br.readLine()) != null )
+            if( !(line = line.trim()).isEmpty() ) names.add(line);
+        }
+      }
+    } catch( IOException e ) {
+      // Not fatal, all types are then registered through the leader
+      Log.warn("Cannot read the type table, assigning all type IDs at runtime: "+e);
+      names.clear();
+    }
+    names.removeAll(Arrays.asList(BOOTSTRAP_CLASSES));
+    return names.toArray(new String[names.size()]);
+  }
+
+  // True if the leader uses the same static table as this node
+  private static boolean sameTableAsLeader() {
+    if( STATIC_CLAZZES.length == 0 ) return false;
+    H2ONode leader = H2O.CLOUD.size() == 0 ? null : H2O.CLOUD.leader();
+    return leader == H2O.SELF || (leader != null && leader._heartbeat != null && leader._heartbeat._type_table_hash == TYPE_TABLE_HASH);
+  }
+
+  // Name of a statically assigned ID, or null
+  private static String staticClassName(int id) {
+    int i = id - BOOTSTRAP_CLASSES.length;
+    return 0 <= i && i < STATIC_CLAZZES.length ? STATIC_CLAZZES[i] : null;
+  }
+
+  /** Size of the build-generated type table, 0 if none was found */
+  public static int staticTypes() { return STATIC_CLAZZES.length; }
+
   // The major complexity of this code is that the are FOUR major data forms
   // which get converted to one another.  At various times the code is
   // presented with one of the forms, and asked for another form, sometimes
@@ -137,8 +200,10 @@ public class TypeMap {
     assert H2O.CLOUD.size() > 0 : "No cloud when getting type id for "+className;
     // Am I leader, or not?  Lock the cloud to find out
     Paxos.lockCloud(className);
-    // Leader: pick an ID.  Not-the-Leader: fetch ID from leader.
-    int id = H2O.CLOUD.leader() == H2O.SELF ? -1 : FetchId.fetchId(className);
+    // Statically known type: same ID everywhere.  Else the Leader picks an ID
+    // and Not-the-Leader fetches it from the leader.
+    Integer S = STATIC_IDS.get(className);
+    int id = S != null && sameTableAsLeader() ? S : H2O.CLOUD.leader() == H2O.SELF ? -1 : FetchId.fetchId(className);
     return install(className,id);
   }
 
@@ -157,13 +222,30 @@ public class TypeMap {
       String s = clazs[id];   // Racily read the CLAZZES array
       if( s != null ) return s; // Has the className already
     }
-    assert H2O.CLOUD.leader() != H2O.SELF : "Leader has no mapping for id "+id; // Leaders always have the latest mapping already
-    String s = FetchClazz.fetchClazz(id); // Fetch class name string from leader
+    String s = staticClassName(id);
+    if( s == null || !sameTableAsLeader() ) {
+      assert H2O.CLOUD.leader() != H2O.SELF : "Leader has no mapping for id "+id; // Leaders always have the latest mapping already
+      s = FetchClazz.fetchClazz(id); // Fetch class name string from leader
+    }
     Paxos.lockCloud(s); // If the leader is already selected, then the cloud is already locked but maybe we dont know; lock now
     install( s, id );                     // Install name<->id mapping
     return s;
   }
 
+  // ID -> class name mappings for the header of a persisted stream: the ones
+  // installed here, which cover every type this node serializes, plus the
+  // leader's for ids only seen in bytes from other nodes.  Not the whole
+  // static table: loading calls onIce on every name in the header.
+  static String[] persistClazzes() {
+    String[] local = CLAZZES.clone();
+    if( H2O.CLOUD.leader() == H2O.SELF ) return local;
+    String[] clazzes = FetchClazzes.fetchClazzes();
+    if( clazzes.length < local.length ) clazzes = Arrays.copyOf(clazzes,local.length);
+    for( int i=0; i<local.length; i++ )
+      if( clazzes[i] == null ) clazzes[i] = local[i];
+    return clazzes;
+  }
+
   // Install the type mapping under lock, and grow all the arrays as needed.
   // The grow-step is not obviously race-safe: readers of all the arrays will
   // get either the old or new arrays.  However readers are all reader with
@@ -0,0 +1,98 @@
+package water;
+
+import java.util.Random;
+
+import water.util.Log;
+
+import static water.H2O.OptArgs.SYSTEM_PROP_PREFIX;
+
+/**
+ * A gossiped Heartbeat: the sender's HeartBeat plus its view of how long ago
+ * every Cloud member was last heard from.
+ * <p>
+ * Broadcasting every HeartBeat to every member is O(n^2) packets a second,
+ * which on large Clouds drops packets and gets healthy Nodes suspected.  Once
+ * a large Cloud has formed, the {@link HeartBeatThread} instead sends its
+ * HeartBeat to a few random members, which fold the liveness info into their
+ * own and pass it on in their next round.  News of a live Node so reaches
+ * everybody within O(log n) rounds, far below the failure-detection timeout.
+ * Every few rounds a Node still does a full broadcast, so all members (and
+ * clients) keep a recent copy of its health for the Cloud status page, and
+ * Clouds still discover each other.
+ */
+class UDPGossip extends UDP {
+  // Clouds of this size and larger gossip; 0 to never gossip
+  static final int MIN_CLOUD_SIZE = Integer.getInteger(SYSTEM_PROP_PREFIX + "heartbeat.gossip.min_cloud_size", 64);
+  // Members gossiped to per round
+  static final int FANOUT = Math.max(1, Integer.getInteger(SYSTEM_PROP_PREFIX + "heartbeat.gossip.fanout", 3));
+  // Rounds between full broadcasts
+  static final int FULL_EVERY = Math.max(1, Integer.getInteger(SYSTEM_PROP_PREFIX + "heartbeat.gossip.full_every", 10));
+
+  // Liveness ages are sent in units of 100 msec, saturating
+  static final int AGE_UNIT = 100;
+  static final int AGE_MAX = 0xFFFF;
+  // Members per packet, so a packet fits a small buffer with room for the HeartBeat
+  static final int MAX_DIGEST = (AutoBuffer.BBP_SML._size - 512) >> 1;
+
+  private static final Random RNG = new Random();
+  private static int _start;    // Digest window start, for Clouds above MAX_DIGEST
+  private static boolean _gossiping;
+
+  /** True if this round of the HeartBeatThread should gossip instead of
+   *  broadcasting to all. */
+  static boolean gossipRound( H2O cloud, int counter ) {
+    boolean gossip = MIN_CLOUD_SIZE > 0 && cloud.size() >= MIN_CLOUD_SIZE && !H2O.ARGS.client && Paxos._commonKnowledge;
+    if( gossip != _gossiping ) {
+      _gossiping = gossip;
+      Log.info(gossip ? "Heartbeat: gossiping to "+FANOUT+" of "+cloud.size()+" members, full broadcast every "+FULL_EVERY+" rounds"
+                      : "Heartbeat: broadcasting to all members");
+    }
+    // Stagger the full broadcasts of the members across rounds
+    return gossip && (counter + Math.max(cloud.nidx(H2O.SELF), 0)) % FULL_EVERY != 0;
+  }
+
+  @Override AutoBuffer call(AutoBuffer ab) {
+    if( ab._h2o == H2O.SELF ) return ab;
+    HeartBeat hb = new HeartBeat().read(ab);
+    if( hb._cloud_name_hash != H2O.SELF._heartbeat._cloud_name_hash ) return ab;
+    // Same as a broadcast HeartBeat; do not update the self-heartbeat
+    ab._h2o._heartbeat = hb;
+    Paxos.doHeartbeat(ab._h2o);
+    // Members are indexed by the sender's Cloud; ignore the digest if ours differs
+    H2ONode[] members = H2O.CLOUD._memary;
+    if( hb._cloud_hash != H2O.SELF._heartbeat._cloud_hash || ab.get2() != members.length ) return ab;
+    int start = ab.get2(), len = ab.get2();
+    long now = System.currentTimeMillis();
+    for( int i=0; i<len; i++ ) {
+      int age = ab.get2();
+      H2ONode h2o = members[(start+i) % members.length];
+      if( age == AGE_MAX || h2o == H2O.SELF ) continue;
+      long heard = now - (long)age*AGE_UNIT;
+      if( heard > h2o._last_heard_from ) h2o._last_heard_from = heard;
+    }
+    return ab;
+  }
+
+  static void build_and_gossip( H2O cloud, HeartBeat hb ) {
+    assert hb._cloud_hash != 0;
+    H2O.SELF._heartbeat = hb;
+    H2ONode[] members = cloud._memary;
+    int len = Math.min(members.length, MAX_DIGEST);
+    int start = _start % members.length;
+    _start = start+len;
+    long now = System.currentTimeMillis();
+    int sent = 0;
+    for( int tries = 0; sent < FANOUT && tries < FANOUT*4; tries++ ) {
+      H2ONode target = members[RNG.nextInt(members.length)];
+      if( target == H2O.SELF ) continue;
+      AutoBuffer ab = hb.write(new AutoBuffer(target,udp.gossip._prior).putUdp(udp.gossip));
+      ab.put2((char)members.length).put2((char)start).put2((char)len);
+      for( int i=0; i<len; i++ ) {
+        long age = (now - members[(start+i) % members.length]._last_heard_from)/AGE_UNIT;
+        ab.put2((char)Math.min(Math.max(age,0),AGE_MAX));
+      }
+      ab.close();
+      sent++;
+    }
+  }
+}
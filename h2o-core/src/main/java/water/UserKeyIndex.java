@@ -0,0 +1,68 @@
+package water;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Set;
+
+import water.nbhm.NonBlockingHashMap;
+import water.nbhm.NonBlockingHashMapLong;
+import water.nbhm.NonBlockingHashSet;
+
+/**
+ * Node-local index of the user-visible Keys in the local K/V store, by the
+ * {@link TypeMap} type id of their Values.
+ * <p>
+ * Listing Frames or Models used to walk the whole store, which on a node
+ * holding millions of Chunks costs seconds for a handful of results.  The
+ * index is updated on every insert and removal of a user-visible Key, so a
+ * listing costs time proportional to the number of user Keys, or to the
+ * number of results when asking for a class.
+ */
+final class UserKeyIndex {
+  private UserKeyIndex() {}
+
+  // Key -> type id of its current Value
+  private static final NonBlockingHashMap<Key,Integer> TYPES = new NonBlockingHashMap<>();
+  // Type id -> Keys
+  private static final NonBlockingHashMapLong<Set<Key>> BY_TYPE = new NonBlockingHashMapLong<>();
+  // Updates of the same Key are serialized on a lock stripe, and each one
+  // re-reads the store: so whichever update runs last leaves the index
+  // matching the last store mutation, no matter how racing puts interleave.
+  private static final Object[] LOCKS = new Object[64];
+  static { for( int i=0; i<LOCKS.length; i++ ) LOCKS[i] = new Object(); }
+
+  /** Called after any change of the store mapping for the Key */
+  static void update( Key key ) {
+    if( !key.user_allowed() ) return;
+    synchronized( LOCKS[key.hashCode() & (LOCKS.length-1)] ) {
+      Value val = H2O.STORE.get(key);
+      Integer nt = val == null || val.isNull() ? null : val.type();
+      Integer ot = nt == null ? TYPES.remove(key) : TYPES.put(key, nt);
+      if( ot != null && !ot.equals(nt) ) BY_TYPE.get((long)ot).remove(key);
+      if( nt != null && !nt.equals(ot) ) {
+        Set<Key> ks = BY_TYPE.get((long)nt);
+        if( ks == null ) {
+          Set<Key> nks = new NonBlockingHashSet<>();
+          ks = BY_TYPE.putIfAbsent((long)nt, nks);
+          if( ks == null ) ks = nks;
+        }
+        ks.add(key);
+      }
+    }
+  }
+
+  static void clear() { TYPES.clear(); BY_TYPE.clear(); }
+
+  /** All user-visible Keys in the local store */
+  static Set<Key> keys() { return TYPES.keySet(); }
+
+  /** User-visible Keys in the local store whose Values are of the class or
+   *  a subclass */
+  static ArrayList<Key> keysOfClass( Class clz ) {
+    ArrayList<Key> res = new ArrayList<>();
+    for( Map.Entry<Long,Set<Key>> e : BY_TYPE.entrySet() )
+      if( Value.isSubclassOf(e.getKey().intValue(), clz) )
+        res.addAll(e.getValue());
+    return res;
+  }
+}
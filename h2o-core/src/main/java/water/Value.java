@@ -1,6 +1,7 @@
 package water;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import jsr166y.ForkJoinPool;
@@ -94,16 +95,25 @@ public final class Value extends Iced implements ForkJoinPool.ManagedBlocker {
   private volatile Freezable _pojo;
   Freezable rawPOJO() { return _pojo; }
 
+  // ---
+  // An off-heap copy of _mem, or null.  Filled in by the Cleaner (only for
+  // Chunks) when the off-heap store is enabled, so that the heap copy can be
+  // dropped without a round-trip to disk.  Like the on-disk copy, it is valid
+  // for the lifetime of this Value since _mem is immutable.
+  private transient volatile ByteBuffer _offHeap;
+  /** Check if the backing byte[] has been copied to the off-heap store */
+  public final boolean isOffHeap() { return _offHeap != null; }
+
   /** Invalidate byte[] cache.  Only used to eagerly free memory, for data
    *  which is expected to be read-once. */
   public final void freeMem() {
-    assert isPersisted() || _pojo != null || _key.isChunkKey();
+    assert isPersisted() || isOffHeap() || _pojo != null || _key.isChunkKey();
     _mem = null;
   }
   /** Invalidate POJO cache.  Only used to eagerly free memory, for data
    *  which is expected to be read-once. */
   public final void freePOJO() {
-    assert isPersisted() || _mem != null;
+    assert isPersisted() || isOffHeap() || _mem != null;
     _pojo = null;
   }
 
@@ -117,11 +127,14 @@ public final class Value extends Iced implements ForkJoinPool.ManagedBlocker {
     if( pojo != null )          // Has the POJO, make raw bytes
       return _mem = pojo.asBytes();
     if( _max == 0 ) return (_mem = new byte[0]);
+    ByteBuffer off = _offHeap;  // Read once!
+    if( off != null )           // Reload from the off-heap copy, no disk i/o
+      return (_mem = loadOffHeap(off));
     return (_mem = loadPersist());
   }
   // Just an empty shell of a Value, no local data but the Value is "real".
   // Any attempt to look at the Value will require a remote fetch.
-  final boolean isEmpty() { return _max > 0 && _mem==null && _pojo == null && !isPersisted(); }
+  final boolean isEmpty() { return _max > 0 && _mem==null && _pojo == null && !isPersisted() && !isOffHeap(); }
 
   /** The FAST path get-POJO as an {@link Iced} subclass - final method for
    *  speed.  Will (re)build the POJO from the _mem array.  Never returns NULL.
@@ -157,7 +170,13 @@ public final class Value extends Iced implements ForkJoinPool.ManagedBlocker {
   // ---
   // Time of last access to this value.
   transient long _lastAccessedTime = System.currentTimeMillis();
-  private void touch() {_lastAccessedTime = System.currentTimeMillis();}
+  // Recent access count, saturating; halved on every Cleaner sweep.  Racy
+  // updates are fine, it only guides eviction (see EvictionPolicy).
+  transient byte _hits;
+  private void touch() {
+    _lastAccessedTime = System.currentTimeMillis();
+    if( _hits < EvictionPolicy.MAX_HITS ) _hits++;
+  }
   // Exposed and used for testing only; used to trigger premature cleaning/disk-swapping
   void touchAt(long time) {_lastAccessedTime = time;}
 
@@ -196,6 +215,11 @@ public final class Value extends Iced implements ForkJoinPool.ManagedBlocker {
   public final void setDel() { _deleted=1; } // note: not atomic, but only monotonically set bit
 
 
+  private static final Metrics.Histogram STORE_TIME = Metrics.histogram("h2o_persist_store_seconds", "Time of writing Values to the persistent store");
+  private static final Metrics.Histogram LOAD_TIME = Metrics.histogram("h2o_persist_load_seconds", "Time of reading Values back from the persistent store");
+  private static final Metrics.Counter STORE_BYTES = Metrics.counter("h2o_persist_stored_bytes_total", "Bytes written to the persistent store");
+  private static final Metrics.Counter LOAD_BYTES = Metrics.counter("h2o_persist_loaded_bytes_total", "Bytes read back from the persistent store");
+
   /** Best-effort store complete Values to disk.  */
   void storePersist() throws java.io.IOException {
     // 00       then start writing
@@ -204,7 +228,10 @@ public final class Value extends Iced implements ForkJoinPool.ManagedBlocker {
     // 11       already written & deleted; do nothing
     if( isDeleted() ) return;   // 01 and 11 cases
     if( isPersisted() ) return; // 10 case
+    long start = System.nanoTime();
     H2O.getPM().store(backend(), this); // Write to disk
+    STORE_TIME.observeSince(start);
+    STORE_BYTES.add(_max);
 
     // 00 -> 10 expected, set write bit
     // 10       assert; only Cleaner writes
@@ -224,6 +251,7 @@ public final class Value extends Iced implements ForkJoinPool.ManagedBlocker {
     // 01       double delete; do nothing
     // 10 -> 11 delete
     // 11       double delete; do nothing
+    freeOffHeap();              // Off-heap copy goes regardless of the backend
     if( !onICE() ) return;      // Wrong filestore?
     if( isDeleted() ) return;   // Already deleted?
     setDel();                   // Set del bit BEFORE testing isPersist
@@ -231,6 +259,14 @@ public final class Value extends Iced implements ForkJoinPool.ManagedBlocker {
     H2O.getPM().delete(backend(), this); // Possibly nothing to delete (race with writer)
   }
   /** Load some or all of completely persisted Values */
+  private boolean writePersist( AutoBuffer ab ) {
+    try {
+      return H2O.getPM().writeTo(backend(), this, ab);
+    } catch( IOException e ) {
+      return false;             // Nothing written; take the slow path
+    }
+  }
+
   byte[] loadPersist() {
     // 00       assert: not written yet
     // 01       assert: load-after-delete
@@ -238,12 +274,51 @@ public final class Value extends Iced implements ForkJoinPool.ManagedBlocker {
     // 11       assert: load-after-delete
     assert isPersisted();
     try {
+      long start = System.nanoTime();
       byte[] res = H2O.getPM().load(backend(), this);
+      LOAD_TIME.observeSince(start);
+      LOAD_BYTES.add(res.length);
       assert !isDeleted();        // Race in user-land: load-after-delete
       return res;
     } catch( IOException ioe ) { throw Log.throwErr(ioe); }
   }
 
+  /** Best-effort copy of the byte[] into the off-heap store.  Returns false if
+   *  the off-heap budget is exhausted and the caller should spill to disk
+   *  instead, or if this node is not the Key's home: cached copies of remote
+   *  Values are cheaper to drop and fetch again than to keep off-heap. */
+  boolean storeOffHeap() {
+    if( isDeleted() || isOffHeap() ) return isOffHeap();
+    if( !_key.home() ) return false;
+    byte[] m = memOrLoad();
+    ByteBuffer bb = MemoryManager.mallocOffHeap(m.length);
+    if( bb == null ) return false;
+    bb.put(m).flip();
+    if( !OFFHEAP_UPDATER.compareAndSet(this,null,bb) ) { // Lost a race with another store
+      MemoryManager.freeOffHeap(bb);
+      return isOffHeap();
+    }
+    // Close the race with a writer overwriting or deleting this Value: it
+    // swaps the STORE mapping and then frees, and may have freed before the
+    // buffer above was published.  Both sides re-read after publishing, so
+    // at least one sees the other; freeOffHeap's CAS frees exactly once.
+    if( isDeleted() || H2O.STORE.get(_key) != this ) freeOffHeap();
+    return true;
+  }
+  /** Release the off-heap copy, if any; called when the Value leaves the K/V store */
+  void freeOffHeap() {
+    ByteBuffer bb = _offHeap;
+    if( bb != null && OFFHEAP_UPDATER.compareAndSet(this,bb,null) )
+      MemoryManager.freeOffHeap(bb);
+  }
+  private static final AtomicReferenceFieldUpdater<Value,ByteBuffer> OFFHEAP_UPDATER =
+    AtomicReferenceFieldUpdater.newUpdater(Value.class,ByteBuffer.class, "_offHeap");
+  private byte[] loadOffHeap(ByteBuffer bb) {
+    byte[] res = MemoryManager.malloc1(bb.capacity());
+    bb.duplicate().get(res);    // Private position/limit; racing readers are fine
+    return res;
+  }
+
   String nameOfPersist() { return nameOfPersist(backend()); }
   /** One of ICE, HDFS, S3, GCS, NFS or TCP, according to where this Value is persisted.
    *  @return Short String of the persitance name */
@@ -363,7 +438,15 @@ public final class Value extends Iced implements ForkJoinPool.ManagedBlocker {
   // and the normal serializer then might ship over a null instead of the
   // intended byte[].  Also, the value is NOT on the deserialize'd machines disk
   public final AutoBuffer write_impl( AutoBuffer ab ) {
-    return ab.put1(_persist).put2(_type).putA1(memOrLoad());
+    ab.put1(_persist).put2(_type);
+    // Large payloads which are not on the heap go out straight from off-heap
+    // memory or from the ice files, without a detour through a byte[]
+    if( _mem == null && _max >= AutoBuffer.BULK_MIN && ab.isBulkWriter() ) {
+      ByteBuffer off = _offHeap;  // Read once!
+      if( off != null ) return ab.putA1Buf(off);
+      if( isPersisted() && writePersist(ab) ) return ab;
+    }
+    return ab.putA1(memOrLoad());
   }
   // Custom serializer: set _max from _mem length; set replicas & timestamp.
   public final Value read_impl(AutoBuffer bb) {
@@ -490,6 +573,16 @@ public final class Value extends Iced implements ForkJoinPool.ManagedBlocker {
     return true;
   }
 
+  /** Number of nodes other than {@code except} caching this Value */
+  int replicaCount( H2ONode except ) {
+    byte[] r = _replicas;
+    if( r == null ) return 0;
+    int n = 0;
+    for( int i=0; i<r.length; i++ )
+      if( r[i]==1 && H2ONode.IDX[i] != except ) n++;
+    return n;
+  }
+
   /** Atomically lower active GET and Invalidate count */
   void lowerActiveGetCount( H2ONode h2o ) {
     assert _key.home();    // Only the HOME node for a key tracks replicas
@@ -513,7 +606,10 @@ public final class Value extends Iced implements ForkJoinPool.ManagedBlocker {
    *  Atomically set the rwlock count to -1 locking it from further GETs and
    *  ship out invalidates to caching replicas.  May need to block on active
    *  GETs.  Updates a set of Future invalidates that can be blocked against. */
-  Futures lockAndInvalidate( H2ONode sender, Value newval, Futures fs ) {
+  Futures lockAndInvalidate( H2ONode sender, Value newval, Futures fs ) { return lockAndInvalidate(sender,newval,fs,null); }
+  /** As above, but queue the invalidates to a batch if one is given; the
+   *  caller sends the batch. */
+  Futures lockAndInvalidate( H2ONode sender, Value newval, Futures fs, TaskInvalidateKeys.Batch batch ) {
     assert _key.home(); // Only the HOME node for a key tracks replicas
     assert newval._rwlock.get() >= 1; // starts read-locked
     // Write-Lock against further GETs
@@ -535,8 +631,10 @@ public final class Value extends Iced implements ForkJoinPool.ManagedBlocker {
     if( r!=null ) { // No replicas, nothing to invalidate
       int max = r.length;
       for( int i=0; i<max; i++ )
-        if( r[i]==1 && H2ONode.IDX[i] != sender )
-          TaskInvalidateKey.invalidate(H2ONode.IDX[i],_key,newval,fs);
+        if( r[i]==1 && H2ONode.IDX[i] != sender ) {
+          if( batch == null ) TaskInvalidateKey.invalidate(H2ONode.IDX[i],_key,newval,fs);
+          else batch.add(H2ONode.IDX[i],_key,newval);
+        }
     }
     newval.lowerActiveGetCount(null);  // Remove initial read-lock, accounting for pending inv counts
     return fs;
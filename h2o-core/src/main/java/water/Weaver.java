@@ -3,8 +3,12 @@ package water;
 import javassist.*;
 import sun.misc.Unsafe;
 import water.api.API;
+import water.nbhm.NonBlockingHashSet;
 import water.nbhm.UtilUnsafe;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Modifier;
@@ -12,7 +16,11 @@ import java.net.URL;
 import java.net.URLClassLoader;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
 
 /** Class to auto-gen serializer delegate classes.  */
 public class Weaver {
@@ -79,12 +87,27 @@ public class Weaver {
   }
 
 
+  // Type registration costs: Icers found pre-built vs. woven here, and the
+  // time spent making them.
+  private static final AtomicLong PREBUILT = new AtomicLong(), WOVEN = new AtomicLong(), NANOS = new AtomicLong();
+  private static final NonBlockingHashSet<String> WOVEN_ICERS = new NonBlockingHashSet<>();
+
+  /** Summary of the Icers made so far, for startup reporting */
+  public static String registrationStats() {
+    return PREBUILT.get()+" Icers pre-built, "+WOVEN.get()+" woven at runtime, "+(NANOS.get()/1000000)+"ms";
+  }
+
   public static <T extends Freezable> Icer<T> genDelegate( int id, Class<T> clazz ) {
     Exception e2;
+    long t0 = System.nanoTime();
     try {
       T ice = Modifier.isAbstract(clazz.getModifiers()) ? null : (T)_unsafe.allocateInstance(clazz);
-      Class icer_clz = javassistLoadClass(id,clazz);
-      return (Icer<T>)icer_clz.getDeclaredConstructors()[0].newInstance(ice);
+      Class icer_clz = javassistLoadClass(clazz);
+      Icer<T> icer = (Icer<T>)icer_clz.getDeclaredConstructors()[0].newInstance(ice);
+      icer._frozenType = id;
+      (WOVEN_ICERS.contains(icer_clz.getName()) ? WOVEN : PREBUILT).incrementAndGet();
+      NANOS.addAndGet(System.nanoTime()-t0);
+      return icer;
     }
     catch( InvocationTargetException e ) { e2 = e; }
     catch( InstantiationException    e ) { e2 = e; }
@@ -125,7 +148,7 @@ public class Weaver {
    * Load/Reload classes defined at runtime.
    *
    * Loading classes at runtime is a matter of simply injecting the
-   * new code into the {@link ClassPool}, and then {@link Weaver#javassistLoadClass(int, Class)}
+   * new code into the {@link ClassPool}, and then {@link Weaver#javassistLoadClass(Class)}
    * resolves the generation of (de)serializers. In order to reload classes, though,
    * each dynamically loaded class must have its very own {@link ClassLoader}, and all
    * previous {@link Icer}s must be removed. In order to maintain cluster-wide coherency
@@ -191,7 +214,7 @@ public class Weaver {
   }
 
   // See if javaassist can find this class, already generated
-  private static Class javassistLoadClass(int id, Class iced_clazz) throws CannotCompileException, NotFoundException, InstantiationException, IllegalAccessException, NoSuchFieldException, ClassNotFoundException, InvocationTargetException {
+  private static Class javassistLoadClass(Class iced_clazz) throws CannotCompileException, NotFoundException, InstantiationException, IllegalAccessException, NoSuchFieldException, ClassNotFoundException, InvocationTargetException {
     // End the super class lookup chain at "water.Iced",
     // returning the known delegate class "water.Icer".
     String iced_name = iced_clazz.getName();
@@ -199,8 +222,23 @@ public class Weaver {
 
     assert !iced_name.startsWith("scala.runtime.AbstractFunction");
 
-    // Now look for a pre-cooked Icer.  No locking, 'cause we're just looking
+    // Serialize parent first: the JVM needs the parent Icer to link this one,
+    // and it may have to be woven here.  No locking; occasionally we'll
+    // "onIce" from the remote leader more than once.
+    Class super_clazz = iced_clazz.getSuperclass();
+    Class super_icer_clazz;
+    if(Freezable.class.isAssignableFrom(super_clazz)) {
+      TypeMap.onIce(super_clazz.getName());
+      super_icer_clazz = javassistLoadClass(super_clazz);
+    } else {
+      super_icer_clazz = Icer.class;
+    }
+
+    // Now look for a pre-cooked Icer: generated at build time, or already
+    // woven in this JVM.  No locking, 'cause we're just looking
     String icer_name = implClazzName(iced_name);
+    Class prebuilt = loadedIcer(icer_name, iced_clazz);
+    if( prebuilt != null ) return prebuilt;
     CtClass icer_cc = _pool.getOrNull(icer_name); // Full Name Lookup of Icer
     if( icer_cc != null ) {
       synchronized( iced_clazz ) {
@@ -209,19 +247,6 @@ public class Weaver {
       }
     }
 
-    // Serialize parent.  No locking; occasionally we'll "onIce" from the
-    // remote leader more than once.
-    Class super_clazz = iced_clazz.getSuperclass();
-    Class super_icer_clazz;
-    int super_id;
-    if(Freezable.class.isAssignableFrom(super_clazz)) {
-      super_id = TypeMap.onIce(super_clazz.getName());
-      super_icer_clazz = javassistLoadClass(super_id, super_clazz);
-    } else {
-      super_icer_clazz = Icer.class;
-      super_id = -1;
-    }
-
     CtClass super_icer_cc = _pool.get(super_icer_clazz.getName());
     CtClass iced_cc = _pool.get(iced_name); // Lookup the based Iced class
     boolean super_has_jfields = true;//hasWovenJSONFields(iced_cc.getSuperclass());
@@ -232,14 +257,105 @@ public class Weaver {
     synchronized( iced_clazz ) {
       icer_cc = _pool.getOrNull(icer_name); // Retry under lock
       if( icer_cc != null ) return Class.forName(icer_name); // Found a pre-cooked Icer implementation
-      icer_cc = genIcerClass(id,iced_cc,iced_clazz,icer_name,super_id,super_icer_cc,super_has_jfields);
+      icer_cc = genIcerClass(depth(iced_clazz),iced_cc,iced_clazz,icer_name,super_icer_cc,super_has_jfields);
       icer_cc.toClass(iced_clazz.getClassLoader());               // Load class (but does not link & init)
+      WOVEN_ICERS.add(icer_name);
       return Class.forName(icer_name,true, iced_clazz.getClassLoader()); // Initialize class now, before subclasses
     }
   }
 
+  // An Icer class already loadable by the Iced class' loader, or null.
+  // Dynamically (re)loaded classes never use pre-built Icers: those might
+  // belong to an older version of the class.
+  private static Class loadedIcer(String icer_name, Class iced_clazz) {
+    if( CLASSLOADERS.containsKey(iced_clazz.getName()) ) return null;
+    try {
+      return Class.forName(icer_name,true,iced_clazz.getClassLoader());
+    } catch( ClassNotFoundException e ) {
+      return null;
+    }
+  }
+
+  // Position of a class in its chain of Freezable super classes.  Names the
+  // per-class methods of the Icer, so Icers are independent of the
+  // cloud-specific type ids and can be generated at build time.
+  private static int depth( Class clz ) {
+    int d = 0;
+    for( Class c = clz.getSuperclass(); Freezable.class.isAssignableFrom(c); c = c.getSuperclass() ) d++;
+    return d;
+  }
+
+  /**
+   * Build-time generation of Icers: {@code Weaver <outDir> <classesDir>...}
+   * writes the Icer class of every Freezable class found in the class
+   * directories into outDir.  At runtime these are picked up from the
+   * classpath instead of being woven with Javassist on first use.  Classes
+   * which fail to weave are reported and skipped; runtime weaving still
+   * covers them.
+   */
+  public static void main( String[] args ) throws Exception {
+    if( args.length < 2 ) {
+      System.err.println("Usage: java water.Weaver <outDir> <classesDir>...");
+      System.exit(1);
+    }
+    List<String> names = new ArrayList<>();
+    for( int i=1; i<args.length; i++ ) findClasses(new File(args[i]), "", names);
+    Map<Class,CtClass> icers = new HashMap<>();
+    Set<String> types = new TreeSet<>();
+    int n=0, failed=0;
+    for( String name : names ) {
+      Class clz;
+      try { clz = Class.forName(name,false,Weaver.class.getClassLoader()); }
+      catch( Throwable t ) { continue; } // Not loadable standalone (e.g. optional dependencies)
+      if( clz.isInterface() || !Freezable.class.isAssignableFrom(clz) ) continue;
+      types.add(name);
+      try {
+        buildIcer(clz,icers).writeFile(args[0]);
+        n++;
+      } catch( Exception e ) {
+        failed++;
+        System.err.println("Weaver: no pre-built Icer for "+name+": "+e);
+      }
+    }
+    // The module's part of the static type id table, see TypeMap
+    File table = new File(args[0], TypeMap.TYPE_TABLE);
+    if( !table.getParentFile().isDirectory() && !table.getParentFile().mkdirs() )
+      throw new IOException("Cannot create "+table.getParent());
+    try( PrintWriter pw = new PrintWriter(table, "UTF-8") ) {
+      for( String type : types ) pw.println(type);
+    }
+    System.out.println("Weaver: generated "+n+" Icers into "+args[0]+", "+failed+" left to runtime weaving, "+types.size()+" types listed");
+  }
+
+  private static void findClasses( File dir, String pkg, List<String> names ) {
+    File[] fs = dir.listFiles();
+    if( fs == null ) return;
+    for( File f : fs ) {
+      String name = f.getName();
+      if( f.isDirectory() ) findClasses(f, pkg+name+".", names);
+      else if( name.endsWith(".class") && !name.endsWith("$Icer.class") )
+        names.add(pkg+name.substring(0,name.length()-6));
+    }
+  }
+
+  // Icer for a class, made after the Icer of its super class.  Parent Icers
+  // from other modules are found pre-built on the classpath; otherwise they
+  // are generated too, only to compile against.
+  private static CtClass buildIcer( Class clz, Map<Class,CtClass> icers ) throws CannotCompileException, NotFoundException, NoSuchFieldException {
+    CtClass icer_cc = icers.get(clz);
+    if( icer_cc != null ) return icer_cc;
+    Class super_clazz = clz.getSuperclass();
+    CtClass super_icer_cc = null;
+    if( !Freezable.class.isAssignableFrom(super_clazz) ) super_icer_cc = _pool.get(Icer.class.getName());
+    else if( !icers.containsKey(super_clazz) ) super_icer_cc = _pool.getOrNull(implClazzName(super_clazz.getName()));
+    if( super_icer_cc == null ) super_icer_cc = buildIcer(super_clazz, icers);
+    icer_cc = genIcerClass(depth(clz),_pool.get(clz.getName()),clz,implClazzName(clz.getName()),super_icer_cc,true);
+    icers.put(clz,icer_cc);
+    return icer_cc;
+  }
+
   // Generate the Icer class
-  private static CtClass genIcerClass(int id, CtClass iced_cc, Class iced_clazz, String icer_name, int super_id, CtClass super_icer, boolean super_has_jfields ) throws CannotCompileException, NotFoundException, NoSuchFieldException {
+  private static CtClass genIcerClass(int depth, CtClass iced_cc, Class iced_clazz, String icer_name, CtClass super_icer, boolean super_has_jfields ) throws CannotCompileException, NotFoundException, NoSuchFieldException {
     // Generate the Icer class
     String iced_name = iced_cc.getName();
     CtClass icer_cc = _pool.makeClass(icer_name);
@@ -248,7 +364,7 @@ public class Weaver {
 
     // Overall debug printing?
     if (false) {
-      System.out.println("Iced class " + icer_cc.getName() + " is number: " + id);
+      System.out.println("Iced class " + icer_cc.getName() + " is at depth: " + depth);
     }
 
     // Detailed debug printing?
@@ -265,6 +381,12 @@ public class Weaver {
       int mods = ctf.getModifiers();
       if( javassist.Modifier.isTransient(mods) || javassist.Modifier.isStatic(mods) )
         continue;  // Only serialize not-transient instance fields (not static)
+      // Field offsets for Unsafe access, resolved when the Icer is loaded
+      if( javassist.Modifier.isPrivate(mods) || javassist.Modifier.isFinal(mods) ) {
+        String src = "  private static final long _off_"+name+" = water.Icer.fieldOffset("+iced_name+".class,\""+name+"\");\n";
+        if( debug_print ) System.out.println(src);
+        icer_cc.addField(CtField.make(src,icer_cc));
+      }
       // Check for enum
       CtClass base = ctft;
       while( base.isArray() ) base = base.getComponentType();
@@ -282,21 +404,21 @@ public class Weaver {
     // The write call
     String debug =
     make_body(icer_cc, iced_cc, iced_clazz, "write", null, null,
-              "  protected final water.AutoBuffer write"+id+"(water.AutoBuffer ab, "+iced_name+" ice) {\n",
-              super_id == -1?"":"    write"+super_id+"(ab,ice);\n",
-              "    ab.put%z(ice.%s);\n"  ,  "    ab.put%z((%C)_unsafe.get%u(ice,%dL)); // %s\n",
-              "    ab.put%z(ice.%s);\n"  ,  "    ab.put%z((%C)_unsafe.get%u(ice,%dL)); // %s\n",
-              "    ab.put%z(ice.%s);\n"  ,  "    ab.put%z((%C)_unsafe.get%u(ice,%dL)); // %s\n",
+              "  protected final water.AutoBuffer write"+depth+"(water.AutoBuffer ab, "+iced_name+" ice) {\n",
+              depth == 0?"":"    write"+(depth-1)+"(ab,ice);\n",
+              "    ab.put%z(ice.%s);\n"  ,  "    ab.put%z((%C)_unsafe.get%u(ice,%d)); // %s\n",
+              "    ab.put%z(ice.%s);\n"  ,  "    ab.put%z((%C)_unsafe.get%u(ice,%d)); // %s\n",
+              "    ab.put%z(ice.%s);\n"  ,  "    ab.put%z((%C)_unsafe.get%u(ice,%d)); // %s\n",
               "    return ab;\n" +
               "  }");
     if( debug_print ) System.out.println(debug);
     String debugJ=
     make_body(icer_cc, iced_cc, iced_clazz, "writeJSON", "(supers?ab.put1(','):ab).", "    ab.put1(',').",
-              "  protected final water.AutoBuffer writeJSON"+id+"(water.AutoBuffer ab, "+iced_name+" ice) {\n",
-              super_id == -1?"":"    writeJSON"+super_id+"(ab,ice);\n",
-              "putJSON%z(\"%s\",ice.%s);\n"  ,  "putJSON%z(\"%s\",(%C)_unsafe.get%u(ice,%dL)); // %s\n",
-              "putJSON%z(\"%s\",ice.%s);\n"  ,  "putJSON%z(\"%s\",(%C)_unsafe.get%u(ice,%dL)); // %s\n",
-              "putJSON%z(\"%s\",ice.%s);\n"  ,  "putJSON%z(\"%s\",(%C)_unsafe.get%u(ice,%dL)); // %s\n"  ,
+              "  protected final water.AutoBuffer writeJSON"+depth+"(water.AutoBuffer ab, "+iced_name+" ice) {\n",
+              depth == 0?"":"    writeJSON"+(depth-1)+"(ab,ice);\n",
+              "putJSON%z(\"%s\",ice.%s);\n"  ,  "putJSON%z(\"%s\",(%C)_unsafe.get%u(ice,%d)); // %s\n",
+              "putJSON%z(\"%s\",ice.%s);\n"  ,  "putJSON%z(\"%s\",(%C)_unsafe.get%u(ice,%d)); // %s\n",
+              "putJSON%z(\"%s\",ice.%s);\n"  ,  "putJSON%z(\"%s\",(%C)_unsafe.get%u(ice,%d)); // %s\n"  ,
               "    return ab;\n" +
               "  }");
     if( debug_print ) System.out.println(debugJ);
@@ -304,12 +426,12 @@ public class Weaver {
     // The generic override method.  Called virtually at the start of a
     // serialization call.  Only calls thru to the named static method.
     String wbody = "  protected water.AutoBuffer write(water.AutoBuffer ab, water.Freezable ice) {\n"+
-      "    return write"+id+"(ab,("+iced_name+")ice);\n"+
+      "    return write"+depth+"(ab,("+iced_name+")ice);\n"+
       "  }";
     if( debug_print ) System.out.println(wbody);
     addMethod(wbody,icer_cc);
     String wbodyJ= "  protected water.AutoBuffer writeJSON(water.AutoBuffer ab, water.Freezable ice) {\n"+
-      "    return writeJSON"+id+"(ab.put1('{'),("+iced_name+")ice).put1('}');\n"+
+      "    return writeJSON"+depth+"(ab.put1('{'),("+iced_name+")ice).put1('}');\n"+
       "  }";
     if( debug_print ) System.out.println(wbodyJ);
     addMethod(wbodyJ,icer_cc);
@@ -318,21 +440,21 @@ public class Weaver {
     // The read call
     String rbody_impl =
     make_body(icer_cc, iced_cc, iced_clazz, "read", null, null,
-              "  protected final "+iced_name+" read"+id+"(water.AutoBuffer ab, "+iced_name+" ice) {\n",
-              super_id == -1?"":"    read"+super_id+"(ab,ice);\n",
-              "    ice.%s = ab.get%z();\n",            "    _unsafe.put%u(ice,%dL,ab.get%z());  //%s\n",
-              "    ice.%s = (%C)ab.get%z(%s);\n",    "    _unsafe.put%u(ice,%dL,ab.get%z(%s));\n",
-              "    ice.%s = (%C)ab.get%z(%c.class);\n","    _unsafe.put%u(ice,%dL,(%C)ab.get%z(%c.class));  //%s\n",
+              "  protected final "+iced_name+" read"+depth+"(water.AutoBuffer ab, "+iced_name+" ice) {\n",
+              depth == 0?"":"    read"+(depth-1)+"(ab,ice);\n",
+              "    ice.%s = ab.get%z();\n",            "    _unsafe.put%u(ice,%d,ab.get%z());  //%s\n",
+              "    ice.%s = (%C)ab.get%z(%s);\n",    "    _unsafe.put%u(ice,%d,ab.get%z(%s));\n",
+              "    ice.%s = (%C)ab.get%z(%c.class);\n","    _unsafe.put%u(ice,%d,(%C)ab.get%z(%c.class));  //%s\n",
               "    return ice;\n" +
               "  }");
     if( debug_print ) System.out.println(rbody_impl);
     String rbodyJ_impl =
     make_body(icer_cc, iced_cc, iced_clazz, "readJSON", null, null,
-              "  protected final "+iced_name+" readJSON"+id+"(water.AutoBuffer ab, "+iced_name+" ice) {\n",
-              super_id == -1?"":"    readJSON"+super_id+"(ab,ice);\n",
-              "    ice.%s = ab.get%z();\n",            "    _unsafe.put%u(ice,%dL,ab.get%z());  //%s\n",
-              "    ice.%s = (%C)ab.get%z(%s);\n",    "    _unsafe.put%u(ice,%dL,ab.get%z(%s));\n",
-              "    ice.%s = (%C)ab.get%z(%c.class);\n","    _unsafe.put%u(ice,%dL,(%C)ab.get%z(%c.class));  //%s\n",
+              "  protected final "+iced_name+" readJSON"+depth+"(water.AutoBuffer ab, "+iced_name+" ice) {\n",
+              depth == 0?"":"    readJSON"+(depth-1)+"(ab,ice);\n",
+              "    ice.%s = ab.get%z();\n",            "    _unsafe.put%u(ice,%d,ab.get%z());  //%s\n",
+              "    ice.%s = (%C)ab.get%z(%s);\n",    "    _unsafe.put%u(ice,%d,ab.get%z(%s));\n",
+              "    ice.%s = (%C)ab.get%z(%c.class);\n","    _unsafe.put%u(ice,%d,(%C)ab.get%z(%c.class));  //%s\n",
               "    return ice;\n" +
               "  }");
     if( debug_print )
@@ -341,12 +463,12 @@ public class Weaver {
     // The generic override method.  Called virtually at the start of a
     // serialization call.  Only calls thru to the named static method.
     String rbody = "  protected water.Freezable read(water.AutoBuffer ab, water.Freezable ice) {\n"+
-      "    return read"+id+"(ab,("+iced_name+")ice);\n"+
+      "    return read"+depth+"(ab,("+iced_name+")ice);\n"+
       "  }";
     if( debug_print ) System.out.println(rbody);
     addMethod(rbody,icer_cc);
     String rbodyJ= "  protected water.Freezable readJSON(water.AutoBuffer ab, water.Freezable ice) {\n"+
-      "    return readJSON"+id+"(ab,("+iced_name+")ice);\n"+
+      "    return readJSON"+depth+"(ab,("+iced_name+")ice);\n"+
       "  }";
     if( debug_print ) System.out.println(rbodyJ);
     addMethod(rbodyJ,icer_cc);
@@ -355,10 +477,6 @@ public class Weaver {
     if( debug_print ) System.out.println(cnbody);
     addMethod(cnbody,icer_cc);
 
-    String ftbody = "  protected int frozenType() { return "+id+"; }";
-    if( debug_print ) System.out.println(ftbody);
-    addMethod(ftbody,icer_cc);
-
     String cmp2 = "  protected void compute1( water.H2O.H2OCountedCompleter dt ) { dt.compute1(); }";
     if( debug_print ) System.out.println(cmp2);
     addMethod(cmp2,icer_cc);
@@ -372,9 +490,9 @@ public class Weaver {
                   "    super.copyOver(fdst,fsrc);\n"+
                   "    "+iced_name+" dst = ("+iced_name+")fdst;\n"+
                   "    "+iced_name+" src = ("+iced_name+")fsrc;\n",
-                  "    dst.%s = src.%s;\n","    _unsafe.put%u(dst,%dL,_unsafe.get%u(src,%dL));  //%s\n",
-                  "    dst.%s = src.%s;\n","    _unsafe.put%u(dst,%dL,_unsafe.get%u(src,%dL));  //%s\n",
-                  "    dst.%s = src.%s;\n","    _unsafe.put%u(dst,%dL,_unsafe.get%u(src,%dL));  //%s\n",
+                  "    dst.%s = src.%s;\n","    _unsafe.put%u(dst,%d,_unsafe.get%u(src,%d));  //%s\n",
+                  "    dst.%s = src.%s;\n","    _unsafe.put%u(dst,%d,_unsafe.get%u(src,%d));  //%s\n",
+                  "    dst.%s = src.%s;\n","    _unsafe.put%u(dst,%d,_unsafe.get%u(src,%d));  //%s\n",
                   "  }");
       if( debug_print ) System.out.println(cpbody_impl);
     }
@@ -452,6 +570,8 @@ public class Weaver {
         mimpl = null;           // flag it
         break;
       }
+    // Compact encodings for ints, longs & numeric arrays, on the wire only
+    boolean compact = iced_clazz.isAnnotationPresent(CompactWire.class) && (impl.equals("write") || impl.equals("read"));
     // For all fields...
     CtField ctfs[] = iced_cc.getDeclaredFields();
     for( CtField ctf : ctfs ) {
@@ -475,7 +595,6 @@ public class Weaver {
       // access, only private is a problem.
       boolean can_access = !javassist.Modifier.isPrivate(mods);
       if( (impl.equals("read") || impl.equals("copyOver")) && javassist.Modifier.isFinal(mods) ) can_access = false;
-      long off = _unsafe.objectFieldOffset(iced_clazz.getDeclaredField(ctf.getName()));
       int ftype = ftype(iced_cc, ctf.getSignature() ); // Field type encoding
       if( ftype%20 == 9 || ftype%20 == 11 ) {          // Iced/Objects
         sb.append(can_access ?  iced :  iced_unsafe);
@@ -486,12 +605,14 @@ public class Weaver {
       }
 
       String z = FLDSZ1[ftype % 20];
+      if( compact && ftype/20 <= 2 && (ftype%20 == 4 || ftype%20 == 6 || (ftype%20 == 7 && ftype >= 20)) )
+        z = 'V'+z;                                 // putV4, putAV8, putAAV8d, ...
       for(int i = 0; i < ftype / 20; ++i ) z = 'A'+z;
       subsub(sb, "%z", z);                         // %z ==> short type name
       subsub(sb, "%s", ctf.getName());             // %s ==> field name
       subsub(sb, "%c", dollarsub(base.getName())); // %c ==> base class name
       subsub(sb, "%C", dollarsub(ctft.getName())); // %C ==> full class name
-      subsub(sb, "%d", ""+off);                    // %d ==> field offset, only for Unsafe
+      subsub(sb, "%d", "_off_"+ctf.getName());     // %d ==> field offset, only for Unsafe
       subsub(sb, "%u", utype(ctf.getSignature())); // %u ==> unsafe type name
 
     }
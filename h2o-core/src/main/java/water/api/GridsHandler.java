@@ -4,7 +4,6 @@ import hex.grid.Grid;
 import hex.schemas.GridSchemaV99;
 import water.Key;
 import water.KeySnapshot;
-import water.Value;
 import water.api.schemas99.GridsV99;
 
 /**
@@ -17,12 +16,7 @@ public class GridsHandler extends Handler {
    */
   @SuppressWarnings("unused") // called through reflection by RequestServer
   public GridsV99 list(int version, GridsV99 s) {
-    final Key[] gridKeys = KeySnapshot.globalSnapshot().filter(new KeySnapshot.KVFilter() {
-      @Override
-      public boolean filter(KeySnapshot.KeyInfo k) {
-        return Value.isSubclassOf(k._type, Grid.class);
-      }
-    }).keys();
+    final Key[] gridKeys = KeySnapshot.globalKeysOfClass(Grid.class);
 
     s.grids = new GridSchemaV99[gridKeys.length];
     for (int i = 0; i < gridKeys.length; i++) {
@@ -0,0 +1,38 @@
+package water.api;
+
+import water.Metrics;
+import water.server.ServletUtils;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Metrics of the Cloud in the Prometheus text format, for scraping.
+ * Counters and histograms are summed over all nodes, gauges are labeled by
+ * node; with {@code local=true}, only the metrics of the node asked.
+ */
+public class MetricsServlet extends HttpServlet {
+
+  @Override
+  protected void doGet(HttpServletRequest request, HttpServletResponse response) {
+    String uri = ServletUtils.getDecodedUri(request);
+    try {
+      boolean local = Boolean.parseBoolean(request.getParameter("local"));
+      Metrics.Snapshot snap = local ? Metrics.local(false) : Metrics.cluster();
+      byte[] text = snap.toPrometheus().getBytes(StandardCharsets.UTF_8);
+      response.setContentType("text/plain; version=0.0.4; charset=utf-8");
+      ServletUtils.setResponseStatus(response, HttpServletResponse.SC_OK);
+      try (OutputStream os = response.getOutputStream()) {
+        os.write(text);
+      }
+    } catch (Exception e) {
+      ServletUtils.sendErrorResponse(response, e, uri);
+    } finally {
+      ServletUtils.logRequest("GET", request, response);
+    }
+  }
+
+}
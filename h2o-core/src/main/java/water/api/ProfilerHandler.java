@@ -1,7 +1,10 @@
 package water.api;
 
+import water.H2O;
+import water.api.schemas3.ProfilerEventsV3;
 import water.api.schemas3.ProfilerNodeV3;
 import water.api.schemas3.ProfilerV3;
+import water.util.FlightRecorder;
 import water.util.JProfile;
 
 public class ProfilerHandler extends Handler {
@@ -30,4 +33,13 @@ public class ProfilerHandler extends Handler {
     }
     return p;
   }
+
+  @SuppressWarnings("unused") // called through reflection by RequestServer
+  public ProfilerEventsV3 events(int version, ProfilerEventsV3 p) {
+    p.nodes_enabled = FlightRecorder.setEnabledOnAllNodes(p.enabled);
+    p.nodes = new String[H2O.CLOUD.size()];
+    for (int i = 0; i < p.nodes.length; i++)
+      p.nodes[i] = H2O.CLOUD.members()[i].toString();
+    return p;
+  }
 }
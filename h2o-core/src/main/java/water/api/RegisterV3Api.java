@@ -87,6 +87,11 @@ public class RegisterV3Api extends AbstractRegister {
             "GET /3/Profiler", ProfilerHandler.class, "fetch",
             "Report real-time profiling information for all nodes (sorted, aggregated stack traces).");
 
+    context.registerEndpoint("profilerEvents",
+            "POST /3/Profiler/Events", ProfilerHandler.class, "events",
+            "Turn Java Flight Recorder events of H2O internals (MRTask phases, RPCs, DKV fetches, Cleaner swaps, " +
+            "parsed chunks, model iterations) on or off on all nodes.");
+
     context.registerEndpoint("stacktraces",
             "GET /3/JStack", JStackHandler.class, "fetch",
             "Report stack traces for all threads on all nodes.");
@@ -266,7 +266,7 @@ public class RequestServer extends HttpServlet {
    */
   public void doGeneric(String method, HttpServletRequest request, HttpServletResponse response) {
     try {
-      ServletUtils.startTransaction(request.getHeader("User-Agent"));
+      ServletUtils.startTransaction(request.getHeader("User-Agent"), request.getRemoteUser());
 
       // Note that getServletPath does an un-escape so that the %24 of job id's are turned into $ characters.
       String uri = request.getServletPath();
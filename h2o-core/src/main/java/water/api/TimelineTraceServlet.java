@@ -0,0 +1,36 @@
+package water.api;
+
+import water.init.TimelineTrace;
+import water.server.ServletUtils;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The Cloud's TimeLine as a Chrome trace (JSON), to open in chrome://tracing
+ * or ui.perfetto.dev; see {@link TimelineTrace}.
+ */
+public class TimelineTraceServlet extends HttpServlet {
+
+  @Override
+  protected void doGet(HttpServletRequest request, HttpServletResponse response) {
+    String uri = ServletUtils.getDecodedUri(request);
+    try {
+      response.setContentType("application/json");
+      response.addHeader("Content-Disposition", "attachment; filename=h2o_timeline.json");
+      ServletUtils.setResponseStatus(response, HttpServletResponse.SC_OK);
+      try (Writer w = new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8)) {
+        TimelineTrace.write(w);
+      }
+    } catch (Exception e) {
+      ServletUtils.sendErrorResponse(response, e, uri);
+    } finally {
+      ServletUtils.logRequest("GET", request, response);
+    }
+  }
+
+}
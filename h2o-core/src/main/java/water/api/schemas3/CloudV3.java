@@ -163,6 +163,21 @@ public class CloudV3 extends RequestSchemaV3<Iced, CloudV3> {
     @API(help="Open TCP connections", direction=API.Direction.OUTPUT)
     public int tcps_active;
 
+    @API(help="RPCs from the reporting node to this node, sent and not yet answered", direction=API.Direction.OUTPUT)
+    public int rpcs_inflight;
+
+    @API(help="RPCs from the reporting node to this node, waiting for a send credit", direction=API.Direction.OUTPUT)
+    public int rpcs_queued;
+
+    @API(help="Median latency in msec of RPCs from the reporting node to this node (power of 2 upper bound), -1 if none", direction=API.Direction.OUTPUT)
+    public long rpc_latency_p50;
+
+    @API(help="99th percentile latency in msec of RPCs from the reporting node to this node (power of 2 upper bound), -1 if none", direction=API.Direction.OUTPUT)
+    public long rpc_latency_p99;
+
+    @API(help="Answered RPCs from the reporting node to this node by latency: under 1 msec, then under 2^i msec", direction=API.Direction.OUTPUT)
+    public long[] rpc_latency_hist;
+
     @API(help="Open File Descripters", direction=API.Direction.OUTPUT)
     public int open_fds;
 
@@ -203,6 +218,11 @@ public class CloudV3 extends RequestSchemaV3<Iced, CloudV3> {
 
       // System properties & I/O Status
       tcps_active = hb._tcps_active;
+      rpcs_inflight = h2o.rpcsInflight();
+      rpcs_queued = h2o.rpcsQueued();
+      rpc_latency_p50 = h2o.rpcLatencyQuantile(0.5);
+      rpc_latency_p99 = h2o.rpcLatencyQuantile(0.99);
+      rpc_latency_hist = h2o.rpcLatencyHistogram();
       open_fds = hb._process_num_open_fds; // -1 if not available
       num_cpus = hb._num_cpus;
       cpus_allowed = hb._cpus_allowed;
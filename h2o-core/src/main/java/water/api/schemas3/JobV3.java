@@ -48,6 +48,9 @@ public class JobV3 extends SchemaV3<Job, JobV3> {
   @API(help="ready for view", direction=API.Direction.OUTPUT)
   public boolean ready_for_view;
 
+  @API(help="CPU share relative to other jobs and to interactive work, while the cluster is busy", direction=API.Direction.OUTPUT)
+  public int cpu_share;
+
   //==========================
   // Custom adapters go here
 
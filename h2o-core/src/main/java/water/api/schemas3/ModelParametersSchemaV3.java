@@ -158,6 +158,9 @@ public class ModelParametersSchemaV3<P extends Model.Parameters, S extends Model
   @API(help = "Maximum allowed runtime in seconds for model training. Use 0 to disable.", level = API.Level.secondary, direction=API.Direction.INOUT, gridable = true)
   public double max_runtime_secs;
 
+  @API(help = "CPU share of the training job relative to other jobs and to interactive work, while the cluster is busy and fair sharing is enabled. Use 0 for the default.", level = API.Level.expert, direction=API.Direction.INOUT)
+  public int cpu_share;
+
   /**
    * Metric to use for convergence checking, only for _stopping_rounds > 0
    */
@@ -0,0 +1,15 @@
+package water.api.schemas3;
+
+import water.Iced;
+import water.api.API;
+
+public class ProfilerEventsV3 extends RequestSchemaV3<Iced, ProfilerEventsV3> {
+  @API(help="Emit Java Flight Recorder events of H2O internals on all nodes", required=true)
+  public boolean enabled;
+
+  @API(help="Names of the nodes", direction = API.Direction.OUTPUT)
+  public String[] nodes;
+
+  @API(help="Per node, whether events are emitted; false on JVMs without JFR", direction = API.Direction.OUTPUT)
+  public boolean[] nodes_enabled;
+}
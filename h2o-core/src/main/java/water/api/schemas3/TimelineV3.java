@@ -4,6 +4,7 @@ import water.*;
 import water.api.API;
 import water.api.TimelineHandler.Timeline;
 import water.init.TimelineSnapshot;
+import water.init.TimelineTrace;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -30,8 +31,8 @@ public class TimelineV3 extends RequestSchemaV3<Timeline,TimelineV3> {
     @API(help="Time in nanos")
     private final long nanos;
 
-    enum EventType {unknown, heartbeat, network_msg, io}
-    @API(help="type of recorded event", values = {"unknown", "heartbeat", "network_msg", "io"})
+    enum EventType {unknown, heartbeat, network_msg, io, task}
+    @API(help="type of recorded event", values = {"unknown", "heartbeat", "network_msg", "io", "task"})
     private final EventType type;
 
     @SuppressWarnings("unused")
@@ -123,6 +124,34 @@ public class TimelineV3 extends RequestSchemaV3<Timeline,TimelineV3> {
     @Override public    String toString() { return "I_O('" + io_flavor + "')"; }
   } // IOEvent
 
+  public static class TaskEvent extends EventV3<Iced, TaskEvent> {
+    @API(help="kind of work: mrtask (local part of an MRTask), rpc (sent, until answered), rpc_exec (received, until answered)")
+    private final String kind;
+    @API(help="class of the task")
+    private final String task;
+    @API(help="node where the work happened")
+    private final String node;
+    @API(help="node the RPC went to or came from, if any")
+    private final String peer;
+    @API(help="duration in microseconds")
+    private final long duration_us;
+
+    public TaskEvent() { this(-1, -1, "unknown", "unknown", "unknown", "unknown", -1); }
+    private TaskEvent(long ms, long ns, String kind, String task, String node, String peer, long duration_us) {
+      super(EventType.task,ms,ns);
+      this.kind = kind;
+      this.task = task;
+      this.node = node;
+      this.peer = peer;
+      this.duration_us = duration_us;
+    }
+    @Override protected String who() { return peer == null ? node : node + " <-> " + peer; }
+    @Override protected String ioType() { return kind; }
+    @Override protected String event() { return task; }
+    @Override public    String bytes() { return duration_us + "us"; }
+    @Override public    String toString() { return "Task(" + kind + " " + task + " on " + node + ", " + duration_us + "us)"; }
+  } // TaskEvent
+
   @Override public TimelineV3 fillFromImpl(Timeline timeline) {
     ArrayList<EventV3> outputEvents = new ArrayList<>();
     ArrayList<TimelineSnapshot.Event> heartbeats = new ArrayList();
@@ -134,7 +163,7 @@ public class TimelineV3 extends RequestSchemaV3<Timeline,TimelineV3> {
         // The event type.  First get payload.
         UDP.udp msgType = event.udpType();
         // Accumulate repeated heartbeats
-        if (msgType == UDP.udp.heartbeat) {
+        if (msgType == UDP.udp.heartbeat || msgType == UDP.udp.gossip) {
           heartbeats.add(event);
           continue;
         }
@@ -163,7 +192,11 @@ public class TimelineV3 extends RequestSchemaV3<Timeline,TimelineV3> {
         }
         long ms = event.ms();
         long ns = event.ns();
-        if (msgType == UDP.udp.i_o) { // handle io event
+        if (msgType == UDP.udp.task) {
+          H2ONode peer = event.packH2O();
+          outputEvents.add(new TaskEvent(ms, ns, TimelineTrace.taskKind(event), event.taskClass(), h2o.toString(),
+                  peer == null ? null : peer.toString(), event.taskNanos() / 1000));
+        } else if (msgType == UDP.udp.i_o) { // handle io event
           outputEvents.add(new IOEvent(ms, ns, event.recoH2O().toString(), event.ioflavor(), UDP.printx16(event.dataLo(), event.dataHi())));
         } else { // network msg
           String from, to;
@@ -37,6 +37,11 @@ public class C1NChunk extends Chunk {
       vals[i-from] = _mem[i]&0xFF;
     return vals;
   }
+  @Override public long [] getLongs(long [] vals, int from, int to, long NA){
+    for(int i = from; i < to; ++i)
+      vals[i-from] = _mem[i]&0xFF;
+    return vals;
+  }
   @Override
   public <T extends ChunkVisitor> T processRows(T v, int from, int to) {
     for(int i = from; i < to; i++) v.addValue(0xFF&_mem[i]);
@@ -0,0 +1,130 @@
+package water.fvec;
+
+import water.MemoryManager;
+import water.util.UnsafeUtils;
+
+/**
+ * The bit-packed frame-of-reference compression function: integers stored as
+ * their offset from the Chunk minimum, packed at the bit width of the range
+ * (1 to 32 bits).  The all-ones code is the marker for N/A.  Used for integer
+ * and categorical columns whose range falls between whole byte widths, e.g.
+ * 10-100 levels in 4-7 bits rather than a byte.
+ * <p>
+ * A code of up to 32 bits is read with one 64-bit load from its first byte
+ * and a shift; the packed bits are followed by 7 padding bytes to keep that
+ * load in bounds.
+ */
+public class CBPChunk extends Chunk {
+  static final int _OFF = 4 + 4 + 8; // _len + bits + bias
+  static final int MAX_BITS = 32;
+  /** Bits per value for a range of max-min, leaving the top code for NA */
+  public static int bits(long range) { return 64 - Long.numberOfLeadingZeros(range + 1); }
+  public static int computeByteSize(int len, int bits) {
+    return _OFF + (int)(((long)len * bits + 7) >>> 3) + 7;
+  }
+  private transient int _bits;
+  private transient long _mask, _bias;
+
+  CBPChunk() {}
+  CBPChunk(int len, int bits, long bias) {
+    assert 0 < bits && bits <= MAX_BITS;
+    _start = -1;
+    _mem = MemoryManager.malloc1(computeByteSize(len, bits), false);
+    UnsafeUtils.set4(_mem, 0, len);
+    UnsafeUtils.set4(_mem, 4, bits);
+    UnsafeUtils.set8(_mem, 8, bias);
+    initFromBytes();
+  }
+
+  public int bits() { return _bits; }
+
+  /** Store the given code at row i; codes are value-bias, or NA() */
+  final void write(int i, long code) {
+    long p = (long)i * _bits;
+    int off = _OFF + (int)(p >>> 3), shift = (int)p & 7;
+    long w = UnsafeUtils.get8(_mem, off);
+    UnsafeUtils.set8(_mem, off, (w & ~(_mask << shift)) | (code << shift));
+  }
+  final long NA() { return _mask; }
+  private long read(int i) {
+    long p = (long)i * _bits;
+    return (UnsafeUtils.get8(_mem, _OFF + (int)(p >>> 3)) >>> ((int)p & 7)) & _mask;
+  }
+
+  @Override protected final long at8_impl( int i ) {
+    long x = read(i);
+    if( x == _mask ) throw new IllegalArgumentException("at8_abs but value is missing");
+    return x + _bias;
+  }
+  @Override protected final double atd_impl( int i ) {
+    long x = read(i);
+    return x == _mask ? Double.NaN : x + _bias;
+  }
+  @Override protected final boolean isNA_impl( int i ) { return read(i) == _mask; }
+
+  @Override boolean set_impl(int i, long l) {
+    if( l < _bias || l >= _bias + _mask ) return false;
+    write(i, l - _bias);
+    return true;
+  }
+  @Override boolean set_impl(int i, double d) {
+    if( Double.isNaN(d) ) return setNA_impl(i);
+    long l = (long)d;
+    return l == d && set_impl(i, l);
+  }
+  @Override boolean set_impl(int i, float f ) { return set_impl(i, (double)f); }
+  @Override boolean setNA_impl(int idx) { write(idx, _mask); return true; }
+
+  // Bulk unpack: walk the bit position rather than recompute it per row
+  @Override public double [] getDoubles(double [] vals, int from, int to, double NA) {
+    final int bits = _bits;  final long mask = _mask, bias = _bias;
+    long p = (long)from * bits;
+    for( int i = from; i < to; i++, p += bits ) {
+      long x = (UnsafeUtils.get8(_mem, _OFF + (int)(p >>> 3)) >>> ((int)p & 7)) & mask;
+      vals[i - from] = x == mask ? NA : x + bias;
+    }
+    return vals;
+  }
+  @Override public int [] getIntegers(int [] vals, int from, int to, int NA) {
+    final int bits = _bits;  final long mask = _mask, bias = _bias;
+    long p = (long)from * bits;
+    for( int i = from; i < to; i++, p += bits ) {
+      long x = (UnsafeUtils.get8(_mem, _OFF + (int)(p >>> 3)) >>> ((int)p & 7)) & mask;
+      vals[i - from] = x == mask ? NA : (int)(x + bias);
+    }
+    return vals;
+  }
+  @Override public long [] getLongs(long [] vals, int from, int to, long NA) {
+    final int bits = _bits;  final long mask = _mask, bias = _bias;
+    long p = (long)from * bits;
+    for( int i = from; i < to; i++, p += bits ) {
+      long x = (UnsafeUtils.get8(_mem, _OFF + (int)(p >>> 3)) >>> ((int)p & 7)) & mask;
+      vals[i - from] = x == mask ? NA : x + bias;
+    }
+    return vals;
+  }
+
+  private void processRow(ChunkVisitor v, int i) {
+    long x = read(i);
+    if( x == _mask ) v.addNAs(1);
+    else v.addValue(x + _bias);
+  }
+  @Override public ChunkVisitor processRows(ChunkVisitor v, int from, int to) {
+    for( int i = from; i < to; i++ ) processRow(v, i);
+    return v;
+  }
+  @Override public ChunkVisitor processRows(ChunkVisitor v, int... rows) {
+    for( int i : rows ) processRow(v, i);
+    return v;
+  }
+
+  @Override public boolean hasFloat() { return false; }
+
+  @Override protected final void initFromBytes() {
+    _start = -1;  _cidx = -1;
+    set_len(UnsafeUtils.get4(_mem, 0));
+    _bits = UnsafeUtils.get4(_mem, 4);
+    _bias = UnsafeUtils.get8(_mem, 8);
+    _mask = (1L << _bits) - 1;
+  }
+}
@@ -0,0 +1,171 @@
+package water.fvec;
+
+import water.MemoryManager;
+import water.util.UnsafeUtils;
+
+/**
+ * The delta compression function, for timestamps, sequence numbers and other
+ * (near-)monotonic integer columns: each row stores its difference from the
+ * previous non-NA row.  Rows come in blocks of 32, each with a checkpoint of
+ * the value before the block, the minimum delta in the block, and the bit
+ * width the block's deltas are packed at as their offset from that minimum.
+ * The all-ones code is the marker for N/A.
+ * <p>
+ * Random access sums at most 32 deltas from the checkpoint; a block of equal
+ * deltas (a fixed sampling interval, consecutive ids) packs to 0 bits and is
+ * read in constant time.  Bulk reads stream through the deltas.
+ */
+public class CDeltaChunk extends Chunk {
+  static final int _OFF = 4;                     // _len
+  static final int LOG_BLK = 5, BLK = 1 << LOG_BLK;
+  static final int CP_SZ = 8 + 4 + 4;            // base + min delta + (data offset<<8 | bits)
+  static final int MAX_DATA = 1 << 24;           // Data offsets are 24 bits
+  static int blocks(int len) { return (len + BLK - 1) >> LOG_BLK; }
+  /** Bytes for a block of n deltas at the given width */
+  static int blockBytes(int n, int bits) { return (n * bits + 7) >> 3; }
+  private transient int _data;                   // Start of the packed deltas
+
+  CDeltaChunk() {}
+  /** A Chunk with each block's min delta and bit width set; bases and codes
+   *  follow through {@link #setBase} and {@link #write} */
+  CDeltaChunk(int len, int[] mins, byte[] bits, int dataBytes) {
+    _start = -1;
+    int nb = blocks(len);
+    _mem = MemoryManager.malloc1(_OFF + nb * CP_SZ + dataBytes + 7, false);
+    UnsafeUtils.set4(_mem, 0, len);
+    int off = 0;
+    for( int b = 0; b < nb; b++ ) {
+      int cp = _OFF + b * CP_SZ;
+      UnsafeUtils.set4(_mem, cp + 8, mins[b]);
+      UnsafeUtils.set4(_mem, cp + 12, (off << 8) | bits[b]);
+      off += blockBytes(Math.min(BLK, len - (b << LOG_BLK)), bits[b]);
+    }
+    assert off == dataBytes && dataBytes < MAX_DATA;
+    initFromBytes();
+  }
+
+  final void setBase(int b, long base) { UnsafeUtils.set8(_mem, _OFF + b * CP_SZ, base); }
+  /** Store the code of row i: its delta less the block min delta, or NA(i) */
+  final void write(int i, long code) {
+    int cp = _OFF + (i >> LOG_BLK) * CP_SZ, w = UnsafeUtils.get4(_mem, cp + 12), bits = w & 0xFF;
+    if( bits == 0 ) { assert code == 0; return; }
+    int p = (i & (BLK - 1)) * bits, off = _data + (w >>> 8) + (p >>> 3), shift = p & 7;
+    long mask = (1L << bits) - 1, x = UnsafeUtils.get8(_mem, off);
+    UnsafeUtils.set8(_mem, off, (x & ~(mask << shift)) | (code << shift));
+  }
+  final long NA(int i) { return (1L << (UnsafeUtils.get4(_mem, _OFF + (i >> LOG_BLK) * CP_SZ + 12) & 0xFF)) - 1; }
+
+  private long code(int off, int k, int bits, long mask) {
+    int p = k * bits;
+    return (UnsafeUtils.get8(_mem, off + (p >>> 3)) >>> (p & 7)) & mask;
+  }
+
+  // Value after the first n rows of the block of row i, NAs skipped
+  private long sum(int i, int n) {
+    int cp = _OFF + (i >> LOG_BLK) * CP_SZ;
+    long v = UnsafeUtils.get8(_mem, cp);
+    long min = UnsafeUtils.get4(_mem, cp + 8);
+    int w = UnsafeUtils.get4(_mem, cp + 12), bits = w & 0xFF;
+    if( bits == 0 ) return v + n * min;
+    int off = _data + (w >>> 8);
+    long mask = (1L << bits) - 1;
+    for( int j = 0; j < n; j++ ) {
+      long x = code(off, j, bits, mask);
+      if( x != mask ) v += x + min;
+    }
+    return v;
+  }
+  private long value(int i) { return sum(i, (i & (BLK - 1)) + 1); }
+
+  @Override protected final long at8_impl( int i ) {
+    if( isNA_impl(i) ) throw new IllegalArgumentException("at8_abs but value is missing");
+    return value(i);
+  }
+  @Override protected final double atd_impl( int i ) { return isNA_impl(i) ? Double.NaN : value(i); }
+  @Override protected final boolean isNA_impl( int i ) {
+    int cp = _OFF + (i >> LOG_BLK) * CP_SZ, w = UnsafeUtils.get4(_mem, cp + 12), bits = w & 0xFF;
+    if( bits == 0 ) return false;
+    long mask = (1L << bits) - 1;
+    return code(_data + (w >>> 8), i & (BLK - 1), bits, mask) == mask;
+  }
+
+  // Any change moves the rows after it; only writes of the current value are
+  // done in place
+  @Override boolean set_impl(int i, long l) { return !isNA_impl(i) && value(i) == l; }
+  @Override boolean set_impl(int i, double d) {
+    return Double.isNaN(d) ? isNA_impl(i) : (long)d == d && set_impl(i, (long)d);
+  }
+  @Override boolean set_impl(int i, float f ) { return set_impl(i, (double)f); }
+  @Override boolean setNA_impl(int idx) { return isNA_impl(idx); }
+
+  // Bulk decode of rows from to to (exclusive), all in one block, into out
+  // from off: the value before 'from', then one add per row.  Returns the
+  // mask of the NA rows, bit 0 for row 'from'; their slots hold junk.
+  private int decode(int from, int to, long [] out, int off) {
+    int cp = _OFF + (from >> LOG_BLK) * CP_SZ, w = UnsafeUtils.get4(_mem, cp + 12), bits = w & 0xFF;
+    long v = sum(from, from & (BLK - 1)), min = UnsafeUtils.get4(_mem, cp + 8);
+    if( bits == 0 ) {
+      for( int i = from; i < to; i++ ) out[off + i - from] = v += min;
+      return 0;
+    }
+    int data = _data + (w >>> 8), nas = 0;
+    long mask = (1L << bits) - 1;
+    for( int i = from; i < to; i++ ) {
+      long x = code(data, i & (BLK - 1), bits, mask);
+      if( x == mask ) nas |= 1 << (i - from);
+      else v += x + min;
+      out[off + i - from] = v;
+    }
+    return nas;
+  }
+  // End of the block of row i, or to
+  private static int blockEnd(int i, int to) { return Math.min(to, ((i >> LOG_BLK) + 1) << LOG_BLK); }
+
+  @Override public long [] getLongs(long [] vals, int from, int to, long NA) {
+    for( int i = from; i < to; ) {
+      int end = blockEnd(i, to);
+      for( int nas = decode(i, end, vals, i - from); nas != 0; nas &= nas - 1 )
+        vals[i - from + Integer.numberOfTrailingZeros(nas)] = NA;
+      i = end;
+    }
+    return vals;
+  }
+  @Override public double [] getDoubles(double [] vals, int from, int to, double NA) {
+    long [] ls = new long[BLK];
+    for( int i = from; i < to; ) {
+      int end = blockEnd(i, to), nas = decode(i, end, ls, 0);
+      for( int k = 0; k < end - i; k++ )
+        vals[i - from + k] = (nas & (1 << k)) != 0 ? NA : ls[k];
+      i = end;
+    }
+    return vals;
+  }
+
+  @Override public ChunkVisitor processRows(ChunkVisitor nc, int from, int to) {
+    long [] ls = new long[BLK];
+    for( int i = from; i < to; ) {
+      int end = blockEnd(i, to), nas = decode(i, end, ls, 0);
+      for( int k = 0; k < end - i; k++ ) {
+        if( (nas & (1 << k)) != 0 ) nc.addNAs(1);
+        else nc.addValue(ls[k]);
+      }
+      i = end;
+    }
+    return nc;
+  }
+  @Override public ChunkVisitor processRows(ChunkVisitor nc, int... rows) {
+    for( int i : rows ) {
+      if( isNA_impl(i) ) nc.addNAs(1);
+      else nc.addValue(value(i));
+    }
+    return nc;
+  }
+
+  @Override public boolean hasFloat() { return false; }
+
+  @Override protected final void initFromBytes() {
+    _start = -1;  _cidx = -1;
+    set_len(UnsafeUtils.get4(_mem, 0));
+    _data = _OFF + blocks(_len) * CP_SZ;
+  }
+}
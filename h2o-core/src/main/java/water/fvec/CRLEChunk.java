@@ -0,0 +1,116 @@
+package water.fvec;
+
+import water.MemoryManager;
+import water.util.UnsafeUtils;
+
+import java.util.Arrays;
+
+/**
+ * The run-length compression function: runs of one value, as the row each
+ * run ends at (exclusive) and the value as a double.  Used for sorted or
+ * grouped columns, e.g. keys of a sorted frame or ids of an event log.
+ * <p>
+ * Random access binary-searches the run ends, starting from the run last
+ * found; so scans in row order take constant time per row.
+ */
+public class CRLEChunk extends Chunk {
+  static final int _OFF = 4 + 4 + 4; // _len + runs + flags
+  public static int computeByteSize(int runs) { return _OFF + runs * (4 + 8); }
+  private transient int _runs;
+  private transient boolean _float;
+  private transient int _last;  // Run of the last access; racy, only a hint
+
+  CRLEChunk() {}
+  CRLEChunk(int len, int runs, boolean isFloat) {
+    _start = -1;
+    _mem = MemoryManager.malloc1(computeByteSize(runs), false);
+    UnsafeUtils.set4(_mem, 0, len);
+    UnsafeUtils.set4(_mem, 4, runs);
+    UnsafeUtils.set4(_mem, 8, isFloat ? 1 : 0);
+    initFromBytes();
+  }
+
+  /** Set run r, of rows up to end (exclusive) holding the value of the given double bits */
+  final void setRun(int r, int end, long bits) {
+    UnsafeUtils.set4(_mem, _OFF + (r << 2), end);
+    UnsafeUtils.set8(_mem, _OFF + (_runs << 2) + (r << 3), bits);
+  }
+  private int end(int r) { return UnsafeUtils.get4(_mem, _OFF + (r << 2)); }
+  private double value(int r) { return UnsafeUtils.get8d(_mem, _OFF + (_runs << 2) + (r << 3)); }
+
+  // Run holding row i
+  private int run(int i) {
+    int r = _last;
+    if( r < _runs && i < end(r) && (r == 0 || end(r - 1) <= i) ) return r;
+    if( r + 1 < _runs && end(r) <= i && i < end(r + 1) ) return _last = r + 1;
+    int lo = 0, hi = _runs - 1;
+    while( lo < hi ) {
+      int mid = (lo + hi) >>> 1;
+      if( end(mid) <= i ) lo = mid + 1;
+      else hi = mid;
+    }
+    return _last = lo;
+  }
+
+  @Override protected final long at8_impl( int i ) {
+    double res = atd_impl(i);
+    if( Double.isNaN(res) ) throw new IllegalArgumentException("at8_abs but value is missing");
+    return (long)res;
+  }
+  @Override protected final double atd_impl( int i ) { return value(run(i)); }
+  @Override protected final boolean isNA_impl( int i ) { return Double.isNaN(atd_impl(i)); }
+
+  // Only sets keeping the run intact are done in place
+  @Override boolean set_impl(int idx, long l) { return (long)(double)l == l && set_impl(idx, (double)l); }
+  @Override boolean set_impl(int idx, double d) {
+    return Double.doubleToLongBits(d) == Double.doubleToLongBits(atd_impl(idx));
+  }
+  @Override boolean set_impl(int idx, float f) { return set_impl(idx, (double)f); }
+  @Override boolean setNA_impl(int idx) { return isNA_impl(idx); }
+
+  @Override public double [] getDoubles(double [] vals, int from, int to, double NA) {
+    if( from >= to ) return vals;
+    for( int r = run(from), i = from; i < to; r++ ) {
+      int end = Math.min(end(r), to);
+      double d = value(r);
+      Arrays.fill(vals, i - from, end - from, Double.isNaN(d) ? NA : d);
+      i = end;
+    }
+    return vals;
+  }
+
+  @Override public ChunkVisitor processRows(ChunkVisitor v, int from, int to) {
+    if( from >= to ) return v;
+    for( int r = run(from), i = from; i < to; r++ ) {
+      int end = Math.min(end(r), to);
+      double d = value(r);
+      int n = end - i;
+      if( Double.isNaN(d) ) v.addNAs(n);
+      else if( Double.doubleToRawLongBits(d) == 0 ) v.addZeros(n);
+      else if( _float ) for( int k = 0; k < n; k++ ) v.addValue(d);
+      else for( int k = 0; k < n; k++ ) v.addValue((long)d);
+      i = end;
+    }
+    return v;
+  }
+
+  @Override public ChunkVisitor processRows(ChunkVisitor v, int... rows) {
+    for( int i : rows ) {
+      double d = atd_impl(i);
+      if( Double.isNaN(d) ) v.addNAs(1);
+      else if( _float ) v.addValue(d);
+      else v.addValue((long)d);
+    }
+    return v;
+  }
+
+  @Override public boolean hasFloat() { return _float; }
+
+  @Override protected final void initFromBytes() {
+    _start = -1;  _cidx = -1;
+    set_len(UnsafeUtils.get4(_mem, 0));
+    _runs = UnsafeUtils.get4(_mem, 4);
+    _float = UnsafeUtils.get4(_mem, 8) != 0;
+    _last = 0;
+  }
+}
@@ -3,48 +3,57 @@ package water.fvec;
 import water.MemoryManager;
 import water.util.UnsafeUtils;
 
-import java.util.HashMap;
-import java.util.Map;
-
 /**
- * The "few unique doubles"-compression function
+ * The "few unique doubles"-compression function: a dictionary of up to 256
+ * values, and per row the index of its value packed in 1, 2, 4 or 8 bits.
+ * Used for low-cardinality reals, and for integer columns of few distinct
+ * values spread over a wide range (codes, prices in cents).
  */
 public class CUDChunk extends Chunk {
   public static int MAX_UNIQUES=256;
+  static final int _OFF = 4 + 4; // _len + numUniques
+  /** Bits per row index, for a dictionary of the given size */
+  static int bpi(int uniques) { return uniques <= 2 ? 1 : uniques <= 4 ? 2 : uniques <= 16 ? 4 : 8; }
   public static int computeByteSize(int uniques, int len) {
-    return 4 + 4 // _len + numUniques
+    return _OFF
             + (uniques << 3) //unique double values
-            + (len << 1); //mapping of row -> unique value index (0...255)
+            + CBSChunk.clen(len, bpi(uniques)); //mapping of row -> unique value index (0...255)
   }
   int numUniques;
+  private transient int _bpi, _idxOff;
+  private transient boolean _float;
   CUDChunk() {}
-  CUDChunk(byte[] bs, HashMap<Long,Byte> hs, int len) {
+  /** A Chunk of the given unique values (as double bits), with all rows
+   *  pointing at the first; see {@link #setIndex} */
+  CUDChunk(long[] uniques, int numUniques, int len) {
     _start = -1;
-    numUniques = hs.size();
-    set_len(len);
-    _mem = MemoryManager.malloc1(computeByteSize(numUniques, _len), false);
-    UnsafeUtils.set4(_mem, 0, _len);
+    _mem = MemoryManager.malloc1(computeByteSize(numUniques, len), false);
+    UnsafeUtils.set4(_mem, 0, len);
     UnsafeUtils.set4(_mem, 4, numUniques);
-    int j=0;
-    //create the mapping and also store the unique values (as longs)
-    for (Map.Entry<Long,Byte> e : hs.entrySet()) {
-      e.setValue(new Byte((byte)(j-128))); //j is in 0...256  -> byte value needs to be in -128...127 for storage
-      UnsafeUtils.set8(_mem, 8 + (j << 3), e.getKey());
-      j++;
-    }
-    // store the mapping
-    for (int i=0; i<len; ++i)
-      UnsafeUtils.set1(_mem, 8 + (numUniques << 3) + i, hs.get(Double.doubleToLongBits(UnsafeUtils.get8d(bs, i << 3))));
+    for (int j = 0; j < numUniques; ++j)
+      UnsafeUtils.set8(_mem, _OFF + (j << 3), uniques[j]);
+    initFromBytes();
+  }
+
+  /** Point row i at unique value j */
+  final void setIndex(int i, int j) {
+    int bit = i * _bpi;
+    int off = _idxOff + (bit >> 3), shift = bit & 7;
+    int mask = ((1 << _bpi) - 1) << shift;
+    _mem[off] = (byte)((_mem[off] & ~mask) | (j << shift));
   }
+  private int index(int i) {
+    int bit = i * _bpi;
+    return (_mem[_idxOff + (bit >> 3)] >> (bit & 7)) & ((1 << _bpi) - 1);
+  }
+  private double unique(int j) { return Double.longBitsToDouble(UnsafeUtils.get8(_mem, _OFF + (j << 3))); }
+
   @Override protected final long   at8_impl( int i ) {
     double res = atd_impl(i);
     if( Double.isNaN(res) ) throw new IllegalArgumentException("at8_impl but value is missing");
     return (long)res;
   }
-  @Override protected final double   atd_impl( int i ) {
-    int whichUnique = (UnsafeUtils.get1(_mem, 8 + (numUniques << 3) + i)+128);
-    return Double.longBitsToDouble(UnsafeUtils.get8(_mem, 8 + (whichUnique << 3)));
-  }
+  @Override protected final double   atd_impl( int i ) { return unique(index(i)); }
 
   @Override public double [] getDoubles(double [] vals, int from, int to) {
     return getDoubles(vals,from,to,Double.NaN);
@@ -52,21 +61,28 @@ public class CUDChunk extends Chunk {
   @Override public double [] getDoubles(double [] vals, int from, int to, double NA) {
     double [] uniques = new double[numUniques];
     for(int i = 0; i < numUniques; ++i) {
-      uniques[i] = Double.longBitsToDouble(UnsafeUtils.get8(_mem, 8 + (i << 3)));
+      uniques[i] = unique(i);
       if(Double.isNaN(uniques[i]))
         uniques[i] = NA;
     }
-    for(int i = 0; i < _len; ++i)
-      vals[i] = uniques[(UnsafeUtils.get1(_mem, 8 + (numUniques << 3) + i)+128)];
+    if (_bpi == 8) {
+      for(int i = from; i < to; ++i)
+        vals[i-from] = uniques[0xFF & _mem[_idxOff + i]];
+    } else {
+      for(int i = from; i < to; ++i)
+        vals[i-from] = uniques[index(i)];
+    }
     return vals;
   }
 
   @Override protected final boolean isNA_impl( int i ) { return Double.isNaN(atd_impl(i)); }
-  @Override boolean set_impl(int idx, long l) { return false; }
+  @Override boolean set_impl(int idx, long l) {
+    return (long)(double)l == l && set_impl(idx, (double)l);
+  }
   @Override boolean set_impl(int i, double d) {
     for (int j = 0; j < numUniques; ++j) {
-      if (Double.compare(Double.doubleToLongBits(d), UnsafeUtils.get8(_mem, 8 + (j << 3))) == 0) {
-        UnsafeUtils.set1(_mem, 8 + (numUniques << 3) + i, (byte) (j-128));
+      if (Double.compare(Double.doubleToLongBits(d), UnsafeUtils.get8(_mem, _OFF + (j << 3))) == 0) {
+        setIndex(i, j);
         return true;
       }
     }
@@ -78,21 +94,36 @@ public class CUDChunk extends Chunk {
   @Override boolean setNA_impl(int idx) {
     return set_impl(idx, Double.NaN);
   }
+  private void processRow(ChunkVisitor nc, int i) {
+    double d = atd_impl(i);
+    if (Double.isNaN(d)) nc.addNAs(1);
+    else if (_float) nc.addValue(d);
+    else nc.addValue((long)d);
+  }
   @Override public ChunkVisitor processRows(ChunkVisitor nc, int from, int to){
     for(int i = from; i < to; i++)
-      nc.addValue(atd(i));
+      processRow(nc, i);
     return nc;
   }
 
   @Override public ChunkVisitor processRows(ChunkVisitor nc, int... rows){
     for(int i:rows)
-      nc.addValue(atd(i));
+      processRow(nc, i);
     return nc;
   }
+  @Override public boolean hasFloat() { return _float; }
+
   @Override protected final void initFromBytes () {
     _start = -1;  _cidx = -1;
     _len = UnsafeUtils.get4(_mem, 0);
     numUniques = UnsafeUtils.get4(_mem, 4);
     set_len(_len);
+    _bpi = bpi(numUniques);
+    _idxOff = _OFF + (numUniques << 3);
+    _float = false;
+    for (int j = 0; j < numUniques; ++j) {
+      double d = unique(j);
+      if (!Double.isNaN(d) && (long)d != d) _float = true;
+    }
   }
 }
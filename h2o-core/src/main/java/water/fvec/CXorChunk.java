@@ -0,0 +1,186 @@
+package water.fvec;
+
+import water.MemoryManager;
+import water.util.UnsafeUtils;
+
+import java.util.Arrays;
+
+/**
+ * The XOR compression function for real-valued series (Gorilla, Pelkonen et
+ * al. 2015): each double is stored as its XOR with the previous one, which for
+ * slowly changing sensor and metric values is mostly zero bits.  Per row:
+ * <ul>
+ *   <li>'0': same value as the previous row;</li>
+ *   <li>'10': the XOR's meaningful bits fall in the window of the last '11';</li>
+ *   <li>'11': 5 bits of leading zeros, 6 bits of meaningful bit count less
+ *   one, then the meaningful bits.</li>
+ * </ul>
+ * Rows come in blocks of 128, each starting from a checkpoint of its first
+ * value and its bit offset in the stream.  NAs are NaN doubles, like
+ * {@link C8DChunk}.
+ * <p>
+ * Bulk reads stream through the blocks.  Random access decodes the block of
+ * the row and keeps it, so scans in row order decode each block once.
+ */
+public class CXorChunk extends Chunk {
+  static final int _OFF = 4;                     // _len
+  static final int LOG_BLK = 7, BLK = 1 << LOG_BLK;
+  static final int CP_SZ = 8 + 4;                // first value + bit offset
+  static int blocks(int len) { return (len + BLK - 1) >> LOG_BLK; }
+
+  // Last block decoded for random access; racy, but immutable once published
+  private static final class Block {
+    final int _b;
+    final double [] _ds;
+    Block(int b, double [] ds) { _b = b;  _ds = ds; }
+  }
+  private transient Block _blk;
+  private transient int _data;                   // Start of the bit stream
+
+  CXorChunk() {}
+  CXorChunk(byte [] bs) { _mem = bs;  initFromBytes(); }
+
+  /** XOR-compress the given 8-byte doubles; null if the result does not
+   *  come under limit bytes */
+  static byte [] compress(byte [] raw, int len, int limit) {
+    final int nb = blocks(len), data = _OFF + nb * CP_SZ;
+    if( data + 8 >= limit ) return null;
+    byte [] bs = MemoryManager.malloc1(limit + 16);
+    UnsafeUtils.set4(bs, 0, len);
+    long p = 0;
+    for( int b = 0; b < nb; b++ ) {
+      int from = b << LOG_BLK, to = Math.min(len, from + BLK);
+      long prev = UnsafeUtils.get8(raw, from << 3);
+      UnsafeUtils.set8(bs, _OFF + b * CP_SZ, prev);
+      UnsafeUtils.set4(bs, _OFF + b * CP_SZ + 8, (int)p);
+      int lz = -1, sig = 0;                      // No window yet
+      for( int i = from + 1; i < to; i++ ) {
+        long bits = UnsafeUtils.get8(raw, i << 3), x = bits ^ prev;
+        prev = bits;
+        if( x == 0 ) p++;                        // '0'
+        else {
+          int l = Math.min(31, Long.numberOfLeadingZeros(x)), t = Long.numberOfTrailingZeros(x);
+          if( lz >= 0 && l >= lz && t >= 64 - lz - sig ) {
+            p = put(bs, data, p, 1, 2);          // '10'
+            p = put(bs, data, p, x >>> (64 - lz - sig), sig);
+          } else {
+            lz = l;  sig = 64 - l - t;
+            p = put(bs, data, p, 3 | (l << 2) | ((long)(sig - 1) << 7), 13);
+            p = put(bs, data, p, x >>> t, sig);
+          }
+        }
+        // Checked on every row, repeats included: a row writes at most 77
+        // bits, so the next put stays within the 16 bytes of slack
+        if( data + (p >>> 3) + 8 >= limit ) return null;
+      }
+    }
+    return Arrays.copyOf(bs, data + (int)((p + 7) >>> 3) + 8); // Padded for 8-byte reads
+  }
+
+  // Write the low n bits of v at bit p of the stream
+  private static long put(byte [] bs, int data, long p, long v, int n) {
+    if( n > 56 ) {
+      p = put(bs, data, p, v & 0xFFFFFFFFL, 32);
+      return put(bs, data, p, v >>> 32, n - 32);
+    }
+    int off = data + (int)(p >>> 3);
+    UnsafeUtils.set8(bs, off, UnsafeUtils.get8(bs, off) | (v << (p & 7)));
+    return p + n;
+  }
+  // Read n bits at bit p of the stream
+  private long get(long p, int n) {
+    if( n > 56 ) return get(p, 32) | (get(p + 32, n - 32) << 32);
+    return (UnsafeUtils.get8(_mem, _data + (int)(p >>> 3)) >>> (p & 7)) & ((1L << n) - 1);
+  }
+
+  // Decode rows k0 to k1 (exclusive) of block b into out, starting at off
+  private void decode(int b, int k0, int k1, double [] out, int off, double NA) {
+    int cp = _OFF + b * CP_SZ;
+    long v = UnsafeUtils.get8(_mem, cp), p = UnsafeUtils.get4(_mem, cp + 8);
+    int lz = 0, sig = 0;
+    for( int k = 0; k < k1; k++ ) {
+      if( k > 0 ) {
+        long w = get(p, 13);
+        if( (w & 1) == 0 ) p++;
+        else {
+          if( (w & 2) == 0 ) p += 2;
+          else {
+            lz = (int)(w >>> 2) & 31;  sig = ((int)(w >>> 7) & 63) + 1;
+            p += 13;
+          }
+          v ^= get(p, sig) << (64 - lz - sig);
+          p += sig;
+        }
+      }
+      if( k >= k0 ) {
+        double d = Double.longBitsToDouble(v);
+        out[off + k - k0] = Double.isNaN(d) ? NA : d;
+      }
+    }
+  }
+  private int blockLen(int b) { return Math.min(BLK, _len - (b << LOG_BLK)); }
+
+  @Override protected final double atd_impl( int i ) {
+    int b = i >> LOG_BLK;
+    Block blk = _blk;
+    if( blk == null || blk._b != b ) {
+      double [] ds = new double[blockLen(b)];
+      decode(b, 0, ds.length, ds, 0, Double.NaN);
+      _blk = blk = new Block(b, ds);
+    }
+    return blk._ds[i & (BLK - 1)];
+  }
+  @Override protected final long at8_impl( int i ) {
+    double res = atd_impl(i);
+    if( Double.isNaN(res) ) throw new IllegalArgumentException("at8_abs but value is missing");
+    return (long)res;
+  }
+  @Override protected final boolean isNA_impl( int i ) { return Double.isNaN(atd_impl(i)); }
+
+  // Any change alters the XORs after it; only writes of the current value are
+  // done in place
+  @Override boolean set_impl(int idx, long l) { return (long)(double)l == l && set_impl(idx, (double)l); }
+  @Override boolean set_impl(int idx, double d) {
+    return Double.doubleToLongBits(d) == Double.doubleToLongBits(atd_impl(idx));
+  }
+  @Override boolean set_impl(int idx, float f) { return set_impl(idx, (double)f); }
+  @Override boolean setNA_impl(int idx) { return isNA_impl(idx); }
+
+  @Override public double [] getDoubles(double [] vals, int from, int to, double NA) {
+    for( int i = from; i < to; ) {
+      int b = i >> LOG_BLK, k1 = Math.min(blockLen(b), to - (b << LOG_BLK));
+      decode(b, i & (BLK - 1), k1, vals, i - from, NA);
+      i = (b << LOG_BLK) + k1;
+    }
+    return vals;
+  }
+
+  @Override public ChunkVisitor processRows(ChunkVisitor nc, int from, int to) {
+    double [] ds = new double[BLK];
+    for( int i = from; i < to; ) {
+      int b = i >> LOG_BLK, k0 = i & (BLK - 1), k1 = Math.min(blockLen(b), to - (b << LOG_BLK));
+      decode(b, k0, k1, ds, 0, Double.NaN);
+      for( int k = 0; k < k1 - k0; k++ ) {
+        if( Double.isNaN(ds[k]) ) nc.addNAs(1);
+        else nc.addValue(ds[k]);
+      }
+      i = (b << LOG_BLK) + k1;
+    }
+    return nc;
+  }
+  @Override public ChunkVisitor processRows(ChunkVisitor nc, int... rows) {
+    for( int i : rows ) {
+      double d = atd_impl(i);
+      if( Double.isNaN(d) ) nc.addNAs(1);
+      else nc.addValue(d);
+    }
+    return nc;
+  }
+
+  @Override protected final void initFromBytes() {
+    _start = -1;  _cidx = -1;
+    set_len(UnsafeUtils.get4(_mem, 0));
+    _data = _OFF + blocks(_len) * CP_SZ;
+    _blk = null;
+  }
+}
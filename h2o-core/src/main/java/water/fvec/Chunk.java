@@ -789,6 +789,17 @@ public abstract class Chunk extends Iced<Chunk> implements Vec.Holder {
   public int [] getIntegers(int [] vals, int from, int to, int NA){
     return processRows(new ChunkVisitor.IntAryVisitor(vals,NA),from,to).vals;
   }
+  /**
+   * Dense bulk interface, fetch integer values from the given range; values
+   * of float chunks are truncated as by {@link #at8}
+   * @param vals
+   * @param from
+   * @param to
+   * @param NA value stored for missing rows
+   */
+  public long [] getLongs(long [] vals, int from, int to, long NA){
+    return processRows(new ChunkVisitor.LongAryVisitor(vals,NA),from,to).vals;
+  }
   /**
    * Dense bulk interface, fetch values from the given ids
    * @param vals
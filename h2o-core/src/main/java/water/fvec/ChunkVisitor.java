@@ -150,6 +150,37 @@ public abstract class ChunkVisitor {
         _len += nas;
     }
   }
+  /**
+   * Simple chunk visitor for extracting rows from chunks into a long array.
+   */
+  public static final class LongAryVisitor extends ChunkVisitor {
+    public final long [] vals;
+    private int _k = 0;
+    private final long _na;
+    LongAryVisitor(long [] vals, long NA){this.vals = vals; _na = NA;}
+    @Override
+    void addValue(int val) {vals[_k++] = val;}
+    @Override
+    void addValue(long val) {vals[_k++] = val;}
+    @Override
+    void addValue(long m, int e) {vals[_k++] = e >= 0 ? m*PrettyPrint.pow10i(e) : (long)PrettyPrint.pow10(m,e);}
+    @Override
+    void addValue(double val) {vals[_k++] = Double.isNaN(val)?_na:(long)val;}
+    @Override
+    void addZeros(int zeros) {
+      int k = _k;
+      int kmax = k +zeros;
+      for(;k < kmax; k++) vals[k] = 0;
+      _k = kmax;
+    }
+    @Override
+    void addNAs(int nas) {
+      int k = _k;
+      int kmax = k + nas;
+      for(;k < kmax; k++) vals[k] = _na;
+      _k = kmax;
+    }
+  }
   /**
    * Simple chunk visitor for extracting rows from chunks into a integer array.
    */
@@ -0,0 +1,130 @@
+package water.fvec;
+
+import java.util.Arrays;
+
+import static water.H2O.OptArgs.SYSTEM_PROP_PREFIX;
+
+/**
+ * The Chunks of one map call, walked in batches of rows decoded in bulk into
+ * primitive arrays.
+ * <p>
+ * Calling {@link Chunk#atd} per element goes through the {@code _chk2} check
+ * and a virtual call per row, which keeps the JIT from unrolling or
+ * vectorizing the loop around it.  A batch instead decodes (say) a thousand
+ * rows of a column at once, with a loop specialized to its Chunk type, into a
+ * reused array small enough to stay in cache; user code then runs plain loops
+ * over {@code double[]} or {@code long[]}:
+ * <pre>
+ *   public void map( ColumnBatch cb ) {
+ *     while( cb.next() ) {
+ *       double[] xs = cb.doubles(0);
+ *       for( int i = 0; i < cb.len(); i++ ) _sum += xs[i];
+ *     }
+ *   }
+ * </pre>
+ * Columns are decoded on first use in a batch, so untouched columns cost
+ * nothing.  Decoded values are those of the Chunks as passed to map; writes
+ * to the Chunks during the map call are not seen.  The arrays are reused by
+ * the next batch.
+ */
+public final class ColumnBatch {
+  /** Rows per batch */
+  public static final int BATCH_ROWS = Math.max(64, Integer.getInteger(SYSTEM_PROP_PREFIX + "mrtask.batch_rows", 1024));
+
+  private final Chunk[] _cs;
+  private final int _clen;      // Rows in the Chunks
+  private int _from, _len;      // Current batch: Chunk rows [_from,_from+_len)
+  private int _seq;             // Batches moved to so far, across rewinds
+  private double[][] _ds;       // Decoded columns, per column on first use
+  private long[][] _ls;
+  private long[][] _nas;
+  private int[] _dAt, _lAt, _naAt; // Batch (_seq) decoded into each; -1 for none
+  private boolean[] _hasNAs;    // NA bitmap of the current batch is not empty
+
+  public ColumnBatch( Chunk[] cs ) {
+    _cs = cs;
+    _clen = cs.length == 0 ? 0 : cs[0]._len;
+  }
+
+  /** Number of columns */
+  public int numCols() { return _cs.length; }
+  /** The Chunk of a column */
+  public Chunk chunk( int c ) { return _cs[c]; }
+  /** Rows in the current batch */
+  public int len() { return _len; }
+  /** Chunk-relative row of the first row of the current batch */
+  public int start() { return _from; }
+  /** Frame row of the first row of the current batch */
+  public long row0() { return _cs[0].start() + _from; }
+
+  /** Move to the next batch; false once all rows were seen */
+  public boolean next() {
+    _from += _len;
+    _len = Math.min(BATCH_ROWS, _clen - _from);
+    _seq++;
+    return _len > 0;
+  }
+
+  /** Start over from the first row */
+  public void rewind() { _from = _len = 0; }
+
+  private int[] stamps() {
+    int[] at = new int[_cs.length];
+    Arrays.fill(at, -1);
+    return at;
+  }
+  private int batchSize() { return Math.min(BATCH_ROWS, _clen); }
+
+  /** The current batch of a numeric, categorical or time column as doubles,
+   *  NaN for NAs */
+  public double[] doubles( int c ) {
+    if( _ds == null ) { _ds = new double[_cs.length][]; _dAt = stamps(); }
+    double[] ds = _ds[c];
+    if( ds == null ) {          // No numbers in String and UUID columns; fail as atd() does
+      if( _cs[c] instanceof CStrChunk ) throw new IllegalArgumentException("Operation not allowed on string vector.");
+      if( _cs[c] instanceof C16Chunk ) throw new IllegalArgumentException("atd but 16-byte UUID");
+      ds = _ds[c] = new double[batchSize()];
+    }
+    if( _dAt[c] != _seq ) {
+      _cs[c].getDoubles(ds, _from, _from+_len);
+      _dAt[c] = _seq;
+    }
+    return ds;
+  }
+
+  /** The current batch of an integer column as longs, 0 for NAs; see
+   *  {@link #nas} for where the NAs are.  Values of float columns are
+   *  truncated. */
+  public long[] longs( int c ) {
+    if( _ls == null ) { _ls = new long[_cs.length][]; _lAt = stamps(); }
+    long[] ls = _ls[c];
+    if( ls == null ) ls = _ls[c] = new long[batchSize()];
+    if( _lAt[c] != _seq ) {
+      _cs[c].getLongs(ls, _from, _from+_len, 0);
+      _lAt[c] = _seq;
+    }
+    return ls;
+  }
+
+  /** Bitmap of the NAs in the current batch of a column, see {@link #isNA};
+   *  null if the batch has none */
+  public long[] nas( int c ) {
+    if( !_cs[c].hasNA() ) return null;
+    if( _nas == null ) { _nas = new long[_cs.length][]; _naAt = stamps(); _hasNAs = new boolean[_cs.length]; }
+    if( _naAt[c] != _seq ) {
+      long[] nas = _nas[c];
+      if( nas == null ) nas = _nas[c] = new long[(batchSize()+63)>>6];
+      else Arrays.fill(nas, 0);
+      double[] ds = doubles(c);
+      boolean any = false;
+      for( int i = 0; i < _len; i++ )
+        if( Double.isNaN(ds[i]) ) { nas[i>>6] |= 1L<<i; any = true; }
+      _hasNAs[c] = any;
+      _naAt[c] = _seq;
+    }
+    return _hasNAs[c] ? _nas[c] : null;
+  }
+
+  /** True if row i of a batch is NA, given the batch's {@link #nas} bitmap */
+  public static boolean isNA( long[] nas, int i ) { return nas != null && (nas[i>>6] & (1L<<i)) != 0; }
+}
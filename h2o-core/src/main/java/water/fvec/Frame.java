@@ -1017,10 +1017,12 @@ public class Frame extends Lockable<Frame> {
     // For all Key/Vecs - insert Vec header
     Futures fs = new Futures();
     _vecs = new Vec[_keys.length];
+    Key[] extra = new Key[_keys.length*(espc.length-nchunk)];
+    Value[] vals = new Value[_keys.length];
     for( int i=0; i<_keys.length; i++ ) {
       // Nuke the extra chunks
       for (int j = nchunk; j < espc.length; j++)
-        DKV.remove(Vec.chunkKey(_keys[i], j), fs);
+        extra[i*(espc.length-nchunk)+j-nchunk] = Vec.chunkKey(_keys[i], j);
       // Insert Vec header
       Vec vec = _vecs[i] = new Vec( _keys[i],
                                     Vec.ESPC.rowLayout(_keys[i],espc2),
@@ -1029,8 +1031,11 @@ public class Frame extends Lockable<Frame> {
       // Here we have to save vectors since
       // saving during unlock will invoke Frame vector
       // refresh
-      DKV.put(_keys[i],vec,fs);
+      vals[i] = new Value(_keys[i],vec);
     }
+    // Batched: one RPC per home node, not per Vec - wide frames have many
+    DKV.remove(extra,fs);
+    DKV.put(_keys,vals,fs);
     fs.blockForPending();
     unlock();
   }
@@ -1345,8 +1350,10 @@ public class Frame extends Lockable<Frame> {
     final Vec [] vecs = vecs().clone();
     Key [] ks = anyVec().group().addVecs(vecs.length);
     Futures fs = new Futures();
+    Value[] vals = new Value[vecs.length];
     for(int i = 0; i < vecs.length; ++i)
-      DKV.put(vecs[i] = new Vec(ks[i], anyVec()._rowLayout, vecs[i].domain(),vecs()[i]._type),fs);
+      vals[i] = new Value(ks[i], vecs[i] = new Vec(ks[i], anyVec()._rowLayout, vecs[i].domain(),vecs()[i]._type));
+    DKV.put(ks,vals,fs);
     new MRTask() {
       @Override public void map(Chunk[] cs) {
         int cidx = cs[0].cidx();
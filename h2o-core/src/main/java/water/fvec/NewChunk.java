@@ -599,6 +599,26 @@ public class NewChunk extends Chunk {
     assert _sparseLen <= _len;
   }
 
+  /** Bulk-append n doubles from ds[off], as if by {@link #addNum(double)}
+   *  each; NaNs append NAs.  A dense chunk takes them in one array copy,
+   *  switching to doubles; integral values still compress as integers. */
+  public void addNums(double[] ds, int off, int n) {
+    if( isUUID() || isString() || _id != null || (_ds == null && _sparseLen > 0) ) {
+      for( int i = off; i < off+n; i++ ) addNum(ds[i]);
+      return;
+    }
+    if( _ds == null ) {
+      _ms = null;
+      _xs = null;
+      _missing = null;
+      _ds = MemoryManager.malloc8d(Math.max(n,4));
+    } else if( _sparseLen+n > _ds.length )
+      _ds = MemoryManager.arrayCopyOf(_ds, Math.max(_sparseLen+n, _ds.length<<1));
+    System.arraycopy(ds, off, _ds, _sparseLen, n);
+    _sparseLen += n;
+    _len += n;
+  }
+
   private void append_ss(String str) {
     byte[] bytes = str == null ? new byte[0] : StringUtils.bytesOf(str);
 
@@ -1067,7 +1087,7 @@ public class NewChunk extends Chunk {
   // Study this NewVector and determine an appropriate compression scheme.
   // Return the data so compressed.
   public Chunk compress() {
-    Chunk res = compress2();
+    Chunk res = compressRepeats(compress2());
     byte type = type();
     assert _vec == null ||  // Various testing scenarios do not set a Vec
       type == _vec._type || // Equal types
@@ -1325,6 +1345,23 @@ public class NewChunk extends Chunk {
       return chunkD();
     } // else an integer column
 
+    // Size of the whole-byte encodings below, and of bit-packing the range
+    final long fixed = (long)_len * (lemin < Integer.MIN_VALUE ? 8
+      : leRange < 255 || (xmin == 0 && 0 <= lemin && lemax <= 255 && (_naCnt + _catCnt) == 0) ? 1
+      : leRange < 65535 ? 2 : Integer.MIN_VALUE < min && max <= Integer.MAX_VALUE ? 4 : 8);
+    final int bits = xmin == 0 && Integer.MIN_VALUE <= min && max <= Integer.MAX_VALUE ? CBPChunk.bits(leRange) : 64;
+    final long packed = bits <= CBPChunk.MAX_BITS ? CBPChunk.computeByteSize(_len, bits) : Long.MAX_VALUE;
+    // Delta-encode (near-)monotonic columns wider than a short, e.g.
+    // timestamps and ids, if well below either.  Narrower columns keep
+    // constant-time random access, and tiny Chunks in-place writes.
+    if( _len >= 64 && fixed >= 4L * _len ) {
+      Chunk res = chunkDelta((long)(0.8 * Math.min(fixed, packed)));
+      if( res != null ) return res;
+    }
+    // Pack the column at the bit width of its range, if smaller
+    if( packed < fixed )
+      return bufBP(lemin, bits);
+
     // Compress column into a byte
     if(xmin == 0 &&  0<=lemin && lemax <= 255 && ((_naCnt + _catCnt)==0) )
       return new C1NChunk( bufX(0,0,C1NChunk._OFF,0));
@@ -1348,6 +1385,78 @@ public class NewChunk extends Chunk {
     return new C8Chunk( bufX(0,0,0,3));
   }
 
+  // Dictionary (CUDChunk) and run-length (CRLEChunk) encodings of dense
+  // columns with few distinct values, or long runs of one value.  Values are
+  // compared by their double bits, so integers beyond 2^53 never qualify.
+  // Either encoding replaces the chosen Chunk only if well below its size;
+  // tiny Chunks keep the plain encodings, which take writes of any value.
+  private Chunk compressRepeats(Chunk res) {
+    if( _id != null || _len < 64 ||
+        !(res instanceof C1Chunk || res instanceof C1NChunk || res instanceof CSChunk || res instanceof C2Chunk ||
+          res instanceof CBPChunk || res instanceof C4Chunk || res instanceof C8Chunk || res instanceof C8DChunk ||
+          res instanceof CXorChunk || res instanceof CUDChunk) )
+      return res;
+    final boolean isFloat = res.hasFloat();
+    // Open-addressing table of the unique double bits, to their index+1
+    long [] keys = new long[CUDChunk.MAX_UNIQUES << 1];
+    int [] idxs = new int[keys.length];
+    long [] uniques = new long[CUDChunk.MAX_UNIQUES];
+    int nuniques = 0, runs = 0;
+    long prev = 0;
+    final double limit = 0.8 * res._mem.length;
+    for( int i = 0; i < _len; ++i ) {
+      double d = getDouble(i);
+      if( !isFloat && Math.abs(d) > (1L << 53) ) return res; // Not exact as a double
+      long bits = Double.doubleToLongBits(d);
+      if( i == 0 || bits != prev ) {
+        runs++;  prev = bits;
+        // Too many uniques for a dictionary, and already too many runs
+        if( nuniques > CUDChunk.MAX_UNIQUES && CRLEChunk.computeByteSize(runs) >= limit ) return res;
+      }
+      if( nuniques <= CUDChunk.MAX_UNIQUES && uniqueIdx(keys, idxs, bits) < 0 ) {
+        if( nuniques < CUDChunk.MAX_UNIQUES ) {
+          uniques[nuniques] = bits;
+          addUnique(keys, idxs, bits, nuniques);
+        }
+        nuniques++;
+      }
+    }
+    int rleSz = CRLEChunk.computeByteSize(runs);
+    int dictSz = nuniques <= CUDChunk.MAX_UNIQUES ? CUDChunk.computeByteSize(nuniques, _len) : Integer.MAX_VALUE;
+    if( Math.min(rleSz, dictSz) >= limit ) return res;
+    if( rleSz < dictSz ) {
+      CRLEChunk rle = new CRLEChunk(_len, runs, isFloat);
+      int r = 0;
+      prev = Double.doubleToLongBits(getDouble(0));
+      for( int i = 1; i < _len; ++i ) {
+        long bits = Double.doubleToLongBits(getDouble(i));
+        if( bits != prev ) { rle.setRun(r++, i, prev); prev = bits; }
+      }
+      rle.setRun(r, _len, prev);
+      assert r + 1 == runs;
+      return rle;
+    }
+    if( res instanceof CUDChunk ) return res;
+    CUDChunk dict = new CUDChunk(uniques, nuniques, _len);
+    for( int i = 0; i < _len; ++i )
+      dict.setIndex(i, uniqueIdx(keys, idxs, Double.doubleToLongBits(getDouble(i))));
+    return dict;
+  }
+
+  private static int uniqueIdx(long [] keys, int [] idxs, long bits) {
+    int mask = keys.length - 1;
+    for( int h = hash(bits) & mask; idxs[h] != 0; h = (h + 1) & mask )
+      if( keys[h] == bits ) return idxs[h] - 1;
+    return -1;
+  }
+  private static void addUnique(long [] keys, int [] idxs, long bits, int idx) {
+    int mask = keys.length - 1, h = hash(bits) & mask;
+    while( idxs[h] != 0 ) h = (h + 1) & mask;
+    keys[h] = bits;
+    idxs[h] = idx + 1;
+  }
+  private static int hash(long bits) { long h = bits * 0x9E3779B97F4A7C15L; return (int)(h ^ (h >>> 32)); }
+
   private static long [] NAS = {C1Chunk._NA,C2Chunk._NA,C4Chunk._NA,C8Chunk._NA};
 
   // Compute a sparse integer buffer
@@ -1431,30 +1540,24 @@ public class NewChunk extends Chunk {
 
   // Compute a compressed double buffer
   private Chunk chunkD() {
-    HashMap<Long,Byte> hs = new HashMap<>(CUDChunk.MAX_UNIQUES);
-    Byte dummy = 0;
     final byte [] bs = MemoryManager.malloc1(_len *8,true);
     int j = 0;
-    boolean fitsInUnique = true;
     for(int i = 0; i < _len; ++i){
       double d = 0;
       if(_id == null || _id.length == 0 || (j < _id.length && _id[j] == i)) {
         d = getDouble(j);
         ++j;
       }
-      if (fitsInUnique) {
-        if (hs.size() < CUDChunk.MAX_UNIQUES) //still got space
-          hs.put(Double.doubleToLongBits(d),dummy); //store doubles as longs to avoid NaN comparison issues during extraction
-        else fitsInUnique = (hs.size() == CUDChunk.MAX_UNIQUES) && // full, but might not need more space because of repeats
-                            hs.containsKey(Double.doubleToLongBits(d));
-      }
       UnsafeUtils.set8d(bs, 8*i, d);
     }
     assert j == _sparseLen :"j = " + j + ", _len = " + _sparseLen;
-    if (fitsInUnique && CUDChunk.computeByteSize(hs.size(), len()) < 0.8 * bs.length)
-      return new CUDChunk(bs, hs, len());
-    else
-      return new C8DChunk(bs);
+    // XOR-compress slowly changing series, if well below raw doubles.  Few
+    // unique values go to a CUDChunk in compressRepeats.
+    if( _len >= 64 ) {
+      byte [] xs = CXorChunk.compress(bs, _len, (int)(0.75 * bs.length));
+      if( xs != null ) return new CXorChunk(xs);
+    }
+    return new C8DChunk(bs);
   }
 
   // Compute a compressed UUID buffer
@@ -1491,6 +1594,75 @@ public class NewChunk extends Chunk {
     return chk;
   }
 
+  // Compute delta-encoded integer buffer; null unless under the size limit
+  private CDeltaChunk chunkDelta(long limit) {
+    assert _id == null;
+    final int nb = CDeltaChunk.blocks(_len);
+    int [] mins = new int[nb];
+    byte [] bits = new byte[nb];
+    int i0 = 0;
+    while( isNA2(i0) ) i0++;
+    long prev = at8_impl2(i0);
+    long size = CDeltaChunk._OFF + (long)nb * CDeltaChunk.CP_SZ + 7, data = 0;
+    for( int b = 0; b < nb; b++ ) {
+      int from = b << CDeltaChunk.LOG_BLK, to = Math.min(_len, from + CDeltaChunk.BLK);
+      long lo = Long.MAX_VALUE, hi = Long.MIN_VALUE;
+      boolean nas = false;
+      for( int i = from; i < to; i++ ) {
+        if( isNA2(i) ) { nas = true; continue; }
+        long v = at8_impl2(i), d = v - prev;
+        if( ((v ^ prev) & (v ^ d)) < 0 ) return null; // Delta overflows
+        prev = v;
+        if( d < lo ) lo = d;
+        if( d > hi ) hi = d;
+      }
+      if( lo > hi ) lo = hi = 0;  // All NAs
+      long range = hi - lo;
+      if( lo < Integer.MIN_VALUE || lo > Integer.MAX_VALUE || range < 0 ) return null;
+      int bt = nas || range > 0 ? CBPChunk.bits(range) : 0;
+      if( bt > CBPChunk.MAX_BITS ) return null;
+      mins[b] = (int)lo;
+      bits[b] = (byte)bt;
+      data += CDeltaChunk.blockBytes(to - from, bt);
+      // Give up early on columns far from monotonic
+      if( size + data >= limit || (b == 7 && size + data * nb / 8 >= 2 * limit) ) return null;
+    }
+    if( data >= CDeltaChunk.MAX_DATA ) return null;
+    CDeltaChunk chk = new CDeltaChunk(_len, mins, bits, (int)data);
+    prev = at8_impl2(i0);
+    for( int i = 0; i < _len; i++ ) {
+      int b = i >> CDeltaChunk.LOG_BLK;
+      if( (i & (CDeltaChunk.BLK - 1)) == 0 ) chk.setBase(b, prev);
+      if( isNA2(i) ) chk.write(i, chk.NA(i));
+      else {
+        long v = at8_impl2(i);
+        chk.write(i, v - prev - mins[b]);
+        prev = v;
+      }
+    }
+    return chk;
+  }
+
+  // Compute bit-packed integer buffer
+  private CBPChunk bufBP(long bias, int bits) {
+    CBPChunk chk = new CBPChunk(_len, bits, bias);
+    int j = 0;
+    for( int i = 0; i < _len; i++ ) {
+      long code = -bias;
+      if( _id == null || _id.length == 0 || (j < _id.length && _id[j] == i) ) {
+        if( isNA2(j) ) code = chk.NA();
+        else {
+          int x = _xs.get(j) == Integer.MIN_VALUE + 1 ? 0 : _xs.get(j);
+          code += _ms.get(j) * PrettyPrint.pow10i(x);
+        }
+        ++j;
+      }
+      chk.write(i, code);
+    }
+    assert j == _sparseLen : "j = " + j + ", _sparseLen = " + _sparseLen;
+    return chk;
+  }
+
   // Set & At on NewChunks are weird: only used after inflating some other
   // chunk.  At this point the NewChunk is full size, no more appends allowed,
   // and the xs exponent array should be only full of zeros.  Accesses must be
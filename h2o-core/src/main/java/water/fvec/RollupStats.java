@@ -80,7 +80,8 @@ final class RollupStats extends Iced {
   private static RollupStats makeComputing() { return new RollupStats(-1); }
   static RollupStats makeMutating () { return new RollupStats(-2); }
 
-  private RollupStats map( Chunk c ) {
+  private RollupStats map( ColumnBatch cb ) {
+    Chunk c = cb.chunk(0);
     _size = c.byteSize();
     boolean isUUID = c._vec.isUUID();
     boolean isString = c._vec.isString();
@@ -164,27 +165,9 @@ final class RollupStats extends Iced {
           checksum ^= (17 * (start + i)) ^ 23 * l;
       }
     } else {
-      // Work off all numeric rows, or only the nonzeros for sparse
-      if (c instanceof C1Chunk)
-        checksum=new RollupStatsHelpers(this).numericChunkRollup((C1Chunk) c, start, checksum);
-      else if (c instanceof C1SChunk)
-        checksum=new RollupStatsHelpers(this).numericChunkRollup((C1SChunk) c, start, checksum);
-      else if (c instanceof C1NChunk)
-        checksum=new RollupStatsHelpers(this).numericChunkRollup((C1NChunk) c, start, checksum);
-      else if (c instanceof C2Chunk)
-        checksum=new RollupStatsHelpers(this).numericChunkRollup((C2Chunk) c, start, checksum);
-      else if (c instanceof C2SChunk)
-        checksum=new RollupStatsHelpers(this).numericChunkRollup((C2SChunk) c, start, checksum);
-      else if (c instanceof C4SChunk)
-        checksum=new RollupStatsHelpers(this).numericChunkRollup((C4SChunk) c, start, checksum);
-      else if (c instanceof C4FChunk)
-        checksum=new RollupStatsHelpers(this).numericChunkRollup((C4FChunk) c, start, checksum);
-      else if (c instanceof C4Chunk)
-        checksum=new RollupStatsHelpers(this).numericChunkRollup((C4Chunk) c, start, checksum);
-      else if (c instanceof C8Chunk)
-        checksum=new RollupStatsHelpers(this).numericChunkRollup((C8Chunk) c, start, checksum);
-      else if (c instanceof C8DChunk)
-        checksum=new RollupStatsHelpers(this).numericChunkRollup((C8DChunk) c, start, checksum);
+      // Work off all numeric rows in batches, or only the nonzeros for sparse
+      if (!c.isSparseZero() && !c.isSparseNA())
+        checksum=numericRollup(cb, start, checksum);
       else
         checksum=new RollupStatsHelpers(this).numericChunkRollup(c, start, checksum);
 
@@ -220,6 +203,86 @@ final class RollupStats extends Iced {
     return this;
   }
 
+  // Numeric rollups of a dense Chunk, off batches of rows decoded in bulk.
+  // The moments of a batch come from plain loops over the decoded values
+  // (which the JIT unrolls and vectorizes), and merge into the running ones as
+  // in reduce().  Batches with NAs or infinities take the per-row path.
+  private long numericRollup( ColumnBatch cb, long start, long checksum ) {
+    final boolean hasFloat = cb.chunk(0).hasFloat();
+    double dmin = _mins[_mins.length-1];
+    double dmax = _maxs[_maxs.length-1];
+    long pinfs=0, ninfs=0, naCnt=0, nzCnt=0;
+    boolean isInt = _isInt;
+    long rows = 0; double mean = 0, M2 = 0;
+    while( cb.next() ) {
+      final int len = cb.len();
+      final double[] xs = cb.doubles(0);
+      final long[] ls = hasFloat ? null : cb.longs(0);
+      final long row0 = start + cb.start();
+      for( int i = 0; i < len; i++ ) {
+        // NAs decode as NaN doubles and 0 longs; 0s are skipped to be
+        // consistent with sparse chunks
+        long l = hasFloat ? (Double.isNaN(xs[i]) ? 0 : Double.doubleToRawLongBits(xs[i])) : ls[i];
+        if( l != 0 ) checksum ^= (17 * (row0 + i)) ^ 23 * l;
+      }
+      double sum = 0;
+      for( int i = 0; i < len; i++ ) sum += xs[i];
+      long brows = 0; double bmean = 0, bM2 = 0;
+      if( !Double.isNaN(sum) && !Double.isInfinite(sum) ) { // No NAs, no infinities
+        brows = len;
+        bmean = sum/len;
+        int nz = 0;
+        for( int i = 0; i < len; i++ ) {
+          double d = xs[i] - bmean;
+          bM2 += d*d;
+          nz += xs[i] != 0 ? 1 : 0;
+        }
+        nzCnt += nz;
+        for( int i = 0; i < len; i++ ) {
+          double x = xs[i];
+          if( x < dmin ) dmin = min(x);
+          if( x > dmax ) dmax = max(x);
+        }
+        for( int i = 0; i < len && isInt; i++ )
+          isInt = (long)xs[i] == xs[i];
+      } else {
+        for( int i = 0; i < len; i++ ) {
+          double x = xs[i];
+          if( Double.isNaN(x) ) naCnt++;
+          else if( x == Double.POSITIVE_INFINITY ) pinfs++;
+          else if( x == Double.NEGATIVE_INFINITY ) ninfs++;
+          else {
+            if( x != 0 ) nzCnt++;
+            if( x < dmin ) dmin = min(x);
+            if( x > dmax ) dmax = max(x);
+            if( isInt ) isInt = (long)x == x;
+            brows++;
+            double delta = x - bmean;
+            bmean += delta / brows;
+            bM2 += delta * (x - bmean);
+          }
+        }
+      }
+      if( brows == 0 ) continue;
+      if( rows == 0 ) { mean = bmean; M2 = bM2; }
+      else {
+        double delta = mean - bmean;
+        mean = (mean * rows + bmean * brows) / (rows + brows);
+        M2 += bM2 + delta*delta * rows*brows / (rows+brows);
+      }
+      rows += brows;
+    }
+    _pinfs = pinfs;
+    _ninfs = ninfs;
+    _naCnt = naCnt;
+    _nzCnt = nzCnt;
+    _rows += rows;
+    _isInt = isInt;
+    _mean = mean;
+    _sigma = M2;
+    return checksum;
+  }
+
   private void reduce( RollupStats rs ) {
     for( double d : rs._mins ) if (!Double.isNaN(d)) min(d);
     for( double d : rs._maxs ) if (!Double.isNaN(d)) max(d);
@@ -260,9 +323,11 @@ final class RollupStats extends Iced {
 
     @Override
     protected boolean modifiesVolatileVecs(){return false;}
+    @Override
+    protected boolean mayRunSpeculatively(){return true;}
 
     Roll( H2OCountedCompleter cmp, Key rskey ) { super(cmp); _rskey=rskey; }
-    @Override public void map( Chunk c ) { _rs = new RollupStats(0).map(c); }
+    @Override public void map( ColumnBatch cb ) { _rs = new RollupStats(0).map(cb); }
     @Override public void reduce( Roll roll ) { _rs.reduce(roll._rs); }
     @Override public void postGlobal() {
       if( _rs == null )
@@ -365,6 +430,7 @@ final class RollupStats extends Iced {
   private double h_stride(int nbins) { return (_maxs[0]-_mins[0]+(_isInt?1:0))/nbins; }
 
   // Compute expensive histogram
+  @CompactWire
   private static class Histo extends MRTask<Histo> {
     final double _base, _stride; // Inputs
     final int _nbins;            // Inputs
@@ -381,6 +447,7 @@ final class RollupStats extends Iced {
         _bins[idx(0.0)] += (c._len - c.sparseLenZero());
     }
     private int idx( double d ) { int idx = (int)((d-_base)/_stride); return Math.min(idx,_bins.length-1); }
+    @Override protected boolean mayRunSpeculatively() { return true; }
 
     @Override public void reduce( Histo h ) { ArrayUtils.add(_bins,h._bins); }
     // Just toooo common to report always.  Drowning in multi-megabyte log file writes.
@@ -70,12 +70,20 @@ public class SubsetVec extends WrappedVec {
 
     @Override
     public ChunkVisitor processRows(ChunkVisitor nc, int from, int to) {
-      throw H2O.unimpl();
+      for( int i=from; i<to; i++ ) processRow(nc, i);
+      return nc;
     }
 
     @Override
     public ChunkVisitor processRows(ChunkVisitor nc, int... rows) {
-      throw H2O.unimpl();
+      for( int i:rows ) processRow(nc, i);
+      return nc;
+    }
+
+    private void processRow(ChunkVisitor nc, int i) {
+      if( isNA(i) ) nc.addNAs(1);
+      else if( _masterVec.isInt() ) nc.addValue(at8(i));
+      else nc.addValue(atd(i));
     }
 
     @Override public boolean hasFloat() { return false; }
@@ -98,12 +98,20 @@ public class TransformWrappedVec extends WrappedVec {
 
     @Override
     public ChunkVisitor processRows(ChunkVisitor nc, int from, int to) {
-      throw H2O.unimpl();
+      for( int i=from; i<to; i++ ) processRow(nc, i);
+      return nc;
     }
 
     @Override
     public ChunkVisitor processRows(ChunkVisitor nc, int... rows) {
-      throw H2O.unimpl();
+      for( int i:rows ) processRow(nc, i);
+      return nc;
+    }
+
+    private void processRow(ChunkVisitor nc, int i) {
+      double d = atd(i);
+      if( Double.isNaN(d) ) nc.addNAs(1);
+      else nc.addValue(d);
     }
 
     // applies the function to a row of doubles
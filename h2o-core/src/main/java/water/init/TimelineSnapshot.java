@@ -51,7 +51,7 @@ public final class TimelineSnapshot implements
       }
       if (_events[i] != null)
         processEvent(_events[i]);
-      assert (_events[i] == null) || (_events[i]._eventIdx < TimeLine.MAX_EVENTS);
+      assert (_events[i] == null) || (_events[i]._eventIdx < _events[i].length());
     }
 
     // now build the graph (i.e. go through all the events once)
@@ -68,7 +68,7 @@ public final class TimelineSnapshot implements
         if (!_events[i].next())
           _events[i] = null;
       }
-      assert (_events[i] == null) || (_events[i]._eventIdx < TimeLine.MAX_EVENTS);
+      assert (_events[i] == null) || (_events[i]._eventIdx < _events[i].length());
     }
   }
 
@@ -135,10 +135,10 @@ public final class TimelineSnapshot implements
     public H2ONode packH2O() { return _packh2o; } // H2O in packet
     public H2ONode recoH2O() { return _cloud.members()[_nodeId]; } // H2O recording packet
     public final int portPack() {
-      int i = (int) dataLo();
-      // 1st byte is UDP type, so shift right by 8.
+      long i = dataLo();
+      // 1st byte is UDP type, next 2 bytes the sender's timestamp, so shift right by 24.
       // Next 2 bytes are UDP port #, so mask by 0xFFFF.
-      return ((0xFFFF) & (i >> 8));
+      return (int)((0xFFFF) & (i >> 24));
     }
     public final String addrString() { return _packh2o==null ? "multicast" : _packh2o.toString(); }
     public final String ioflavor() {
@@ -152,6 +152,11 @@ public final class TimelineSnapshot implements
     // ms doing I/O
     public final int ms_io() { return (int)(dataLo()>>32); }
     public final int size_io() { return (int)dataHi(); }
+    // Spans of local work, recorded at their end; see TimeLine.record_task
+    public final boolean isTask() { return (int)(dataLo() & 0xff) == UDP.udp.task.ordinal(); }
+    public final int taskKind() { return (int)((dataLo()>>8)&0xFF); }
+    public final String taskClass() { return TypeMap.className((int)(dataLo()>>>40)); }
+    public final long taskNanos() { return dataHi(); }
 
     public String toString() {
       int udp_type = (int) (dataLo() & 0xff); // First byte is UDP packet type
@@ -192,7 +197,7 @@ public final class TimelineSnapshot implements
       switch (e) {
         case rebooted:
         case timeline:
-          // compare only first 3 bytes here (udp type and port),
+          // compare only the udp type here,
           // but port# is checked below as part of address
           break;
         case ack:
@@ -201,12 +206,14 @@ public final class TimelineSnapshot implements
         case ackack:
         case exec:
         case heartbeat:
-          // compare 3 ctrl bytes + 4 bytes task #
-          //  if ((myl0 & 0xFFFFFFFFFFFFFFl) != (evl0 & 0xFFFFFFFFFFFFFFl))
-          if( (int)(myl0>>24) != (int)(evl0>>24))
+        case gossip:
+          // compare 4 bytes task #, after 5 ctrl bytes; the port was
+          // flipped during recording, and is checked below
+          if( (myl0>>>40) != (evl0>>>40) || (dataHi()&0xFF) != (ev.dataHi()&0xFF) )
             return false;
           break;
         case i_o:                 // Shows up as I/O-completing recorded packets
+        case task:                // Local work, never sent
           return false;
         default:
           throw new RuntimeException("unexpected udp packet type " + e.toString());
@@ -220,8 +227,11 @@ public final class TimelineSnapshot implements
       return true;
     }
 
+    /** Number of events recorded by the node */
+    public final int length() { return TimeLine.length(_val); }
+
     public final boolean isEmpty() {
-      return (_eventIdx < TimeLine.length()) ? TimeLine.isEmpty(_val, _eventIdx) : false;
+      return (_eventIdx < length()) ? TimeLine.isEmpty(_val, _eventIdx) : false;
     }
 
     public final Event clone() {
@@ -252,7 +262,7 @@ public final class TimelineSnapshot implements
     }
 
     boolean next(int maxIdx) {
-      int max = Math.min(maxIdx, TimeLine.length());
+      int max = Math.min(maxIdx, length());
       if (_eventIdx >= max)
         return false;
       while (++_eventIdx < max)
@@ -262,7 +272,7 @@ public final class TimelineSnapshot implements
     }
 
     boolean next() {
-      return next(TimeLine.length());
+      return next(length());
     }
 
     Event nextEvent(int maxIdx) {
@@ -271,7 +281,7 @@ public final class TimelineSnapshot implements
     }
 
     Event nextEvent() {
-      return nextEvent(TimeLine.length());
+      return nextEvent(length());
     }
 
     /**
@@ -385,7 +395,7 @@ public final class TimelineSnapshot implements
       }
       e._blocked = true;
     }
-    assert (e == null) || (e._eventIdx < TimeLine.MAX_EVENTS);
+    assert (e == null) || (e._eventIdx < e.length());
   }
 
   @Override
@@ -401,11 +411,11 @@ public final class TimelineSnapshot implements
     for (int i = 0; i < _events.length; ++i)
       if (_events[i] != null && (!_events[i].isEmpty() || _events[i].next())) {
         assert (_events[i] == null)
-          || ((_events[i]._eventIdx < TimeLine.MAX_EVENTS) && !_events[i].isEmpty());
+          || ((_events[i]._eventIdx < _events[i].length()) && !_events[i].isEmpty());
         return true;
       } else {
         assert (_events[i] == null)
-          || ((_events[i]._eventIdx < TimeLine.MAX_EVENTS) && !_events[i].isEmpty());
+          || ((_events[i]._eventIdx < _events[i].length()) && !_events[i].isEmpty());
         _events[i] = null;
       }
     return false;
@@ -468,7 +478,7 @@ public final class TimelineSnapshot implements
     }
     assert (selectedIdx != -1);
     assert (_events[selectedIdx] != null)
-      && ((_events[selectedIdx]._eventIdx < TimeLine.MAX_EVENTS) && !_events[selectedIdx]
+      && ((_events[selectedIdx]._eventIdx < _events[selectedIdx].length()) && !_events[selectedIdx]
       .isEmpty());
     Event res = _events[selectedIdx];
     _events[selectedIdx] = _events[selectedIdx].nextEvent();
@@ -0,0 +1,155 @@
+package water.init;
+
+import com.google.gson.stream.JsonWriter;
+import water.H2O;
+import water.H2ONode;
+import water.TimeLine;
+import water.UDP;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+
+/**
+ * A {@link TimelineSnapshot} in the Chrome trace event format, for viewing
+ * the communication of the Cloud on a timeline in chrome://tracing or
+ * Perfetto (ui.perfetto.dev).
+ * <p>
+ * Each node is a process, with a thread per kind of event: network packets,
+ * the local parts of MRTasks, RPCs sent and RPCs executed.  A packet is a
+ * slice of no length where it was sent or received; a send paired with its
+ * receive is joined by a flow arrow, and shown as a span of the latency on
+ * the sender.  Heartbeats are left out.
+ * <p>
+ * Nodes record both the wall clock, in msec, and System.nanoTime().  Times
+ * are taken from the nanos, shifted per node onto the wall clock; so events
+ * of a node are exact relative to each other, while events of different
+ * nodes are as close as their clocks.
+ */
+public final class TimelineTrace {
+  private static final int NETWORK = 1, MRTASK = 2; // Threads; then one per kind of span
+  private static final String[] THREADS = {null, "network", "mrtask", "rpc", "rpc_exec"};
+
+  private TimelineTrace() {}
+
+  /** Kind of a span of local work, as named in traces */
+  public static String taskKind(TimelineSnapshot.Event e) {
+    int kind = e.taskKind();
+    return kind < THREADS.length - 2 ? THREADS[kind + 2] : "unknown";
+  }
+
+  /** Write the snapshot as a Chrome trace JSON object */
+  public static void write(TimelineSnapshot snap, Writer out) throws IOException {
+    ArrayList<TimelineSnapshot.Event> events = new ArrayList<>();
+    for (TimelineSnapshot.Event e : snap)
+      if (e.udpType() != UDP.udp.heartbeat && e.udpType() != UDP.udp.gossip)
+        events.add(e);
+    H2ONode[] nodes = snap._cloud.members();
+
+    // Per node, the shift of nanos onto the wall clock: msec are truncated,
+    // so each event bounds the shift from below, and the largest is closest
+    long[] shift = new long[nodes.length];
+    Arrays.fill(shift, Long.MIN_VALUE);
+    for (TimelineSnapshot.Event e : events)
+      shift[e._nodeId] = Math.max(shift[e._nodeId], e.ms() * 1000000 - nanos(e));
+    long base = Long.MAX_VALUE;
+    for (TimelineSnapshot.Event e : events)
+      base = Math.min(base, start(e, shift));
+
+    JsonWriter w = new JsonWriter(out);
+    w.beginObject();
+    w.name("displayTimeUnit").value("ms");
+    w.name("otherData").beginObject().name("start_msec").value(base == Long.MAX_VALUE ? 0 : base / 1000000).endObject();
+    w.name("traceEvents").beginArray();
+    for (int i = 0; i < nodes.length; i++) {
+      meta(w, "process_name", i, 0, nodes[i].toString());
+      for (int t = 1; t < THREADS.length; t++)
+        meta(w, "thread_name", i, t, THREADS[t]);
+    }
+    HashSet<TimelineSnapshot.Event> sends = new HashSet<>(); // Sends written so far
+    int ids = 0;
+    for (TimelineSnapshot.Event e : events) {
+      H2ONode peer = e.packH2O();
+      if (e.isTask()) {         // A span of local work
+        int tid = e.taskKind() + MRTASK;
+        int id = ++ids;
+        String name = e.taskClass();
+        begin(w, "b", name.substring(name.lastIndexOf('.') + 1), THREADS[tid], e._nodeId, tid, us(start(e, shift), base));
+        w.name("id").value(id);
+        w.name("args").beginObject().name("task").value(name);
+        if (peer != null && peer != nodes[e._nodeId]) w.name("peer").value(peer.toString());
+        w.endObject().endObject();
+        begin(w, "e", name.substring(name.lastIndexOf('.') + 1), THREADS[tid], e._nodeId, tid, us(end(e, shift), base));
+        w.name("id").value(id).endObject();
+        continue;
+      }
+      long ts = end(e, shift);
+      String name = e.udpType() == UDP.udp.i_o ? "i_o " + e.ioflavor() : e.udpType().toString();
+      begin(w, "X", name, "network", e._nodeId, NETWORK, us(ts, base));
+      w.name("dur").value(0);
+      w.name("args").beginObject()
+          .name(e.isSend() ? "to" : "from").value(e.addrString())
+          .name("protocol").value(e.isTCP() ? "TCP" : "UDP")
+          .name("data").value(data(e));
+      if (e.isDropped()) w.name("dropped").value(true);
+      w.endObject().endObject();
+      if (e.isSend()) {
+        sends.add(e);
+        continue;
+      }
+      TimelineSnapshot.Event send = snap.getDependency(e);
+      if (send == null || !sends.contains(send)) continue;
+      // Paired: a flow from the send to this receive, and the latency
+      long sent = end(send, shift);
+      int id = ++ids;
+      begin(w, "s", name, "flow", send._nodeId, NETWORK, us(sent, base));
+      w.name("id").value(id).endObject();
+      begin(w, "f", name, "flow", e._nodeId, NETWORK, us(ts, base));
+      w.name("id").value(id).name("bp").value("e").endObject();
+      String latency = name + " -> " + nodes[e._nodeId];
+      begin(w, "b", latency, "latency", send._nodeId, NETWORK, us(sent, base));
+      w.name("id").value(id);
+      w.name("args").beginObject().name("latency_us").value((ts - sent) / 1000).endObject().endObject();
+      begin(w, "e", latency, "latency", send._nodeId, NETWORK, us(Math.max(ts, sent), base));
+      w.name("id").value(id).endObject();
+    }
+    w.endArray();
+    w.endObject();
+    w.flush();
+  }
+
+  // Nanos of the event, without the flag bits
+  private static long nanos(TimelineSnapshot.Event e) { return e.ns() & ~7L; }
+  // Wall clock nanos of the end of an event, and of its start
+  private static long end(TimelineSnapshot.Event e, long[] shift) { return nanos(e) + shift[e._nodeId]; }
+  private static long start(TimelineSnapshot.Event e, long[] shift) {
+    return end(e, shift) - (e.isTask() ? e.taskNanos() : 0);
+  }
+  // Pretty payload, or raw if the packet type cannot print it
+  private static String data(TimelineSnapshot.Event e) {
+    try {
+      return UDP.printx16(e.dataLo(), e.dataHi());
+    } catch (RuntimeException re) {
+      return Long.toHexString(e.dataLo()) + "," + Long.toHexString(e.dataHi());
+    }
+  }
+  // Trace time stamps are in microseconds
+  private static double us(long ns, long base) { return (ns - base) / 1000.0; }
+
+  private static void begin(JsonWriter w, String ph, String name, String cat, int pid, int tid, double ts) throws IOException {
+    w.beginObject().name("ph").value(ph).name("name").value(name).name("cat").value(cat)
+        .name("pid").value(pid).name("tid").value(tid).name("ts").value(ts);
+  }
+
+  private static void meta(JsonWriter w, String what, int pid, int tid, String name) throws IOException {
+    w.beginObject().name("ph").value("M").name("name").value(what).name("pid").value(pid).name("tid").value(tid)
+        .name("args").beginObject().name("name").value(name).endObject().endObject();
+  }
+
+  /** The Cloud's current TimeLine, as a Chrome trace */
+  public static void write(Writer out) throws IOException {
+    write(new TimelineSnapshot(H2O.CLOUD, TimeLine.system_snapshot()), out);
+  }
+}
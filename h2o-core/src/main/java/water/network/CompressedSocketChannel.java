@@ -0,0 +1,127 @@
+package water.network;
+
+import water.persist.PersistManager;
+import water.util.LZ4Codec;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+
+import static water.H2O.OptArgs.SYSTEM_PROP_PREFIX;
+
+/**
+ * LZ4 compression of the bulk TCP channels between nodes.
+ * <p>
+ * Wraps a plain or {@link SSLSocketChannel}, so data is compressed before it
+ * is encrypted.  Every {@link #write} is sent as one or more frames of an
+ * 8-byte header - raw length, compressed length or 0 if sent uncompressed -
+ * followed by the payload.  Frames smaller than {@link #MIN_BYTES}, and frames
+ * which do not shrink by at least 1/8th, go uncompressed; reads return the
+ * decompressed bytes of one frame at a time.
+ * <p>
+ * Both ends have to agree: a node opens compressed channels only to nodes
+ * whose HeartBeat says they enabled compression too, and flags the channel as
+ * such in its opening bytes.
+ */
+public class CompressedSocketChannel implements ByteChannel {
+  /** Codec for the bulk TCP traffic between nodes, "lz4" or "none" */
+  public static final String PROP_CODEC = SYSTEM_PROP_PREFIX + "network.compression";
+  /** Frames smaller than this are sent uncompressed */
+  public static final int MIN_BYTES = Integer.getInteger(SYSTEM_PROP_PREFIX + "network.compression.min_bytes", 4096);
+  /** True if this node asks for compressed channels */
+  public static final boolean ENABLED = "lz4".equalsIgnoreCase(System.getProperty(PROP_CODEC, "none"));
+
+  /** Traffic on compressed channels: stores are sent frames, loads received
+   *  ones; the codec counters cover sent frames of at least {@link #MIN_BYTES} */
+  public static final PersistManager.PersistStatsEntry STATS = new PersistManager.PersistStatsEntry();
+  static { STATS.codec = ENABLED ? "lz4" : "none"; }
+
+  static final int HDR = 8;
+  static final int MAX_FRAME = 256*1024; // Raw bytes per frame
+
+  private final ByteChannel _chan;
+  private byte[] _out, _packed;  // Reused send buffers, payload at offset HDR
+  private byte[] _in, _raw;      // Reused receive buffers
+  private ByteBuffer _avail;     // Decompressed bytes not yet read
+  private final ByteBuffer _hdr = ByteBuffer.allocate(HDR);
+
+  public CompressedSocketChannel(ByteChannel chan) { _chan = chan; }
+
+  /** The wrapped channel */
+  public ByteChannel channel() { return _chan; }
+
+  @Override public int write(ByteBuffer src) throws IOException {
+    int n = src.remaining();
+    while( src.hasRemaining() ) {
+      int len = Math.min(src.remaining(), MAX_FRAME);
+      if( _out == null || _out.length < HDR+len ) _out = new byte[HDR+Math.max(len, MIN_BYTES)];
+      src.get(_out, HDR, len);
+      byte[] frame = _out;
+      int packed = 0;
+      if( len >= MIN_BYTES ) {
+        int max = HDR+LZ4Codec.maxCompressedLength(len);
+        if( _packed == null || _packed.length < max ) _packed = new byte[max];
+        long t0 = System.nanoTime();
+        packed = LZ4Codec.compress(_out, HDR, len, _packed, HDR);
+        STATS.codec_encode_nanos.addAndGet(System.nanoTime()-t0);
+        if( packed > len - (len>>3) ) packed = 0; // Not worth decompressing
+        else frame = _packed;
+        STATS.codec_raw_bytes.addAndGet(len);
+        STATS.codec_packed_bytes.addAndGet(packed == 0 ? len : packed);
+      }
+      ByteBuffer bb = ByteBuffer.wrap(frame, 0, HDR+(packed == 0 ? len : packed));
+      bb.putInt(0, len).putInt(4, packed);
+      while( bb.hasRemaining() ) _chan.write(bb);
+      STATS.store_count.incrementAndGet();
+      STATS.store_bytes.addAndGet(bb.limit());
+    }
+    return n;
+  }
+
+  @Override public int read(ByteBuffer dst) throws IOException {
+    if( (_avail == null || !_avail.hasRemaining()) && !readFrame() ) return -1;
+    int n = Math.min(dst.remaining(), _avail.remaining());
+    int lim = _avail.limit();
+    _avail.limit(_avail.position()+n);
+    dst.put(_avail);
+    _avail.limit(lim);
+    return n;
+  }
+
+  // Read and decode the next frame; false on a clean end of stream
+  private boolean readFrame() throws IOException {
+    _hdr.clear();
+    if( !readFully(_hdr, true) ) return false;
+    int len = _hdr.getInt(0), packed = _hdr.getInt(4);
+    if( len < 0 || len > MAX_FRAME || packed < 0 || packed > LZ4Codec.maxCompressedLength(len) )
+      throw new IOException("Corrupt compressed frame header: "+len+"/"+packed);
+    int wire = packed == 0 ? len : packed;
+    if( _in == null || _in.length < wire ) _in = new byte[Math.max(wire, MIN_BYTES)];
+    readFully(ByteBuffer.wrap(_in, 0, wire), false);
+    STATS.load_count.incrementAndGet();
+    STATS.load_bytes.addAndGet(HDR+wire);
+    if( packed == 0 ) { _avail = ByteBuffer.wrap(_in, 0, len); return true; }
+    if( _raw == null || _raw.length < len ) _raw = new byte[len];
+    long t0 = System.nanoTime();
+    int res = LZ4Codec.decompress(_in, 0, packed, _raw, 0, len);
+    STATS.codec_decode_nanos.addAndGet(System.nanoTime()-t0);
+    STATS.codec_decoded_bytes.addAndGet(len);
+    if( res != len ) throw new IOException("Expected "+len+" bytes, decoded "+res);
+    _avail = ByteBuffer.wrap(_raw, 0, len);
+    return true;
+  }
+
+  private boolean readFully(ByteBuffer bb, boolean eofOk) throws IOException {
+    while( bb.hasRemaining() ) {
+      if( _chan.read(bb) < 0 ) {
+        if( eofOk && bb.position() == 0 ) return false;
+        throw new EOFException("Compressed channel closed mid-frame");
+      }
+    }
+    return true;
+  }
+
+  @Override public boolean isOpen() { return _chan.isOpen(); }
+  @Override public void close() throws IOException { _chan.close(); }
+}
@@ -7,7 +7,8 @@ import java.nio.channels.SocketChannel;
 public class SocketChannelUtils {
 
     public static boolean isSocketChannel(Channel channel) {
-        return channel instanceof SocketChannel || channel instanceof SSLSocketChannel;
+        return channel instanceof SocketChannel || channel instanceof SSLSocketChannel ||
+                (channel instanceof CompressedSocketChannel && isSocketChannel(((CompressedSocketChannel) channel).channel()));
     }
 
     public static SocketChannel underlyingSocketChannel(Channel channel) {
@@ -15,6 +16,8 @@ public class SocketChannelUtils {
             return ((SSLSocketChannel) channel).channel();
         } else if(channel instanceof SocketChannel) {
             return (SocketChannel) channel;
+        } else if(channel instanceof CompressedSocketChannel) {
+            return underlyingSocketChannel(((CompressedSocketChannel) channel).channel());
         }
         throw new UnsupportedOperationException(
                 "Channel is not a socket channel. Cannot retrieve the underlying channel."
@@ -12,6 +12,7 @@ import water.fvec.Vec.VectorGroup;
 import water.nbhm.NonBlockingHashMap;
 import water.nbhm.NonBlockingSetInt;
 import water.util.ArrayUtils;
+import water.util.FlightRecorder;
 import water.util.FrameUtils;
 import water.util.Log;
 import water.util.PrettyPrint;
@@ -975,7 +976,9 @@ public final class ParseDataset {
           throw new H2OIllegalArgumentException("Parser:  all columns in the file are skipped and no H2OFrame" +
                   " can be returned."); // Need this to send error message to R
 
+        Object ev = FlightRecorder.begin(FlightRecorder.Type.PARSE_CHUNK);
         p.parseChunk(in.cidx(), din, dout);
+        if( ev != null ) FlightRecorder.commit(ev, FlightRecorder.Type.PARSE_CHUNK, in.vec()._key.toString(), null, in.cidx(), in._len);
         (_dout = dout).close(_fs);
         Job.update(in._len, _jobKey); // Record bytes parsed
         // remove parsed data right away
@@ -0,0 +1,231 @@
+package water.persist;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+import water.Key;
+import water.MemoryManager;
+import water.nbhm.NonBlockingHashMap;
+import water.nbhm.UtilUnsafe;
+
+/**
+ * Memory-mapped spill file for user-mode swapping.
+ * <p>
+ * All swapped Values of a node go into one large file, mapped into memory in
+ * fixed-size segments.  Stores are plain memory copies into the mapping and
+ * reloads are copies out of it, so the OS page cache decides what stays
+ * resident: re-reading a recently swapped Frame costs page faults rather than
+ * a file open, a read syscall and an intermediate buffer per Value.
+ * <p>
+ * Space is handed out in page-aligned slots; freed slots are recycled
+ * best-fit.  Values too large for a segment are not handled here, the caller
+ * falls back to one-file-per-Value.
+ */
+final class IceMappedFile {
+  static final int PAGE = 4096;
+  private final long _segSize;
+  private final File _file;
+  private RandomAccessFile _raf;
+  private volatile MappedByteBuffer[] _segs = new MappedByteBuffer[0];
+  private long _bump;           // Next never-used file offset
+  // Free slots by slot size
+  private final TreeMap<Long,ArrayDeque<Long>> _free = new TreeMap<>();
+  // Key to {offset, slot size, value size, pin count, retired}
+  private final NonBlockingHashMap<Key,long[]> _index = new NonBlockingHashMap<>();
+  private int _pinned;          // Outstanding pins, over all slots
+  private boolean _closing;     // No new pins while close waits out the old
+
+  IceMappedFile(File file, long segSize) {
+    assert segSize % PAGE == 0 && segSize <= Integer.MAX_VALUE;
+    _file = file;
+    _segSize = segSize;
+  }
+
+  /** Largest Value this file can hold */
+  long maxValueSize() { return _segSize; }
+
+  /** Bytes of the spill file currently holding Values */
+  long usedBytes() {
+    long sum = 0;
+    for( long[] slot : _index.values() ) sum += slot[1];
+    return sum;
+  }
+
+  boolean contains(Key k) { return _index.containsKey(k); }
+
+  /** Copy a Value into a fresh slot.  Pinned for the copy, like a
+   *  {@link #load}, so a racing {@link #close} cannot unmap it mid-write. */
+  void store(Key k, byte[] m) throws IOException {
+    assert m.length <= _segSize;
+    long[] slot = new long[]{0, Math.max((m.length + PAGE - 1) / PAGE * PAGE, PAGE), m.length, 1, 0};
+    ByteBuffer bb = allocPinned(slot).duplicate();
+    try {
+      bb.position((int)(slot[0] % _segSize));
+      bb.put(m);
+    } finally { publish(k, slot); }
+  }
+
+  /** Copy a stored Value out of the mapping, or null if not stored here.
+   *  Pinned for the copy, so a racing delete cannot hand the slot to another
+   *  Key mid-read. */
+  byte[] load(Key k) {
+    long[] slot = pin(k);
+    if( slot == null ) return null;
+    try {
+      byte[] res = MemoryManager.malloc1((int)slot[2]);
+      view(slot).get(res);
+      return res;
+    } finally { unpin(slot); }
+  }
+
+  void delete(Key k) {
+    long[] slot = _index.remove(k);
+    if( slot != null ) retire(slot);
+  }
+
+  /** Pin a stored Value's slot so it is not recycled while being read via
+   *  {@link #view}; null if not stored here.  Must be {@link #unpin}ned. */
+  synchronized long[] pin(Key k) {
+    long[] slot = _index.get(k);
+    if( slot == null || slot[4] != 0 || _closing ) return null;
+    slot[3]++;
+    _pinned++;
+    return slot;
+  }
+
+  synchronized void unpin(long[] slot) {
+    assert slot[3] > 0;
+    if( --_pinned == 0 && _closing ) notifyAll();
+    if( --slot[3] == 0 && slot[4] != 0 ) free(slot);
+  }
+
+  /** Read-only view of a pinned slot's bytes, straight from the mapping */
+  ByteBuffer view(long[] slot) {
+    assert slot[3] > 0;
+    ByteBuffer bb = segment(slot[0]).duplicate();
+    int off = (int)(slot[0] % _segSize);
+    bb.limit(off + (int)slot[2]).position(off);
+    return bb.slice().asReadOnlyBuffer();
+  }
+
+  // Allocate space for a new, pinned slot; returns the segment holding it
+  private synchronized MappedByteBuffer allocPinned(long[] slot) throws IOException {
+    if( _closing ) throw new IOException(_file + " is closing");
+    slot[0] = alloc(slot[1]);
+    _pinned++;
+    return segment(slot[0]);
+  }
+
+  // Index a freshly written slot, then unpin it
+  private synchronized void publish(Key k, long[] slot) {
+    long[] old = _index.put(k, slot);
+    if( old != null ) retire(old); // Overwrite of the same Key: recycle the stale slot
+    unpin(slot);
+  }
+
+  // Slot no longer in the index: recycle it, or once the last reader unpins
+  private synchronized void retire(long[] slot) {
+    slot[4] = 1;
+    if( slot[3] == 0 ) free(slot);
+  }
+
+  /** Drop all stored Values and the file.  Waits for pinned slots first:
+   *  unmapping under a live reader or writer is a segfault. */
+  synchronized void close() {
+    _closing = true;
+    boolean interrupted = false;
+    while( _pinned > 0 )
+      try { wait(); } catch( InterruptedException e ) { interrupted = true; }
+    _closing = false;
+    if( interrupted ) Thread.currentThread().interrupt();
+    _index.clear();
+    _free.clear();
+    for( MappedByteBuffer seg : _segs ) unmap(seg);
+    _segs = new MappedByteBuffer[0];
+    _bump = 0;
+    if( _raf != null ) {
+      try { _raf.close(); } catch( IOException ignore ) { }
+      _raf = null;
+    }
+    _file.delete();
+  }
+
+  // Release a mapping now rather than when the buffer is collected: the
+  // address space and, on some platforms, the file itself stay held until
+  // then.  Best-effort; there is no public API for it.
+  private static void unmap(MappedByteBuffer bb) {
+    try {
+      Object unsafe = UtilUnsafe.getUnsafe();
+      unsafe.getClass().getMethod("invokeCleaner", ByteBuffer.class).invoke(unsafe, bb); // Java 9+
+    } catch( NoSuchMethodException e ) {
+      try {
+        Method cleaner = bb.getClass().getMethod("cleaner"); // Java 7 and 8
+        cleaner.setAccessible(true);
+        Object c = cleaner.invoke(bb);
+        if( c != null ) c.getClass().getMethod("clean").invoke(c);
+      } catch( Exception ignore ) { }
+    } catch( Exception ignore ) { }
+  }
+
+  private MappedByteBuffer segment(long off) { return _segs[(int)(off / _segSize)]; }
+
+  private synchronized void free(long[] slot) {
+    ArrayDeque<Long> q = _free.get(slot[1]);
+    if( q == null ) _free.put(slot[1], q = new ArrayDeque<>());
+    q.push(slot[0]);
+  }
+
+  private synchronized long alloc(long slot) throws IOException {
+    // Best fit from the free list, but do not waste more than half a slot
+    Map.Entry<Long,ArrayDeque<Long>> e = _free.ceilingEntry(slot);
+    if( e != null && e.getKey() <= 2*slot ) {
+      long off = e.getValue().pop();
+      if( e.getValue().isEmpty() ) _free.remove(e.getKey());
+      return off;
+    }
+    // Slots never straddle segments; recycle the tail of a full segment
+    long segEnd = (_bump / _segSize + 1) * _segSize;
+    if( _bump + slot > segEnd ) {
+      if( _bump < segEnd && _bump % _segSize != 0 ) {
+        long tail = segEnd - _bump;
+        ArrayDeque<Long> q = _free.get(tail);
+        if( q == null ) _free.put(tail, q = new ArrayDeque<>());
+        q.push(_bump);
+      }
+      _bump = segEnd;
+    }
+    long off = _bump;
+    if( off / _segSize >= _segs.length ) grow();
+    _bump += slot;
+    return off;
+  }
+
+  // Extend the file and map one more segment.  The file is sparse, so check
+  // for disk space up front: running out of disk under a mapping is fatal
+  // (SIGBUS), running out here is a normal IOException and disables swapping.
+  private void grow() throws IOException {
+    if( _raf == null ) {
+      _file.getParentFile().mkdirs();
+      _raf = new RandomAccessFile(_file, "rw");
+    }
+    long usable = _file.getParentFile().getUsableSpace();
+    if( usable < _segSize )
+      throw new IOException("Not enough disk space to grow " + _file + ": " + usable + " bytes left");
+    int n = _segs.length;
+    long len = (n + 1) * _segSize;
+    _raf.setLength(len);
+    MappedByteBuffer seg = _raf.getChannel().map(FileChannel.MapMode.READ_WRITE, n * _segSize, _segSize);
+    MappedByteBuffer[] segs = Arrays.copyOf(_segs, n + 1);
+    segs[n] = seg;
+    _segs = segs;
+  }
+}
@@ -25,6 +25,11 @@ public abstract class Persist {
   /** Load a previously stored Value */
   abstract public byte[] load(Value v) throws IOException;
 
+  /** Write a previously stored Value's bytes to an AutoBuffer, in the format
+   *  of {@link AutoBuffer#putA1(byte[])}, without loading them onto the heap.
+   *  Returns false, having written nothing, if this backend cannot. */
+  public boolean writeTo(Value v, AutoBuffer ab) throws IOException { return false; }
+
   /** Reclaim space from a previously stored Value */
   abstract public void delete(Value v);
 
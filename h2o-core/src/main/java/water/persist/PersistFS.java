@@ -9,16 +9,36 @@ import water.api.FSIOException;
 import water.fvec.NFSFileVec;
 import water.util.Log;
 
+import static water.H2O.OptArgs.SYSTEM_PROP_PREFIX;
+
 /**
  * Persistence backend using local file system.
  */
 public final class PersistFS extends Persist {
+  /** Property which enables the memory-mapped spill file for swapped Values,
+   *  instead of one file per Value. */
+  static final String PROP_ICE_MMAP = SYSTEM_PROP_PREFIX + "persist.ice.mmap";
+  /** Property which selects the codec applied to swapped Values: "none" (default) or "lz4". */
+  static final String PROP_ICE_CODEC = SYSTEM_PROP_PREFIX + "persist.ice.codec";
+  private static final long MAPPED_SEGMENT_SIZE = 256L << 20;
+
   final File _root;
   final File _dir;
+  private final IceMappedFile _mapped; // Null unless mmap-spilling is enabled
+  private final SpillCodec _codec;     // Null unless compressed spilling is enabled
+  private final PersistManager.PersistStatsEntry _stats;
+
+  PersistFS(File root, PersistManager.PersistStatsEntry stats) {
+    this(root, Boolean.getBoolean(PROP_ICE_MMAP), SpillCodec.forName(System.getProperty(PROP_ICE_CODEC)), stats);
+  }
 
-  PersistFS(File root) {
+  PersistFS(File root, boolean mmap, SpillCodec codec, PersistManager.PersistStatsEntry stats) {
     _root = root;
     _dir = new File(root, "ice" + H2O.API_PORT);
+    _mapped = mmap ? new IceMappedFile(new File(_dir, "ice-spill.mmap"), MAPPED_SEGMENT_SIZE) : null;
+    _codec = codec;
+    _stats = stats;
+    if( codec != null ) stats.codec = codec.toString();
     //deleteRecursive(_dir);
     // Make the directory as-needed
     root.mkdirs();
@@ -26,7 +46,10 @@ public final class PersistFS extends Persist {
       H2O.die("ice_root not a read/writable directory");
   }
 
-  public void cleanUp() { deleteRecursive(_dir); }
+  public void cleanUp() {
+    if( _mapped != null ) _mapped.close();
+    deleteRecursive(_dir);
+  }
 
   private static void deleteRecursive(File path) {
     if( !path.exists() ) return;
@@ -47,44 +70,103 @@ public final class PersistFS extends Persist {
   }
 
   @Override public byte[] load(Value v) throws IOException {
-    File f = getFile(v);
-    if( f.length() < v._max ) { // Should be fully on disk...
-      // or it's a racey delete of a spilled value
-      assert !v.isPersisted() : f.length() + " " + v._max + " " + v._key;
-      return null; // No value
-    }
-    try (FileInputStream s = new FileInputStream(f)) {
+    byte[] b = _mapped != null ? _mapped.load(v._key) : null;
+    if( b == null ) {
+      File f = getFile(v);
+      // Compressed files are smaller than the Value, but never empty
+      long len = _codec == null ? v._max : f.length();
+      if( f.length() < len || len == 0 ) { // Should be fully on disk...
+        // or it's a racey delete of a spilled value
+        assert !v.isPersisted() : f.length() + " " + v._max + " " + v._key;
+        return null; // No value
+      }
+      try (FileInputStream s = new FileInputStream(f)) {
         AutoBuffer ab = new AutoBuffer(s.getChannel(), true, Value.ICE);
-        byte[] b = ab.getA1(v._max);
+        b = ab.getA1((int)len);
         ab.close();
-        return b;
       }
+    }
+    return _codec == null ? b : decode(b, v._max);
+  }
+
+  // Send a swapped Value out without reading it onto the heap: straight from
+  // the mapping, or with a file-to-socket transfer.  Compressed Values have to
+  // be decoded first, so they take the usual path.
+  @Override public boolean writeTo(Value v, AutoBuffer ab) throws IOException {
+    if( _codec != null ) return false;
+    if( _mapped != null ) {
+      long[] slot = _mapped.pin(v._key);
+      if( slot != null ) {
+        try { ab.putA1Buf(_mapped.view(slot)); }
+        finally { _mapped.unpin(slot); }
+        return true;
+      }
+    }
+    File f = getFile(v);
+    try (FileInputStream s = new FileInputStream(f)) {
+      if( s.getChannel().size() < v._max ) return false; // Racey delete; let load() sort it out
+      ab.putA1(s.getChannel(), 0, v._max);
+      return true;
+    } catch( FileNotFoundException fnfe ) {
+      return false;
+    }
   }
 
   // Store Value v to disk.
   @Override public void store(Value v) throws IOException {
     assert !v.isPersisted();
+    byte[] m = v.memOrLoad(); // we are not single threaded anymore
+    if( m != null && m.length != v._max ) {
+      Log.warn("Value size mismatch? " + v._key + " byte[].len=" + m.length+" v._max="+v._max);
+      v._max = m.length; // Implies update of underlying POJO, then re-serializing it without K/V storing it
+    }
+    if( _codec != null ) m = encode(m);
+    if( _mapped != null && m.length <= _mapped.maxValueSize() ) {
+      _mapped.store(v._key, m);
+      return;
+    }
     File dirs = new File(_dir, getIceDirectory(v._key));
     if( !dirs.mkdirs() && !dirs.exists() )
       throw new java.io.IOException("mkdirs failed making "+dirs);
     try(FileOutputStream s = new FileOutputStream(getFile(v))) {
-        byte[] m = v.memOrLoad(); // we are not single threaded anymore
-        if( m != null && m.length != v._max ) {
-          Log.warn("Value size mismatch? " + v._key + " byte[].len=" + m.length+" v._max="+v._max);
-          v._max = m.length; // Implies update of underlying POJO, then re-serializing it without K/V storing it
-        }
         new AutoBuffer(s.getChannel(), false, Value.ICE).putA1(m, m.length).close();
       } catch( AutoBuffer.AutoBufferException abe ) {
       throw abe._ioe;
     }
   }
 
+  // Compressed spill format: 1 byte codec id, then the codec output.  Values
+  // which do not compress are stored raw behind the SpillCodec.NONE id, so
+  // loads never pay for a useless decompression.
+  private byte[] encode(byte[] m) {
+    long t0 = System.nanoTime();
+    byte[] res = _codec.encode(m);
+    _stats.codec_encode_nanos.addAndGet(System.nanoTime() - t0);
+    _stats.codec_raw_bytes.addAndGet(m.length);
+    _stats.codec_packed_bytes.addAndGet(res.length);
+    return res;
+  }
+
+  private byte[] decode(byte[] b, int rawLen) throws IOException {
+    long t0 = System.nanoTime();
+    byte[] res;
+    try { res = SpillCodec.decode(b, rawLen); }
+    catch( IllegalArgumentException iae ) { throw new IOException("Corrupted spill file", iae); }
+    _stats.codec_decode_nanos.addAndGet(System.nanoTime() - t0);
+    _stats.codec_decoded_bytes.addAndGet(rawLen);
+    return res;
+  }
+
   @Override
   public boolean delete(String path) {
     return new File(URI.create(path)).delete();
   }
 
   @Override public void delete(Value v) {
+    if( _mapped != null && _mapped.contains(v._key) ) {
+      _mapped.delete(v._key);
+      return;
+    }
     getFile(v).delete();        // Silently ignore errors
     // Attempt to delete empty containing directory
     new File(_dir, getIceDirectory(v._key)).delete();
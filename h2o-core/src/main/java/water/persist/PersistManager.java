@@ -54,6 +54,11 @@ public class PersistManager {
       delete_count = new AtomicLong();
       load_count = new AtomicLong();
       load_bytes = new AtomicLong();
+      codec_raw_bytes = new AtomicLong();
+      codec_packed_bytes = new AtomicLong();
+      codec_encode_nanos = new AtomicLong();
+      codec_decoded_bytes = new AtomicLong();
+      codec_decode_nanos = new AtomicLong();
     }
 
     public AtomicLong store_count;
@@ -61,6 +66,25 @@ public class PersistManager {
     public AtomicLong delete_count;
     public AtomicLong load_count;
     public AtomicLong load_bytes;
+
+    // Compressed-spill counters; only the ice backend compresses
+    public String codec = "none";
+    public AtomicLong codec_raw_bytes;     // Bytes handed to the codec on store
+    public AtomicLong codec_packed_bytes;  // Bytes the codec produced on store
+    public AtomicLong codec_encode_nanos;
+    public AtomicLong codec_decoded_bytes; // Bytes the codec restored on load
+    public AtomicLong codec_decode_nanos;
+
+    /** Stored-to-raw size ratio; 1 if nothing was compressed */
+    public double compressionRatio() {
+      long raw = codec_raw_bytes.get();
+      return raw == 0 ? 1 : (double) codec_packed_bytes.get() / raw;
+    }
+    /** Compression throughput in MB/sec, or 0 if unknown */
+    public double encodeMBPerSec() { return mbPerSec(codec_raw_bytes.get(), codec_encode_nanos.get()); }
+    /** Decompression throughput in MB/sec, or 0 if unknown */
+    public double decodeMBPerSec() { return mbPerSec(codec_decoded_bytes.get(), codec_decode_nanos.get()); }
+    private static double mbPerSec(long bytes, long nanos) { return nanos == 0 ? 0 : bytes * 1e3 / nanos; }
   }
 
   private Persist[] I;
@@ -106,10 +130,10 @@ public class PersistManager {
     boolean windowsPath = iceRoot.toString().matches("^[a-zA-Z]:.*");
 
     if (windowsPath) {
-      ice = new PersistFS(new File(iceRoot.toString()));
+      ice = new PersistFS(new File(iceRoot.toString()), stats[Value.ICE]);
     }
     else if ((iceRoot.getScheme() == null) || Schemes.FILE.equals(iceRoot.getScheme())) {
-      ice = new PersistFS(new File(iceRoot.getPath()));
+      ice = new PersistFS(new File(iceRoot.getPath()), stats[Value.ICE]);
     }
     else if( Schemes.HDFS.equals(iceRoot.getScheme()) ) {
       Log.err("HDFS ice_root not yet supported.  Exiting.");
@@ -175,6 +199,7 @@ public class PersistManager {
   public void store(int backend, Value v) throws IOException {
     stats[backend].store_count.incrementAndGet();
     I[backend].store(v);
+    stats[backend].store_bytes.addAndGet(v._max);
   }
 
   public void delete(int backend, Value v) {
@@ -189,6 +214,14 @@ public class PersistManager {
     return arr;
   }
 
+  /** Write a stored Value straight to an AutoBuffer; see {@link Persist#writeTo} */
+  public boolean writeTo(int backend, Value v, AutoBuffer ab) throws IOException {
+    if( !I[backend].writeTo(v, ab) ) return false;
+    stats[backend].load_count.incrementAndGet();
+    stats[backend].load_bytes.addAndGet(v._max);
+    return true;
+  }
+
   /** Get the current Persist flavor for user-mode swapping. */
   public Persist getIce() { return I[Value.ICE]; }
 
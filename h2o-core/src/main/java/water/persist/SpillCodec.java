@@ -0,0 +1,71 @@
+package water.persist;
+
+import java.util.Arrays;
+
+import water.MemoryManager;
+import water.util.LZ4Codec;
+import water.util.Log;
+
+/**
+ * Codecs applied to Values swapped out to the ice directory.
+ * <p>
+ * The encoded form starts with the id byte of the codec which produced it,
+ * so a store can fall back to {@link #NONE} per Value when compression does
+ * not pay off, and loads dispatch on the id rather than on configuration.
+ */
+enum SpillCodec {
+  NONE(0) {
+    @Override byte[] encode(byte[] m) {
+      byte[] res = MemoryManager.malloc1(m.length + 1);
+      res[0] = _id;
+      System.arraycopy(m, 0, res, 1, m.length);
+      return res;
+    }
+  },
+  LZ4(1) {
+    @Override byte[] encode(byte[] m) {
+      byte[] res = MemoryManager.malloc1(LZ4Codec.maxCompressedLength(m.length) + 1);
+      res[0] = _id;
+      int len = LZ4Codec.compress(m, 0, m.length, res, 1);
+      // Not worth decompressing on every reload for less than 1/8th savings
+      if( len > m.length - (m.length >> 3) ) return NONE.encode(m);
+      return Arrays.copyOf(res, len + 1);
+    }
+  };
+
+  final byte _id;
+  SpillCodec(int id) { _id = (byte) id; }
+
+  /** Encode raw Value bytes, prefixed by the codec id actually used */
+  abstract byte[] encode(byte[] m);
+
+  /** Decode bytes produced by any codec's {@link #encode} */
+  static byte[] decode(byte[] b, int rawLen) {
+    byte[] res = MemoryManager.malloc1(rawLen);
+    switch( b[0] ) {
+    case 0:
+      if( b.length - 1 != rawLen ) throw new IllegalArgumentException("Expected " + rawLen + " bytes, found " + (b.length - 1));
+      System.arraycopy(b, 1, res, 0, rawLen);
+      return res;
+    case 1:
+      int len = LZ4Codec.decompress(b, 1, b.length - 1, res, 0, rawLen);
+      if( len != rawLen ) throw new IllegalArgumentException("Expected " + rawLen + " bytes, decoded " + len);
+      return res;
+    default:
+      throw new IllegalArgumentException("Unknown spill codec id " + b[0]);
+    }
+  }
+
+  /** Codec for a configuration value; null (no framing at all) for "none" or unset */
+  static SpillCodec forName(String name) {
+    if( name == null || name.isEmpty() || name.equalsIgnoreCase("none") ) return null;
+    try {
+      return valueOf(name.toUpperCase());
+    } catch( IllegalArgumentException iae ) {
+      Log.warn("Unknown spill codec '" + name + "', swapping without compression");
+      return null;
+    }
+  }
+
+  @Override public String toString() { return name().toLowerCase(); }
+}
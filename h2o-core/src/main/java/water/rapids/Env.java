@@ -71,6 +71,11 @@ public class Env extends Iced {
     PRIMS.put(name, ast);
   }
 
+  // The built-in primitive of a name, if any
+  static AstPrimitive primitive(String id) {
+    return PRIMS.get(id);
+  }
+
   static {
     // Constants
     CONSTS.put("FALSE", AstConst.FALSE);
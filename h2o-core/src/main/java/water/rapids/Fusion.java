@@ -0,0 +1,255 @@
+package water.rapids;
+
+import water.Iced;
+import water.Key;
+import water.MRTask;
+import water.fvec.ColumnBatch;
+import water.fvec.Frame;
+import water.fvec.NewChunk;
+import water.fvec.Vec;
+import water.rapids.ast.AstExec;
+import water.rapids.ast.AstPrimitive;
+import water.rapids.ast.AstRoot;
+import water.rapids.ast.params.AstId;
+import water.rapids.ast.prims.math.AstUniOp;
+import water.rapids.ast.prims.operators.AstBinOp;
+import water.rapids.ast.prims.operators.AstLAnd;
+import water.rapids.ast.prims.operators.AstLOr;
+import water.rapids.vals.ValFrame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import static water.H2O.OptArgs.SYSTEM_PROP_PREFIX;
+
+/**
+ * Nested elementwise operators evaluated in a single pass.
+ * <p>
+ * Unfused, an expression like {@code (log (+ (* x 2) y))} runs one MRTask per
+ * operator, each decoding its inputs and compressing a whole temporary Frame
+ * that the next one reads back.  Instead, the outermost operator of such a
+ * chain evaluates the leaves of the chain (the arguments which are not
+ * elementwise operators themselves) in the usual order, then computes every
+ * operator of the chain in one MRTask: per batch of rows, over arrays reused
+ * from batch to batch, and only the final result is compressed.
+ * <p>
+ * The chain is fused when its leaves are numbers and numeric Frames with the
+ * same rows, widened as the operators do on their own; else the operators
+ * are applied one by one to the evaluated leaves, exactly as unfused.
+ */
+public final class Fusion {
+  /** Fuse chains of elementwise operators */
+  public static final boolean ENABLED = Boolean.parseBoolean(System.getProperty(SYSTEM_PROP_PREFIX + "rapids.fusion", "true"));
+
+  private Fusion() {}
+
+  /** True if op and one of its arguments are elementwise operators, so that
+   *  the two might be fused */
+  public static boolean fusable(AstPrimitive op, AstRoot[] asts) {
+    if (!ENABLED || !elementwise(op)) return false;
+    for (int i = 1; i < asts.length; i++) {
+      String fun = funName(asts[i]);
+      if (fun != null && elementwise(Env.primitive(fun))) return true;
+    }
+    return false;
+  }
+
+  /** Apply an elementwise operator to its arguments, fusing with the
+   *  elementwise operators among them, and theirs */
+  public static Val apply(AstPrimitive op, Env env, Env.StackHelp stk, AstRoot[] asts) {
+    Node root = plan(op, env, asts);
+    root.evalLeaves(env, stk);
+    Fused fused = new Fused();
+    if (fused.check(root, false) && root._ncols > 0 && fused._nops > 1) {
+      Frame fr = new Frame(fused._vecs.toArray(new Vec[fused._vecs.size()]));
+      return new ValFrame(new FusedOps(root, fused._nodes).doAll(root._ncols, Vec.T_NUM, fr).outputFrame(root._names, null));
+    }
+    return root.applyOps(env, stk, true);
+  }
+
+  // Name of the function applied by an expression, if plainly named
+  private static String funName(AstRoot ast) {
+    if (!(ast instanceof AstExec)) return null;
+    AstRoot fun = ((AstExec) ast)._asts[0];
+    return fun instanceof AstId ? fun.str() : null;
+  }
+
+  // Operators computed element by element, with all their arguments
+  // evaluated.  Binary operators with their own frame_op_scalar (== and !=)
+  // name and fill their result columns other than op() alone would, so are
+  // left alone.
+  private static boolean elementwise(AstPrimitive fun) {
+    return fun instanceof AstUniOp ||
+        (fun instanceof AstBinOp && !(fun instanceof AstLAnd) && !(fun instanceof AstLOr) && !ownFrameOps(fun));
+  }
+
+  private static boolean ownFrameOps(AstPrimitive fun) {
+    try {
+      return fun.getClass().getMethod("frame_op_scalar", Frame.class, double.class).getDeclaringClass() != AstBinOp.class;
+    } catch (NoSuchMethodException e) {
+      return true;
+    }
+  }
+
+  // The chain of elementwise operators rooted at op.  Function names are
+  // looked up once, as AstExec would.
+  private static Node plan(AstPrimitive op, Env env, AstRoot[] asts) {
+    Node n = new Node();
+    n._op = op;
+    n._kids = new Node[asts.length - 1];
+    for (int i = 1; i < asts.length; i++) {
+      Node kid = n._kids[i - 1] = new Node();
+      kid._ast = asts[i];
+      String name = funName(asts[i]);
+      if (name == null || !elementwise(Env.primitive(name))) continue;
+      AstRoot[] args = ((AstExec) asts[i])._asts;
+      Val fun = args[0].exec(env);
+      if (!fun.isFun()) continue;               // Leave the error to AstExec
+      AstPrimitive prim = fun.getFun();
+      if (prim.nargs() != args.length) continue;
+      if (elementwise(prim)) n._kids[i - 1] = plan(prim, env, args);
+      else { kid._fun = prim; kid._args = args; }
+    }
+    return n;
+  }
+
+  // An operator, or a leaf: an argument of the chain which is not an
+  // elementwise operator
+  private static class Node extends Iced<Node> {
+    AstPrimitive _op;           // Operator, or null for a leaf
+    Node[] _kids;
+    int _id;                    // Index among the nodes of the chain
+    int _ncols;                 // Columns of the value; 0 for a number
+    double _d;                  // Number leaf
+    int[] _cols;                // Frame leaf: columns of the fused Frame
+    transient AstRoot _ast;     // Leaf expression
+    transient AstPrimitive _fun;// ... or its already looked-up function
+    transient AstRoot[] _args;
+    transient Val _val;         // Leaf value
+    transient String[] _names;  // Column names of the value
+
+    // Evaluate all leaves, left to right, tracking them as AstExec would
+    void evalLeaves(Env env, Env.StackHelp stk) {
+      if (_op != null) {
+        for (Node kid : _kids) kid.evalLeaves(env, stk);
+        return;
+      }
+      if (_fun == null) {
+        _val = stk.track(_ast.exec(env));
+        return;
+      }
+      try (Env.StackHelp s = env.stk()) {
+        _val = stk.track(env.returning(_fun.apply(env, s, _args)));
+      }
+    }
+
+    // Unfused: apply the operators one by one, from the leaves up
+    Val applyOps(Env env, Env.StackHelp stk, boolean root) {
+      if (_op == null) return _val;
+      Val val = _op instanceof AstBinOp
+          ? ((AstBinOp) _op).prim_apply(_kids[0].applyOps(env, stk, false), _kids[1].applyOps(env, stk, false))
+          : ((AstUniOp) _op).exec(null, _kids[0].applyOps(env, stk, false));
+      return root ? val : stk.track(env.returning(val));
+    }
+  }
+
+  // Checks a chain for fusing, collecting its nodes and the Vecs it reads
+  private static class Fused {
+    final ArrayList<Node> _nodes = new ArrayList<>();
+    final ArrayList<Vec> _vecs = new ArrayList<>();
+    final HashMap<Key, Integer> _vecIdx = new HashMap<>();
+    long _nrows = -1;
+    int _nops;
+
+    boolean check(Node n, boolean numericOnly) {
+      n._id = _nodes.size();
+      _nodes.add(n);
+      if (n._op == null) return checkLeaf(n, numericOnly);
+      _nops++;
+      if (n._op instanceof AstUniOp) {
+        Node x = n._kids[0];
+        if (!check(x, true)) return false;
+        n._ncols = x._ncols;
+        if (x._names != null) {
+          n._names = new String[x._names.length];
+          for (int i = 0; i < n._names.length; i++)
+            n._names[i] = n._op.str() + "(" + x._names[i] + ")";
+        }
+        return true;
+      }
+      Node l = n._kids[0], r = n._kids[1];
+      if (!check(l, false) || !check(r, false)) return false;
+      // Widen numbers and single columns, as AstBinOp does
+      if (l._ncols == 0 || (l._ncols == 1 && r._ncols > 1)) {
+        n._ncols = r._ncols;
+        n._names = r._names;
+      } else if (r._ncols == 0 || r._ncols == 1 || r._ncols == l._ncols) {
+        n._ncols = l._ncols;
+        n._names = l._names;
+      } else return false;
+      return true;
+    }
+
+    private boolean checkLeaf(Node n, boolean numericOnly) {
+      if (n._val.isNum()) {
+        n._d = n._val.getNum();
+        return true;
+      }
+      if (!n._val.isFrame()) return false;
+      Frame fr = n._val.getFrame();
+      if (fr.numCols() == 0) return false;
+      if (_nrows == -1) _nrows = fr.numRows();
+      if (fr.numRows() != _nrows) return false; // Leave broadcasting rows to AstBinOp
+      n._ncols = fr.numCols();
+      n._names = fr.names();
+      n._cols = new int[fr.numCols()];
+      for (int i = 0; i < n._cols.length; i++) {
+        Vec v = fr.vec(i);
+        if (!(v.isNumeric() || (v.isTime() && !numericOnly))) return false;
+        if (!_vecs.isEmpty() && !_vecs.get(0).isCompatibleWith(v)) return false;
+        Integer idx = _vecIdx.get(v._key);
+        if (idx == null) {
+          _vecIdx.put(v._key, idx = _vecs.size());
+          _vecs.add(v);
+        }
+        n._cols[i] = idx;
+      }
+      return true;
+    }
+  }
+
+  // All operators of a chain, a batch of rows of an output column at a time
+  private static class FusedOps extends MRTask<FusedOps> {
+    final Node _root;
+    final int _nnodes;
+
+    FusedOps(Node root, ArrayList<Node> nodes) {
+      _root = root;
+      _nnodes = nodes.size();
+    }
+
+    @Override
+    public void map(ColumnBatch cb, NewChunk[] ncs) {
+      double[][] bufs = new double[_nnodes][];
+      while (cb.next())
+        for (int c = 0; c < ncs.length; c++)
+          ncs[c].addNums(eval(_root, cb, c, bufs), 0, cb.len());
+    }
+
+    // Values of a node for the batch and output column
+    private static double[] eval(Node n, ColumnBatch cb, int c, double[][] bufs) {
+      if (n._cols != null) return cb.doubles(n._cols[n._ncols == 1 ? 0 : c]);
+      double[] res = bufs[n._id];
+      if (res == null) {
+        res = bufs[n._id] = new double[ColumnBatch.BATCH_ROWS];
+        if (n._op == null) Arrays.fill(res, n._d);
+      }
+      if (n._op instanceof AstBinOp)
+        ((AstBinOp) n._op).op(eval(n._kids[0], cb, c, bufs), eval(n._kids[1], cb, c, bufs), res, cb.len());
+      else if (n._op != null)
+        ((AstUniOp) n._op).op(eval(n._kids[0], cb, c, bufs), res, cb.len());
+      return res;
+    }
+  }
+}
@@ -1,6 +1,7 @@
 package water.rapids.ast.prims.advmath;
 
 import water.AutoBuffer;
+import water.CompactWire;
 import water.MRTask;
 import water.fvec.Chunk;
 import water.fvec.Frame;
@@ -98,6 +99,7 @@ public class AstTable extends AstPrimitive {
   }
 
   // Fast-pass for counting unique integers in a span
+  @CompactWire
   private static class FastCnt extends MRTask<AstTable.FastCnt> {
     final long _min;
     final int _span;
@@ -12,4 +12,10 @@ public class AstExp extends AstUniOp {
   public double op(double d) {
     return Math.exp(d);
   }
+
+  @Override
+  public void op(double[] xs, double[] res, int n) {
+    for (int i = 0; i < n; i++)
+      res[i] = Math.exp(xs[i]);
+  }
 }
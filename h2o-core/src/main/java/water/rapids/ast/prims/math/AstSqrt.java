@@ -12,4 +12,10 @@ public class AstSqrt extends AstUniOp {
   public double op(double d) {
     return Math.sqrt(d);
   }
+
+  @Override
+  public void op(double[] xs, double[] res, int n) {
+    for (int i = 0; i < n; i++)
+      res[i] = Math.sqrt(xs[i]);
+  }
 }
@@ -6,8 +6,11 @@ import water.fvec.Chunk;
 import water.fvec.Frame;
 import water.fvec.NewChunk;
 import water.fvec.Vec;
+import water.rapids.Env;
+import water.rapids.Fusion;
 import water.rapids.Val;
 import water.rapids.ast.AstBuiltin;
+import water.rapids.ast.AstRoot;
 import water.rapids.vals.ValFrame;
 import water.rapids.vals.ValNum;
 import water.rapids.vals.ValRow;
@@ -26,6 +29,12 @@ public abstract class AstUniOp<T extends AstUniOp<T>> extends AstBuiltin<T> {
     return 1 + 1;
   }
 
+  @Override
+  public Val apply(Env env, Env.StackHelp stk, AstRoot[] asts) {
+    if (Fusion.fusable(this, asts)) return Fusion.apply(this, env, stk, asts);
+    return super.apply(env, stk, asts);
+  }
+
   @Override
   public Val exec(Val... args) {
     Val val = args[1];
@@ -71,6 +80,15 @@ public abstract class AstUniOp<T extends AstUniOp<T>> extends AstBuiltin<T> {
   }
 
   public abstract double op(double d);
+
+  /**
+   * The operator over n elements at once: res[i] = op(xs[i]); see
+   * {@link water.rapids.ast.prims.operators.AstBinOp#op(double[], double[], double[], int)}
+   */
+  public void op(double[] xs, double[] res, int n) {
+    for (int i = 0; i < n; i++)
+      res[i] = op(xs[i]);
+  }
 }
 
 
@@ -5,6 +5,7 @@ import water.H2O;
 import water.MRTask;
 import water.MemoryManager;
 import water.fvec.Chunk;
+import water.fvec.ColumnBatch;
 import water.fvec.Frame;
 import water.fvec.NewChunk;
 import water.fvec.Vec;
@@ -36,6 +37,7 @@ abstract public class AstBinOp extends AstPrimitive {
 
   @Override
   public Val apply(Env env, Env.StackHelp stk, AstRoot asts[]) {
+    if (Fusion.fusable(this, asts)) return Fusion.apply(this, env, stk, asts);
     Val left = stk.track(asts[1].exec(env));
     Val rite = stk.track(asts[2].exec(env));
     return prim_apply(left, rite);
@@ -161,6 +163,23 @@ abstract public class AstBinOp extends AstPrimitive {
    */
   public abstract double op(double l, double r);
 
+  /**
+   * The operator over n elements at once: res[i] = op(l[i], r[i]).  Operators
+   * with a simple op override this with a plain loop over the arrays, which
+   * the JIT unrolls and vectorizes.
+   */
+  public void op(double[] l, double[] r, double[] res, int n) {
+    for (int i = 0; i < n; i++)
+      res[i] = op(l[i], r[i]);
+  }
+
+  // A batch-sized array of the scalar operand
+  private static double[] scalars(double d) {
+    double[] ds = new double[ColumnBatch.BATCH_ROWS];
+    Arrays.fill(ds, d);
+    return ds;
+  }
+
   public double str_op(BufferedString l, BufferedString r) {
     throw H2O.unimpl("Binary operation '" + str() + "' is not supported on String columns.");
   }
@@ -171,13 +190,13 @@ abstract public class AstBinOp extends AstPrimitive {
   private ValFrame scalar_op_frame(final double d, Frame fr) {
     Frame res = new MRTask() {
       @Override
-      public void map(Chunk[] chks, NewChunk[] cress) {
-        for (int c = 0; c < chks.length; c++) {
-          Chunk chk = chks[c];
-          NewChunk cres = cress[c];
-          for (int i = 0; i < chk._len; i++)
-            cres.addNum(op(d, chk.atd(i)));
-        }
+      public void map(ColumnBatch cb, NewChunk[] cress) {
+        double[] ds = scalars(d), res = new double[ColumnBatch.BATCH_ROWS];
+        while (cb.next())
+          for (int c = 0; c < cress.length; c++) {
+            op(ds, cb.doubles(c), res, cb.len());
+            cress[c].addNums(res, 0, cb.len());
+          }
       }
     }.doAll(fr.numCols(), Vec.T_NUM, fr).outputFrame(fr._names, null);
     return cleanCategorical(fr, res); // Cleanup categorical misuse
@@ -189,13 +208,13 @@ abstract public class AstBinOp extends AstPrimitive {
   public ValFrame frame_op_scalar(Frame fr, final double d) {
     Frame res = new MRTask() {
       @Override
-      public void map(Chunk[] chks, NewChunk[] cress) {
-        for (int c = 0; c < chks.length; c++) {
-          Chunk chk = chks[c];
-          NewChunk cres = cress[c];
-          for (int i = 0; i < chk._len; i++)
-            cres.addNum(op(chk.atd(i), d));
-        }
+      public void map(ColumnBatch cb, NewChunk[] cress) {
+        double[] ds = scalars(d), res = new double[ColumnBatch.BATCH_ROWS];
+        while (cb.next())
+          for (int c = 0; c < cress.length; c++) {
+            op(cb.doubles(c), ds, res, cb.len());
+            cress[c].addNums(res, 0, cb.len());
+          }
       }
     }.doAll(fr.numCols(), Vec.T_NUM, fr).outputFrame(fr._names, null);
     return cleanCategorical(fr, res); // Cleanup categorical misuse
@@ -323,6 +342,7 @@ abstract public class AstBinOp extends AstPrimitive {
     final int[][] alignedCategoricals = new int[lf.numCols()][];
     final boolean[] categorical = new boolean[lf.numCols()];
     final boolean[] rtDomainNotBigger = new boolean[lf.numCols()];
+    final boolean[] batched = new boolean[lf.numCols()]; // Plain numbers, done in batches
     for (int c = 0; c < lf.numCols(); c++) {
       // Store to read during iteration over lines
       categorical[c] = categoricalOK() && lf.vec(c).isCategorical() && rt.vec(c).isCategorical();
@@ -335,9 +355,21 @@ abstract public class AstBinOp extends AstPrimitive {
           alignedCategoricals[c] = alignCategoricals(rt.vec(c).domain(), lf.vec(c).domain());
         }
       }
+      batched[c] = !categorical[c] && !lf.vec(c).isString();
     }
 
     Frame res = new MRTask() {
+      @Override
+      public void map(ColumnBatch cb, NewChunk[] cress) {
+        double[] res = new double[ColumnBatch.BATCH_ROWS];
+        while (cb.next())
+          for (int c = 0; c < cress.length; c++)
+            if (batched[c]) {
+              op(cb.doubles(c), cb.doubles(c + cress.length), res, cb.len());
+              cress[c].addNums(res, 0, cb.len());
+            }
+      }
+
       @Override
       public void map(Chunk[] chks, NewChunk[] cress) {
         BufferedString lfstr = new BufferedString();
@@ -371,9 +403,6 @@ abstract public class AstBinOp extends AstPrimitive {
                 }
               }
             }
-          } else {
-            for (int i = 0; i < clf._len; i++)
-              cres.addNum(op(clf.atd(i), crt.atd(i)));
           }
         }
       }
@@ -408,17 +437,19 @@ abstract public class AstBinOp extends AstPrimitive {
       rawRow[i] = row.vec(i).isNumeric() || row.vec(i).isTime() ? row.vec(i).at(0) : Double.NaN; // is numberlike, if not then NaN
     Frame res = new MRTask() {
       @Override
-      public void map(Chunk[] chks, NewChunk[] cress) {
-        for (int c = 0; c < cress.length; c++) {
-          Chunk clf = chks[c];
-          NewChunk cres = cress[c];
-          for (int r = 0; r < clf._len; ++r) {
-            if (clf.vec().isString())
-              cres.addNum(Double.NaN); // TODO: improve
-            else
-              cres.addNum(op(clf.atd(r), rawRow[c]));
+      public void map(ColumnBatch cb, NewChunk[] cress) {
+        double[][] rows = new double[cress.length][];
+        double[] res = new double[ColumnBatch.BATCH_ROWS];
+        while (cb.next())
+          for (int c = 0; c < cress.length; c++) {
+            if (cb.chunk(c).vec().isString()) {
+              cress[c].addNAs(cb.len()); // TODO: improve
+              continue;
+            }
+            if (rows[c] == null) rows[c] = scalars(rawRow[c]);
+            op(cb.doubles(c), rows[c], res, cb.len());
+            cress[c].addNums(res, 0, cb.len());
           }
-        }
       }
     }.doAll(lf.numCols(), Vec.T_NUM, lf).outputFrame(lf._names, null);
     return cleanCategorical(lf, res);
@@ -437,15 +468,14 @@ abstract public class AstBinOp extends AstPrimitive {
     rt.add("", vec);
     Frame res = new MRTask() {
       @Override
-      public void map(Chunk[] chks, NewChunk[] cress) {
-        assert cress.length == chks.length - 1;
-        Chunk clf = chks[cress.length];
-        for (int c = 0; c < cress.length; c++) {
-          Chunk crt = chks[c];
-          NewChunk cres = cress[c];
-          for (int i = 0; i < clf._len; i++)
-            cres.addNum(op(clf.atd(i), crt.atd(i)));
-        }
+      public void map(ColumnBatch cb, NewChunk[] cress) {
+        assert cress.length == cb.numCols() - 1;
+        double[] res = new double[ColumnBatch.BATCH_ROWS];
+        while (cb.next())
+          for (int c = 0; c < cress.length; c++) {
+            op(cb.doubles(cress.length), cb.doubles(c), res, cb.len());
+            cress[c].addNums(res, 0, cb.len());
+          }
       }
     }.doAll(fr.numCols(), Vec.T_NUM, rt).outputFrame(fr._names, null);
     return cleanCategorical(fr, res); // Cleanup categorical misuse
@@ -457,15 +487,14 @@ abstract public class AstBinOp extends AstPrimitive {
     lf.add("", vec);
     Frame res = new MRTask() {
       @Override
-      public void map(Chunk[] chks, NewChunk[] cress) {
-        assert cress.length == chks.length - 1;
-        Chunk crt = chks[cress.length];
-        for (int c = 0; c < cress.length; c++) {
-          Chunk clf = chks[c];
-          NewChunk cres = cress[c];
-          for (int i = 0; i < clf._len; i++)
-            cres.addNum(op(clf.atd(i), crt.atd(i)));
-        }
+      public void map(ColumnBatch cb, NewChunk[] cress) {
+        assert cress.length == cb.numCols() - 1;
+        double[] res = new double[ColumnBatch.BATCH_ROWS];
+        while (cb.next())
+          for (int c = 0; c < cress.length; c++) {
+            op(cb.doubles(c), cb.doubles(cress.length), res, cb.len());
+            cress[c].addNums(res, 0, cb.len());
+          }
       }
     }.doAll(fr.numCols(), Vec.T_NUM, lf).outputFrame(fr._names, null);
     return cleanCategorical(fr, res); // Cleanup categorical misuse
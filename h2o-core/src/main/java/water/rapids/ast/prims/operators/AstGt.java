@@ -10,4 +10,10 @@ public class AstGt extends AstBinOp {
   public double op(double l, double r) {
     return l > r ? 1 : 0;
   }
+
+  @Override
+  public void op(double[] l, double[] r, double[] res, int n) {
+    for (int i = 0; i < n; i++)
+      res[i] = l[i] > r[i] ? 1 : 0;
+  }
 }
@@ -10,4 +10,10 @@ public class AstPlus extends AstBinOp {
   public double op(double l, double r) {
     return l + r;
   }
+
+  @Override
+  public void op(double[] l, double[] r, double[] res, int n) {
+    for (int i = 0; i < n; i++)
+      res[i] = l[i] + r[i];
+  }
 }
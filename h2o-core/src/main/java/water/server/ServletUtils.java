@@ -33,6 +33,7 @@ public class ServletUtils {
   private static final ThreadLocal<Long> _startMillis = new ThreadLocal<>();
   private static final ThreadLocal<Integer> _status = new ThreadLocal<>();
   private static final ThreadLocal<String> _userAgent = new ThreadLocal<>();
+  private static final ThreadLocal<String> _userName = new ThreadLocal<>();
 
   private ServletUtils() {
     // not instantiable
@@ -59,11 +60,17 @@ public class ServletUtils {
   }
 
   public static void startTransaction(String userAgent) {
+    startTransaction(userAgent, null);
+  }
+
+  public static void startTransaction(String userAgent, String userName) {
     _userAgent.set(userAgent);
+    _userName.set(userName);
   }
 
   public static void endTransaction() {
     _userAgent.remove();
+    _userName.remove();
   }
 
   /**
@@ -73,6 +80,13 @@ public class ServletUtils {
     return _userAgent.get();
   }
 
+  /**
+   * @return Thread-local authenticated user of this transaction, or null if none.
+   */
+  public static String getUserName() {
+    return _userName.get();
+  }
+
   public static void setResponseStatus(HttpServletResponse response, int sc) {
     setStatus(sc);
     response.setStatus(sc);
@@ -20,6 +20,8 @@ public class ChunkSummary extends MRTask<ChunkSummary> {
       {"CBS","Binary"},
       {"CXI","Sparse Integers"},                   // Sparse ints
       {"CXF","Sparse Reals"},                   // Sparse ints
+      {"CBP","Bit-packed Integers"},
+      {"CDelta","Delta Encoded Integers"},
       {"C1","1-Byte Integers"},
       {"C1N","1-Byte Integers (w/o NAs)"},
       {"C1S","1-Byte Fractions"},
@@ -32,7 +34,9 @@ public class ChunkSummary extends MRTask<ChunkSummary> {
       {"C8","8-byte Integers"},
       {"C16","UUIDs"},
       {"CStr","Strings"},
-      {"CUD","Unique Reals"},
+      {"CUD","Dictionary Encoded"},
+      {"CRLE","Run-length Encoded"},
+      {"CXor","XOR-compressed Reals"},
       {"C8D","64-bit Reals"},
   };
 
@@ -41,6 +45,7 @@ public class ChunkSummary extends MRTask<ChunkSummary> {
   private long[] chunk_counts;
   private long total_chunk_count;
   private long[] chunk_byte_sizes;
+  private long[] chunk_row_counts;
 
   private long total_chunk_byte_size;
   private long[] byte_size_per_node; //averaged over all chunks
@@ -67,6 +72,7 @@ public class ChunkSummary extends MRTask<ChunkSummary> {
   public void map(Chunk[] cs) {
     chunk_counts = new long[chunkTypes.length];
     chunk_byte_sizes = new long[chunkTypes.length];
+    chunk_row_counts = new long[chunkTypes.length];
     byte_size_per_node = new long[H2O.CLOUD.size()];
     row_count_per_node = new long[H2O.CLOUD.size()];
     chunk_count_per_col_per_node = new long[H2O.CLOUD.size()];
@@ -91,6 +97,7 @@ public class ChunkSummary extends MRTask<ChunkSummary> {
       if( j==chunkTypes.length ) throw H2O.fail("Unknown Chunk Type: " + sname);
       chunk_counts[j]++;
       chunk_byte_sizes[j] += c.byteSize();
+      chunk_row_counts[j] += c._len;
       byte_size_per_node[H2O.SELF.index()] += c.byteSize();
     }
     row_count_per_node[H2O.SELF.index()] += cs[0].len();
@@ -103,6 +110,7 @@ public class ChunkSummary extends MRTask<ChunkSummary> {
   public void reduce(ChunkSummary mrt) {
     ArrayUtils.add(chunk_counts,mrt.chunk_counts);
     ArrayUtils.add(chunk_byte_sizes,mrt.chunk_byte_sizes);
+    ArrayUtils.add(chunk_row_counts,mrt.chunk_row_counts);
     ArrayUtils.add(byte_size_per_node,mrt.byte_size_per_node);
     ArrayUtils.add(row_count_per_node,mrt.row_count_per_node);
     ArrayUtils.add(chunk_count_per_col_per_node,mrt.chunk_count_per_col_per_node);
@@ -150,16 +158,29 @@ public class ChunkSummary extends MRTask<ChunkSummary> {
     chunk_count_per_col_per_node_stddev = res[3];
   }
 
-  String display(long val) { return String.format("%10s", val == 0 ? "  0  B" : PrettyPrint.bytes(val)); }
+  String display(long val) {
+    return String.format("%10s", val == 0 ? "  0  B" : val < 0 ? "-" + PrettyPrint.bytes(-val) : PrettyPrint.bytes(val));
+  }
+
+  /** Bytes saved by the compression of chunks of the given type, over
+   *  8-byte doubles per row; negative for types stored larger (e.g. UUIDs) */
+  public long savedBytes(int type) { return chunk_row_counts == null ? 0 : chunk_row_counts[type] * 8 - chunk_byte_sizes[type]; }
+
+  /** Bytes saved by chunk compression over 8-byte doubles, for the whole Frame */
+  public long savedBytes() {
+    long saved = 0;
+    for (int j = 0; j < chunkTypes.length; ++j) saved += savedBytes(j);
+    return saved;
+  }
 
   public TwoDimTable toTwoDimTableChunkTypes() {
     final String tableHeader = "Chunk compression summary";
     int rows = 0;
     for (int j = 0; j < chunkTypes.length; ++j) if (chunk_counts != null && chunk_counts[j] > 0) rows++;
     final String[] rowHeaders = new String[rows];
-    final String[] colHeaders = new String[]{"Chunk Type", "Chunk Name", "Count", "Count Percentage", "Size", "Size Percentage"};
-    final String[] colTypes = new String[]{"string", "string", "int", "float", "string", "float"};
-    final String[] colFormats = new String[]{"%8s", "%s", "%10d", "%10.3f %%", "%10s", "%10.3f %%"};
+    final String[] colHeaders = new String[]{"Chunk Type", "Chunk Name", "Count", "Count Percentage", "Size", "Size Percentage", "Saved vs 64-bit Reals"};
+    final String[] colTypes = new String[]{"string", "string", "int", "float", "string", "float", "string"};
+    final String[] colFormats = new String[]{"%8s", "%s", "%10d", "%10.3f %%", "%10s", "%10.3f %%", "%10s"};
     final String colHeaderForRowHeaders = null;
     TwoDimTable table = new TwoDimTable(tableHeader, null, rowHeaders, colHeaders, colTypes, colFormats, colHeaderForRowHeaders);
 
@@ -172,6 +193,7 @@ public class ChunkSummary extends MRTask<ChunkSummary> {
         table.set(row, 3, (float) chunk_counts[j] / total_chunk_count * 100.f);
         table.set(row, 4, display(chunk_byte_sizes[j]));
         table.set(row, 5, (float) chunk_byte_sizes[j] / total_chunk_byte_size * 100.f);
+        table.set(row, 6, display(savedBytes(j)));
         row++;
       }
     }
@@ -0,0 +1,187 @@
+package water.util;
+
+import water.H2O;
+import water.MRTask;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static water.H2O.OptArgs.SYSTEM_PROP_PREFIX;
+
+/**
+ * Java Flight Recorder events of H2O internals: MRTask phases, RPCs, remote
+ * DKV fetches, Cleaner decisions, parsed chunks and model iterations.  A JFR
+ * recording (e.g. {@code jcmd <pid> JFR.start duration=60s filename=h2o.jfr})
+ * then shows where a slow job spends its time, next to GC and allocations.
+ * <p>
+ * H2O still runs on JVMs without JFR, so the event types are defined when
+ * first turned on, through {@code jdk.jfr.EventFactory}; where that is
+ * missing, events stay off.  While off, {@link #begin} is one volatile read
+ * returning null, and callers skip building the event fields:
+ * <pre>
+ *   Object ev = FlightRecorder.begin(FlightRecorder.Type.RPC_SEND);
+ *   ... the work timed ...
+ *   if( ev != null ) FlightRecorder.commit(ev, Type.RPC_SEND, dt.getClass().getName(), target.toString(), 0, 0);
+ * </pre>
+ * Events are turned on with {@code -Dsys.ai.h2o.jfr.events=true}, or on all
+ * nodes through {@code POST /3/Profiler/Events} (see
+ * {@link water.api.ProfilerHandler}).
+ */
+public final class FlightRecorder {
+
+  /** Event types, with the names of their (up to 2) String and (up to 2)
+   *  long fields; null for fields not used */
+  public enum Type {
+    MRTASK_SETUP_LOCAL("MRTaskSetupLocal", "MRTask setupLocal", "MRTask", "task", null, null, null),
+    MRTASK_MAP("MRTaskMap", "MRTask map", "MRTask", "task", null, "chunk", "rows"),
+    MRTASK_REDUCE("MRTaskReduce", "MRTask reduce", "MRTask", "task", null, null, null),
+    MRTASK_POST_GLOBAL("MRTaskPostGlobal", "MRTask postGlobal", "MRTask", "task", null, null, null),
+    RPC_SEND("RPCSend", "RPC send", "RPC", "task", "target", "taskNum", null),
+    RPC_RECEIVE("RPCReceive", "RPC receive", "RPC", "task", "sender", "taskNum", null),
+    DKV_FETCH("DKVFetch", "DKV remote fetch", "DKV", "key", "home", null, null),
+    CLEANER_SWAP("CleanerSwap", "Cleaner swap", "Memory", "key", "action", "bytes", null),
+    PARSE_CHUNK("ParseChunk", "Parse chunk", "Parse", "source", null, "chunk", "bytes"),
+    MODEL_ITERATION("ModelIteration", "Model iteration", "Model", "model", "algo", "units", "worked");
+
+    final String _name, _label, _category;
+    final String[] _strs, _longs;
+    Type(String name, String label, String category, String s0, String s1, String l0, String l1) {
+      _name = "h2o." + name;
+      _label = label;
+      _category = category;
+      _strs = s1 == null ? (s0 == null ? new String[0] : new String[]{s0}) : new String[]{s0, s1};
+      _longs = l1 == null ? (l0 == null ? new String[0] : new String[]{l0}) : new String[]{l0, l1};
+    }
+  }
+
+  private static volatile boolean _enabled;
+  private static Object[] _factories;   // jdk.jfr.EventFactory per Type, once made
+  private static Method _newEvent, _begin, _set, _commit;
+  private static String _unavailable;   // Why JFR events cannot be made, if so
+
+  static {
+    if( Boolean.getBoolean(SYSTEM_PROP_PREFIX + "jfr.events") ) setEnabled(true);
+  }
+
+  private FlightRecorder() {}
+
+  /** True if events are emitted on this node */
+  public static boolean isEnabled() { return _enabled; }
+
+  /** Turn events on or off on this node; returns whether they are on, which
+   *  they cannot be on JVMs without JFR */
+  public static synchronized boolean setEnabled(boolean on) {
+    if( on && _factories == null && _unavailable == null ) {
+      try {
+        define();
+      } catch( Exception e ) {
+        _unavailable = e.toString();
+        Log.warn("JFR events are not available: " + _unavailable);
+      }
+    }
+    return _enabled = on && _factories != null;
+  }
+
+  /** Start timing an event; null if events are off */
+  public static Object begin(Type type) {
+    if( !_enabled ) return null;
+    try {
+      Object ev = _newEvent.invoke(_factories[type.ordinal()]);
+      _begin.invoke(ev);
+      return ev;
+    } catch( Exception e ) {
+      return failed(e);
+    }
+  }
+
+  /** End and record an event begun by {@link #begin}; fields not used by
+   *  the event type are ignored */
+  public static void commit(Object ev, Type type, String s0, String s1, long l0, long l1) {
+    if( ev == null ) return;
+    try {
+      int i = 0;
+      if( type._strs.length > 0 ) _set.invoke(ev, i++, s0);
+      if( type._strs.length > 1 ) _set.invoke(ev, i++, s1);
+      if( type._longs.length > 0 ) _set.invoke(ev, i++, l0);
+      if( type._longs.length > 1 ) _set.invoke(ev, i, l1);
+      _commit.invoke(ev);
+    } catch( Exception e ) {
+      failed(e);
+    }
+  }
+
+  /** Record an event of no duration */
+  public static void instant(Type type, String s0, String s1, long l0, long l1) {
+    commit(begin(type), type, s0, s1, l0, l1);
+  }
+
+  // Turn events off rather than failing H2O over a diagnostic
+  private static Object failed(Exception e) {
+    if( _enabled ) {
+      _enabled = false;
+      Log.warn("JFR events turned off after failing: " + e);
+    }
+    return null;
+  }
+
+  // Make the event types, by reflection since jdk.jfr is missing before Java 11
+  @SuppressWarnings("unchecked")
+  private static void define() throws Exception {
+    Class<?> factoryClz = Class.forName("jdk.jfr.EventFactory");
+    Class<?> elemClz = Class.forName("jdk.jfr.AnnotationElement");
+    Class<?> descClz = Class.forName("jdk.jfr.ValueDescriptor");
+    Class<?> eventClz = Class.forName("jdk.jfr.Event");
+    Constructor<?> elem = elemClz.getConstructor(Class.class, Object.class);
+    Constructor<?> desc = descClz.getConstructor(Class.class, String.class, List.class);
+    Method create = factoryClz.getMethod("create", List.class, List.class);
+    Class<?> name = Class.forName("jdk.jfr.Name"), label = Class.forName("jdk.jfr.Label");
+    Class<?> category = Class.forName("jdk.jfr.Category"), stackTrace = Class.forName("jdk.jfr.StackTrace");
+    Object[] factories = new Object[Type.values().length];
+    for( Type t : Type.values() ) {
+      List<Object> annos = Arrays.asList(
+          elem.newInstance(name, t._name),
+          elem.newInstance(label, t._label),
+          elem.newInstance(category, new String[]{"H2O", t._category}),
+          elem.newInstance(stackTrace, false)); // Thread is enough; stacks are costly per chunk
+      List<Object> fields = new ArrayList<>();
+      for( String f : t._strs )
+        fields.add(desc.newInstance(String.class, f, Collections.singletonList(elem.newInstance(label, f))));
+      for( String f : t._longs )
+        fields.add(desc.newInstance(long.class, f, Collections.singletonList(elem.newInstance(label, f))));
+      factories[t.ordinal()] = create.invoke(null, annos, fields);
+    }
+    _newEvent = factoryClz.getMethod("newEvent");
+    _begin = eventClz.getMethod("begin");
+    _set = eventClz.getMethod("set", int.class, Object.class);
+    _commit = eventClz.getMethod("commit");
+    _factories = factories;
+  }
+
+  /** Turn events on or off on all nodes; returns, per node, whether they are
+   *  on */
+  public static boolean[] setEnabledOnAllNodes(boolean on) {
+    return new SetEnabled(on).doAllNodes()._enabled;
+  }
+
+  private static class SetEnabled extends MRTask<SetEnabled> {
+    final boolean _on;
+    boolean[] _enabled;
+    SetEnabled(boolean on) { super(H2O.GUI_PRIORITY); _on = on; }
+    @Override protected void setupLocal() {
+      boolean on = setEnabled(_on);
+      int idx = H2O.SELF.index();
+      if( idx < 0 ) return;     // A client, with no place in the Cloud
+      _enabled = new boolean[H2O.CLOUD.size()];
+      _enabled[idx] = on;
+    }
+    @Override public void reduce(SetEnabled that) {
+      if( _enabled == null ) _enabled = that._enabled;
+      else if( that._enabled != null )
+        for( int i = 0; i < _enabled.length; i++ ) _enabled[i] |= that._enabled[i];
+    }
+  }
+}
@@ -0,0 +1,161 @@
+package water.util;
+
+import java.util.Arrays;
+
+/**
+ * Pure-Java LZ4 block compression.
+ * <p>
+ * Produces and consumes the standard LZ4 block format (no frame header), with
+ * the fast single-probe hash-table matcher.  Trades compression ratio for
+ * speed: meant for data on its way to disk or the wire, where a few hundred
+ * MB/sec per core is needed and any saved byte is a win.
+ * <p>
+ * The caller is responsible for remembering the uncompressed length.
+ */
+public final class LZ4Codec {
+  private LZ4Codec() {}
+
+  private static final int MIN_MATCH = 4;
+  private static final int MF_LIMIT = 12;     // No match may start in the last 12 bytes
+  private static final int LAST_LITERALS = 5; // The last 5 bytes are always literals
+  private static final int MAX_DISTANCE = 65535;
+  private static final int HASH_LOG = 12;
+  private static final int SKIP_TRIGGER = 6;  // Speed up the scan of incompressible data
+
+  /** Worst-case size of the compressed form of {@code len} bytes */
+  public static int maxCompressedLength(int len) { return len + len / 255 + 16; }
+
+  /** Compress {@code src} into a new, exactly sized array. */
+  public static byte[] compress(byte[] src) {
+    byte[] dst = new byte[maxCompressedLength(src.length)];
+    int len = compress(src, 0, src.length, dst, 0);
+    return Arrays.copyOf(dst, len);
+  }
+
+  /** Decompress {@code src} into a new array of {@code rawLen} bytes. */
+  public static byte[] decompress(byte[] src, int rawLen) {
+    byte[] dst = new byte[rawLen];
+    int len = decompress(src, 0, src.length, dst, 0, rawLen);
+    if( len != rawLen ) throw new IllegalArgumentException("Malformed LZ4 input: expected " + rawLen + " bytes, got " + len);
+    return dst;
+  }
+
+  /**
+   * Compress {@code srcLen} bytes of {@code src} into {@code dst}, which must
+   * have room for {@link #maxCompressedLength(int)} bytes.
+   * @return compressed length
+   */
+  public static int compress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff) {
+    final int end = srcOff + srcLen;
+    int anchor = srcOff, sOff = srcOff, dOff = dstOff;
+    if( srcLen > MF_LIMIT ) {
+      final int mfLimit = end - MF_LIMIT;
+      final int matchLimit = end - LAST_LITERALS;
+      final int[] table = new int[1 << HASH_LOG];
+      Arrays.fill(table, -1);
+      int misses = 0;
+      while( sOff < mfLimit ) {
+        int seq = readInt(src, sOff);
+        int h = hash(seq);
+        int ref = table[h];
+        table[h] = sOff;
+        if( ref < srcOff || sOff - ref > MAX_DISTANCE || readInt(src, ref) != seq ) {
+          sOff += 1 + (misses++ >>> SKIP_TRIGGER);
+          continue;
+        }
+        misses = 0;
+        // Extend the match backwards into the pending literals
+        while( sOff > anchor && ref > srcOff && src[sOff - 1] == src[ref - 1] ) { sOff--; ref--; }
+        int mLen = MIN_MATCH;
+        while( sOff + mLen < matchLimit && src[sOff + mLen] == src[ref + mLen] ) mLen++;
+        dOff = writeSequence(src, anchor, sOff - anchor, sOff - ref, mLen, dst, dOff);
+        sOff += mLen;
+        anchor = sOff;
+        if( sOff < mfLimit ) table[hash(readInt(src, sOff - 2))] = sOff - 2;
+      }
+    }
+    // Final run of literals
+    int litLen = end - anchor;
+    dOff = writeLength(dst, dOff, litLen);
+    System.arraycopy(src, anchor, dst, dOff, litLen);
+    return dOff + litLen - dstOff;
+  }
+
+  /**
+   * Decompress {@code srcLen} bytes of LZ4 block data into {@code dst},
+   * writing no more than {@code dstLen} bytes.
+   * @return decompressed length
+   * @throws IllegalArgumentException if the input is malformed
+   */
+  public static int decompress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff, int dstLen) {
+    final int sEnd = srcOff + srcLen, dEnd = dstOff + dstLen;
+    int sOff = srcOff, dOff = dstOff;
+    try {
+      while( true ) {
+        int token = src[sOff++] & 0xFF;
+        int litLen = token >>> 4;
+        if( litLen == 15 ) { int b; do { b = src[sOff++] & 0xFF; litLen += b; } while( b == 255 ); }
+        if( sOff + litLen > sEnd || dOff + litLen > dEnd ) throw malformed(sOff);
+        System.arraycopy(src, sOff, dst, dOff, litLen);
+        sOff += litLen;
+        dOff += litLen;
+        if( sOff == sEnd ) return dOff - dstOff; // Last sequence has no match
+        int dist = (src[sOff] & 0xFF) | ((src[sOff + 1] & 0xFF) << 8);
+        sOff += 2;
+        int ref = dOff - dist;
+        if( dist == 0 || ref < dstOff ) throw malformed(sOff);
+        int mLen = token & 15;
+        if( mLen == 15 ) { int b; do { b = src[sOff++] & 0xFF; mLen += b; } while( b == 255 ); }
+        mLen += MIN_MATCH;
+        if( dOff + mLen > dEnd ) throw malformed(sOff);
+        if( dist >= mLen ) System.arraycopy(dst, ref, dst, dOff, mLen);
+        else for( int i = 0; i < mLen; i++ ) dst[dOff + i] = dst[ref + i]; // Overlapping run
+        dOff += mLen;
+      }
+    } catch( ArrayIndexOutOfBoundsException e ) {
+      throw malformed(sOff);
+    }
+  }
+
+  private static IllegalArgumentException malformed(int off) {
+    return new IllegalArgumentException("Malformed LZ4 input at offset " + off);
+  }
+
+  private static int writeSequence(byte[] src, int litOff, int litLen, int dist, int mLen, byte[] dst, int dOff) {
+    int tokenOff = dOff;
+    dOff = writeLength(dst, dOff, litLen);
+    System.arraycopy(src, litOff, dst, dOff, litLen);
+    dOff += litLen;
+    dst[dOff++] = (byte) dist;
+    dst[dOff++] = (byte) (dist >>> 8);
+    int m = mLen - MIN_MATCH;
+    if( m >= 15 ) {
+      dst[tokenOff] |= 15;
+      dOff = writeExtra(dst, dOff, m - 15);
+    } else {
+      dst[tokenOff] |= m;
+    }
+    return dOff;
+  }
+
+  // Write a token with the literal length in the high nibble (plus any extra
+  // length bytes); the match nibble is filled in later.
+  private static int writeLength(byte[] dst, int dOff, int litLen) {
+    if( litLen >= 15 ) {
+      dst[dOff++] = (byte) 0xF0;
+      return writeExtra(dst, dOff, litLen - 15);
+    }
+    dst[dOff++] = (byte) (litLen << 4);
+    return dOff;
+  }
+
+  private static int writeExtra(byte[] dst, int dOff, int len) {
+    while( len >= 255 ) { dst[dOff++] = (byte) 255; len -= 255; }
+    dst[dOff++] = (byte) len;
+    return dOff;
+  }
+
+  private static int readInt(byte[] b, int off) { return UnsafeUtils.get4(b, off); }
+
+  private static int hash(int seq) { return (seq * -1640531535) >>> (32 - HASH_LOG); }
+}
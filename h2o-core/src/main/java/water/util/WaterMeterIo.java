@@ -3,6 +3,7 @@ package water.util;
 import water.*;
 import water.api.API;
 import water.api.schemas3.SchemaV3;
+import water.network.CompressedSocketChannel;
 import water.persist.PersistManager;
 
 public class WaterMeterIo extends Iced {
@@ -25,6 +26,27 @@ public class WaterMeterIo extends Iced {
 
     @API(help="Cumulative loaded bytes", direction = API.Direction.OUTPUT)
     public long load_bytes;
+
+    @API(help="Codec applied to stored data", direction = API.Direction.OUTPUT)
+    public String codec;
+
+    @API(help="Cumulative bytes given to the codec", direction = API.Direction.OUTPUT)
+    public long codec_raw_bytes;
+
+    @API(help="Cumulative bytes produced by the codec", direction = API.Direction.OUTPUT)
+    public long codec_packed_bytes;
+
+    @API(help="Cumulative bytes saved by the codec", direction = API.Direction.OUTPUT)
+    public long codec_saved_bytes;
+
+    @API(help="Cumulative nanoseconds spent compressing", direction = API.Direction.OUTPUT)
+    public long codec_encode_nanos;
+
+    @API(help="Cumulative bytes restored by the codec", direction = API.Direction.OUTPUT)
+    public long codec_decoded_bytes;
+
+    @API(help="Cumulative nanoseconds spent decompressing", direction = API.Direction.OUTPUT)
+    public long codec_decode_nanos;
   }
 
   // Input
@@ -47,6 +69,7 @@ public class WaterMeterIo extends Iced {
         for (int j = 0; j < persist_stats.length; j++) {
           persist_stats[j] = new IoStatsEntry();
           persist_stats[j].backend    = io.persist_stats[j].backend;
+          persist_stats[j].codec      = io.persist_stats[j].codec;
         }
       }
 
@@ -56,6 +79,12 @@ public class WaterMeterIo extends Iced {
         persist_stats[j].delete_count += io.persist_stats[j].delete_count;
         persist_stats[j].load_count += io.persist_stats[j].load_count;
         persist_stats[j].load_bytes += io.persist_stats[j].load_bytes;
+        persist_stats[j].codec_raw_bytes += io.persist_stats[j].codec_raw_bytes;
+        persist_stats[j].codec_packed_bytes += io.persist_stats[j].codec_packed_bytes;
+        persist_stats[j].codec_saved_bytes += io.persist_stats[j].codec_saved_bytes;
+        persist_stats[j].codec_encode_nanos += io.persist_stats[j].codec_encode_nanos;
+        persist_stats[j].codec_decoded_bytes += io.persist_stats[j].codec_decoded_bytes;
+        persist_stats[j].codec_decode_nanos += io.persist_stats[j].codec_decode_nanos;
       }
     }
   }
@@ -79,8 +108,8 @@ public class WaterMeterIo extends Iced {
       PersistManager.PersistStatsEntry s[] = H2O.getPM().getStats();
 
       int[] backendsToQuery = new int[] {Value.NFS, Value.HDFS, Value.S3, Value.ICE};
-      _persist_stats = new IoStatsEntry[backendsToQuery.length];
-      for (int i = 0; i < _persist_stats.length; i++) {
+      _persist_stats = new IoStatsEntry[backendsToQuery.length + 1];
+      for (int i = 0; i < backendsToQuery.length; i++) {
         int j = backendsToQuery[i];
         _persist_stats[i] = new IoStatsEntry();
         IoStatsEntry dest_e = _persist_stats[i];
@@ -100,13 +129,12 @@ public class WaterMeterIo extends Iced {
           default:
             throw H2O.fail();
         }
-        PersistManager.PersistStatsEntry src_e = s[j];
-        dest_e.store_count = src_e.store_count.get();
-        dest_e.store_bytes = src_e.store_bytes.get();
-        dest_e.delete_count = src_e.delete_count.get();
-        dest_e.load_count = src_e.load_count.get();
-        dest_e.load_bytes = src_e.load_bytes.get();
+        fill(dest_e, s[j]);
       }
+      // Compressed inter-node traffic: stores are sends, loads receives
+      IoStatsEntry net = _persist_stats[backendsToQuery.length] = new IoStatsEntry();
+      net.backend = "network";
+      fill(net, CompressedSocketChannel.STATS);
 
       int[] backendsToZeroCheck = new int[] {0, 5, 6, 7};
       for (int j : backendsToZeroCheck) {
@@ -120,5 +148,20 @@ public class WaterMeterIo extends Iced {
 
       tryComplete();
     }
+
+    private static void fill(IoStatsEntry dest_e, PersistManager.PersistStatsEntry src_e) {
+      dest_e.store_count = src_e.store_count.get();
+      dest_e.store_bytes = src_e.store_bytes.get();
+      dest_e.delete_count = src_e.delete_count.get();
+      dest_e.load_count = src_e.load_count.get();
+      dest_e.load_bytes = src_e.load_bytes.get();
+      dest_e.codec = src_e.codec;
+      dest_e.codec_raw_bytes = src_e.codec_raw_bytes.get();
+      dest_e.codec_packed_bytes = src_e.codec_packed_bytes.get();
+      dest_e.codec_saved_bytes = dest_e.codec_raw_bytes - dest_e.codec_packed_bytes;
+      dest_e.codec_encode_nanos = src_e.codec_encode_nanos.get();
+      dest_e.codec_decoded_bytes = src_e.codec_decoded_bytes.get();
+      dest_e.codec_decode_nanos = src_e.codec_decode_nanos.get();
+    }
   }
 }
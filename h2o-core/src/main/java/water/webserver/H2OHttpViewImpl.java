@@ -3,10 +3,12 @@ package water.webserver;
 import org.apache.commons.io.IOUtils;
 import water.ExtensionManager;
 import water.api.DatasetServlet;
+import water.api.MetricsServlet;
 import water.api.NpsBinServlet;
 import water.api.PostFileServlet;
 import water.api.PutKeyServlet;
 import water.api.RequestServer;
+import water.api.TimelineTraceServlet;
 import water.server.ServletUtils;
 import water.util.Log;
 import water.webserver.iface.H2OHttpConfig;
@@ -39,6 +41,8 @@ public class H2OHttpViewImpl implements H2OHttpView {
     SERVLETS.put("/3/DownloadDataset.bin", DatasetServlet.class);
     SERVLETS.put("/3/PutKey.bin", PutKeyServlet.class);
     SERVLETS.put("/3/PutKey", PutKeyServlet.class);
+    SERVLETS.put("/3/Metrics", MetricsServlet.class);
+    SERVLETS.put("/3/TimelineTrace", TimelineTraceServlet.class);
     SERVLETS.put("/", RequestServer.class);
   }
 
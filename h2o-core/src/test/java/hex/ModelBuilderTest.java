@@ -141,6 +141,25 @@ public class ModelBuilderTest extends TestUtil {
     }
   }
 
+  @Test
+  public void testCpuShare() {
+    Key key = Key.make("cpu-share-test");
+    try {
+      DummyModelParameters parms = new DummyModelParameters("CPU share", key);
+      parms._cpu_share = 3;
+      DummyModelBuilder mb = new DummyModelBuilder(parms);
+      assertEquals(JobScheduler.JOB_SHARE, mb._job._cpu_share);
+      mb.trainModel().get();
+      assertEquals(3, mb._job._cpu_share);
+
+      parms = new DummyModelParameters("CPU share", key);
+      parms._cpu_share = -1;
+      assertTrue(new DummyModelBuilder(parms).validationErrors().contains("_cpu_share"));
+    } finally {
+      DKV.remove(key);
+    }
+  }
+
   public static class BulkRunner extends H2O.H2OCountedCompleter<BulkRunner> {
     private Job _j;
     private BulkRunner(Job j) { _j = j; }
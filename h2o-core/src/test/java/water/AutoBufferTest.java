@@ -5,7 +5,12 @@ import org.junit.Assume;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
 import static org.junit.Assert.*;
 
@@ -57,6 +62,42 @@ public class AutoBufferTest extends TestUtil {
     ab.close();
   }
 
+  @Test
+  public void testBulkRoundTrip() throws Exception {
+    byte[] big = new byte[3 * AutoBuffer.BULK_MIN + 17];
+    for (int i = 0; i < big.length; i++) big[i] = (byte) (i * 7);
+    ByteBuffer direct = ByteBuffer.allocateDirect(AutoBuffer.BULK_MIN + 5);
+    for (int i = 0; i < direct.capacity(); i++) direct.put((byte) (i * 3));
+    direct.flip();
+    File src = File.createTempFile("ab-bulk-src", ".bin");
+    File f = File.createTempFile("ab-bulk", ".bin");
+    try {
+      try (FileOutputStream os = new FileOutputStream(src)) { os.write(big); }
+      try (FileOutputStream os = new FileOutputStream(f);
+           FileInputStream is = new FileInputStream(src)) {
+        AutoBuffer ab = new AutoBuffer(os.getChannel(), false, Value.ICE);
+        ab.put4(42).putA1(big).put4(43).putA1Buf(direct).putA1(is.getChannel(), 17, 2 * AutoBuffer.BULK_MIN).putA1(new byte[]{1, 2, 3});
+        ab.close();
+      }
+      assertEquals(0, direct.position()); // Source buffer untouched
+      try (FileInputStream is = new FileInputStream(f)) {
+        AutoBuffer ab = new AutoBuffer(is.getChannel(), true, Value.ICE);
+        assertEquals(42, ab.get4());
+        assertArrayEquals(big, ab.getA1());
+        assertEquals(43, ab.get4());
+        byte[] d = ab.getA1();
+        assertEquals(direct.limit(), d.length);
+        for (int i = 0; i < d.length; i++) assertEquals(direct.get(i), d[i]);
+        assertArrayEquals(java.util.Arrays.copyOfRange(big, 17, 17 + 2 * AutoBuffer.BULK_MIN), ab.getA1());
+        assertArrayEquals(new byte[]{1, 2, 3}, ab.getA1());
+        ab.close();
+      }
+    } finally {
+      src.delete();
+      f.delete();
+    }
+  }
+
   static class XYZZY implements Serializable {
     int i = 1;
     String s = "hi";
@@ -0,0 +1,132 @@
+package water;
+
+import org.junit.*;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class CompactWireTest extends TestUtil {
+  @BeforeClass public static void stall() { stall_till_cloudsize(1); }
+
+  static class Plain extends Iced<Plain> {
+    int _int;
+    long _long;
+    double _double;
+    int[] _ints;
+    long[] _longs;
+    double[] _doubles;
+    long[][] _longss;
+    double[][] _doubless;
+    String _str;
+  }
+
+  @CompactWire
+  static class Compact extends Iced<Compact> {
+    int _int;
+    long _long;
+    double _double;
+    int[] _ints;
+    long[] _longs;
+    double[] _doubles;
+    long[][] _longss;
+    double[][] _doubless;
+    String _str;
+  }
+
+  private static byte[] write(Freezable f) { return new AutoBuffer().put(f).buf(); }
+
+  private static Compact roundTrip(Compact c) { return new AutoBuffer(write(c)).get(); }
+
+  private static void assertSame(Compact exp, Compact act) {
+    assertEquals(exp._int, act._int);
+    assertEquals(exp._long, act._long);
+    assertEquals(Double.doubleToRawLongBits(exp._double), Double.doubleToRawLongBits(act._double));
+    assertArrayEquals(exp._ints, act._ints);
+    assertArrayEquals(exp._longs, act._longs);
+    assertBitsEqual(exp._doubles, act._doubles);
+    if( exp._longss == null ) assertNull(act._longss);
+    else {
+      assertEquals(exp._longss.length, act._longss.length);
+      for( int i = 0; i < exp._longss.length; i++ ) assertArrayEquals(exp._longss[i], act._longss[i]);
+    }
+    if( exp._doubless == null ) assertNull(act._doubless);
+    else {
+      assertEquals(exp._doubless.length, act._doubless.length);
+      for( int i = 0; i < exp._doubless.length; i++ ) assertBitsEqual(exp._doubless[i], act._doubless[i]);
+    }
+    assertEquals(exp._str, act._str);
+  }
+
+  private static void assertBitsEqual(double[] exp, double[] act) {
+    if( exp == null ) { assertNull(act); return; }
+    assertEquals(exp.length, act.length);
+    for( int i = 0; i < exp.length; i++ )
+      assertEquals("at " + i, Double.doubleToRawLongBits(exp[i]), Double.doubleToRawLongBits(act[i]));
+  }
+
+  @Test public void testEdgeValues() {
+    long[] longs = {0, 1, -1, 63, -64, 64, Integer.MAX_VALUE, Integer.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE, 0, 0, 0, 7};
+    int[] ints = {Integer.MIN_VALUE, 0, 0, Integer.MAX_VALUE, -1, 0};
+    double[] doubles = {0.0, -0.0, 1.0, -3.0, 0.5, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+                        Double.MAX_VALUE, Double.MIN_VALUE, 1L << 53, -(1L << 60), 0, 0, 0, 42};
+    for( long l : longs ) {
+      Compact c = new Compact();
+      c._int = (int) l;
+      c._long = l;
+      c._double = l;
+      c._ints = ints;
+      c._longs = longs;
+      c._doubles = doubles;
+      c._longss = new long[][]{null, longs, new long[0], null};
+      c._doubless = new double[][]{doubles, null};
+      c._str = "x" + l;
+      assertSame(c, roundTrip(c));
+    }
+    // Nulls and empties
+    Compact c = new Compact();
+    assertSame(c, roundTrip(c));
+    c._ints = new int[0];
+    c._longs = new long[0];
+    c._doubles = new double[0];
+    c._longss = new long[0][];
+    assertSame(c, roundTrip(c));
+  }
+
+  @Test public void testRandomArrays() {
+    Random r = new Random(0xC0FFEE);
+    for( int iter = 0; iter < 200; iter++ ) {
+      int len = r.nextInt(2000);
+      double density = r.nextDouble();
+      Compact c = new Compact();
+      c._ints = new int[len];
+      c._longs = new long[len];
+      c._doubles = new double[len];
+      for( int i = 0; i < len; i++ ) {
+        if( r.nextDouble() >= density ) continue;
+        c._ints[i] = r.nextBoolean() ? r.nextInt(100) : r.nextInt();
+        c._longs[i] = r.nextBoolean() ? r.nextInt(1000) : r.nextLong();
+        c._doubles[i] = r.nextBoolean() ? r.nextInt(1000) : r.nextGaussian();
+      }
+      assertSame(c, roundTrip(c));
+    }
+  }
+
+  @Test public void testCountsShrink() {
+    // A histogram-like reduction result: mostly zeros and small counts
+    Random r = new Random(42);
+    Plain p = new Plain();
+    Compact c = new Compact();
+    p._longs = c._longs = new long[10000];
+    p._doubles = c._doubles = new double[10000];
+    for( int i = 0; i < 1000; i++ ) {
+      int idx = r.nextInt(10000);
+      p._longs[idx] += r.nextInt(50);
+      p._doubles[idx] += 1;
+    }
+    p._long = c._long = 12;
+    int plain = write(p).length, compact = write(c).length;
+    assertTrue("compact " + compact + " vs plain " + plain, compact * 10 < plain);
+    assertSame(c, roundTrip(c));
+  }
+}
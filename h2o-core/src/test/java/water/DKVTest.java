@@ -124,4 +124,54 @@ public class DKVTest extends TestUtil {
     }
   }
 
+  @Test
+  public void testBatchPutGetRemove() {
+    Key[] keys = new Key[100];
+    Value[] vals = new Value[keys.length];
+    for (int i = 0; i < keys.length; ++i) {
+      keys[i] = Key.make();
+      vals[i] = new Value(keys[i], new IcedInt(i));
+    }
+    try {
+      DKV.put(keys, vals);
+      Value[] res = DKV.get(keys);
+      for (int i = 0; i < keys.length; ++i)
+        Assert.assertEquals(i, ((IcedInt) res[i].get())._val);
+      DKV.remove(Arrays.copyOf(keys, 50));
+      res = DKV.get(keys);
+      for (int i = 0; i < keys.length; ++i)
+        Assert.assertEquals(i < 50, res[i] == null);
+    } finally {
+      DKV.remove(keys);
+    }
+  }
+
+  private static class Parts extends Keyed<Parts> {
+    static volatile boolean _selfSeen;
+    final Key _part;
+    Parts(Key<Parts> key, Key part) { super(key); _part = part; }
+    @Override protected Futures remove_impl(Futures fs) {
+      _selfSeen = DKV.get(_key) != null;
+      DKV.remove(_part, fs);
+      return fs;
+    }
+  }
+
+  @Test
+  public void testBatchRemoveSubpartsFirst() {
+    Key<Parts> k = Key.make();
+    Key part = Key.make();
+    try {
+      DKV.put(part, new IcedInt(1));
+      DKV.put(new Parts(k, part));
+      Parts._selfSeen = false;
+      Keyed.remove(new Key[]{k}, new Futures()).blockForPending();
+      assertTrue(Parts._selfSeen);
+      Assert.assertNull(DKV.get(k));
+      Assert.assertNull(DKV.get(part));
+    } finally {
+      DKV.remove(k);
+      DKV.remove(part);
+    }
+  }
 }
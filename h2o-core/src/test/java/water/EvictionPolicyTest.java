@@ -0,0 +1,54 @@
+package water;
+
+import static org.junit.Assert.*;
+import org.junit.*;
+
+import water.fvec.Frame;
+import water.fvec.Vec;
+import water.util.IcedInt;
+
+public class EvictionPolicyTest extends TestUtil {
+  @BeforeClass static public void setup() { stall_till_cloudsize(1); }
+
+  @Test public void testPinUnpin() {
+    Frame fr = null, other = null;
+    Key owner = Key.make();
+    try {
+      fr = new Frame(Key.<Frame>make(), new String[]{"a", "b"},
+                     new Vec[]{Vec.makeSeq(1000, false), Vec.makeSeq(1000, false)});
+      other = new Frame(Key.<Frame>make(), new String[]{"c"}, new Vec[]{Vec.makeSeq(1000, false)});
+      int pinned0 = EvictionPolicy.pinnedCount();
+      EvictionPolicy.pin(owner, fr, null);
+      assertEquals(pinned0 + 2, EvictionPolicy.pinnedCount());
+      for (Vec v : fr.vecs())
+        for (int c = 0; c < v.nChunks(); c++)
+          assertTrue(EvictionPolicy.isPinned(v.chunkKey(c)));
+      assertFalse(EvictionPolicy.isPinned(other.vec(0).chunkKey(0)));
+      assertFalse(EvictionPolicy.isPinned(fr._key)); // Only Chunks are pinned
+      EvictionPolicy.unpin(owner);
+      assertEquals(pinned0, EvictionPolicy.pinnedCount());
+      assertFalse(EvictionPolicy.isPinned(fr.vec(0).chunkKey(0)));
+    } finally {
+      EvictionPolicy.unpin(owner);
+      if (fr != null) fr.delete();
+      if (other != null) other.delete();
+    }
+  }
+
+  @Test public void testFrequentAccessLooksYounger() {
+    Key k = Key.make();
+    try {
+      DKV.put(k, new IcedInt(1));
+      Value val = DKV.get(k);
+      val.touchAt(1000);
+      val._hits = 0;
+      long once = EvictionPolicy.evictionTime(val);
+      val._hits = EvictionPolicy.MAX_HITS;
+      assertTrue(EvictionPolicy.evictionTime(val) > once);
+      for (int i = 0; i < 100; i++) val.get();
+      assertEquals(EvictionPolicy.MAX_HITS, val._hits); // Saturates
+    } finally {
+      DKV.remove(k);
+    }
+  }
+}
@@ -0,0 +1,92 @@
+package water;
+
+import org.junit.*;
+import water.fvec.*;
+
+import static org.junit.Assert.*;
+
+public class FusedMRTaskTest extends TestUtil {
+  @BeforeClass static public void setup() { stall_till_cloudsize(1); }
+
+  private static class Sum extends MRTask<Sum> {
+    double _sum;
+    long _nas;
+    transient boolean _local;   // setupLocal ran before map
+    double _mean;               // set by postGlobal
+    @Override protected void setupLocal() { _local = true; }
+    @Override public void map( Chunk c ) {
+      assertTrue(_local);
+      for( int i = 0; i < c._len; i++ )
+        if( c.isNA(i) ) _nas++; else _sum += c.atd(i);
+    }
+    @Override public void reduce( Sum s ) { _sum += s._sum; _nas += s._nas; }
+    @Override protected void postGlobal() { _mean = _sum / (_fr.numRows() - _nas); }
+  }
+
+  private static class Scale extends MRTask<Scale> {
+    final double _mul;
+    Scale( double mul ) { _mul = mul; }
+    @Override public void map( Chunk[] cs, NewChunk[] ncs ) {
+      for( int c = 0; c < cs.length; c++ )
+        for( int i = 0; i < cs[c]._len; i++ ) ncs[c].addNum(cs[c].atd(i) * _mul);
+    }
+  }
+
+  private static class Product extends MRTask<Product> {
+    double _dot;
+    @Override public void map( Chunk a, Chunk b ) {
+      for( int i = 0; i < a._len; i++ ) _dot += a.atd(i) * b.atd(i);
+    }
+    @Override public void reduce( Product p ) { _dot += p._dot; }
+  }
+
+  @Test public void testFusedAsSeparate() {
+    Frame fr = null, scaled = null;
+    Vec seq = Vec.makeSeq(0, 200000), ones = seq.makeCon(1);
+    try {
+      seq.set(7, Double.NaN);
+      fr = new Frame(new String[]{"seq", "ones"}, new Vec[]{seq, ones});
+      assertTrue(seq.nChunks() > 1);
+
+      FusedMRTask fused = new FusedMRTask();
+      Sum sum = fused.add(new Sum(), new Frame(seq));
+      Scale scale = fused.add(new Scale(2), new byte[]{Vec.T_NUM, Vec.T_NUM}, fr);
+      Product dot = fused.add(new Product(), new Frame(ones, seq));
+      assertEquals(3, fused.numTasks());
+      fused.doAll();
+
+      Sum sum2 = new Sum().doAll(seq);
+      assertEquals(1, sum._nas);
+      assertEquals(sum2._sum, sum._sum, 0);
+      assertEquals(sum2._mean, sum._mean, 0);
+      assertEquals(new Product().doAll(ones, seq)._dot, dot._dot, 0);
+
+      scaled = scale.outputFrame(fr.names(), null);
+      assertArrayEquals(fr.names(), scaled.names());
+      assertEquals(fr.numRows(), scaled.numRows());
+      assertTrue(scaled.vec(0).isNA(7));
+      assertEquals(2 * 12345, scaled.vec(0).at(12345), 0);
+      assertEquals(2, scaled.vec(1).at(199999), 0);
+      assertEquals(2 * sum._sum, scaled.vec(0).mean() * (scaled.numRows() - 1), 1e-3);
+    } finally {
+      if( scaled != null ) scaled.delete();
+      seq.remove();
+      ones.remove();
+    }
+  }
+
+  @Test public void testSameLayoutOnly() {
+    Vec a = Vec.makeSeq(0, 200000), b = Vec.makeSeq(0, 100);
+    try {
+      FusedMRTask fused = new FusedMRTask();
+      fused.add(new Sum(), new Frame(a));
+      try {
+        fused.add(new Sum(), new Frame(b));
+        fail();
+      } catch( IllegalArgumentException expected ) { }
+    } finally {
+      a.remove();
+      b.remove();
+    }
+  }
+}
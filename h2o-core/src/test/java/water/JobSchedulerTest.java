@@ -0,0 +1,185 @@
+package water;
+
+import org.junit.*;
+import water.fvec.Frame;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.*;
+
+public class JobSchedulerTest extends TestUtil {
+  @BeforeClass public static void stall() { stall_till_cloudsize(1); }
+
+  // Records resubmitted tasks instead of running them
+  private static class Recording extends JobScheduler {
+    final ArrayList<H2O.H2OCountedCompleter> _resubmitted = new ArrayList<>();
+    Recording( int slots, int maxJobsPerUser ) { super(slots, maxJobsPerUser, true); }
+    @Override void resubmit( H2O.H2OCountedCompleter task ) { _resubmitted.add(task); }
+  }
+
+  private static class Leaf extends MRTask<Leaf> {
+    Leaf( JobScheduler.Tenant t ) { _tenant = t; }
+  }
+
+  private static Leaf[] leaves( JobScheduler.Tenant t, int n ) {
+    Leaf[] ls = new Leaf[n];
+    for( int i = 0; i < n; i++ ) ls[i] = new Leaf(t);
+    return ls;
+  }
+
+  @Test public void testInteractivePreemptsJob() {
+    Recording s = new Recording(4, 0);
+    JobScheduler.Tenant job = new JobScheduler.Tenant(Key.<Job>make(), 1);
+    Leaf[] big = leaves(job, 8);
+    for( int i = 0; i < 4; i++ ) assertTrue(s.admit(big[i]));
+    // Node full, the Job holds all the slots: more of its chunks wait
+    assertFalse(s.admit(big[4]));
+    assertFalse(s.admit(big[5]));
+    // Interactive work is owed half the slots, and gets one at once
+    Leaf query = new Leaf(null);
+    assertTrue(s.admit(query));
+    assertEquals(5, s.running());
+    // A finished Job chunk does not free a slot for the Job while over its share
+    s.release(big[0]);
+    assertTrue(s._resubmitted.isEmpty());
+    assertEquals(2, s.deferred());
+    // Once the query is done, the Job gets the node back, in order
+    s.release(query);
+    assertEquals(1, s._resubmitted.size());
+    assertSame(big[4], s._resubmitted.get(0));
+    assertTrue(big[4]._sched_slot);
+    s.release(big[1]);
+    assertSame(big[5], s._resubmitted.get(1));
+    assertEquals(0, s.deferred());
+    assertEquals(2, s.deferrals());
+    for( Leaf l : new Leaf[]{big[2], big[3], big[4], big[5]} ) s.release(l);
+    assertEquals(0, s.running());
+    s.release(big[5]);          // Releasing twice is harmless
+    assertEquals(0, s.running());
+  }
+
+  @Test public void testSharesByWeight() {
+    Recording s = new Recording(8, 0);
+    JobScheduler.Tenant heavy = new JobScheduler.Tenant(Key.<Job>make(), 3);
+    JobScheduler.Tenant light = new JobScheduler.Tenant(Key.<Job>make(), 1);
+    Leaf[] hs = leaves(heavy, 10), ls = leaves(light, 11);
+    for( int i = 0; i < 8; i++ ) assertTrue(s.admit(ls[i]));
+    // The node is full, but heavy is owed 6 of the 8 slots
+    int admitted = 0;
+    for( Leaf h : hs ) if( s.admit(h) ) admitted++;
+    assertEquals(6, admitted);
+    assertEquals(4, s.deferred());
+    // Freed slots go to waiting heavy chunks only once the node is no longer full
+    for( int i = 0; i < 8; i++ ) s.release(ls[i]);
+    assertEquals(2, s._resubmitted.size());
+    assertEquals(8, s.running());
+    // Light asks again, and gets its share of 2 at once
+    assertTrue(s.admit(ls[8]));
+    assertTrue(s.admit(ls[9]));
+    assertFalse(s.admit(ls[10]));
+  }
+
+  @Test public void testNestedWorkNotHeldBack() {
+    Recording s = new Recording(1, 0);
+    JobScheduler.Tenant job = new JobScheduler.Tenant(Key.<Job>make(), 1);
+    assertTrue(s.admit(new Leaf(job)));
+    assertFalse(s.admit(new Leaf(job)));
+    // Work nested in a map call is never held back
+    Leaf nested = new Leaf(JobScheduler.nested(job));
+    assertTrue(s.admit(nested));
+    assertFalse(nested._sched_slot);
+    assertEquals(1, s.running());
+  }
+
+  @Test public void testCancelledWhileDeferred() {
+    Recording s = new Recording(1, 0);
+    JobScheduler.Tenant job = new JobScheduler.Tenant(Key.<Job>make(), 1);
+    Leaf a = new Leaf(job), b = new Leaf(job), c = new Leaf(job);
+    assertTrue(s.admit(a));
+    assertFalse(s.admit(b));
+    assertFalse(s.admit(c));
+    b.cancel(true);
+    s.release(a);
+    assertEquals(1, s._resubmitted.size());
+    assertSame(c, s._resubmitted.get(0));
+    s.release(c);
+    assertEquals(0, s.running());
+    assertEquals(0, s.deferred());
+  }
+
+  private final ArrayList<Job> _jobs = new ArrayList<>();
+
+  private Job<Frame> startJob( JobScheduler s, String desc ) {
+    return startJob(s, desc, new H2O.H2OCountedCompleter() { });
+  }
+
+  private Job<Frame> startJob( JobScheduler s, String desc, H2O.H2OCountedCompleter task ) {
+    Job<Frame> job = new Job<>(null, null, desc);
+    DKV.put(job);
+    _jobs.add(job);
+    s.startJob(job, task);
+    return job;
+  }
+
+  @Test public void testJobsPerUser() {
+    Recording s = new Recording(4, 1);
+    try {
+      Job<Frame> j1 = startJob(s, "first");
+      assertEquals(1, s._resubmitted.size());
+      Job<Frame> j2 = startJob(s, "second");
+      assertEquals(1, s._resubmitted.size());
+      assertEquals("Queued.", j2.progress_msg());
+      // Jobs started by a running Job are never queued, and share its tenant
+      JobScheduler.Tenant outer = new JobScheduler.Tenant(j1._key, 1);
+      JobScheduler.Tenant prev = JobScheduler.enter(outer);
+      Job<Frame> j3;
+      try {
+        j3 = startJob(s, "nested");
+      } finally {
+        JobScheduler.exit(prev);
+      }
+      assertEquals(2, s._resubmitted.size());
+      assertSame(outer, s._resubmitted.get(1)._tenant);
+      assertEquals(j1._key, s._resubmitted.get(0)._tenant._job);
+      s.jobDone(j3);
+      assertEquals(2, s._resubmitted.size());
+      // The first Job finishes, the second one starts
+      s.jobDone(j1);
+      assertEquals(3, s._resubmitted.size());
+      assertEquals("Started.", j2.progress_msg());
+      s.jobDone(j2);
+      j1 = startJob(s, "third");
+      assertEquals(4, s._resubmitted.size());
+      s.jobDone(j1);
+    } finally {
+      for( Job j : _jobs ) DKV.remove(j._key);
+    }
+  }
+
+  @Test public void testCancelQueuedJob() {
+    Recording s = new Recording(4, 1);
+    try {
+      Job<Frame> j1 = startJob(s, "first");
+      H2O.H2OCountedCompleter t2 = new H2O.H2OCountedCompleter() { };
+      Job<Frame> j2 = startJob(s, "second", t2);
+      Job<Frame> j3 = startJob(s, "third");
+      assertEquals(1, s._resubmitted.size());
+      // The cancelled Job leaves the queue, and its task completes as cancelled
+      assertTrue(s.cancelQueued(j2._key));
+      assertTrue(t2.isCompletedAbnormally());
+      assertTrue(Job.isCancelledException(t2.getException()));
+      assertFalse(s.cancelQueued(j2._key));
+      assertFalse(s.cancelQueued(j1._key)); // Running, not queued
+      // The next queued Job starts in its place
+      s.jobDone(j1);
+      assertEquals(2, s._resubmitted.size());
+      assertEquals(j3._key, s._resubmitted.get(1)._tenant._job);
+      s.jobDone(j3);
+      j1 = startJob(s, "fourth");
+      assertEquals(3, s._resubmitted.size());
+      s.jobDone(j1);
+    } finally {
+      for( Job j : _jobs ) DKV.remove(j._key);
+    }
+  }
+}
@@ -60,6 +60,31 @@ public class KVTest extends TestUtil {
     System.out.println("100Keys "+(System.currentTimeMillis()-start));
   }
 
+  // ---
+  // A batch putting the same Key twice: the last Value wins.  For a remote
+  // Key the first PUT is not sent until the whole batch is, so putting over
+  // it must not wait for it to complete.
+  @Test public void testBatchDuplicateKeys() {
+    H2ONode remote = H2O.CLOUD._memary[H2O.CLOUD.size()-1];
+    Key kr = Key.make(remote), kh = Key.make(H2O.SELF);
+    assertFalse(kr.home());
+    try {
+      DKV.put(kr,new Value(kr,"old"));   // Remote PUT over an existing Value
+      Key[] keys = new Key[]{kr, kh, kr, kh, kr};
+      Value[] vals = new Value[keys.length];
+      for( int i=0; i<keys.length; i++ ) vals[i] = new Value(keys[i],"batch"+i);
+      DKV.put(keys,vals);
+      assertEquals(vals[4],DKV.get(kr));
+      assertEquals(vals[3],DKV.get(kh));
+      DKV.remove(new Key[]{kr, kr, kh});
+      assertNull(DKV.get(kr));
+      assertNull(DKV.get(kh));
+    } finally {
+      DKV.remove(kr);
+      DKV.remove(kh);
+    }
+  }
+
   // ---
   // Issue a slew of remote puts, then issue a DFJ job on the array of keys.
   @Test public void testRemoteBitSet() throws Exception {
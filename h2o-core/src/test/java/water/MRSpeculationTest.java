@@ -0,0 +1,112 @@
+package water;
+
+import org.junit.*;
+import water.fvec.Chunk;
+import water.fvec.FileVec;
+import water.fvec.Vec;
+
+import static org.junit.Assert.*;
+
+public class MRSpeculationTest extends TestUtil {
+  @BeforeClass static public void setup() {
+    stall_till_cloudsize(3);
+    assertTrue(MRSpeculation.ENABLED);
+  }
+
+  // Long enough for a straggler to be backed up, and the backup to answer
+  private static final long SLEEP = 2 * MRSpeculation.MIN_MSEC;
+
+  // Counts rows; one node takes its time before mapping its chunks
+  private static class SlowCount extends MRTask<SlowCount> {
+    final H2ONode _slow;
+    final boolean _speculate;
+    long _rows;
+    SlowCount( H2ONode slow, boolean speculate ) { _slow = slow; _speculate = speculate; }
+    @Override protected boolean mayRunSpeculatively() { return _speculate; }
+    @Override public void setupLocal() {
+      if( H2O.SELF == _slow && _backup_for == 0 )
+        try { Thread.sleep(SLEEP); } catch( InterruptedException ignore ) { }
+    }
+    @Override public void map( Chunk c ) { _rows += c._len; }
+    @Override public void reduce( SlowCount sc ) { _rows += sc._rows; }
+  }
+
+  private static Key[] chunkKeys( Vec vec ) {
+    Key[] keys = new Key[vec.nChunks()];
+    for( int i = 0; i < keys.length; i++ ) keys[i] = vec.chunkKey(i);
+    return keys;
+  }
+
+  @Test public void testStragglerBackedUp() {
+    int sz = H2O.CLOUD.size();
+    Vec vec = Vec.makeZero(4L*sz*FileVec.DFLT_CHUNK_SIZE);
+    try {
+      H2ONode slow = H2O.CLOUD._memary[sz-1];
+      assertNotSame(H2O.SELF, slow);
+      // Every node holds a copy of every chunk
+      ReplicatedKeys.enable(chunkKeys(vec));
+      int homed = 0;
+      for( Key k : chunkKeys(vec) ) if( k.home_node() == slow ) homed++;
+      assertEquals((sz-1)*homed, new CountCopies(vec, slow).doAllNodes()._copies);
+      long start = System.currentTimeMillis();
+      SlowCount sc = new SlowCount(slow, true).profile().doAll(vec);
+      long took = System.currentTimeMillis() - start;
+      assertEquals(vec.length(), sc._rows);
+      assertTrue("took " + took + "ms", took < SLEEP);
+      assertTrue(sc.profString(), sc.profString().contains("Straggler " + slow));
+    } finally {
+      vec.remove();
+    }
+  }
+
+  @Test public void testNoSpeculationWithoutReplicas() {
+    int sz = H2O.CLOUD.size();
+    Vec vec = Vec.makeZero(2L*sz*FileVec.DFLT_CHUNK_SIZE);
+    try {
+      // Nobody else holds the slow node's chunks: the task goes down the
+      // reduce tree, and none of its chunks are fetched by other nodes
+      H2ONode slow = H2O.CLOUD._memary[sz-1];
+      long start = System.currentTimeMillis();
+      SlowCount sc = new SlowCount(slow, true).profile().doAll(vec);
+      assertEquals(vec.length(), sc._rows);
+      assertTrue(System.currentTimeMillis() - start >= SLEEP);
+      assertFalse(sc.profString(), sc.profString().contains("Straggler"));
+      assertEquals(0, new CountCopies(vec, slow).doAllNodes()._copies);
+    } finally {
+      vec.remove();
+    }
+  }
+
+  // Copies of the given node's chunks cached on the other nodes
+  private static class CountCopies extends MRTask<CountCopies> {
+    final Vec _vec;
+    final H2ONode _of;
+    int _copies;
+    CountCopies( Vec vec, H2ONode of ) { _vec = vec; _of = of; }
+    @Override public void setupLocal() {
+      if( H2O.SELF == _of ) return;
+      for( int i = 0; i < _vec.nChunks(); i++ )
+        if( _vec.chunkKey(i).home_node() == _of && H2O.STORE.get(_vec.chunkKey(i)) != null ) _copies++;
+    }
+    @Override public void reduce( CountCopies cc ) { _copies += cc._copies; }
+  }
+
+  @Test public void testNoSpeculationUnlessAllowed() {
+    int sz = H2O.CLOUD.size();
+    Vec vec = Vec.makeZero(2L*sz*FileVec.DFLT_CHUNK_SIZE);
+    try {
+      ReplicatedKeys.enable(chunkKeys(vec));
+      // Nobody slow: everybody answers for themselves
+      SlowCount sc = new SlowCount(null, true).profile().doAll(vec);
+      assertEquals(vec.length(), sc._rows);
+      assertFalse(sc.profString(), sc.profString().contains("Straggler"));
+      // Read-write tasks wait for the slow node
+      long start = System.currentTimeMillis();
+      sc = new SlowCount(H2O.CLOUD._memary[sz-1], false).doAll(vec);
+      assertEquals(vec.length(), sc._rows);
+      assertTrue(System.currentTimeMillis() - start >= SLEEP);
+    } finally {
+      vec.remove();
+    }
+  }
+}
@@ -0,0 +1,72 @@
+package water;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.fvec.Chunk;
+import water.fvec.Frame;
+import water.fvec.Vec;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MetricsTest extends TestUtil {
+  @BeforeClass static public void setup() { stall_till_cloudsize(1); }
+
+  @Test public void testCounterAndHistogram() {
+    Metrics.Counter c = Metrics.counter("test_events_total", "Test events", "kind", "a\"b");
+    c.inc();
+    c.add(41);
+    assertEquals(42, c.get());
+    // Same name and labels, same series
+    assertTrue(c == Metrics.counter("test_events_total", "Test events", "kind", "a\"b"));
+
+    Metrics.Histogram h = Metrics.histogram("test_wait_seconds", "Test waits");
+    h.observeNanos(500);        // <= 1 usec
+    h.observeNanos(3000000);    // 3 msec: <= 2^12 usec
+    assertEquals(2, h.count());
+
+    Metrics.Snapshot s = Metrics.local(false);
+    assertEquals(42, s.get("test_events_total", "kind=\"a\\\"b\""));
+    assertEquals(2, s.get("test_wait_seconds", ""));
+    String text = s.toPrometheus();
+    assertTrue(text, text.contains("# TYPE test_events_total counter\n"));
+    assertTrue(text, text.contains("test_events_total{kind=\"a\\\"b\"} 42\n"));
+    assertTrue(text, text.contains("# TYPE test_wait_seconds histogram\n"));
+    assertTrue(text, text.contains("test_wait_seconds_bucket{le=\"1.0E-6\"} 1\n"));
+    assertTrue(text, text.contains("test_wait_seconds_bucket{le=\"0.002048\"} 1\n"));
+    assertTrue(text, text.contains("test_wait_seconds_bucket{le=\"0.004096\"} 2\n"));
+    assertTrue(text, text.contains("test_wait_seconds_bucket{le=\"+Inf\"} 2\n"));
+    assertTrue(text, text.contains("test_wait_seconds_count 2\n"));
+  }
+
+  @Test public void testMerge() {
+    Metrics.Snapshot a = Metrics.local(false), b = Metrics.local(false);
+    Metrics.counter("test_merge_total", "Test merges").inc();
+    Metrics.Snapshot c = Metrics.local(false);
+    long n = a.get("h2o_dkv_gets_total", "source=\"local\"");
+    a.merge(b).merge(c);
+    assertEquals(1, a.get("test_merge_total", ""));
+    assertTrue(a.get("h2o_dkv_gets_total", "source=\"local\"") >= 3 * n);
+  }
+
+  private static class Sum extends MRTask<Sum> {
+    double _sum;
+    @Override public void map(Chunk c) { for (int i = 0; i < c._len; i++) _sum += c.atd(i); }
+    @Override public void reduce(Sum s) { _sum += s._sum; }
+  }
+
+  @Test public void testMRTaskTimes() {
+    Frame fr = null;
+    try {
+      fr = new Frame(Vec.makeSeq(100000, false));
+      assertEquals(100000L * 100001 / 2, new Sum().doAll(fr)._sum, 0);
+      String task = "task=\"" + Sum.class.getName() + "\"";
+      Metrics.Snapshot s = Metrics.cluster();
+      assertEquals(1, s.get("h2o_mrtask_seconds", task));
+      assertEquals(fr.anyVec().nChunks(), s.get("h2o_mrtask_map_seconds", task));
+      assertTrue(s.toPrometheus().contains("h2o_mrtask_seconds_count{" + task + "} 1\n"));
+    } finally {
+      if (fr != null) fr.delete();
+    }
+  }
+}
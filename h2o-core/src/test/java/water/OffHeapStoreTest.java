@@ -0,0 +1,111 @@
+package water;
+
+import static org.junit.Assert.*;
+import org.junit.*;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+
+import water.fvec.Vec;
+
+public class OffHeapStoreTest extends TestUtil {
+  @BeforeClass static public void setup() { stall_till_cloudsize(1); }
+
+  @Test public void testStoreAndReload() {
+    long oldMax = MemoryManager.OFF_HEAP_MAX;
+    Vec vec = null;
+    try {
+      MemoryManager.OFF_HEAP_MAX = 1L << 30;
+      long used0 = MemoryManager.offHeapUsed();
+      vec = Vec.makeSeq(10000, false);
+      Value val = DKV.get(vec.chunkKey(0));
+      assertNotNull(val);
+      assertTrue(val.storeOffHeap());
+      assertTrue(val.isOffHeap());
+      assertEquals(used0 + val._max, MemoryManager.offHeapUsed());
+      // Drop all heap copies, as the Cleaner would do
+      val.freeMem();
+      val.freePOJO();
+      assertNull(val.rawMem());
+      assertNull(val.rawPOJO());
+      // Reload is served from the off-heap copy
+      for (int i = 0; i < 10000; i++)
+        assertEquals(i + 1, vec.at8(i));
+      vec.remove();
+      vec = null;
+      assertFalse(val.isOffHeap());
+      assertEquals(used0, MemoryManager.offHeapUsed());
+    } finally {
+      MemoryManager.OFF_HEAP_MAX = oldMax;
+      if (vec != null) vec.remove();
+    }
+  }
+
+  @Test public void testBudgetExhausted() {
+    long oldMax = MemoryManager.OFF_HEAP_MAX;
+    Vec vec = null;
+    try {
+      MemoryManager.OFF_HEAP_MAX = MemoryManager.offHeapUsed() + 16;
+      vec = Vec.makeSeq(10000, false);
+      Value val = DKV.get(vec.chunkKey(0));
+      assertFalse(val.storeOffHeap()); // Caller falls back to disk
+      assertFalse(val.isOffHeap());
+    } finally {
+      MemoryManager.OFF_HEAP_MAX = oldMax;
+      if (vec != null) vec.remove();
+    }
+  }
+
+  @Test public void testBulkWriteFromOffHeap() throws Exception {
+    long oldMax = MemoryManager.OFF_HEAP_MAX;
+    File f = File.createTempFile("offheap-bulk", ".bin");
+    try {
+      MemoryManager.OFF_HEAP_MAX = 1L << 30;
+      byte[] mem = new byte[AutoBuffer.BULK_MIN + 100];
+      for (int i = 0; i < mem.length; i++) mem[i] = (byte) (i * 13);
+      Key k = Key.make("offHeapBulk");
+      Value val = new Value(k, mem.clone());
+      DKV.put(k, val);
+      assertTrue(val.storeOffHeap());
+      val.freeMem();
+      assertNull(val.rawMem());
+      // Written straight from the off-heap copy, without reloading onto the heap
+      try (FileOutputStream os = new FileOutputStream(f)) {
+        val.write_impl(new AutoBuffer(os.getChannel(), false, Value.ICE)).close();
+      }
+      assertNull(val.rawMem());
+      try (FileInputStream is = new FileInputStream(f)) {
+        AutoBuffer ab = new AutoBuffer(is.getChannel(), true, Value.ICE);
+        ab.get1();
+        assertEquals(TypeMap.PRIM_B, ab.get2());
+        assertArrayEquals(mem, ab.getA1());
+        ab.close();
+      }
+      DKV.remove(k);
+      assertFalse(val.isOffHeap());
+    } finally {
+      MemoryManager.OFF_HEAP_MAX = oldMax;
+      f.delete();
+    }
+  }
+
+  @Test public void testOverwrittenBeforePublish() {
+    long oldMax = MemoryManager.OFF_HEAP_MAX;
+    Key k = Key.make("offHeapStale");
+    try {
+      MemoryManager.OFF_HEAP_MAX = 1L << 30;
+      long used0 = MemoryManager.offHeapUsed();
+      Value old = new Value(k, new byte[1000]);
+      DKV.put(k, old);
+      // The writer swaps the mapping and frees before the store publishes
+      DKV.put(k, new Value(k, new byte[10]));
+      assertTrue(old.storeOffHeap());
+      assertFalse(old.isOffHeap());
+      assertEquals(used0, MemoryManager.offHeapUsed());
+    } finally {
+      MemoryManager.OFF_HEAP_MAX = oldMax;
+      DKV.remove(k);
+    }
+  }
+}
@@ -0,0 +1,113 @@
+package water;
+
+import org.junit.*;
+
+import static org.junit.Assert.*;
+
+public class RPCFlowTest extends TestUtil {
+  @BeforeClass public static void stall() { stall_till_cloudsize(1); }
+
+  private static class Ping extends DTask<Ping> {
+    boolean _ran;
+    Ping() { }
+    Ping( byte prior ) { super(prior); }
+    @Override public void compute2() { _ran = true; tryComplete(); }
+  }
+
+  @Test public void testCreditsPassOn() {
+    RPCFlow flow = new RPCFlow(1);
+    RPC<Ping> first = new RPC<>(H2O.SELF, new Ping(), 1.0f);
+    RPC<Ping> second = new RPC<>(H2O.SELF, new Ping(), 1.0f);
+    RPC<Ping> third = new RPC<>(H2O.SELF, new Ping(), 1.0f);
+    assertTrue(flow.acquire(first));
+    assertFalse(flow.acquire(second));
+    assertFalse(flow.acquire(third));
+    assertEquals(1, flow.inflight());
+    assertEquals(2, flow.queued());
+
+    // A cancelled waiter just leaves the queue
+    flow.release(third, false);
+    assertEquals(1, flow.queued());
+    assertEquals(1, flow.inflight());
+
+    // The credit of the first goes to the second, which is then sent
+    first._sent = System.currentTimeMillis();
+    flow.release(first, true);
+    assertEquals(0, flow.queued());
+    assertEquals(1, flow.inflight());
+    assertTrue(second._credited);
+    assertTrue(second.get()._ran);
+    assertFalse(third._dt._ran);
+
+    flow.release(second, false);
+    assertEquals(0, flow.inflight());
+    assertEquals(2, flow.queuedTotal());
+  }
+
+  @Test public void testSystemPrioritiesNotLimited() {
+    RPCFlow flow = new RPCFlow(1);
+    for( int i = 0; i < 5; i++ )
+      assertTrue(flow.acquire(new RPC<>(H2O.SELF, new Ping(H2O.GET_KEY_PRIORITY), 1.0f)));
+    assertEquals(5, flow.inflight());
+    assertEquals(0, flow.queued());
+  }
+
+  private static class Fan extends MRTask<Fan> { }
+
+  @Test public void testMRTasksNotLimited() {
+    RPCFlow flow = new RPCFlow(1);
+    assertTrue(flow.acquire(new RPC<>(H2O.SELF, new Ping(), 1.0f)));
+    RPC<Fan> fan = new RPC<>(H2O.SELF, new Fan(), 1.0f);
+    for( int i = 0; i < 5; i++ )
+      assertTrue(flow.acquire(new RPC<>(H2O.SELF, new Fan(), 1.0f)));
+    assertTrue(flow.acquire(fan));
+    assertEquals(7, flow.inflight());
+    assertEquals(0, flow.queued());
+    flow.release(fan, false);
+    assertEquals(6, flow.inflight());
+  }
+
+  @Test public void testBlockedOnPassesQueue() {
+    RPCFlow flow = new RPCFlow(1);
+    RPC<Ping> first = new RPC<>(H2O.SELF, new Ping(), 1.0f);
+    RPC<Ping> second = new RPC<>(H2O.SELF, new Ping(), 1.0f);
+    RPC<Ping> third = new RPC<>(H2O.SELF, new Ping(), 1.0f);
+    assertTrue(flow.acquire(first));
+    assertFalse(flow.acquire(second));
+    assertFalse(flow.acquire(third));
+    // Waited on: sent past the limit, ahead of the third
+    assertTrue(flow.promote(second));
+    assertTrue(second._credited);
+    assertEquals(2, flow.inflight());
+    assertEquals(1, flow.queued());
+    assertFalse(flow.promote(second));
+    assertFalse(flow.promote(first));
+    // Credits come back as usual; the third still waits for one
+    flow.release(second, false);
+    assertEquals(1, flow.inflight());
+    assertFalse(third._credited);
+    flow.release(first, false);
+    assertTrue(third._credited);
+    assertEquals(1, flow.inflight());
+    assertEquals(0, flow.queued());
+    flow.release(third, false);
+    assertEquals(0, flow.inflight());
+    // System priorities never wait, nor get promoted
+    assertFalse(flow.promote(new RPC<>(H2O.SELF, new Ping(H2O.GET_KEY_PRIORITY), 1.0f)));
+  }
+
+  @Test public void testLatencyHistogram() {
+    RPCFlow flow = new RPCFlow(0);
+    assertEquals(-1, flow.latencyQuantile(0.5));
+    for( int i = 0; i < 98; i++ ) flow.recordLatency(3);
+    flow.recordLatency(0);
+    flow.recordLatency(1000);
+    long[] h = flow.latencyHistogram();
+    assertEquals(1, h[0]);
+    assertEquals(98, h[2]);
+    assertEquals(1, h[10]);
+    assertEquals(4, flow.latencyQuantile(0.5));
+    assertEquals(4, flow.latencyQuantile(0.99));
+    assertEquals(1024, flow.latencyQuantile(1.0));
+  }
+}
@@ -0,0 +1,81 @@
+package water;
+
+import static org.junit.Assert.*;
+import org.junit.*;
+
+import water.util.IcedInt;
+
+public class ReplicatedKeysTest extends TestUtil {
+  @BeforeClass static public void setup() { stall_till_cloudsize(3); }
+
+  // Per node, before reading: is the Key replicated, and is a copy cached
+  private static class Probe extends MRTask<Probe> {
+    final Key _k;
+    int _replicated, _cached, _sum;
+    Probe(Key k) { _k = k; }
+    @Override public void setupLocal() {
+      if( _k.home() ) return;
+      if( ReplicatedKeys.isReplicated(_k) ) _replicated++;
+      Value v = Value.STORE_get(_k);
+      if( v != null && (v.rawPOJO() != null || v.rawMem() != null) ) _cached++;
+      IcedInt i = DKV.getGet(_k);
+      if( i != null ) _sum += i._val;
+    }
+    @Override public void reduce(Probe p) { _replicated += p._replicated; _cached += p._cached; _sum += p._sum; }
+  }
+
+  @Test public void testServedLocallyAndInvalidated() {
+    int others = H2O.CLOUD.size() - 1;
+    Key k = Key.make(H2O.SELF);
+    try {
+      DKV.put(k, new IcedInt(1));
+      long hits = Metrics.cluster().get("h2o_replicated_reads_total", "source=\"local\"");
+      ReplicatedKeys.enable(k);
+      // Pushed to every other node before anybody asked
+      Probe p = new Probe(k).doAllNodes();
+      assertEquals(others, p._replicated);
+      assertEquals(others, p._cached);
+      assertEquals(others, p._sum);
+      assertEquals(Math.max(hits, 0) + others, Metrics.cluster().get("h2o_replicated_reads_total", "source=\"local\""));
+
+      // An update invalidates the old copies and pushes the new Value
+      DKV.put(k, new IcedInt(2));
+      p = new Probe(k).doAllNodes();
+      assertEquals(others, p._cached);
+      assertEquals(2 * others, p._sum);
+      assertTrue(ReplicatedKeys.invalidationFanOut() > 0);
+
+      // A remove takes the Key out of replicated-read mode everywhere
+      DKV.remove(k);
+      assertFalse(ReplicatedKeys.isReplicated(k));
+      p = new Probe(k).doAllNodes();
+      assertEquals(0, p._replicated);
+      assertEquals(0, p._cached);
+      assertEquals(0, p._sum);
+    } finally {
+      ReplicatedKeys.disable(k);
+      DKV.remove(k);
+    }
+  }
+
+  @Test public void testRemotePut() {
+    int sz = H2O.CLOUD.size();
+    Key k = Key.make(H2O.CLOUD._memary[sz - 1]);
+    assertFalse(k.home());
+    try {
+      ReplicatedKeys.enable(k);
+      DKV.put(k, new IcedInt(1));
+      DKV.put(k, new IcedInt(5));
+      assertEquals(5, ((IcedInt) DKV.getGet(k))._val);
+      // The home pushes to the nodes other than this writer once the
+      // invalidates are done; the writer keeps its own copy
+      Probe p = new Probe(k).doAllNodes();
+      assertEquals(5 * (sz - 1), p._sum);
+      DKV.remove(k);
+      assertNull(DKV.get(k));
+    } finally {
+      ReplicatedKeys.disable(k);
+      DKV.remove(k);
+    }
+  }
+}
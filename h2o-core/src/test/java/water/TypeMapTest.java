@@ -0,0 +1,56 @@
+package water;
+
+import org.junit.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class TypeMapTest extends TestUtil {
+  @BeforeClass public static void stall() { stall_till_cloudsize(1); }
+
+  @Test public void testStaticTable() {
+    Assume.assumeTrue("No type table on the classpath", TypeMap.staticTypes() > 0);
+    String[] table = TypeMap.STATIC_CLAZZES;
+    String[] sorted = table.clone();
+    Arrays.sort(sorted);
+    assertArrayEquals(sorted, table);
+    for( String s : TypeMap.BOOTSTRAP_CLASSES ) assertTrue(Arrays.binarySearch(table, s) < 0);
+    assertEquals(TypeMap.TYPE_TABLE_HASH, H2O.SELF._heartbeat._type_table_hash);
+
+    // Every static type has its precomputed id, also when only the id was seen
+    int base = TypeMap.BOOTSTRAP_CLASSES.length;
+    for( int i = 0; i < table.length; i += 97 ) {
+      assertEquals(table[i], TypeMap.className(base + i));
+      assertEquals(base + i, TypeMap.onIce(table[i]));
+    }
+  }
+
+  @Test public void testPersistHeaderListsInstalledTypes() throws Exception {
+    AdHoc a = new AdHoc();
+    a._x = 7;
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    AutoBuffer ab = new AutoBuffer(bos, true);
+    ab.put(a).close();
+    assertEquals(7, ((AdHoc) new AutoBuffer(new ByteArrayInputStream(bos.toByteArray())).get())._x);
+    // Only the types in use, not the whole static table
+    Assume.assumeTrue("No type table on the classpath", TypeMap.staticTypes() > 0);
+    String[] header = TypeMap.persistClazzes();
+    int n = 0;
+    for( String s : header ) if( s != null ) n++;
+    assertTrue(n + " of " + header.length, n < TypeMap.BOOTSTRAP_CLASSES.length + TypeMap.staticTypes());
+    assertTrue(Arrays.asList(header).contains(AdHoc.class.getName()));
+  }
+
+  static class AdHoc extends Iced<AdHoc> { int _x; }
+
+  @Test public void testDynamicTypesAfterStatic() {
+    int id = TypeMap.onIce(AdHoc.class.getName());
+    assertTrue(id >= TypeMap.BOOTSTRAP_CLASSES.length + TypeMap.staticTypes());
+    AdHoc a = new AdHoc();
+    a._x = 42;
+    assertEquals(42, ((AdHoc) new AutoBuffer(new AutoBuffer().put(a).buf()).get())._x);
+  }
+}
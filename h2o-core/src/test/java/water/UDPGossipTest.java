@@ -0,0 +1,56 @@
+package water;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class UDPGossipTest extends TestUtil {
+  @BeforeClass() public static void setup() {
+    stall_till_cloudsize(3);
+  }
+
+  // A gossip packet from sender, carrying the given age for every member
+  private static AutoBuffer gossip(H2ONode sender, int age) {
+    H2ONode[] members = H2O.CLOUD._memary;
+    AutoBuffer ab = sender._heartbeat.write(new AutoBuffer());
+    ab.put2((char) members.length).put2((char) 0).put2((char) members.length);
+    for (H2ONode ignored : members) ab.put2((char) age);
+    byte[] buf = ab.buf();
+    return new AutoBuffer(sender, buf, 0, buf.length);
+  }
+
+  @Test
+  public void testPeerLearnedThroughGossip() {
+    H2ONode[] members = H2O.CLOUD._memary;
+    H2ONode sender = null, peer = null;
+    for (H2ONode h2o : members) {
+      if (h2o == H2O.SELF) continue;
+      if (sender == null) sender = h2o;
+      else peer = h2o;
+    }
+    assertNotNull(peer);
+    assertEquals(H2O.SELF._heartbeat._cloud_hash, sender._heartbeat._cloud_hash);
+
+    // Not heard from directly for long enough to be suspected
+    long before = System.currentTimeMillis();
+    peer._last_heard_from = before - 2 * HeartBeatThread.TIMEOUT;
+    assertFalse(peer.isHealthy());
+
+    // The sender heard from it 3 seconds ago
+    new UDPGossip().call(gossip(sender, 30));
+    assertTrue(peer.isHealthy());
+    assertTrue(peer._last_heard_from >= before - 30 * UDPGossip.AGE_UNIT);
+
+    // Older news does not move it back
+    long heard = peer._last_heard_from;
+    new UDPGossip().call(gossip(sender, 600));
+    assertTrue(peer._last_heard_from >= heard);
+
+    // Nor does a member the sender has never heard from
+    peer._last_heard_from = before - 2 * HeartBeatThread.TIMEOUT;
+    new UDPGossip().call(gossip(sender, UDPGossip.AGE_MAX));
+    assertTrue(peer._last_heard_from < System.currentTimeMillis() - HeartBeatThread.TIMEOUT
+            || peer._last_heard_from >= before); // unless it spoke to us directly meanwhile
+  }
+}
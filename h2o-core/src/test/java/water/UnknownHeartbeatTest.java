@@ -29,6 +29,25 @@ public class UnknownHeartbeatTest extends TestUtil{
     assertEquals(clientsCountBefore, H2O.getClients().length);
   }
 
+  @Test
+  public void testIgnoreUnknownGossip() {
+    final int clientsCountBefore = H2O.getClients().length;
+    HeartBeat hb = new HeartBeat();
+    hb._cloud_name_hash = 777;
+    hb._cloud_hash = 1;
+    hb._jar_md5 = H2O.SELF._heartbeat._jar_md5;
+
+    AutoBuffer ab = new AutoBuffer(H2O.SELF, UDP.udp.gossip._prior);
+    ab.putUdp(UDP.udp.gossip, 65400); // put different port number to simulate gossip from fake node
+    hb.write(ab);
+    ab.put2((char)1).put2((char)0).put2((char)1).put2((char)0);
+    ab.close();
+
+    // Verify that we don't have a new node or client
+    assertEquals(clientsCountBefore, H2O.getClients().length);
+    assertEquals(1, H2O.CLOUD.size());
+  }
+
   @Test
   public void testIgnoreUnknownShutdownTask(){
     Collection<H2OListenerExtension> listenerExtensions = ExtensionManager.getInstance().getListenerExtensions();
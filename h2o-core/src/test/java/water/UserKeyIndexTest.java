@@ -0,0 +1,40 @@
+package water;
+
+import static org.junit.Assert.*;
+import org.junit.*;
+
+import java.util.Arrays;
+
+import water.fvec.Frame;
+import water.fvec.Vec;
+import water.util.IcedInt;
+
+public class UserKeyIndexTest extends TestUtil {
+  @BeforeClass static public void setup() { stall_till_cloudsize(1); }
+
+  @Test public void testIndexFollowsStore() {
+    Key k = Key.make("user_key_index_test");
+    Frame fr = null;
+    try {
+      DKV.put(k, new IcedInt(1));
+      assertTrue(UserKeyIndex.keys().contains(k));
+      assertTrue(UserKeyIndex.keysOfClass(IcedInt.class).contains(k));
+      fr = new Frame(Key.<Frame>make("user_key_index_frame"), new String[]{"a"}, new Vec[]{Vec.makeSeq(100, false)});
+      DKV.put(fr);
+      // Overwrite with a different type moves the Key to the new type
+      DKV.put(k, fr.anyVec()); // Not a user-visible class, but a user Key
+      assertFalse(UserKeyIndex.keysOfClass(IcedInt.class).contains(k));
+      assertTrue(UserKeyIndex.keysOfClass(Vec.class).contains(k));
+      assertTrue(Arrays.asList(KeySnapshot.globalKeysOfClass(Frame.class)).contains(fr._key));
+      assertFalse(Arrays.asList(KeySnapshot.globalKeysOfClass(Frame.class)).contains(k));
+      // Chunks are not user-visible
+      assertFalse(UserKeyIndex.keys().contains(fr.anyVec().chunkKey(0)));
+      DKV.remove(k);
+      assertFalse(UserKeyIndex.keys().contains(k));
+      assertFalse(UserKeyIndex.keysOfClass(Vec.class).contains(k));
+    } finally {
+      DKV.remove(k);
+      if (fr != null) fr.delete();
+    }
+  }
+}
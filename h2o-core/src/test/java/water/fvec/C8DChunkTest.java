@@ -127,10 +127,11 @@ public class C8DChunkTest extends TestUtil {
           assert j == nvals+2;
           Chunk c1 = nc1.compress();
           Chunk c2 = nc2.compress();
-          if (!(c1 instanceof C8DChunk))
+          if (!(c1 instanceof C8DChunk || c1 instanceof CXorChunk))
             System.out.println("exp = " + exponent + " b = " + bias + " c = " + c1.getClass().getSimpleName());
-          Assert.assertTrue(c1 instanceof C8DChunk);
-          Assert.assertTrue(c2 instanceof C8DChunk);
+          // Full doubles, raw or XOR-compressed (these ramps XOR well)
+          Assert.assertTrue(c1 instanceof C8DChunk || c1 instanceof CXorChunk);
+          Assert.assertTrue(c2 instanceof C8DChunk || c2 instanceof CXorChunk);
           for (int i = 0; i < expected.length; ++i) {
             Assert.assertEquals(expected[i], c1.atd(i), 0);
             Assert.assertEquals(expected[i], c2.atd(i), 0);
@@ -0,0 +1,126 @@
+package water.fvec;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.IcedUtils;
+import water.TestUtil;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class CBPChunkTest extends TestUtil {
+  @BeforeClass() public static void setup() { stall_till_cloudsize(1); }
+
+  @Test
+  public void test_inflate_impl() {
+    // Odd widths, so codes straddle bytes; around 0, with the largest value
+    // (one code below NA) in the last row, next to the padding
+    for (int bits : new int[]{3, 7, 13, 31}) {
+      for (int l = 0; l < 2; ++l) {
+        long min = -(1L << (bits - 1)), range = (1L << bits) - 2;
+        long[] vals = new long[1000];
+        Random rng = new Random(bits);
+        for (int i = 0; i < vals.length; ++i) vals[i] = min + (rng.nextLong() & Long.MAX_VALUE) % (range + 1);
+        vals[0] = min;
+        vals[999] = min + range;
+        NewChunk nc = new NewChunk(null, 0);
+        for (int i = 0; i < vals.length; ++i) {
+          if (l == 1 && i % 11 == 5) nc.addNA();
+          else nc.addNum(vals[i], 0);
+        }
+        Chunk cc = nc.compress();
+        Assert.assertTrue("bits = " + bits + ", " + cc.getClass().getSimpleName(), cc instanceof CBPChunk);
+        Assert.assertEquals(bits, ((CBPChunk) cc).bits());
+        Assert.assertEquals(CBPChunk.computeByteSize(1000, bits), cc._mem.length);
+        Assert.assertFalse(cc.hasFloat());
+        for (int i = 0; i < vals.length; ++i) {
+          if (l == 1 && i % 11 == 5) {
+            Assert.assertTrue(cc.isNA(i));
+            Assert.assertTrue(Double.isNaN(cc.atd(i)));
+          } else {
+            Assert.assertFalse(cc.isNA(i));
+            Assert.assertEquals(vals[i], cc.at8(i));
+          }
+        }
+
+        long[] ls = cc.getLongs(new long[987], 13, 1000, -1);
+        double[] ds = cc.getDoubles(new double[987], 13, 1000, -1);
+        for (int i = 13; i < 1000; ++i) {
+          long exp = l == 1 && i % 11 == 5 ? -1 : vals[i];
+          Assert.assertEquals(exp, ls[i - 13]);
+          Assert.assertEquals(exp, ds[i - 13], 0);
+        }
+        int[] is = cc.getIntegers(new int[987], 13, 1000, -1);
+        for (int i = 13; i < 1000; ++i) Assert.assertEquals(ls[i - 13], is[i - 13]);
+
+        nc = cc.extractRows(new NewChunk(null, 0), 0, 1000);
+        Chunk cc2 = nc.compress();
+        Assert.assertTrue(cc2 instanceof CBPChunk);
+        Assert.assertTrue(Arrays.equals(cc._mem, cc2._mem));
+        cc2 = IcedUtils.deepCopy(cc);
+        for (int i = 0; i < vals.length; ++i) Assert.assertEquals(cc.atd(i), cc2.atd(i), 0);
+      }
+    }
+  }
+
+  @Test
+  public void test_whole_bytes_not_packed() {
+    // 8 and 16 bits are as small in a C1 or C2 chunk
+    for (int bits : new int[]{8, 16}) {
+      NewChunk nc = new NewChunk(null, 0);
+      Random rng = new Random(bits);
+      for (int i = 0; i < 1000; ++i) nc.addNum(rng.nextInt((1 << bits) - 1), 0);
+      Chunk cc = nc.compress();
+      Assert.assertFalse(cc.getClass().getSimpleName(), cc instanceof CBPChunk);
+    }
+  }
+
+  @Test
+  public void test_categoricals() {
+    // 100 levels: 7 bits rather than a byte
+    NewChunk nc = new NewChunk(null, 0);
+    for (int i = 0; i < 4096; ++i) nc.addCategorical((i * 31) % 100);
+    Chunk cc = nc.compress();
+    Assert.assertTrue(cc.getClass().getSimpleName(), cc instanceof CBPChunk);
+    Assert.assertEquals(7, ((CBPChunk) cc).bits());
+    Assert.assertTrue(cc._mem.length < 4096 * 7 / 8 + 32);
+    for (int i = 0; i < 4096; ++i) Assert.assertEquals((i * 31) % 100, cc.at8(i));
+  }
+
+  @Test
+  public void test_set() {
+    // 5 bits: values 10..40 are codes 0..30, and NA is 31
+    long[] vals = new long[1000];
+    NewChunk nc = new NewChunk(null, 0);
+    for (int i = 0; i < vals.length; ++i) nc.addNum(vals[i] = 10 + (i * 11) % 21, 0);
+    Chunk cc = nc.compress();
+    Assert.assertTrue(cc instanceof CBPChunk);
+    Assert.assertEquals(5, ((CBPChunk) cc).bits());
+    Assert.assertTrue(cc.set_impl(5, 40L));  // Largest value below the NA code
+    Assert.assertFalse(cc.set_impl(5, 41L));
+    Assert.assertFalse(cc.set_impl(5, 9L));
+    Assert.assertFalse(cc.set_impl(5, 12.5));
+    Assert.assertTrue(cc.setNA_impl(6));
+    Assert.assertEquals(40, cc.at8(5));
+    Assert.assertTrue(cc.isNA(6));
+    // Neighbours sharing their bytes untouched
+    Assert.assertEquals(vals[4], cc.at8(4));
+    Assert.assertEquals(vals[7], cc.at8(7));
+
+    Vec vec = Vec.makeCon(0, 1000);
+    try {
+      Vec.Writer w = vec.open();
+      for (int i = 0; i < 1000; ++i) w.set(i, vals[i]);
+      w.close();
+      Assert.assertTrue(vec.chunkForChunkIdx(0) instanceof CBPChunk);
+      w = vec.open();
+      w.set(150, 1 << 20);
+      w.close();
+      Assert.assertEquals(1 << 20, vec.at8(150));
+      Assert.assertEquals(vals[151], vec.at8(151));
+    } finally {
+      vec.remove();
+    }
+  }
+}
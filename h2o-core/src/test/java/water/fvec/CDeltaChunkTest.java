@@ -0,0 +1,141 @@
+package water.fvec;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.IcedUtils;
+import water.TestUtil;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class CDeltaChunkTest extends TestUtil {
+  @BeforeClass() public static void setup() { stall_till_cloudsize(1); }
+
+  @Test
+  public void test_inflate_impl() {
+    // Millisecond timestamps, one per second with up to 40ms of jitter; 1000
+    // rows end in a partial block.  NAs at both ends of blocks.
+    int[] nas = new int[]{0, 31, 32, 63, 500, 999};
+    for (int l = 0; l < 2; ++l) {
+      long[] vals = new long[1000];
+      NewChunk nc = new NewChunk(null, 0);
+      for (int i = 0; i < vals.length; ++i) {
+        vals[i] = 1500000000000L + 1000L * i + (i * 7919L) % 41 - 20;
+        if (l == 1 && Arrays.binarySearch(nas, i) >= 0) nc.addNA();
+        else nc.addNum(vals[i], 0);
+      }
+      Chunk cc = nc.compress();
+      Assert.assertTrue(cc.getClass().getSimpleName(), cc instanceof CDeltaChunk);
+      Assert.assertFalse(cc.hasFloat());
+      // 7 bits of jitter and a checkpoint every 32 rows, rather than 8 bytes
+      Assert.assertTrue("" + cc._mem.length, cc._mem.length < vals.length * 2);
+
+      // Backwards, so each row is read from its checkpoint
+      for (int i = vals.length - 1; i >= 0; --i) {
+        if (l == 1 && Arrays.binarySearch(nas, i) >= 0) {
+          Assert.assertTrue(cc.isNA(i));
+          Assert.assertTrue(Double.isNaN(cc.atd(i)));
+        } else {
+          Assert.assertFalse(cc.isNA(i));
+          Assert.assertEquals(vals[i], cc.at8(i));
+        }
+      }
+
+      // Bulk reads starting and ending on and off block boundaries
+      int[][] ranges = new int[][]{{0, 1000}, {31, 33}, {32, 64}, {1, 999}, {992, 1000}, {40, 40}};
+      for (int[] r : ranges) {
+        long[] ls = cc.getLongs(new long[r[1] - r[0]], r[0], r[1], -1);
+        double[] ds = cc.getDoubles(new double[r[1] - r[0]], r[0], r[1], -1);
+        NewChunk ex = cc.extractRows(new NewChunk(null, 0), r[0], r[1]);
+        Assert.assertEquals(r[1] - r[0], ex._len);
+        for (int i = r[0]; i < r[1]; ++i) {
+          boolean na = cc.isNA(i);
+          Assert.assertEquals(na ? -1 : vals[i], ls[i - r[0]]);
+          Assert.assertEquals(na ? -1 : (double) vals[i], ds[i - r[0]], 0);
+          if (na) Assert.assertTrue(ex.isNA(i - r[0]));
+          else Assert.assertEquals(vals[i], ex.at8(i - r[0]));
+        }
+      }
+
+      Chunk cc2 = cc.extractRows(new NewChunk(null, 0), 0, 1000).compress();
+      Assert.assertTrue(cc2 instanceof CDeltaChunk);
+      Assert.assertTrue(Arrays.equals(cc._mem, cc2._mem));
+      cc2 = IcedUtils.deepCopy(cc);
+      for (int i = 0; i < vals.length; ++i) Assert.assertEquals(cc.atd(i), cc2.atd(i), 0);
+    }
+  }
+
+  @Test
+  public void test_regular_ids() {
+    // Fixed stride, with a gap: all blocks but one pack to 0 bits
+    NewChunk nc = new NewChunk(null, 0);
+    for (int i = 0; i < 10000; ++i) nc.addNum((1L << 40) + 3L * i + (i >= 5000 ? 1000000 : 0), 0);
+    Chunk cc = nc.compress();
+    Assert.assertTrue(cc.getClass().getSimpleName(), cc instanceof CDeltaChunk);
+    Assert.assertTrue("" + cc._mem.length, cc._mem.length < CDeltaChunk.blocks(10000) * CDeltaChunk.CP_SZ + 128);
+    long[] ls = cc.getLongs(new long[10000], 0, 10000, -1);
+    for (int i = 0; i < 10000; ++i) {
+      long exp = (1L << 40) + 3L * i + (i >= 5000 ? 1000000 : 0);
+      Assert.assertEquals(exp, ls[i]);
+      Assert.assertEquals(exp, cc.at8(i));
+    }
+
+    // Decreasing, spanning 0
+    nc = new NewChunk(null, 0);
+    for (int i = 0; i < 10000; ++i) nc.addNum(50001 - 20 * i, 0);
+    cc = nc.compress();
+    Assert.assertTrue(cc.getClass().getSimpleName(), cc instanceof CDeltaChunk);
+    double[] ds = cc.getDoubles(new double[9967], 33, 10000, -1);
+    for (int i = 33; i < 10000; ++i) {
+      Assert.assertEquals(50001 - 20 * i, ds[i - 33], 0);
+      Assert.assertEquals(50001 - 20 * i, cc.at8(i));
+    }
+  }
+
+  @Test
+  public void test_not_monotonic() {
+    NewChunk nc = new NewChunk(null, 0);
+    Random rng = new Random(42);
+    for (int i = 0; i < 1000; ++i) nc.addNum(rng.nextInt(100000), 0);
+    Assert.assertFalse(nc.compress() instanceof CDeltaChunk);
+    // Too short for a delta encoding
+    nc = new NewChunk(null, 0);
+    for (int i = 0; i < 50; ++i) nc.addNum(1500000000000L + 1000L * i + i % 7, 0);
+    Assert.assertFalse(nc.compress() instanceof CDeltaChunk);
+    // Narrow enough for constant-time encodings
+    nc = new NewChunk(null, 0);
+    for (int i = 0; i < 1000; ++i) nc.addNum(3 * i, 0);
+    Assert.assertFalse(nc.compress() instanceof CDeltaChunk);
+  }
+
+  @Test
+  public void test_set() {
+    long[] vals = new long[1000];
+    for (int i = 0; i < vals.length; ++i) vals[i] = 1500000000000L + 1000L * i + (i * 7919L) % 41 - 20;
+    Vec vec = Vec.makeCon(0, 1000);
+    try {
+      Vec.Writer w = vec.open();
+      for (int i = 0; i < 1000; ++i) w.set(i, vals[i]);
+      w.close();
+      Chunk cc = vec.chunkForChunkIdx(0);
+      Assert.assertTrue(cc instanceof CDeltaChunk);
+      // The current value is written in place, anything else inflates
+      Assert.assertTrue(cc.set_impl(32, vals[32]));
+      Assert.assertTrue(cc.set_impl(31, (double) vals[31]));
+      Assert.assertFalse(cc.set_impl(10, vals[10] + 1));
+      Assert.assertFalse(cc.set_impl(10, vals[10] + 0.5));
+      Assert.assertFalse(cc.setNA_impl(10));
+      w = vec.open();
+      w.set(150, 42);
+      w.setNA(151);
+      w.close();
+      Assert.assertEquals(42, vec.at8(150));
+      Assert.assertTrue(vec.isNA(151));
+      Assert.assertEquals(vals[152], vec.at8(152));
+      Assert.assertEquals(vals[999], vec.at8(999));
+    } finally {
+      vec.remove();
+    }
+  }
+}
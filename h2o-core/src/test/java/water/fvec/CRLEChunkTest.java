@@ -0,0 +1,134 @@
+package water.fvec;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.IcedUtils;
+import water.TestUtil;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class CRLEChunkTest extends TestUtil {
+  @BeforeClass() public static void setup() { stall_till_cloudsize(1); }
+
+  @Test
+  public void test_inflate_impl() {
+    for (int l = 0; l < 2; ++l) {
+      // Sorted keys beyond an int, 50 rows each; a leading run of NAs, a run
+      // of zeros and a trailing single row
+      NewChunk nc = new NewChunk(null, 0);
+      if (l == 1) nc.addNAs(20);
+      for (int k = 0; k < 20; ++k)
+        for (int i = 0; i < 50; ++i) nc.addNum((1L << 40) + 3 * k, 0);
+      nc.addZeros(50);
+      nc.addNum(7, 0);
+      int len = nc.len();
+      Chunk cc = nc.compress();
+      Assert.assertTrue(cc.getClass().getSimpleName(), cc instanceof CRLEChunk);
+      Assert.assertEquals(20 * l + 1051, cc._len);
+      Assert.assertFalse(cc.hasFloat());
+      Assert.assertEquals(CRLEChunk.computeByteSize(22 + l), cc._mem.length);
+
+      // First and last row of every run, out of order
+      for (int k = 19; k >= 0; --k) {
+        Assert.assertEquals((1L << 40) + 3 * k, cc.at8(20 * l + 50 * k + 49));
+        Assert.assertEquals((1L << 40) + 3 * k, cc.at8(20 * l + 50 * k));
+      }
+      if (l == 1) {
+        Assert.assertTrue(cc.isNA(0));
+        Assert.assertTrue(cc.isNA(19));
+        Assert.assertFalse(cc.isNA(20));
+      }
+      Assert.assertEquals(0, cc.at8(20 * l + 1000));
+      Assert.assertEquals(0, cc.at8(20 * l + 1049));
+      Assert.assertEquals(7, cc.at8(len - 1));
+
+      // From the middle of one run to the middle of another
+      double[] densevals = cc.getDoubles(new double[len - 20], 10, len - 10, -1);
+      for (int i = 10; i < len - 10; ++i) {
+        if (cc.isNA(i)) Assert.assertEquals(-1, densevals[i - 10], 0);
+        else Assert.assertEquals(cc.atd(i), densevals[i - 10], 0);
+      }
+
+      nc = cc.extractRows(new NewChunk(null, 0), 0, len);
+      Assert.assertEquals(len, nc._len);
+      Chunk cc2 = nc.compress();
+      Assert.assertTrue(cc2 instanceof CRLEChunk);
+      Assert.assertTrue(Arrays.equals(cc._mem, cc2._mem));
+      cc2 = IcedUtils.deepCopy(cc);
+      Assert.assertTrue(cc2 instanceof CRLEChunk);
+      for (int i = 0; i < len; ++i) Assert.assertEquals(cc.atd(i), cc2.atd(i), 0);
+    }
+  }
+
+  @Test
+  public void test_random_access() {
+    // Runs of 1 to 60 rows; random rows defeat the last-run hint
+    double[] vals = new double[3000];
+    for (int i = 0, k = 0; i < vals.length; ++k) {
+      int run = Math.min(1 + (k * 37) % 60, vals.length - i);
+      Arrays.fill(vals, i, i + run, k % 9 == 4 ? Double.NaN : k);
+      i += run;
+    }
+    NewChunk nc = new NewChunk(null, 0);
+    for (double v : vals) nc.addNum(v);
+    Chunk cc = nc.compress();
+    Assert.assertTrue(cc.getClass().getSimpleName(), cc instanceof CRLEChunk);
+    Random rng = new Random(42);
+    for (int n = 0; n < 10000; ++n) {
+      int i = rng.nextInt(vals.length);
+      Assert.assertEquals(Double.isNaN(vals[i]), cc.isNA(i));
+      Assert.assertEquals(vals[i], cc.atd(i), 0);
+    }
+    int[] rows = new int[]{2999, 0, 1, 1500, 1499, 1};
+    nc = cc.extractRows(new NewChunk(null, 0), rows);
+    for (int i = 0; i < rows.length; ++i) Assert.assertEquals(vals[rows[i]], nc.atd(i), 0);
+  }
+
+  @Test
+  public void test_floats() {
+    double[] vals = new double[4096];
+    for (int i = 0; i < vals.length; ++i)
+      vals[i] = Math.sqrt(i / 512);
+    NewChunk nc = new NewChunk(null, 0);
+    for (double v : vals) nc.addNum(v);
+    Chunk cc = nc.compress();
+    Assert.assertTrue(cc instanceof CRLEChunk);
+    Assert.assertTrue(cc.hasFloat());
+    Assert.assertTrue(cc._mem.length < 200);
+    for (int i = 0; i < vals.length; ++i) Assert.assertEquals(vals[i], cc.atd(i), 0);
+    double[] dense = cc.getDoubles(new double[vals.length], 0, vals.length);
+    Assert.assertArrayEquals(vals, dense, 0);
+  }
+
+  @Test
+  public void test_set_inflates() {
+    Vec vec = Vec.makeCon(0, 1000);
+    try {
+      Vec.Writer w = vec.open();
+      for (int i = 0; i < 1000; ++i) {
+        if (i >= 300 && i < 400) w.setNA(i);
+        else w.set(i, i / 100);
+      }
+      w.close();
+      Chunk cc = vec.chunkForChunkIdx(0);
+      Assert.assertTrue(cc instanceof CRLEChunk);
+      // The value a row already has, at either end of its run, is set in place
+      Assert.assertTrue(cc.set_impl(100, 1));
+      Assert.assertTrue(cc.set_impl(199, 1.0));
+      Assert.assertTrue(cc.setNA_impl(300));
+      Assert.assertFalse(cc.set_impl(199, 2));
+      Assert.assertFalse(cc.setNA_impl(200));
+      w = vec.open();
+      w.set(150, 42);
+      w.close();
+      Assert.assertEquals(42, vec.at8(150));
+      Assert.assertEquals(1, vec.at8(151));
+      Assert.assertTrue(vec.isNA(399));
+      Assert.assertEquals(9, vec.at8(999));
+    } finally {
+      vec.remove();
+    }
+  }
+}
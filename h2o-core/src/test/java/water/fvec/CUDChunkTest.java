@@ -76,4 +76,37 @@ public class CUDChunkTest extends TestUtil {
     Assert.assertTrue(cc2.isNA_abs(vals.length));
     Assert.assertTrue(Arrays.equals(cc._mem, cc2._mem));
   }
+
+  @Test
+  public void test_integers_bitpacked() {
+    // Status codes: few values, over a range too wide for a byte
+    long[] codes = new long[]{200, 201, 204, 301, 304, 400, 404, 500, 503};
+    NewChunk nc = new NewChunk(null, 0);
+    long[] vals = new long[1000];
+    for (int i = 0; i < vals.length; ++i) {
+      vals[i] = codes[(i * 31 + i / 7) % codes.length];
+      if (i % 97 == 0) nc.addNA();
+      else nc.addNum(vals[i], 0);
+    }
+    Chunk cc = nc.compress();
+    Assert.assertTrue(cc instanceof CUDChunk);
+    Assert.assertFalse(cc.hasFloat());
+    // 10 values (with NA) take 4 bits per row
+    Assert.assertEquals(CUDChunk.computeByteSize(10, vals.length), cc._mem.length);
+    Assert.assertTrue(cc._mem.length < 600);
+    int[] ints = cc.getIntegers(new int[vals.length], 0, vals.length, -1);
+    double[] ds = cc.getDoubles(new double[100], 900, 1000);
+    for (int i = 0; i < vals.length; ++i) {
+      if (i % 97 == 0) {
+        Assert.assertTrue(cc.isNA(i));
+        Assert.assertEquals(-1, ints[i]);
+      } else {
+        Assert.assertEquals(vals[i], cc.at8(i));
+        Assert.assertEquals(vals[i], ints[i]);
+      }
+      if (i >= 900) Assert.assertEquals(cc.atd(i), ds[i - 900], 0);
+    }
+    Chunk cc2 = cc.extractRows(new NewChunk(null, 0), 0, vals.length).compress();
+    Assert.assertTrue(Arrays.equals(cc._mem, cc2._mem));
+  }
 }
@@ -0,0 +1,146 @@
+package water.fvec;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.IcedUtils;
+import water.TestUtil;
+import water.util.UnsafeUtils;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class CXorChunkTest extends TestUtil {
+  @BeforeClass() public static void setup() { stall_till_cloudsize(1); }
+
+  @Test
+  public void test_inflate_impl() {
+    // A float sensor read as doubles: slowly changing, each reading repeated
+    // 3 times; 3000 rows end in a partial block.  NAs at both ends of blocks,
+    // including the checkpoint value of a block.
+    int[] nas = new int[]{0, 127, 128, 255, 1000, 2999};
+    for (int l = 0; l < 2; ++l) {
+      double[] vals = new double[3000];
+      NewChunk nc = new NewChunk(null, 0);
+      for (int i = 0; i < vals.length; ++i) {
+        vals[i] = l == 1 && Arrays.binarySearch(nas, i) >= 0 ? Double.NaN : (double) (float) (20 + 5 * Math.sin((i / 3) / 100.0));
+        nc.addNum(vals[i]);
+      }
+      Chunk cc = nc.compress();
+      Assert.assertTrue(cc.getClass().getSimpleName(), cc instanceof CXorChunk);
+      Assert.assertTrue(cc.hasFloat());
+      Assert.assertTrue("" + cc._mem.length, cc._mem.length < vals.length * 8 / 3);
+
+      // Backwards, then alternating between blocks, so each read decodes a block
+      for (int i = vals.length - 1; i >= 0; --i) {
+        Assert.assertEquals(Double.isNaN(vals[i]), cc.isNA(i));
+        Assert.assertEquals(vals[i], cc.atd(i), 0);
+      }
+      for (int i = 0; i < 128; ++i) {
+        Assert.assertEquals(vals[i], cc.atd(i), 0);
+        Assert.assertEquals(vals[2900 + i % 100], cc.atd(2900 + i % 100), 0);
+      }
+
+      // Bulk reads starting and ending on and off block boundaries
+      int[][] ranges = new int[][]{{0, 3000}, {127, 129}, {128, 256}, {1, 2999}, {2944, 3000}, {40, 40}};
+      for (int[] r : ranges) {
+        double[] ds = cc.getDoubles(new double[r[1] - r[0]], r[0], r[1], -1);
+        NewChunk ex = cc.extractRows(new NewChunk(null, 0), r[0], r[1]);
+        Assert.assertEquals(r[1] - r[0], ex._len);
+        for (int i = r[0]; i < r[1]; ++i) {
+          Assert.assertEquals(Double.isNaN(vals[i]) ? -1 : vals[i], ds[i - r[0]], 0);
+          Assert.assertEquals(vals[i], ex.atd(i - r[0]), 0);
+        }
+      }
+
+      Chunk cc2 = cc.extractRows(new NewChunk(null, 0), 0, 3000).compress();
+      Assert.assertTrue(cc2 instanceof CXorChunk);
+      Assert.assertTrue(Arrays.equals(cc._mem, cc2._mem));
+      cc2 = IcedUtils.deepCopy(cc);
+      for (int i = 0; i < vals.length; ++i) Assert.assertEquals(vals[i], cc2.atd(i), 0);
+    }
+  }
+
+  @Test
+  public void test_windows() {
+    // Sign and exponent changes, XORs with all 64 bits meaningful, and more
+    // than 31 leading zeros, among repeats
+    double[] vals = new double[1000];
+    Random rng = new Random(42);
+    for (int i = 0; i < vals.length; ++i)
+      vals[i] = i % 10 != 0 ? vals[i - 1] : Double.longBitsToDouble(rng.nextLong() >>> 2) * (rng.nextBoolean() ? -1 : 1);
+    vals[500] = Double.longBitsToDouble(~Double.doubleToLongBits(vals[499]) & ~(1L << 62));
+    vals[600] = Double.longBitsToDouble(Double.doubleToLongBits(vals[599]) ^ 1);
+    vals[601] = Double.longBitsToDouble(Double.doubleToLongBits(vals[600]) ^ 2);
+    NewChunk nc = new NewChunk(null, 0);
+    for (double v : vals) nc.addNum(v);
+    Chunk cc = nc.compress();
+    Assert.assertTrue(cc.getClass().getSimpleName(), cc instanceof CXorChunk);
+    for (int i = vals.length - 1; i >= 0; --i)
+      Assert.assertEquals(Double.doubleToLongBits(vals[i]), Double.doubleToLongBits(cc.atd(i)));
+    double[] ds = cc.getDoubles(new double[vals.length], 0, vals.length, -1);
+    for (int i = 0; i < vals.length; ++i)
+      Assert.assertEquals(Double.doubleToLongBits(vals[i]), Double.doubleToLongBits(ds[i]));
+  }
+
+  @Test
+  public void test_random_stays_raw() {
+    NewChunk nc = new NewChunk(null, 0);
+    Random rng = new Random(42);
+    for (int i = 0; i < 1000; ++i) nc.addNum(rng.nextDouble());
+    Assert.assertTrue(nc.compress() instanceof C8DChunk);
+  }
+
+  @Test
+  public void test_set() {
+    double[] vals = new double[1000];
+    for (int i = 0; i < vals.length; ++i) vals[i] = (double) (float) (20 + 5 * Math.sin((i / 3) / 100.0));
+    Vec vec = Vec.makeCon(0, 1000);
+    try {
+      Vec.Writer w = vec.open();
+      for (int i = 0; i < 1000; ++i) w.set(i, vals[i]);
+      w.close();
+      Chunk cc = vec.chunkForChunkIdx(0);
+      Assert.assertTrue(cc.getClass().getSimpleName(), cc instanceof CXorChunk);
+      // The current value is written in place, on either side of a
+      // checkpoint; anything else inflates
+      Assert.assertTrue(cc.set_impl(127, vals[127]));
+      Assert.assertTrue(cc.set_impl(128, (float) vals[128]));
+      Assert.assertFalse(cc.set_impl(10, vals[10] + 1));
+      Assert.assertFalse(cc.set_impl(10, 20L));
+      Assert.assertFalse(cc.setNA_impl(10));
+      w = vec.open();
+      w.set(150, 0.5);
+      w.setNA(151);
+      w.close();
+      Assert.assertEquals(0.5, vec.at(150), 0);
+      Assert.assertTrue(vec.isNA(151));
+      Assert.assertEquals(vals[152], vec.at(152), 0);
+      Assert.assertEquals(vals[999], vec.at(999), 0);
+    } finally {
+      vec.remove();
+    }
+  }
+
+  @Test
+  public void test_limit_before_repeats() {
+    // Noise up to about the limit, then a long run of one value to the end:
+    // every limit either gives up, or fits, repeats included
+    int len = 4000;
+    byte[] raw = new byte[len * 8];
+    Random rng = new Random(42);
+    for (int i = 0; i < len; ++i)
+      UnsafeUtils.set8d(raw, i * 8, i < 1000 ? rng.nextDouble() : 0.25);
+    int fits = 0;
+    for (int limit = 7000; limit < 8200; limit++) {
+      byte[] xs = CXorChunk.compress(raw, len, limit);
+      if (xs == null) continue;
+      fits++;
+      Assert.assertTrue(xs.length + " > " + limit, xs.length <= limit + 1);
+      Chunk cc = new CXorChunk(xs);
+      for (int i = 0; i < len; ++i)
+        Assert.assertEquals(UnsafeUtils.get8d(raw, i * 8), cc.atd(i), 0);
+    }
+    Assert.assertTrue(fits > 0);
+  }
+}
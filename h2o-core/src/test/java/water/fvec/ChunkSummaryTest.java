@@ -36,5 +36,21 @@ public class ChunkSummaryTest extends TestUtil {
     f.remove();
   }
 
+  @Test public void testSavedBytes() {
+    Vec v = Vec.makeCon(0, 10000);
+    Frame f = new Frame(v);
+    try {
+      Vec.Writer w = v.open();
+      for (int i = 0; i < 10000; ++i) w.set(i, i / 1000); // Sorted, in runs
+      w.close();
+      ChunkSummary cs = FrameUtils.chunkSummary(f);
+      TwoDimTable table = cs.toTwoDimTableChunkTypes();
+      Assert.assertEquals("CRLE", table.get(0, 0));
+      Assert.assertEquals("Saved vs 64-bit Reals", table.getColHeaders()[6]);
+      Assert.assertTrue(cs.savedBytes() > 0.9 * 8 * 10000);
+    } finally {
+      f.remove();
+    }
+  }
 }
 
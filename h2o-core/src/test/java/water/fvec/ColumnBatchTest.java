@@ -0,0 +1,163 @@
+package water.fvec;
+
+import org.junit.*;
+
+import water.MRTask;
+import water.TestUtil;
+import water.rapids.Rapids;
+import water.rapids.ast.AstFunction;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ColumnBatchTest extends TestUtil {
+  @BeforeClass() public static void setup() { stall_till_cloudsize(1); }
+
+  // Chunks of several compressions, all longer than a batch
+  private static Chunk[] chunks( int len ) {
+    Random r = new Random(42);
+    NewChunk[] ncs = new NewChunk[8];
+    for( int c = 0; c < ncs.length; c++ ) ncs[c] = new NewChunk(null, 0);
+    for( int i = 0; i < len; i++ ) {
+      ncs[0].addNum(r.nextInt(200), 0);                    // C1N
+      if( i % 7 == 0 ) ncs[1].addNA(); else ncs[1].addNum(r.nextInt(250), 0); // C1 with NAs
+      ncs[2].addNum(r.nextInt(30000) - 15000, 0);          // C2
+      ncs[3].addNum(r.nextLong(), 0);                      // C8
+      if( i % 11 == 0 ) ncs[4].addNA(); else ncs[4].addNum(r.nextGaussian()); // C8D with NAs
+      ncs[5].addNum(i % 97 == 0 ? 3 : 0, 0);               // Sparse
+      ncs[6].addNum(r.nextInt(100), -1);                   // C1S, decimals
+      ncs[7].addNum(i % 13 == 0 ? Double.NaN : Math.PI * r.nextInt(10)); // CUD, few unique doubles
+    }
+    Chunk[] cs = new Chunk[ncs.length];
+    for( int c = 0; c < ncs.length; c++ ) cs[c] = ncs[c].compress();
+    assertTrue(cs[0] instanceof C1NChunk);
+    assertTrue(cs[3] instanceof C8Chunk);
+    assertTrue(cs[5].isSparseZero());
+    assertTrue(cs[7] instanceof CUDChunk);
+    return cs;
+  }
+
+  @Test public void testDecodesAllChunkTypes() {
+    int len = 3*ColumnBatch.BATCH_ROWS + 17;
+    Chunk[] cs = chunks(len);
+    ColumnBatch cb = new ColumnBatch(cs);
+    int rows = 0;
+    while( cb.next() ) {
+      assertEquals(rows, cb.start());
+      for( int c = 0; c < cs.length; c++ ) {
+        double[] ds = cb.doubles(c);
+        long[] nas = cb.nas(c);
+        for( int i = 0; i < cb.len(); i++ ) {
+          int row = cb.start() + i;
+          assertEquals(cs[c].isNA(row), ColumnBatch.isNA(nas, i));
+          if( cs[c].isNA(row) ) assertTrue(Double.isNaN(ds[i]));
+          else assertEquals(cs[c].atd(row), ds[i], 0);
+        }
+        if( cs[c].hasFloat() ) continue;
+        long[] ls = cb.longs(c);
+        for( int i = 0; i < cb.len(); i++ ) {
+          int row = cb.start() + i;
+          assertEquals(cs[c].isNA(row) ? 0 : cs[c].at8(row), ls[i]);
+        }
+      }
+      rows += cb.len();
+    }
+    assertEquals(len, rows);
+    // Walking again gives the same values
+    cb.rewind();
+    assertTrue(cb.next());
+    assertEquals(cs[3].at8(0), cb.longs(3)[0]);
+  }
+
+  @Test public void testWrappedChunks() {
+    // Transformed on the fly, row by row; batches and rollups see the same values
+    Vec v = Vec.makeSeq(0, 3*ColumnBatch.BATCH_ROWS + 17);
+    Vec iv = null;
+    try {
+      v.set(5, Double.NaN);
+      iv = new TransformWrappedVec(v, (AstFunction) Rapids.parse("{ x . (- 1 x) }"));
+      assertEquals(1, iv.naCnt());
+      assertEquals(1 - v.mean(), iv.mean(), 1e-9);
+      assertEquals(1 - v.max(), iv.min(), 0);
+      for( int cidx = 0; cidx < iv.nChunks(); cidx++ ) {
+        Chunk c = iv.chunkForChunkIdx(cidx);
+        ColumnBatch cb = new ColumnBatch(new Chunk[]{c});
+        while( cb.next() ) {
+          double[] ds = cb.doubles(0);
+          for( int i = 0; i < cb.len(); i++ ) assertEquals(c.atd(cb.start() + i), ds[i], 0);
+        }
+      }
+    } finally {
+      if( iv != null ) iv.remove();
+      v.remove();
+    }
+  }
+
+  @Test public void testNoNAsNoBitmap() {
+    Chunk[] cs = chunks(100);
+    ColumnBatch cb = new ColumnBatch(cs);
+    assertTrue(cb.next());
+    assertNull(cb.nas(0));      // C1N has no NAs at all
+    assertNotNull(cb.nas(1));
+    assertFalse(cb.next());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testStringsNotDecoded() {
+    NewChunk nc = new NewChunk(null, 0);
+    nc.addStr("a");
+    ColumnBatch cb = new ColumnBatch(new Chunk[]{nc.compress()});
+    assertTrue(cb.next());
+    cb.doubles(0);
+  }
+
+  @Test public void testAddNumsAsAddNum() {
+    double[] ds = new double[2500];
+    for( int i = 0; i < ds.length; i++ ) ds[i] = i % 13 == 0 ? Double.NaN : i % 300;
+    NewChunk nc1 = new NewChunk(null, 0), nc2 = new NewChunk(null, 0);
+    for( double d : ds ) nc1.addNum(d);
+    nc2.addNums(ds, 0, 1000);
+    nc2.addNums(ds, 1000, ds.length - 1000);
+    Chunk c1 = nc1.compress(), c2 = nc2.compress();
+    assertEquals(c1.getClass(), c2.getClass());
+    assertEquals(c1._len, c2._len);
+    for( int i = 0; i < ds.length; i++ ) {
+      assertEquals(c1.isNA(i), c2.isNA(i));
+      if( !c1.isNA(i) ) assertEquals(c1.atd(i), c2.atd(i), 0);
+    }
+  }
+
+  private static class Sums extends MRTask<Sums> {
+    double _chunkSum, _batchSum;
+    long _nas;
+    @Override public void map( Chunk c ) {
+      for( int i = 0; i < c._len; i++ ) if( !c.isNA(i) ) _chunkSum += c.atd(i);
+    }
+    @Override public void map( ColumnBatch cb ) {
+      while( cb.next() ) {
+        double[] xs = cb.doubles(0);
+        long[] nas = cb.nas(0);
+        for( int i = 0; i < cb.len(); i++ )
+          if( ColumnBatch.isNA(nas, i) ) _nas++;
+          else _batchSum += xs[i];
+      }
+    }
+    @Override public void reduce( Sums s ) { _chunkSum += s._chunkSum; _batchSum += s._batchSum; _nas += s._nas; }
+  }
+
+  @Test public void testMapBatches() {
+    Vec v = Vec.makeSeq(0, 100000);
+    try {
+      double sum = v.mean()*v.length() - v.at(5) - v.at(50000);
+      v.set(5, Double.NaN);
+      v.set(50000, Double.NaN);
+      Sums s = new Sums().doAll(v);
+      assertEquals(2, s._nas);
+      assertEquals(s._chunkSum, s._batchSum, 1e-6);
+      assertEquals(sum, s._batchSum, 1e-6);
+    } finally {
+      v.remove();
+    }
+  }
+}
@@ -0,0 +1,67 @@
+package water.init;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.H2O;
+import water.MRTask;
+import water.TestUtil;
+import water.TimeLine;
+import water.fvec.Chunk;
+import water.fvec.Frame;
+import water.fvec.Vec;
+
+import java.io.StringWriter;
+import java.util.HashMap;
+
+import static org.junit.Assert.*;
+
+public class TimelineTraceTest extends TestUtil {
+  @BeforeClass public static void setup() { stall_till_cloudsize(1); }
+
+  private static class Count extends MRTask<Count> {
+    long _n;
+    @Override public void map(Chunk c) { _n += c._len; }
+    @Override public void reduce(Count that) { _n += that._n; }
+  }
+
+  @Test public void testChromeTrace() throws Exception {
+    Frame fr = null;
+    try {
+      fr = new Frame(Vec.makeSeq(10000, false));
+      assertEquals(10000, new Count().doAll(fr)._n);
+    } finally {
+      if (fr != null) fr.delete();
+    }
+    Thread.sleep(3000); // Snapshots are reused for 3 sec
+    StringWriter out = new StringWriter();
+    TimelineTrace.write(new TimelineSnapshot(H2O.CLOUD, TimeLine.system_snapshot()), out);
+    JsonObject trace = new JsonParser().parse(out.toString()).getAsJsonObject();
+    JsonArray events = trace.getAsJsonArray("traceEvents");
+
+    int processes = 0, tasks = 0, rpcs = 0, flows = 0;
+    HashMap<Long, Double> begins = new HashMap<>();
+    for (JsonElement je : events) {
+      JsonObject e = je.getAsJsonObject();
+      String ph = e.get("ph").getAsString();
+      if (ph.equals("M") && e.get("name").getAsString().equals("process_name")) processes++;
+      if (ph.equals("b")) begins.put(e.get("id").getAsLong(), e.get("ts").getAsDouble());
+      if (ph.equals("e")) // Spans end after they begin
+        assertTrue(e.toString(), e.get("ts").getAsDouble() >= begins.get(e.get("id").getAsLong()));
+      if (ph.equals("b") && e.get("cat").getAsString().equals("mrtask") &&
+          e.getAsJsonObject("args").get("task").getAsString().equals(Count.class.getName())) tasks++;
+      if (ph.equals("b") && e.get("cat").getAsString().equals("rpc")) rpcs++;
+      if (ph.equals("f")) flows++;
+    }
+    assertEquals(H2O.CLOUD.size(), processes);
+    // The local part of the task, on every node
+    assertEquals(H2O.CLOUD.size(), tasks);
+    if (H2O.CLOUD.size() > 1) { // Sent to the other nodes, and answered
+      assertTrue("rpcs " + rpcs, rpcs > 0);
+      assertTrue("flows " + flows, flows > 0);
+    }
+  }
+}
@@ -0,0 +1,152 @@
+package water.network;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+import static water.util.FileUtils.getFile;
+
+public class CompressedSocketChannelTest {
+
+    // Mix of compressible runs and random bytes, written in uneven pieces
+    private static byte[] payload() {
+        Random r = new Random(0xC0DEC);
+        byte[] b = new byte[3 * 1024 * 1024 + 17];
+        for (int i = 0; i < b.length; ) {
+            int run = 1 + r.nextInt(20000);
+            boolean random = r.nextInt(4) == 0;
+            for (int j = 0; j < run && i < b.length; j++, i++)
+                b[i] = random ? (byte) r.nextInt() : (byte) (j % 7);
+        }
+        return b;
+    }
+
+    private static void roundTrip(final ByteChannel sender, ByteChannel receiver) throws Exception {
+        final byte[] data = payload();
+        ExecutorService ex = Executors.newSingleThreadExecutor();
+        try {
+            Future<Void> sent = ex.submit(new Callable<Void>() {
+                @Override public Void call() throws IOException {
+                    Random r = new Random(1);
+                    int off = 0;
+                    while (off < data.length) {
+                        int len = Math.min(data.length - off, r.nextBoolean() ? r.nextInt(100) + 1 : r.nextInt(600 * 1024));
+                        ByteBuffer bb = r.nextBoolean() ? ByteBuffer.wrap(data, off, len) : ByteBuffer.allocateDirect(len);
+                        if (bb.isDirect()) { bb.put(data, off, len); bb.flip(); }
+                        assertEquals(len, sender.write(bb));
+                        assertFalse(bb.hasRemaining());
+                        off += len;
+                    }
+                    return null;
+                }
+            });
+            byte[] got = new byte[data.length];
+            ByteBuffer dst = ByteBuffer.allocate(64 * 1024);
+            int off = 0;
+            while (off < got.length) {
+                dst.clear();
+                dst.limit(Math.min(dst.capacity(), got.length - off));
+                int n = receiver.read(dst);
+                assertTrue(n > 0);
+                dst.flip();
+                dst.get(got, off, n);
+                off += n;
+            }
+            sent.get();
+            assertTrue(Arrays.equals(data, got));
+        } finally {
+            ex.shutdownNow();
+        }
+    }
+
+    private static ServerSocketChannel listen() throws IOException {
+        ServerSocketChannel ssc = ServerSocketChannel.open();
+        ssc.socket().bind(new InetSocketAddress("127.0.0.1", 0));
+        return ssc;
+    }
+
+    @Test
+    public void testPlainRoundTrip() throws Exception {
+        ServerSocketChannel ssc = listen();
+        SocketChannel client = SocketChannel.open(ssc.socket().getLocalSocketAddress());
+        SocketChannel server = ssc.accept();
+        long raw = CompressedSocketChannel.STATS.codec_raw_bytes.get();
+        long packed = CompressedSocketChannel.STATS.codec_packed_bytes.get();
+        try {
+            roundTrip(new CompressedSocketChannel(client), new CompressedSocketChannel(server));
+            long rawDelta = CompressedSocketChannel.STATS.codec_raw_bytes.get() - raw;
+            long packedDelta = CompressedSocketChannel.STATS.codec_packed_bytes.get() - packed;
+            assertTrue(rawDelta > 0);
+            assertTrue("packed " + packedDelta + " of " + rawDelta, packedDelta < rawDelta / 2);
+            assertTrue(SocketChannelUtils.isSocketChannel(new CompressedSocketChannel(client)));
+            assertSame(client, SocketChannelUtils.underlyingSocketChannel(new CompressedSocketChannel(client)));
+        } finally {
+            client.close();
+            server.close();
+            ssc.close();
+        }
+    }
+
+    @Test
+    public void testCleanEndOfStream() throws Exception {
+        ServerSocketChannel ssc = listen();
+        SocketChannel client = SocketChannel.open(ssc.socket().getLocalSocketAddress());
+        SocketChannel server = ssc.accept();
+        try {
+            new CompressedSocketChannel(client).write(ByteBuffer.wrap(new byte[]{1, 2, 3}));
+            client.close();
+            CompressedSocketChannel in = new CompressedSocketChannel(server);
+            ByteBuffer bb = ByteBuffer.allocate(16);
+            assertEquals(3, in.read(bb));
+            assertEquals(-1, in.read(bb));
+        } finally {
+            server.close();
+            ssc.close();
+        }
+    }
+
+    @Test
+    public void testOverSSL() throws Exception, SSLContextException {
+        SSLProperties props = new SSLProperties();
+        props.put("h2o_ssl_protocol", SecurityUtils.defaultTLSVersion());
+        props.put("h2o_ssl_jks_internal", getFile("src/test/resources/keystore.jks").getPath());
+        props.put("h2o_ssl_jks_password", "password");
+        props.put("h2o_ssl_jts", getFile("src/test/resources/cacerts.jks").getPath());
+        props.put("h2o_ssl_jts_password", "password");
+        final SSLSocketChannelFactory factory = new SSLSocketChannelFactory(props);
+
+        final ServerSocketChannel ssc = listen();
+        final SocketChannel client = SocketChannel.open(ssc.socket().getLocalSocketAddress());
+        final SocketChannel server = ssc.accept();
+        ExecutorService ex = Executors.newSingleThreadExecutor();
+        try {
+            // Both ends handshake at once
+            Future<ByteChannel> clientSSL = ex.submit(new Callable<ByteChannel>() {
+                @Override public ByteChannel call() throws IOException {
+                    return factory.wrapClientChannel(client, "127.0.0.1", ssc.socket().getLocalPort());
+                }
+            });
+            ByteChannel serverSSL = factory.wrapServerChannel(server);
+            CompressedSocketChannel sender = new CompressedSocketChannel(clientSSL.get());
+            assertSame(client, SocketChannelUtils.underlyingSocketChannel(sender));
+            roundTrip(sender, new CompressedSocketChannel(serverSSL));
+        } finally {
+            ex.shutdownNow();
+            client.close();
+            server.close();
+            ssc.close();
+        }
+    }
+}
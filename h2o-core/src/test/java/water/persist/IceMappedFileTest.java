@@ -0,0 +1,151 @@
+package water.persist;
+
+import static org.junit.Assert.*;
+import org.junit.*;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+
+import water.Key;
+import water.TestUtil;
+
+public class IceMappedFileTest extends TestUtil {
+  @BeforeClass static public void setup() { stall_till_cloudsize(1); }
+
+  @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+  private static byte[] bytes(int len, int seed) {
+    byte[] b = new byte[len];
+    for (int i = 0; i < len; i++) b[i] = (byte) (i * 31 + seed);
+    return b;
+  }
+
+  @Test public void testStoreLoadDelete() throws Exception {
+    File f = new File(tmp.getRoot(), "spill.mmap");
+    IceMappedFile mf = new IceMappedFile(f, 16 * IceMappedFile.PAGE);
+    try {
+      Key[] keys = new Key[20];
+      for (int i = 0; i < keys.length; i++) {
+        keys[i] = Key.make("mmap" + i);
+        mf.store(keys[i], bytes(1000 * i + 7, i));
+      }
+      assertTrue(f.length() > 16 * IceMappedFile.PAGE); // Spans more than one segment
+      for (int i = 0; i < keys.length; i++)
+        assertArrayEquals(bytes(1000 * i + 7, i), mf.load(keys[i]));
+      long used = mf.usedBytes();
+      mf.delete(keys[5]);
+      assertNull(mf.load(keys[5]));
+      assertTrue(mf.usedBytes() < used);
+      // Freed slot is recycled, file does not grow
+      long len = f.length();
+      mf.store(Key.make("mmapNew"), bytes(5000, 42));
+      assertEquals(len, f.length());
+      assertArrayEquals(bytes(5000, 42), mf.load(Key.make("mmapNew")));
+      // Overwriting a Key replaces its contents
+      mf.store(keys[3], bytes(10, 3));
+      assertTrue(Arrays.equals(bytes(10, 3), mf.load(keys[3])));
+    } finally {
+      mf.close();
+    }
+    assertFalse(f.exists());
+  }
+
+  @Test public void testPinDefersRecycling() throws Exception {
+    File f = new File(tmp.getRoot(), "spill.mmap");
+    IceMappedFile mf = new IceMappedFile(f, 16 * IceMappedFile.PAGE);
+    try {
+      Key k = Key.make("mmapPin");
+      mf.store(k, bytes(5000, 1));
+      long[] slot = mf.pin(k);
+      assertNotNull(slot);
+      assertNull(mf.pin(Key.make("mmapMissing")));
+      mf.delete(k);
+      assertNull(mf.pin(k));
+      // The deleted slot is not handed out while pinned: the view stays intact
+      mf.store(Key.make("mmapOther"), bytes(5000, 2));
+      byte[] b = new byte[5000];
+      mf.view(slot).get(b);
+      assertArrayEquals(bytes(5000, 1), b);
+      mf.unpin(slot);
+      // Now it is recycled, and the file does not grow
+      long len = f.length();
+      mf.store(Key.make("mmapThird"), bytes(5000, 3));
+      assertEquals(len, f.length());
+    } finally {
+      mf.close();
+    }
+  }
+
+  @Test public void testLoadRacingDelete() throws Exception {
+    File f = new File(tmp.getRoot(), "spill.mmap");
+    final IceMappedFile mf = new IceMappedFile(f, 16 * IceMappedFile.PAGE);
+    try {
+      final Key k = Key.make("mmapRace");
+      mf.store(k, bytes(60000, 1));
+      // Deleting and storing other Keys recycles the same slot over and over
+      Thread writer = new Thread() {
+        @Override public void run() {
+          try {
+            for (int i = 0; i < 20000; i++) {
+              mf.delete(k);
+              Key other = Key.make("mmapRace" + (i & 1));
+              mf.store(other, bytes(60000, 2));
+              mf.delete(other);
+              mf.store(k, bytes(60000, 1));
+            }
+          } catch (java.io.IOException e) {
+            throw new RuntimeException(e);
+          }
+        }
+      };
+      writer.start();
+      byte[] expected = bytes(60000, 1);
+      while (writer.isAlive()) {
+        byte[] b = mf.load(k);
+        if (b != null) assertArrayEquals(expected, b); // Never another Key's bytes
+      }
+      writer.join();
+    } finally {
+      mf.close();
+    }
+    assertFalse(f.exists());
+  }
+
+  @Test public void testStoreRacingClose() throws Exception {
+    File f = new File(tmp.getRoot(), "spill.mmap");
+    final IceMappedFile mf = new IceMappedFile(f, 16 * IceMappedFile.PAGE);
+    final Throwable[] failure = new Throwable[1];
+    final boolean[] stop = new boolean[1];
+    // Stores keep growing and mapping the file while it is closed under them
+    Thread writer = new Thread() {
+      @Override public void run() {
+        try {
+          for (int i = 0; !stop[0]; i++) {
+            Key k = Key.make("mmapClose" + (i & 63));
+            try {
+              mf.store(k, bytes(20000, i));
+              byte[] b = mf.load(k);
+              if (b != null) assertArrayEquals(bytes(20000, i), b);
+            } catch (java.io.IOException ignore) { } // Refused while closing
+          }
+        } catch (Throwable t) {
+          failure[0] = t;
+        }
+      }
+    };
+    writer.start();
+    try {
+      for (int i = 0; i < 200 && failure[0] == null; i++) {
+        Thread.sleep(1);
+        mf.close();
+      }
+    } finally {
+      stop[0] = true;
+      writer.join();
+      mf.close();
+    }
+    if (failure[0] != null) throw new AssertionError(failure[0]);
+    assertFalse(f.exists());
+  }
+}
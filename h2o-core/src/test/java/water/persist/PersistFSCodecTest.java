@@ -0,0 +1,44 @@
+package water.persist;
+
+import static org.junit.Assert.*;
+import org.junit.*;
+import org.junit.rules.TemporaryFolder;
+
+import water.Key;
+import water.TestUtil;
+import water.Value;
+
+public class PersistFSCodecTest extends TestUtil {
+  @BeforeClass static public void setup() { stall_till_cloudsize(1); }
+
+  @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+  private void checkRoundTrip(boolean mmap) throws Exception {
+    PersistManager.PersistStatsEntry stats = new PersistManager.PersistStatsEntry();
+    PersistFS fs = new PersistFS(tmp.newFolder(), mmap, SpillCodec.LZ4, stats);
+    try {
+      byte[] packable = new byte[100000];
+      for (int i = 0; i < packable.length; i += 10) packable[i] = (byte) i;
+      byte[] noise = new byte[5000];
+      new java.util.Random(42).nextBytes(noise);
+      Value v1 = new Value(Key.make("codec1"), packable);
+      Value v2 = new Value(Key.make("codec2"), noise);
+      fs.store(v1);
+      fs.store(v2);
+      assertArrayEquals(packable, fs.load(v1));
+      assertArrayEquals(noise, fs.load(v2));
+      assertEquals("lz4", stats.codec);
+      assertEquals(packable.length + noise.length, stats.codec_raw_bytes.get());
+      assertTrue(stats.compressionRatio() < 0.5);
+      assertEquals(packable.length + noise.length, stats.codec_decoded_bytes.get());
+      fs.delete(v1);
+      fs.delete(v2);
+    } finally {
+      fs.cleanUp();
+    }
+  }
+
+  @Test public void testFiles() throws Exception { checkRoundTrip(false); }
+
+  @Test public void testMapped() throws Exception { checkRoundTrip(true); }
+}
@@ -0,0 +1,148 @@
+package water.rapids;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.Scope;
+import water.TestUtil;
+import water.fvec.Frame;
+import water.fvec.TestFrameBuilder;
+import water.fvec.Vec;
+
+import static org.junit.Assert.*;
+
+public class FusionTest extends TestUtil {
+  @BeforeClass
+  static public void setup() {
+    stall_till_cloudsize(1);
+  }
+
+  private static final double NA = Double.NaN;
+  private static final double[] A = ard(1, 2.5, NA, -4, 0, 9), B = ard(2, 0.5, 3, NA, 7, 1);
+
+  private int _tmps;
+
+  private Frame exec(Session sess, String expr) {
+    return Rapids.exec("(tmp= fused_" + (_tmps++) + " " + expr + ")", sess).getFrame();
+  }
+
+  private static void assertCol(double[] exp, Vec v) {
+    assertEquals(exp.length, v.length());
+    for (int i = 0; i < exp.length; i++)
+      if (Double.isNaN(exp[i])) assertTrue(v.isNA(i));
+      else assertEquals(exp[i], v.at(i), 1e-12);
+  }
+
+  private static Frame numbers(Session sess) {
+    return Scope.track(new TestFrameBuilder()
+            .withName("nums", sess)
+            .withColNames("A", "B")
+            .withVecTypes(Vec.T_NUM, Vec.T_NUM)
+            .withDataForCol(0, A)
+            .withDataForCol(1, B)
+            .withChunkLayout(2, 3, 1)
+            .build());
+  }
+
+  @Test
+  public void testChains() {
+    Scope.enter();
+    Session sess = new Session();
+    try {
+      numbers(sess);
+      double[] exp = new double[A.length], exp2 = new double[A.length];
+      for (int i = 0; i < A.length; i++) {
+        exp[i] = Math.log(Math.abs(A[i] * 2 + B[i]) + 1);
+        exp2[i] = Math.sqrt(Math.abs(B[i] - 1)) < 1 ? 1 : 0;
+      }
+      Frame res = exec(sess, "(log (+ (abs (+ (* (cols nums 0) 2) (cols nums 1))) 1))");
+      assertEquals(1, res.numCols());
+      assertArrayEquals(new String[]{"log(abs(A))"}, res.names());
+      assertCol(exp, res.vec(0));
+      res = exec(sess, "(< (sqrt (abs (- (cols nums 1) 1))) 1)");
+      assertArrayEquals(new String[]{"sqrt(abs(B))"}, res.names());
+      assertCol(exp2, res.vec(0));
+
+      // Widening a column, and a number, to the whole frame
+      res = exec(sess, "(* (- nums (cols nums 1)) (+ 1 1))");
+      assertArrayEquals(new String[]{"A", "B"}, res.names());
+      for (int i = 0; i < A.length; i++) {
+        assertEquals(Double.isNaN(A[i] - B[i]), res.vec(0).isNA(i));
+        if (!Double.isNaN(A[i] - B[i])) assertEquals((A[i] - B[i]) * 2, res.vec(0).at(i), 0);
+        assertEquals(Double.isNaN(B[i]) ? 0 : 1, res.vec(1).isNA(i) ? 0 : 1);
+        if (!Double.isNaN(B[i])) assertEquals(0, res.vec(1).at(i), 0);
+      }
+      // Numbers alone are not fused
+      assertEquals(7, Rapids.exec("(+ (* 2 3) 1)", sess).getNum(), 0);
+    } finally {
+      sess.end(null);
+      Scope.exit();
+    }
+  }
+
+  @Test
+  public void testUnfusableLeaves() {
+    Scope.enter();
+    Session sess = new Session();
+    try {
+      numbers(sess);
+      Scope.track(new TestFrameBuilder()
+              .withName("cats", sess)
+              .withColNames("C")
+              .withVecTypes(Vec.T_CAT)
+              .withDataForCol(0, ar("a", "b", "a", "c", "b", "a"))
+              .withChunkLayout(2, 3, 1)
+              .build());
+      // Arithmetic on categoricals gives NAs, as unfused
+      Frame res = exec(sess, "(+ (* cats 2) (cols nums 0))");
+      for (int i = 0; i < A.length; i++) assertTrue(res.vec(0).isNA(i));
+      // Comparisons of categoricals work
+      res = exec(sess, "(* (== cats 'a') (cols nums 1))");
+      assertCol(ard(2, 0, 3, NA, 0, 1), res.vec(0));
+      // Different rows fail as unfused
+      try {
+        exec(sess, "(+ (* (cols nums 0) 2) (rows nums [0:3]))");
+        fail();
+      } catch (IllegalArgumentException expected) {
+        assertTrue(expected.getMessage(), expected.getMessage().contains("same rows"));
+      }
+      // Short-circuit logicals are not fused
+      res = exec(sess, "(* (&& (cols nums 0) 1) 2)");
+      assertCol(ard(2, 2, NA, 2, 0, 2), res.vec(0));
+    } finally {
+      sess.end(null);
+      Scope.exit();
+    }
+  }
+
+  @Test
+  public void testEqualityAsUnfused() {
+    Scope.enter();
+    Session sess = new Session();
+    try {
+      numbers(sess);
+      Scope.track(new TestFrameBuilder()
+              .withName("times", sess)
+              .withColNames("T")
+              .withVecTypes(Vec.T_TIME)
+              .withDataForCol(0, ard(5, 6, 5, 7, 5, 8))
+              .withChunkLayout(2, 3, 1)
+              .build());
+      // == and != against a number name their columns, and compare NAs, on their own
+      Frame res = exec(sess, "(== (* (cols nums 0) 2) 5)");
+      assertArrayEquals(new String[]{"C1"}, res.names());
+      assertCol(ard(0, 1, 0, 0, 0, 0), res.vec(0));
+      res = exec(sess, "(!= (* (cols nums 0) 2) 5)");
+      assertArrayEquals(new String[]{"C1"}, res.names());
+      assertCol(ard(1, 0, 1, 1, 1, 1), res.vec(0));
+      // ... and are all zeros on time columns
+      res = exec(sess, "(* (== times 5) 2)");
+      assertArrayEquals(new String[]{"C1"}, res.names());
+      assertCol(ard(0, 0, 0, 0, 0, 0), res.vec(0));
+      res = exec(sess, "(+ (!= times 5) 1)");
+      assertCol(ard(1, 1, 1, 1, 1, 1), res.vec(0));
+    } finally {
+      sess.end(null);
+      Scope.exit();
+    }
+  }
+}
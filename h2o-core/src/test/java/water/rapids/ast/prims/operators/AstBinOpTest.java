@@ -0,0 +1,111 @@
+package water.rapids.ast.prims.operators;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.Scope;
+import water.TestUtil;
+import water.fvec.Frame;
+import water.fvec.TestFrameBuilder;
+import water.fvec.Vec;
+import water.rapids.Rapids;
+import water.rapids.Session;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AstBinOpTest extends TestUtil {
+  @BeforeClass
+  static public void setup() {
+    stall_till_cloudsize(1);
+  }
+
+  private static final double NA = Double.NaN;
+
+  private static Frame numbers(Session sess) {
+    return Scope.track(new TestFrameBuilder()
+            .withName("numbers", sess)
+            .withColNames("A", "B")
+            .withVecTypes(Vec.T_NUM, Vec.T_NUM)
+            .withDataForCol(0, ard(1, 2.5, NA, -4, 0))
+            .withDataForCol(1, ard(2, 2.5, 3, NA, 7))
+            .withChunkLayout(2, 3)
+            .build());
+  }
+
+  private int _tmps;
+
+  // Result of an expression, as a temp of the session
+  private Frame exec(Session sess, String expr) {
+    return Rapids.exec("(tmp= binop_" + (_tmps++) + " " + expr + ")", sess).getFrame();
+  }
+
+  // Every element as by the scalar op, NAs included
+  private static void assertOp(AstBinOp op, Frame res, double[] l, double[] r) {
+    for (int i = 0; i < l.length; i++) {
+      double exp = op.op(l[i], r[i]);
+      if (Double.isNaN(exp)) assertTrue(Double.isNaN(res.vec(0).at(i)));
+      else assertEquals(exp, res.vec(0).at(i), 0);
+    }
+  }
+
+  @Test
+  public void testFrameOps() {
+    Scope.enter();
+    Session sess = new Session();
+    try {
+      Frame fr = numbers(sess);
+      double[] a = ard(1, 2.5, NA, -4, 0), b = ard(2, 2.5, 3, NA, 7), ten = ard(10, 10, 10, 10, 10);
+      AstBinOp[] ops = {new AstPlus(), new AstSub(), new AstMul(), new AstDiv(), new AstLt(), new AstLe(),
+              new AstGt(), new AstGe(), new AstEq(), new AstNe(), new AstPow(), new AstMod()};
+      for (AstBinOp op : ops) {
+        String o = op.str();
+        assertOp(op, exec(sess, "(" + o + " (cols numbers 0) (cols numbers 1))"), a, b);
+        assertOp(op, exec(sess, "(" + o + " (cols numbers 0) 10)"), a, ten);
+        assertOp(op, exec(sess, "(" + o + " 10 (cols numbers 1))"), ten, b);
+      }
+      // A single column widens to all columns of the other frame
+      Frame res = exec(sess, "(* (cols numbers 1) numbers)");
+      assertEquals(2, res.numCols());
+      assertEquals(2.5 * 2.5, res.vec(0).at(1), 0);
+      assertEquals(7 * 7, res.vec(1).at(4), 0);
+      assertTrue(Double.isNaN(res.vec(1).at(3)));
+    } finally {
+      sess.end(null);
+      Scope.exit();
+    }
+  }
+
+  @Test
+  public void testCategoricalAndStringColumns() {
+    Scope.enter();
+    Session sess = new Session();
+    try {
+      Scope.track(new TestFrameBuilder()
+              .withName("mixed", sess)
+              .withColNames("C", "N")
+              .withVecTypes(Vec.T_CAT, Vec.T_NUM)
+              .withDataForCol(0, ar("a", "b", "a"))
+              .withDataForCol(1, ard(1, 2, 3))
+              .build());
+      // Comparisons are fine on categoricals; arithmetic turns them into NAs
+      Frame eq = exec(sess, "(== mixed 'a')");
+      assertEquals(1, eq.vec(0).at(0), 0);
+      assertEquals(0, eq.vec(0).at(1), 0);
+      Frame plus = exec(sess, "(+ mixed mixed)");
+      assertTrue(Double.isNaN(plus.vec(0).at(0)));
+      assertEquals(6, plus.vec(1).at(2), 0);
+
+      Scope.track(new TestFrameBuilder()
+              .withName("strings", sess)
+              .withColNames("S")
+              .withVecTypes(Vec.T_STR)
+              .withDataForCol(0, ar("x", "y"))
+              .build());
+      Frame seq = exec(sess, "(== strings strings)");
+      assertEquals(1, seq.vec(0).at(1), 0);
+    } finally {
+      sess.end(null);
+      Scope.exit();
+    }
+  }
+}
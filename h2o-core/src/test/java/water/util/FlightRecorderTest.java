@@ -0,0 +1,123 @@
+package water.util;
+
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import hex.ModelBuilderTest;
+import water.H2O;
+import water.IcedUtils;
+import water.Job;
+import water.Key;
+import water.MRTask;
+import water.TestUtil;
+import water.fvec.Chunk;
+import water.fvec.Frame;
+import water.fvec.Vec;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class FlightRecorderTest extends TestUtil {
+  @BeforeClass public static void setup() { stall_till_cloudsize(1); }
+
+  private static class Count extends MRTask<Count> {
+    long _n;
+    @Override public void map(Chunk c) { _n += c._len; }
+    @Override public void reduce(Count that) { _n += that._n; }
+  }
+
+  @Test public void testOnOff() {
+    boolean[] on = FlightRecorder.setEnabledOnAllNodes(false);
+    assertEquals(H2O.CLOUD.size(), on.length);
+    assertFalse(on[0]);
+    assertNull(FlightRecorder.begin(FlightRecorder.Type.MRTASK_MAP));
+    FlightRecorder.commit(null, FlightRecorder.Type.MRTASK_MAP, "x", null, 0, 0); // No-op
+  }
+
+  // JFR is read by reflection, as the API is missing before Java 11
+  @Test public void testMRTaskEvents() throws Exception {
+    Assume.assumeTrue("JFR not available", FlightRecorder.setEnabled(true));
+    Frame fr = null;
+    File jfr = File.createTempFile("h2o-events", ".jfr");
+    try {
+      Class<?> recClz = Class.forName("jdk.jfr.Recording");
+      Object rec = recClz.newInstance();
+      recClz.getMethod("start").invoke(rec);
+      fr = new Frame(Vec.makeSeq(10000, false));
+      assertEquals(10000, new Count().doAll(fr)._n);
+      recClz.getMethod("stop").invoke(rec);
+      recClz.getMethod("dump", java.nio.file.Path.class).invoke(rec, jfr.toPath());
+      recClz.getMethod("close").invoke(rec);
+
+      Class<?> fileClz = Class.forName("jdk.jfr.consumer.RecordingFile");
+      List<?> events = (List<?>) fileClz.getMethod("readAllEvents", java.nio.file.Path.class).invoke(null, jfr.toPath());
+      Class<?> evClz = Class.forName("jdk.jfr.consumer.RecordedEvent");
+      Method type = evClz.getMethod("getEventType"), getString = evClz.getMethod("getString", String.class);
+      Method getLong = evClz.getMethod("getLong", String.class);
+      Method name = Class.forName("jdk.jfr.EventType").getMethod("getName");
+      int maps = 0, setups = 0;
+      long rows = 0;
+      for (Object ev : events) {
+        String n = (String) name.invoke(type.invoke(ev));
+        if (!n.startsWith("h2o.MRTask") || !Count.class.getName().equals(getString.invoke(ev, "task"))) continue;
+        if (n.equals("h2o.MRTaskMap")) {
+          maps++;
+          rows += (Long) getLong.invoke(ev, "rows");
+        }
+        if (n.equals("h2o.MRTaskSetupLocal")) setups++;
+      }
+      assertEquals(fr.anyVec().nChunks(), maps);
+      assertEquals(10000, rows);
+      assertEquals(1, setups);
+    } finally {
+      FlightRecorder.setEnabled(false);
+      if (fr != null) fr.delete();
+      jfr.delete();
+    }
+  }
+
+  // Iterations are reported on copies of the Job, fresh from the DKV of
+  // whichever node reports them
+  @Test public void testModelIterationEvents() throws Exception {
+    Assume.assumeTrue("JFR not available", FlightRecorder.setEnabled(true));
+    File jfr = File.createTempFile("h2o-events", ".jfr");
+    Job<ModelBuilderTest.DummyModel> job = null;
+    try {
+      Class<?> recClz = Class.forName("jdk.jfr.Recording");
+      Object rec = recClz.newInstance();
+      recClz.getMethod("start").invoke(rec);
+      job = new Job<>(Key.<ModelBuilderTest.DummyModel>make(), ModelBuilderTest.DummyModel.class.getName(), "iterations");
+      final Key<Job> jobKey = job._key;
+      job.start(new H2O.H2OCountedCompleter() {
+        @Override public void compute2() {
+          for (int i = 0; i < 3; i++) IcedUtils.deepCopy(jobKey.get()).update(1);
+          tryComplete();
+        }
+      }, 3).get();
+      recClz.getMethod("stop").invoke(rec);
+      recClz.getMethod("dump", java.nio.file.Path.class).invoke(rec, jfr.toPath());
+      recClz.getMethod("close").invoke(rec);
+
+      Class<?> fileClz = Class.forName("jdk.jfr.consumer.RecordingFile");
+      List<?> events = (List<?>) fileClz.getMethod("readAllEvents", java.nio.file.Path.class).invoke(null, jfr.toPath());
+      Class<?> evClz = Class.forName("jdk.jfr.consumer.RecordedEvent");
+      Method type = evClz.getMethod("getEventType"), getString = evClz.getMethod("getString", String.class);
+      Method getLong = evClz.getMethod("getLong", String.class);
+      Method name = Class.forName("jdk.jfr.EventType").getMethod("getName");
+      List<Long> worked = new ArrayList<>();
+      for (Object ev : events)
+        if (name.invoke(type.invoke(ev)).equals("h2o.ModelIteration") && job._result.toString().equals(getString.invoke(ev, "model")))
+          worked.add((Long) getLong.invoke(ev, "worked"));
+      java.util.Collections.sort(worked);
+      assertEquals("[1, 2, 3]", worked.toString());
+    } finally {
+      FlightRecorder.setEnabled(false);
+      if (job != null) job.remove();
+      jfr.delete();
+    }
+  }
+}
@@ -0,0 +1,52 @@
+package water.util;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class LZ4CodecTest {
+
+  private static void assertRoundTrip(byte[] raw) {
+    byte[] packed = LZ4Codec.compress(raw);
+    assertTrue(packed.length <= LZ4Codec.maxCompressedLength(raw.length));
+    assertArrayEquals(raw, LZ4Codec.decompress(packed, raw.length));
+  }
+
+  @Test public void testEmptyAndTiny() {
+    assertRoundTrip(new byte[0]);
+    assertRoundTrip(new byte[]{1});
+    assertRoundTrip("abcabcabcabc".getBytes());
+  }
+
+  @Test public void testCompressible() {
+    byte[] raw = new byte[1 << 20];
+    for (int i = 0; i < raw.length; i++) raw[i] = (byte) (i % 7 == 0 ? i >> 10 : 0);
+    assertRoundTrip(raw);
+    assertTrue(LZ4Codec.compress(raw).length < raw.length / 4);
+    byte[] zeros = new byte[100000];
+    assertRoundTrip(zeros);
+    assertTrue(LZ4Codec.compress(zeros).length < 1000);
+  }
+
+  @Test public void testRandom() {
+    Random r = new Random(0xDECAF);
+    for (int len : new int[]{13, 100, 4095, 65536, 300000}) {
+      byte[] raw = new byte[len];
+      r.nextBytes(raw);
+      assertRoundTrip(raw);
+      // Mix runs into noise: matches of every length and distance
+      for (int i = 0; i < len; i += 1 + r.nextInt(300))
+        Arrays.fill(raw, i, Math.min(len, i + r.nextInt(600)), (byte) r.nextInt(4));
+      assertRoundTrip(raw);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testMalformed() {
+    byte[] packed = LZ4Codec.compress(new byte[1000]);
+    LZ4Codec.decompress(Arrays.copyOf(packed, packed.length - 3), 1000);
+  }
+}